@@ -0,0 +1,65 @@
+package io.confluent.kafka.connect.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
+/**
+ * Compares a results CSV against the committed baseline. Allocation per operation does not depend on the machine and
+ * is held to a tight tolerance; time per operation does, so its tolerance is wider. Exits with status 1 when any
+ * benchmark present in both files regressed beyond its tolerance.
+ *
+ * <p>Usage: {@code BaselineComparator <baseline.csv> <results.csv> [timeTolerance] [allocTolerance]}, tolerances
+ * as fractions, default 0.25 and 0.10.
+ */
+public final class BaselineComparator {
+
+    //absorbs JMH's allocation measurement noise on benchmarks that allocate next to nothing
+    private static final double ALLOC_SLACK_BYTES = 16;
+
+    private BaselineComparator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineComparator <baseline.csv> <results.csv> [timeTolerance] [allocTolerance]");
+            System.exit(2);
+        }
+        final Path baselinePath = Paths.get(args[0]);
+        final Path resultsPath = Paths.get(args[1]);
+        final double timeTolerance = args.length > 2 ? Double.parseDouble(args[2]) : 0.25;
+        final double allocTolerance = args.length > 3 ? Double.parseDouble(args[3]) : 0.10;
+
+        final Map<String, BenchmarkResult> baseline = BenchmarkResult.read(baselinePath);
+        final Map<String, BenchmarkResult> results = BenchmarkResult.read(resultsPath);
+
+        int compared = 0;
+        int regressions = 0;
+        System.out.printf("%-100s %12s %12s %8s %12s %12s%n", "benchmark", "base", "now", "time", "base B/op", "now B/op");
+        for (BenchmarkResult result : results.values()) {
+            final BenchmarkResult base = baseline.get(result.key());
+            if (base == null) {
+                continue;
+            }
+            compared++;
+
+            final double timeRatio = result.score / base.score;
+            final boolean slower = timeRatio > 1 + timeTolerance;
+            final boolean allocates = !Double.isNaN(base.allocBytesPerOp) && !Double.isNaN(result.allocBytesPerOp)
+                    && result.allocBytesPerOp > base.allocBytesPerOp * (1 + allocTolerance) + ALLOC_SLACK_BYTES;
+            if (slower || allocates) {
+                regressions++;
+            }
+
+            System.out.printf("%-100s %12.1f %12.1f %+7.1f%% %12.1f %12.1f%s%n", result.key(), base.score, result.score,
+                    (timeRatio - 1) * 100, base.allocBytesPerOp, result.allocBytesPerOp,
+                    slower || allocates ? "  REGRESSION" + (slower ? " time" : "") + (allocates ? " alloc" : "") : "");
+        }
+
+        System.out.println(compared + " benchmarks compared against " + baselinePath + ", " + regressions + " regressed");
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+}
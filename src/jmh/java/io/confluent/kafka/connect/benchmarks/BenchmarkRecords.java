@@ -0,0 +1,89 @@
+package io.confluent.kafka.connect.benchmarks;
+
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.source.SourceRecord;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Synthetic records shared by the benchmarks. Every record has a key with a {@value #HOST_FIELD} field and a value
+ * with {@value #HOST_FIELD}, {@value #CONTENT_FIELD} and a configurable number of filler fields. Even records carry an
+ * IP address in {@value #HOST_FIELD} and end {@value #CONTENT_FIELD} with {@value #MATCH_TOKEN}, odd records do not,
+ * so predicates and routers see a 50/50 mix.
+ */
+public final class BenchmarkRecords {
+
+    public static final String HOST_FIELD = "host";
+    public static final String CONTENT_FIELD = "content";
+    public static final String MATCH_TOKEN = "ERROR";
+
+    private BenchmarkRecords() {
+    }
+
+    /**
+     * @param withSchema        Struct records with schemas, or schemaless Maps
+     * @param fieldCount        number of filler fields in the value
+     * @param valueSize         length of the {@value #CONTENT_FIELD} string and of every filler value
+     * @param schemaCardinality number of distinct value schemas the records cycle through
+     * @param count             number of records, a power of two
+     */
+    public static SourceRecord[] records(boolean withSchema, int fieldCount, int valueSize, int schemaCardinality, int count) {
+        final Schema keySchema = SchemaBuilder.struct().name("key")
+                .field(HOST_FIELD, Schema.STRING_SCHEMA)
+                .field("id", Schema.INT64_SCHEMA)
+                .build();
+
+        final Schema[] valueSchemas = new Schema[schemaCardinality];
+        for (int s = 0; s < schemaCardinality; s++) {
+            final SchemaBuilder builder = SchemaBuilder.struct().name("event" + s)
+                    .field(HOST_FIELD, Schema.STRING_SCHEMA)
+                    .field(CONTENT_FIELD, Schema.STRING_SCHEMA);
+            for (int f = 0; f < fieldCount; f++) {
+                builder.field("f" + f, Schema.OPTIONAL_STRING_SCHEMA);
+            }
+            valueSchemas[s] = builder.build();
+        }
+
+        final String filler = padded("v", valueSize);
+        final SourceRecord[] records = new SourceRecord[count];
+        for (int i = 0; i < count; i++) {
+            final String host = i % 2 == 0 ? "10.0." + (i >> 8 & 255) + "." + (i & 255) : "host-" + i + ".example.com";
+            final String content = i % 2 == 0 ? padded(MATCH_TOKEN, valueSize) : padded("INFO", valueSize);
+            final int s = i % schemaCardinality;
+
+            if (withSchema) {
+                final Struct key = new Struct(keySchema).put(HOST_FIELD, host).put("id", (long) i);
+                final Struct value = new Struct(valueSchemas[s]).put(HOST_FIELD, host).put(CONTENT_FIELD, content);
+                for (int f = 0; f < fieldCount; f++) {
+                    value.put("f" + f, filler);
+                }
+                records[i] = new SourceRecord(null, null, "bench", 0, keySchema, key, valueSchemas[s], value, (long) i);
+            } else {
+                final Map<String, Object> key = new HashMap<>();
+                key.put(HOST_FIELD, host);
+                key.put("id", (long) i);
+                final Map<String, Object> value = new HashMap<>();
+                value.put(HOST_FIELD, host);
+                value.put(CONTENT_FIELD, content);
+                value.put("schema", s);
+                for (int f = 0; f < fieldCount; f++) {
+                    value.put("f" + f, filler);
+                }
+                records[i] = new SourceRecord(null, null, "bench", 0, null, key, null, value, (long) i);
+            }
+        }
+        return records;
+    }
+
+    //pads on the left so a match token stays at the end of the string
+    private static String padded(String tail, int size) {
+        final StringBuilder builder = new StringBuilder(Math.max(size, tail.length()));
+        for (int i = tail.length(); i < size; i++) {
+            builder.append('x');
+        }
+        return builder.append(tail).toString();
+    }
+}
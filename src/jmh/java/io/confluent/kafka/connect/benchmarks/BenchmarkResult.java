@@ -0,0 +1,63 @@
+package io.confluent.kafka.connect.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One row of the results CSV written by {@link BenchmarkRunner} and read by {@link BaselineComparator}.
+ */
+final class BenchmarkResult {
+
+    static final String HEADER = "benchmark,params,threads,score,unit,allocBytesPerOp";
+
+    final String benchmark;
+    final String params;
+    final int threads;
+    final double score;
+    final String unit;
+    final double allocBytesPerOp;
+
+    BenchmarkResult(String benchmark, String params, int threads, double score, String unit, double allocBytesPerOp) {
+        this.benchmark = benchmark;
+        this.params = params;
+        this.threads = threads;
+        this.score = score;
+        this.unit = unit;
+        this.allocBytesPerOp = allocBytesPerOp;
+    }
+
+    String key() {
+        return benchmark + "[" + params + "]@" + threads;
+    }
+
+    String toCsv() {
+        return benchmark + "," + params + "," + threads + "," + score + "," + unit + "," + allocBytesPerOp;
+    }
+
+    static BenchmarkResult fromCsv(String line) {
+        final String[] columns = line.split(",", -1);
+        if (columns.length != 6) {
+            throw new IllegalArgumentException("Expected 6 columns in benchmark result: " + line);
+        }
+        return new BenchmarkResult(columns[0], columns[1], Integer.parseInt(columns[2]), Double.parseDouble(columns[3]),
+                columns[4], Double.parseDouble(columns[5]));
+    }
+
+    static Map<String, BenchmarkResult> read(Path path) throws IOException {
+        final List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        final Map<String, BenchmarkResult> results = new LinkedHashMap<>();
+        for (String line : lines) {
+            if (line.isEmpty() || line.startsWith("#") || line.equals(HEADER)) {
+                continue;
+            }
+            final BenchmarkResult result = fromCsv(line);
+            results.put(result.key(), result);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,92 @@
+package io.confluent.kafka.connect.benchmarks;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Runs the benchmarks once per thread count in {@code -Djmh.threads} (default {@code 1,4}) with the GC profiler
+ * attached, and writes one CSV row per benchmark, parameter set and thread count to {@code -Djmh.results}. Any
+ * arguments are passed on to JMH as command line options, for example a benchmark include pattern.
+ */
+public final class BenchmarkRunner {
+
+    static final String ALLOC_NORM = "gc.alloc.rate.norm";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException, IOException {
+        final Options commandLine = new CommandLineOptions(args);
+        final Path output = Paths.get(System.getProperty("jmh.results", "build/reports/jmh/results.csv"));
+
+        final List<String> rows = new ArrayList<>();
+        for (String threads : System.getProperty("jmh.threads", "1,4").split(",")) {
+            final Options options = new OptionsBuilder()
+                    .parent(commandLine)
+                    .threads(Integer.parseInt(threads.trim()))
+                    .addProfiler(GCProfiler.class)
+                    .build();
+            final Collection<RunResult> results = new Runner(options).run();
+            for (RunResult result : results) {
+                rows.add(row(result));
+            }
+        }
+
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(output, StandardCharsets.UTF_8))) {
+            writer.println(BenchmarkResult.HEADER);
+            for (String row : rows) {
+                writer.println(row);
+            }
+        }
+        System.out.println("Wrote " + rows.size() + " results to " + output.toAbsolutePath());
+    }
+
+    private static String row(RunResult result) {
+        final BenchmarkParams params = result.getParams();
+        final Map<String, String> sortedParams = new TreeMap<>();
+        for (String key : params.getParamsKeys()) {
+            sortedParams.put(key, params.getParam(key));
+        }
+        final StringBuilder paramString = new StringBuilder();
+        for (Map.Entry<String, String> param : sortedParams.entrySet()) {
+            if (paramString.length() > 0) {
+                paramString.append(';');
+            }
+            paramString.append(param.getKey()).append('=').append(param.getValue());
+        }
+
+        final Result<?> primary = result.getPrimaryResult();
+        double allocated = Double.NaN;
+        for (Map.Entry<String, Result> secondary : result.getSecondaryResults().entrySet()) {
+            if (secondary.getKey().endsWith(ALLOC_NORM)) {
+                allocated = secondary.getValue().getScore();
+            }
+        }
+
+        return new BenchmarkResult(params.getBenchmark(), paramString.toString(), params.getThreads(),
+                primary.getScore(), primary.getScoreUnit(), allocated).toCsv();
+    }
+}
@@ -0,0 +1,64 @@
+package io.confluent.kafka.connect.benchmarks;
+
+import org.apache.kafka.connect.source.SourceRecord;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Common parameters of the per-transform benchmarks. The transform under test and the records are shared by all
+ * benchmark threads, like one transform instance is shared by the records of a task; each thread walks the records
+ * with its own {@link Cursor}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class RecordBenchmark {
+
+    private static final int RECORD_COUNT = 1024;
+
+    @Param({"true", "false"})
+    public boolean withSchema;
+
+    @Param({"4", "32"})
+    public int fieldCount;
+
+    @Param({"16", "1024"})
+    public int valueSize;
+
+    @Param({"1", "64"})
+    public int schemaCardinality;
+
+    private SourceRecord[] records;
+
+    @Setup(Level.Trial)
+    public void buildRecords() {
+        records = BenchmarkRecords.records(withSchema, fieldCount, valueSize, schemaCardinality, RECORD_COUNT);
+    }
+
+    protected SourceRecord next(Cursor cursor) {
+        return records[cursor.next() & (RECORD_COUNT - 1)];
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int position;
+
+        int next() {
+            return position++;
+        }
+    }
+}
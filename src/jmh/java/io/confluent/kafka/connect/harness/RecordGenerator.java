@@ -0,0 +1,191 @@
+package io.confluent.kafka.connect.harness;
+
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.storage.Converter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Synthetic records in the proportions a log pipeline typically sees: 70% web access logs, 20% metrics and 10% audit
+ * events with a nested user struct, each shape in several schema versions that add optional fields. Every key is a
+ * struct with a {@value #HOST_FIELD} field, an IP address for half of the records and a host name for the rest, and
+ * every value has {@value #HOST_FIELD} and {@value #LEVEL_FIELD} fields.
+ */
+public final class RecordGenerator {
+
+    public static final String HOST_FIELD = "host";
+    public static final String LEVEL_FIELD = "level";
+
+    private static final String[] LEVELS = {"INFO", "INFO", "INFO", "INFO", "INFO", "INFO", "INFO", "INFO", "INFO",
+            "INFO", "INFO", "INFO", "INFO", "INFO", "INFO", "INFO", "WARN", "WARN", "WARN", "ERROR"};
+    private static final String[] METHODS = {"GET", "GET", "GET", "POST", "PUT", "DELETE"};
+    private static final String[] PATHS = {"/", "/login", "/api/v1/orders", "/api/v1/orders/{id}", "/static/app.js"};
+    private static final String[] ACTIONS = {"read", "update", "delete", "grant"};
+
+    private static final Schema KEY_SCHEMA = SchemaBuilder.struct().name("key")
+            .field(HOST_FIELD, Schema.STRING_SCHEMA)
+            .build();
+
+    private static final Schema USER_SCHEMA = SchemaBuilder.struct().name("user")
+            .field("id", Schema.INT64_SCHEMA)
+            .field("name", Schema.STRING_SCHEMA)
+            .field("roles", SchemaBuilder.array(Schema.STRING_SCHEMA).build())
+            .build();
+
+    private final Random random;
+    private final Schema[] accessSchemas;
+    private final Schema[] metricSchemas;
+    private final Schema[] auditSchemas;
+
+    /**
+     * @param seed           seed for the record contents, so runs are repeatable
+     * @param schemaVersions number of versions of each shape, version {@code n} having {@code n} extra optional fields
+     */
+    public RecordGenerator(long seed, int schemaVersions) {
+        random = new Random(seed);
+        accessSchemas = new Schema[schemaVersions];
+        metricSchemas = new Schema[schemaVersions];
+        auditSchemas = new Schema[schemaVersions];
+        for (int v = 0; v < schemaVersions; v++) {
+            accessSchemas[v] = versioned(SchemaBuilder.struct().name("access").version(v + 1)
+                    .field(HOST_FIELD, Schema.STRING_SCHEMA)
+                    .field(LEVEL_FIELD, Schema.STRING_SCHEMA)
+                    .field("method", Schema.STRING_SCHEMA)
+                    .field("path", Schema.STRING_SCHEMA)
+                    .field("status", Schema.INT32_SCHEMA)
+                    .field("bytes", Schema.INT64_SCHEMA)
+                    .field("latency_ms", Schema.FLOAT64_SCHEMA)
+                    .field("user_agent", Schema.OPTIONAL_STRING_SCHEMA), v);
+            metricSchemas[v] = versioned(SchemaBuilder.struct().name("metric").version(v + 1)
+                    .field(HOST_FIELD, Schema.STRING_SCHEMA)
+                    .field(LEVEL_FIELD, Schema.STRING_SCHEMA)
+                    .field("name", Schema.STRING_SCHEMA)
+                    .field("value", Schema.FLOAT64_SCHEMA)
+                    .field("tags", SchemaBuilder.map(Schema.STRING_SCHEMA, Schema.STRING_SCHEMA).build()), v);
+            auditSchemas[v] = versioned(SchemaBuilder.struct().name("audit").version(v + 1)
+                    .field(HOST_FIELD, Schema.STRING_SCHEMA)
+                    .field(LEVEL_FIELD, Schema.STRING_SCHEMA)
+                    .field("user", USER_SCHEMA)
+                    .field("action", Schema.STRING_SCHEMA)
+                    .field("resource", Schema.STRING_SCHEMA)
+                    .field("success", Schema.BOOLEAN_SCHEMA), v);
+        }
+    }
+
+    /**
+     * Generates {@code count} records and serializes them with the given converters, the way a producer upstream of
+     * the connector would have written them.
+     */
+    public List<EncodedRecord> encoded(Converter keyConverter, Converter valueConverter, int count) {
+        final List<EncodedRecord> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final int shape = random.nextInt(10);
+            final String topic;
+            final Struct value;
+            final String host = random.nextBoolean()
+                    ? "10." + random.nextInt(256) + "." + random.nextInt(256) + "." + random.nextInt(256)
+                    : "web-" + random.nextInt(64) + ".example.com";
+            if (shape < 7) {
+                topic = "access-log";
+                value = access(pick(accessSchemas), host);
+            } else if (shape < 9) {
+                topic = "metrics";
+                value = metric(pick(metricSchemas), host);
+            } else {
+                topic = "audit";
+                value = audit(pick(auditSchemas), host);
+            }
+            fillExtras(value);
+
+            final Struct key = new Struct(KEY_SCHEMA).put(HOST_FIELD, host);
+            records.add(new EncodedRecord(topic,
+                    keyConverter.fromConnectData(topic, KEY_SCHEMA, key),
+                    valueConverter.fromConnectData(topic, value.schema(), value),
+                    1_600_000_000_000L + i));
+        }
+        return records;
+    }
+
+    private Struct access(Schema schema, String host) {
+        return new Struct(schema)
+                .put(HOST_FIELD, host)
+                .put(LEVEL_FIELD, pick(LEVELS))
+                .put("method", pick(METHODS))
+                .put("path", pick(PATHS))
+                .put("status", random.nextInt(10) == 0 ? 500 : 200)
+                .put("bytes", (long) random.nextInt(65536))
+                .put("latency_ms", random.nextDouble() * 250)
+                .put("user_agent", random.nextBoolean() ? "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36" : null);
+    }
+
+    private Struct metric(Schema schema, String host) {
+        final Map<String, String> tags = new HashMap<>();
+        tags.put("region", "eu-west-" + (1 + random.nextInt(3)));
+        tags.put("service", "orders");
+        tags.put("instance", host);
+        return new Struct(schema)
+                .put(HOST_FIELD, host)
+                .put(LEVEL_FIELD, "INFO")
+                .put("name", "http.requests")
+                .put("value", random.nextDouble() * 1000)
+                .put("tags", tags);
+    }
+
+    private Struct audit(Schema schema, String host) {
+        final Struct user = new Struct(USER_SCHEMA)
+                .put("id", (long) random.nextInt(10_000))
+                .put("name", "user" + random.nextInt(10_000))
+                .put("roles", Arrays.asList("reader", random.nextBoolean() ? "writer" : "admin"));
+        return new Struct(schema)
+                .put(HOST_FIELD, host)
+                .put(LEVEL_FIELD, pick(LEVELS))
+                .put("user", user)
+                .put("action", pick(ACTIONS))
+                .put("resource", "orders/" + random.nextInt(100_000))
+                .put("success", random.nextInt(20) != 0);
+    }
+
+    //fills about half of the optional fields a schema version added
+    private void fillExtras(Struct value) {
+        for (int v = 0; value.schema().field("extra" + v) != null; v++) {
+            if (random.nextBoolean()) {
+                value.put("extra" + v, "extra-value-" + random.nextInt(1000));
+            }
+        }
+    }
+
+    private static Schema versioned(SchemaBuilder builder, int extraFields) {
+        for (int v = 0; v < extraFields; v++) {
+            builder.field("extra" + v, Schema.OPTIONAL_STRING_SCHEMA);
+        }
+        return builder.build();
+    }
+
+    private <T> T pick(T[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    /**
+     * A record as it would arrive from a Kafka topic, serialized key and value bytes.
+     */
+    public static final class EncodedRecord {
+        final String topic;
+        final byte[] key;
+        final byte[] value;
+        final long timestamp;
+
+        EncodedRecord(String topic, byte[] key, byte[] value, long timestamp) {
+            this.topic = topic;
+            this.key = key;
+            this.value = value;
+            this.timestamp = timestamp;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package io.confluent.kafka.connect.harness;
+
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.utils.Time;
+import org.apache.kafka.connect.data.SchemaAndValue;
+import org.apache.kafka.connect.header.Header;
+import org.apache.kafka.connect.json.JsonConverter;
+import org.apache.kafka.connect.runtime.ConnectMetrics;
+import org.apache.kafka.connect.runtime.ConnectorConfig;
+import org.apache.kafka.connect.runtime.TransformationChain;
+import org.apache.kafka.connect.runtime.errors.ErrorHandlingMetrics;
+import org.apache.kafka.connect.runtime.errors.RetryWithToleranceOperator;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.apache.kafka.connect.storage.Converter;
+import org.apache.kafka.connect.storage.HeaderConverter;
+import org.apache.kafka.connect.storage.SimpleHeaderConverter;
+import org.apache.kafka.connect.util.ConnectorTaskId;
+
+import java.util.Collections;
+
+/**
+ * One simulated sink task: converts the record bytes with its own {@link JsonConverter}s, runs the connector's
+ * {@link TransformationChain} with the same error handling a worker sets up, and serializes the result again with
+ * {@link JsonConverter}s and a {@link SimpleHeaderConverter}, as a task writing JSON out would. Like a real task it is
+ * used by one thread only.
+ */
+final class TaskSimulator implements AutoCloseable {
+
+    private final Converter keyIn;
+    private final Converter valueIn;
+    private final Converter keyOut;
+    private final Converter valueOut;
+    private final HeaderConverter headerOut;
+    private final RetryWithToleranceOperator errorHandling;
+    private final TransformationChain<SinkRecord> chain;
+
+    private long offset;
+    private long outputBytes;
+
+    TaskSimulator(ConnectorTaskId id, ConnectorConfig config, ConnectMetrics metrics, boolean schemasEnable) {
+        keyIn = converter(true, schemasEnable);
+        valueIn = converter(false, schemasEnable);
+        keyOut = converter(true, schemasEnable);
+        valueOut = converter(false, schemasEnable);
+        headerOut = new SimpleHeaderConverter();
+        headerOut.configure(Collections.emptyMap());
+
+        errorHandling = new RetryWithToleranceOperator(config.errorRetryTimeout(), config.errorMaxDelayInMillis(),
+                config.errorToleranceType(), Time.SYSTEM);
+        errorHandling.metrics(new ErrorHandlingMetrics(id, metrics));
+        chain = new TransformationChain<>(config.<SinkRecord>transformations(), errorHandling);
+    }
+
+    static JsonConverter converter(boolean isKey, boolean schemasEnable) {
+        final JsonConverter converter = new JsonConverter();
+        converter.configure(Collections.singletonMap("schemas.enable", String.valueOf(schemasEnable)), isKey);
+        return converter;
+    }
+
+    /**
+     * @return false when the chain dropped the record, through a filter or a tolerated error
+     */
+    boolean process(RecordGenerator.EncodedRecord input) {
+        final SchemaAndValue key = keyIn.toConnectData(input.topic, input.key);
+        final SchemaAndValue value = valueIn.toConnectData(input.topic, input.value);
+        final SinkRecord record = new SinkRecord(input.topic, 0, key.schema(), key.value(), value.schema(), value.value(),
+                offset++, input.timestamp, TimestampType.CREATE_TIME);
+
+        final SinkRecord transformed = chain.apply(record);
+        if (transformed == null) {
+            return false;
+        }
+
+        final byte[] keyBytes = keyOut.fromConnectData(transformed.topic(), transformed.keySchema(), transformed.key());
+        final byte[] valueBytes = valueOut.fromConnectData(transformed.topic(), transformed.valueSchema(), transformed.value());
+        outputBytes += (keyBytes == null ? 0 : keyBytes.length) + (valueBytes == null ? 0 : valueBytes.length);
+        for (Header header : transformed.headers()) {
+            final byte[] headerBytes = headerOut.fromConnectHeader(transformed.topic(), header.key(), header.schema(), header.value());
+            outputBytes += headerBytes == null ? 0 : headerBytes.length;
+        }
+        return true;
+    }
+
+    long outputBytes() {
+        return outputBytes;
+    }
+
+    @Override
+    public void close() {
+        chain.close();
+        errorHandling.close();
+    }
+}
@@ -0,0 +1,198 @@
+package io.confluent.kafka.connect.harness;
+
+import org.apache.kafka.common.utils.Time;
+import org.apache.kafka.connect.json.JsonConverter;
+import org.apache.kafka.connect.runtime.ConnectMetrics;
+import org.apache.kafka.connect.runtime.ConnectorConfig;
+import org.apache.kafka.connect.runtime.WorkerConfig;
+import org.apache.kafka.connect.runtime.standalone.StandaloneConfig;
+import org.apache.kafka.connect.util.ConnectorTaskId;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Drives a connector's transformation chain through an in-process simulated Connect worker, with no broker: one
+ * {@link TaskSimulator} per thread, fed JSON-serialized records from a {@link RecordGenerator}. For every thread count
+ * it reports records per second across all tasks, the per-record latency percentiles of the whole
+ * deserialize-transform-serialize path and the average serialized size of a record the chain kept.
+ * <p>
+ * The single argument is a properties file holding a connector configuration ({@code transforms}, {@code predicates},
+ * {@code errors.tolerance}, ...). Keys starting with {@value #PREFIX} configure the harness itself and can be
+ * overridden with system properties of the same name:
+ * <ul>
+ *   <li>{@code harness.threads} - comma separated thread counts, default {@code 1,4,16}</li>
+ *   <li>{@code harness.records} - measured records per thread, default {@code 200000}</li>
+ *   <li>{@code harness.warmup} - warm-up records per thread, default {@code 100000}</li>
+ *   <li>{@code harness.schemas.enable} - JSON with embedded schemas, or schemaless JSON, default {@code true}</li>
+ *   <li>{@code harness.schema.versions} - schema versions per record shape, default {@code 4}</li>
+ *   <li>{@code harness.distinct.records} - distinct records each task cycles through, default {@code 8192}</li>
+ * </ul>
+ */
+public final class ThroughputHarness {
+
+    static final String PREFIX = "harness.";
+
+    private ThroughputHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1) {
+            System.err.println("Usage: ThroughputHarness <connector properties file>");
+            System.exit(1);
+        }
+
+        final Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        final Map<String, String> harness = new HashMap<>();
+        final Map<String, String> connector = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            (name.startsWith(PREFIX) ? harness : connector).put(name, properties.getProperty(name));
+        }
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith(PREFIX)) {
+                harness.put(name, System.getProperty(name));
+            }
+        }
+        connector.putIfAbsent(ConnectorConfig.NAME_CONFIG, "throughput-harness");
+        connector.putIfAbsent(ConnectorConfig.CONNECTOR_CLASS_CONFIG, "SimulatedSinkConnector");
+
+        final int records = Integer.parseInt(harness.getOrDefault("harness.records", "200000"));
+        final int warmup = Integer.parseInt(harness.getOrDefault("harness.warmup", "100000"));
+        final boolean schemasEnable = Boolean.parseBoolean(harness.getOrDefault("harness.schemas.enable", "true"));
+        final int schemaVersions = Integer.parseInt(harness.getOrDefault("harness.schema.versions", "4"));
+        final int distinct = Integer.parseInt(harness.getOrDefault("harness.distinct.records", "8192"));
+
+        final ConnectorConfig config = new ConnectorConfig(null, connector);
+        final ConnectMetrics metrics = new ConnectMetrics("throughput-harness", workerConfig(), Time.SYSTEM, "local");
+
+        System.out.printf("transforms=%s schemas.enable=%b records/thread=%d warmup/thread=%d%n",
+                connector.getOrDefault(ConnectorConfig.TRANSFORMS_CONFIG, ""), schemasEnable, records, warmup);
+        System.out.printf("%7s %14s %10s %10s %10s %10s %10s %10s%n",
+                "threads", "records/sec", "p50 us", "p99 us", "p99.9 us", "max us", "dropped", "out B/rec");
+        try {
+            for (String threads : harness.getOrDefault("harness.threads", "1,4,16").split(",")) {
+                run(Integer.parseInt(threads.trim()), config, metrics, schemasEnable, schemaVersions, distinct, warmup, records);
+            }
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    private static void run(int threads, ConnectorConfig config, ConnectMetrics metrics, boolean schemasEnable,
+                            int schemaVersions, int distinct, int warmup, int records) throws Exception {
+        final List<TaskSimulator> tasks = new ArrayList<>(threads);
+        final List<List<RecordGenerator.EncodedRecord>> inputs = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            tasks.add(new TaskSimulator(new ConnectorTaskId(config.getString(ConnectorConfig.NAME_CONFIG), t), config,
+                    metrics, schemasEnable));
+            final JsonConverter keyConverter = TaskSimulator.converter(true, schemasEnable);
+            final JsonConverter valueConverter = TaskSimulator.converter(false, schemasEnable);
+            inputs.add(new RecordGenerator(t, schemaVersions).encoded(keyConverter, valueConverter, distinct));
+        }
+
+        //all tasks finish warming up before the clock starts
+        final CyclicBarrier warmedUp = new CyclicBarrier(threads + 1);
+        final ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<TaskResult>> futures = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                final TaskSimulator task = tasks.get(t);
+                final List<RecordGenerator.EncodedRecord> input = inputs.get(t);
+                futures.add(pool.submit((Callable<TaskResult>) () -> {
+                    for (int i = 0; i < warmup; i++) {
+                        task.process(input.get(i % input.size()));
+                    }
+                    warmedUp.await();
+
+                    final long outputBytesBefore = task.outputBytes();
+                    final long[] latencies = new long[records];
+                    long dropped = 0;
+                    for (int i = 0; i < records; i++) {
+                        final long start = System.nanoTime();
+                        if (!task.process(input.get(i % input.size()))) {
+                            dropped++;
+                        }
+                        latencies[i] = System.nanoTime() - start;
+                    }
+                    return new TaskResult(latencies, dropped, task.outputBytes() - outputBytesBefore);
+                }));
+            }
+
+            warmedUp.await();
+            final long start = System.nanoTime();
+            final long[] latencies = new long[threads * records];
+            long dropped = 0;
+            long outputBytes = 0;
+            for (int t = 0; t < threads; t++) {
+                final TaskResult result = futures.get(t).get();
+                System.arraycopy(result.latencies, 0, latencies, t * records, records);
+                dropped += result.dropped;
+                outputBytes += result.outputBytes;
+            }
+            final long elapsed = System.nanoTime() - start;
+
+            Arrays.sort(latencies);
+            final long kept = latencies.length - dropped;
+            System.out.printf("%7d %14.0f %10.1f %10.1f %10.1f %10.1f %10d %10.1f%n",
+                    threads,
+                    latencies.length / (elapsed / 1e9),
+                    percentile(latencies, 0.50),
+                    percentile(latencies, 0.99),
+                    percentile(latencies, 0.999),
+                    latencies[latencies.length - 1] / 1e3,
+                    dropped,
+                    kept == 0 ? 0.0 : (double) outputBytes / kept);
+        } finally {
+            pool.shutdownNow();
+            for (TaskSimulator task : tasks) {
+                task.close();
+            }
+        }
+    }
+
+    //in microseconds, from sorted nanosecond latencies
+    private static double percentile(long[] sorted, double quantile) {
+        final int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(index, 0)] / 1e3;
+    }
+
+    //only used for the metrics registry, nothing connects to bootstrap.servers
+    private static WorkerConfig workerConfig() {
+        final Map<String, String> props = new HashMap<>();
+        props.put(WorkerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
+        props.put(WorkerConfig.KEY_CONVERTER_CLASS_CONFIG, JsonConverter.class.getName());
+        props.put(WorkerConfig.VALUE_CONVERTER_CLASS_CONFIG, JsonConverter.class.getName());
+        props.put(StandaloneConfig.OFFSET_STORAGE_FILE_FILENAME_CONFIG, "/dev/null");
+        return new StandaloneConfig(props);
+    }
+
+    private static final class TaskResult {
+        final long[] latencies;
+        final long dropped;
+        //key, value and header bytes serialized while measuring
+        final long outputBytes;
+
+        TaskResult(long[] latencies, long dropped, long outputBytes) {
+            this.latencies = latencies;
+            this.dropped = dropped;
+            this.outputBytes = outputBytes;
+        }
+    }
+}
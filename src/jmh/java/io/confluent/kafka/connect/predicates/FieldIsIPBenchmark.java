@@ -0,0 +1,35 @@
+package io.confluent.kafka.connect.predicates;
+
+import io.confluent.kafka.connect.benchmarks.BenchmarkRecords;
+import io.confluent.kafka.connect.benchmarks.RecordBenchmark;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class FieldIsIPBenchmark extends RecordBenchmark {
+
+    private final FieldIsIP<SourceRecord> predicate = new FieldIsIP<>();
+
+    @Setup(Level.Trial)
+    public void configure() {
+        final Map<String, Object> props = new HashMap<>();
+        props.put("field", BenchmarkRecords.HOST_FIELD);
+        props.put("useValue", "true");
+        predicate.configure(props);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        predicate.close();
+    }
+
+    @Benchmark
+    public boolean test(Cursor cursor) {
+        return predicate.test(next(cursor));
+    }
+}
@@ -0,0 +1,142 @@
+package io.confluent.kafka.connect.transforms;
+
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.apache.kafka.connect.transforms.Transformation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * KeyToValue -> InsertUuid.Value -> InsertTimestamp.Value -> RegexRouter, applied one transform at a time versus
+ * through {@link FusedChain}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FusedChainBenchmark {
+
+    @Param({"true", "false"})
+    public boolean withSchema;
+
+    @Param({"4", "32"})
+    public int fieldCount;
+
+    private final List<Transformation<SourceRecord>> unfused = new ArrayList<>();
+    private final FusedChain<SourceRecord> fused = new FusedChain<>();
+    private SourceRecord record;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final Map<String, Object> k2v = new HashMap<>();
+        k2v.put("keyField", "host");
+        k2v.put("msgField", "ip");
+        final Map<String, Object> uuid = new HashMap<>();
+        uuid.put("uuid.field.name", "id");
+        final Map<String, Object> ts = new HashMap<>();
+        ts.put("ts.field.name", "ingested");
+        final Map<String, Object> route = new HashMap<>();
+        route.put("field.name", "f0");
+        route.put("regex", "ERROR");
+        route.put("topic.name", "errors");
+
+        unfused.add(configured(new KeyToValue<>(), k2v));
+        unfused.add(configured(new InsertUuid.Value<>(), uuid));
+        unfused.add(configured(new InsertTimestamp.Value<>(), ts));
+        unfused.add(configured(new RegexRouter<>(), route));
+
+        final Map<String, Object> props = new HashMap<>();
+        props.put("stages", "k2v,uuid,ts,route");
+        props.put("stages.k2v.type", KeyToValue.class.getName());
+        props.put("stages.uuid.type", InsertUuid.Value.class.getName());
+        props.put("stages.ts.type", InsertTimestamp.Value.class.getName());
+        props.put("stages.route.type", RegexRouter.class.getName());
+        prefixed(props, "stages.k2v.", k2v);
+        prefixed(props, "stages.uuid.", uuid);
+        prefixed(props, "stages.ts.", ts);
+        prefixed(props, "stages.route.", route);
+        fused.configure(props);
+
+        record = withSchema ? structRecord(fieldCount) : mapRecord(fieldCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (Transformation<SourceRecord> transform : unfused) {
+            transform.close();
+        }
+        fused.close();
+    }
+
+    @Benchmark
+    public SourceRecord unfused() {
+        SourceRecord current = record;
+        for (Transformation<SourceRecord> transform : unfused) {
+            current = transform.apply(current);
+        }
+        return current;
+    }
+
+    @Benchmark
+    public SourceRecord fused() {
+        return fused.apply(record);
+    }
+
+    private static Transformation<SourceRecord> configured(Transformation<SourceRecord> transform, Map<String, Object> props) {
+        transform.configure(props);
+        return transform;
+    }
+
+    private static void prefixed(Map<String, Object> target, String prefix, Map<String, Object> props) {
+        for (Map.Entry<String, Object> entry : props.entrySet()) {
+            target.put(prefix + entry.getKey(), entry.getValue());
+        }
+    }
+
+    private static SourceRecord structRecord(int fieldCount) {
+        final Schema keySchema = SchemaBuilder.struct().field("host", Schema.STRING_SCHEMA).build();
+        final SchemaBuilder valueBuilder = SchemaBuilder.struct();
+        for (int i = 0; i < fieldCount; i++) {
+            valueBuilder.field("f" + i, Schema.STRING_SCHEMA);
+        }
+        final Schema valueSchema = valueBuilder.build();
+
+        final Struct value = new Struct(valueSchema);
+        for (int i = 0; i < fieldCount; i++) {
+            value.put("f" + i, i == 0 ? "ERROR" : "value-" + i);
+        }
+        return new SourceRecord(null, null, "logs", 0, keySchema, new Struct(keySchema).put("host", "10.0.0.1"),
+                valueSchema, value);
+    }
+
+    private static SourceRecord mapRecord(int fieldCount) {
+        final Map<String, Object> key = new HashMap<>();
+        key.put("host", "10.0.0.1");
+        final Map<String, Object> value = new HashMap<>();
+        for (int i = 0; i < fieldCount; i++) {
+            value.put("f" + i, i == 0 ? "ERROR" : "value-" + i);
+        }
+        return new SourceRecord(null, null, "logs", 0, null, key, null, value);
+    }
+}
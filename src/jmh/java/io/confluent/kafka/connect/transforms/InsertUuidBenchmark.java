@@ -0,0 +1,38 @@
+package io.confluent.kafka.connect.transforms;
+
+import io.confluent.kafka.connect.benchmarks.RecordBenchmark;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Collections;
+
+public class InsertUuidBenchmark extends RecordBenchmark {
+
+    private final InsertUuid<SourceRecord> key = new InsertUuid.Key<>();
+    private final InsertUuid<SourceRecord> value = new InsertUuid.Value<>();
+
+    @Setup(Level.Trial)
+    public void configure() {
+        key.configure(Collections.singletonMap("uuid.field.name", "inserted"));
+        value.configure(Collections.singletonMap("uuid.field.name", "inserted"));
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        key.close();
+        value.close();
+    }
+
+    @Benchmark
+    public SourceRecord key(Cursor cursor) {
+        return key.apply(next(cursor));
+    }
+
+    @Benchmark
+    public SourceRecord value(Cursor cursor) {
+        return value.apply(next(cursor));
+    }
+}
@@ -0,0 +1,35 @@
+package io.confluent.kafka.connect.transforms;
+
+import io.confluent.kafka.connect.benchmarks.BenchmarkRecords;
+import io.confluent.kafka.connect.benchmarks.RecordBenchmark;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class KeyToValueBenchmark extends RecordBenchmark {
+
+    private final KeyToValue<SourceRecord> transform = new KeyToValue<>();
+
+    @Setup(Level.Trial)
+    public void configure() {
+        final Map<String, Object> props = new HashMap<>();
+        props.put("keyField", BenchmarkRecords.HOST_FIELD);
+        props.put("msgField", "source_host");
+        transform.configure(props);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        transform.close();
+    }
+
+    @Benchmark
+    public SourceRecord apply(Cursor cursor) {
+        return transform.apply(next(cursor));
+    }
+}
@@ -0,0 +1,36 @@
+package io.confluent.kafka.connect.transforms;
+
+import io.confluent.kafka.connect.benchmarks.BenchmarkRecords;
+import io.confluent.kafka.connect.benchmarks.RecordBenchmark;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class RegexRouterBenchmark extends RecordBenchmark {
+
+    private final RegexRouter<SourceRecord> router = new RegexRouter<>();
+
+    @Setup(Level.Trial)
+    public void configure() {
+        final Map<String, Object> props = new HashMap<>();
+        props.put("field.name", BenchmarkRecords.CONTENT_FIELD);
+        props.put("regex", BenchmarkRecords.MATCH_TOKEN + "$");
+        props.put("topic.name", "errors");
+        router.configure(props);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        router.close();
+    }
+
+    @Benchmark
+    public SourceRecord apply(Cursor cursor) {
+        return router.apply(next(cursor));
+    }
+}
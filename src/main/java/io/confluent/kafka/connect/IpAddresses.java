@@ -0,0 +1,282 @@
+package io.confluent.kafka.connect;
+
+/**
+ * IPv4 and IPv6 parsing and formatting. Parsing scans the text in place and writes the 16 address bytes into an
+ * array owned by the caller, so it allocates nothing. IPv4 addresses are stored IPv4-mapped, as {@code ::ffff:a.b.c.d},
+ * or parsed on their own into an unsigned 32-bit number in a long.
+ * <p>
+ * This class is public because its users live in more than one package; it is not part of the plugin configuration.
+ */
+public final class IpAddresses {
+
+    public static final int INVALID = 0;
+    public static final int IPV4 = 4;
+    public static final int IPV6 = 6;
+
+    public static final long INVALID_IPV4 = -1;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final char[] MAPPED_PREFIX = "::ffff:".toCharArray();
+
+    private IpAddresses() {
+    }
+
+    /**
+     * Parses an address, ignoring one pair of surrounding double quotes.
+     *
+     * @param address receives the 16 bytes of the address, IPv4 as an IPv4-mapped address; undefined when invalid
+     * @return {@link #IPV4}, {@link #IPV6} or {@link #INVALID}
+     */
+    public static int parse(CharSequence text, byte[] address) {
+        int start = 0;
+        int end = text.length();
+        if (end >= 2 && text.charAt(0) == '"' && text.charAt(end - 1) == '"') {
+            start++;
+            end--;
+        }
+        return parse(text, start, end, address);
+    }
+
+    /**
+     * Parses the address between {@code start} and {@code end}, with no quotes.
+     */
+    public static int parse(CharSequence text, int start, int end, byte[] address) {
+        final long ipv4 = parseIpv4(text, start, end);
+        if (ipv4 != INVALID_IPV4) {
+            for (int i = 0; i < 10; i++) {
+                address[i] = 0;
+            }
+            address[10] = (byte) 0xff;
+            address[11] = (byte) 0xff;
+            putIpv4(address, 12, ipv4);
+            return IPV4;
+        }
+        return parseIpv6(text, start, end, address) ? IPV6 : INVALID;
+    }
+
+    /**
+     * The IPv4 address as an unsigned 32-bit number, also for an IPv4-mapped IPv6 address, or {@link #INVALID_IPV4}.
+     */
+    public static long ipv4(byte[] address) {
+        for (int i = 0; i < 10; i++) {
+            if (address[i] != 0) {
+                return INVALID_IPV4;
+            }
+        }
+        if (address[10] != (byte) 0xff || address[11] != (byte) 0xff) {
+            return INVALID_IPV4;
+        }
+        return (address[12] & 0xffL) << 24 | (address[13] & 0xffL) << 16 | (address[14] & 0xffL) << 8 | (address[15] & 0xffL);
+    }
+
+    /**
+     * The IPv4 address of the whole text, a dotted quad of 1-3 digit octets up to 255, or {@link #INVALID_IPV4}.
+     */
+    public static long parseIpv4(CharSequence text) {
+        return parseIpv4(text, 0, text.length(), false);
+    }
+
+    /**
+     * The IPv4 address between {@code start} and {@code end}, or {@link #INVALID_IPV4}.
+     */
+    public static long parseIpv4(CharSequence text, int start, int end) {
+        return parseIpv4(text, start, end, false);
+    }
+
+    /**
+     * The IPv4 address of the text with every double quote in it skipped, as {@code FieldIsIP} has always read its
+     * field, or {@link #INVALID_IPV4}.
+     */
+    public static long parseIpv4IgnoringQuotes(CharSequence text) {
+        return parseIpv4(text, 0, text.length(), true);
+    }
+
+    private static long parseIpv4(CharSequence text, int start, int end, boolean skipQuotes) {
+        long address = 0;
+        int octets = 0;
+        int digits = 0;
+        int octet = 0;
+        for (int i = start; i < end; i++) {
+            final char c = text.charAt(i);
+            if (c == '"' && skipQuotes) {
+                continue;
+            }
+            if (c >= '0' && c <= '9') {
+                if (++digits > 3) {
+                    return INVALID_IPV4;
+                }
+                octet = octet * 10 + (c - '0');
+            } else if (c == '.' && digits > 0 && octet <= 255 && octets < 3) {
+                address = address << 8 | octet;
+                octets++;
+                digits = 0;
+                octet = 0;
+            } else {
+                return INVALID_IPV4;
+            }
+        }
+        if (octets != 3 || digits == 0 || octet > 255) {
+            return INVALID_IPV4;
+        }
+        return address << 8 | octet;
+    }
+
+    //groups of 1-4 hex digits, at most one "::" and an optional dotted quad in the last 32 bits
+    private static boolean parseIpv6(CharSequence text, int start, int end, byte[] address) {
+        int i = start;
+        int length = 0;
+        int gap = -1;
+        if (end - i >= 2 && text.charAt(i) == ':' && text.charAt(i + 1) == ':') {
+            gap = 0;
+            i += 2;
+        }
+        while (i < end) {
+            if (length == 16) {
+                return false;
+            }
+            int j = i;
+            int group = 0;
+            while (j < end && j - i < 4 && hex(text.charAt(j)) >= 0) {
+                group = group << 4 | hex(text.charAt(j));
+                j++;
+            }
+            if (j < end && text.charAt(j) == '.') {
+                final long ipv4 = parseIpv4(text, i, end);
+                if (ipv4 == INVALID_IPV4 || length > 12) {
+                    return false;
+                }
+                putIpv4(address, length, ipv4);
+                length += 4;
+                break;
+            }
+            if (j == i) {
+                return false;
+            }
+            address[length++] = (byte) (group >>> 8);
+            address[length++] = (byte) group;
+            if (j == end) {
+                break;
+            }
+            if (text.charAt(j) != ':') {
+                return false;
+            }
+            j++;
+            if (j < end && text.charAt(j) == ':') {
+                if (gap >= 0) {
+                    return false;
+                }
+                gap = length;
+                j++;
+            } else if (j == end) {
+                return false;
+            }
+            i = j;
+        }
+        if (gap < 0) {
+            return length == 16;
+        }
+        if (length > 14) {
+            return false;
+        }
+        //move the groups after "::" to the end and zero the gap
+        final int shift = 16 - length;
+        for (int k = length - 1; k >= gap; k--) {
+            address[k + shift] = address[k];
+        }
+        for (int k = gap; k < gap + shift; k++) {
+            address[k] = 0;
+        }
+        return true;
+    }
+
+    private static int hex(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private static void putIpv4(byte[] address, int offset, long ipv4) {
+        address[offset] = (byte) (ipv4 >>> 24);
+        address[offset + 1] = (byte) (ipv4 >>> 16);
+        address[offset + 2] = (byte) (ipv4 >>> 8);
+        address[offset + 3] = (byte) ipv4;
+    }
+
+    /**
+     * Canonical text: a dotted quad for IPv4, and for IPv6 the RFC 5952 form, lower case without leading zeros and
+     * with the longest run of two or more zero groups compressed to "::".
+     */
+    public static String format(byte[] address, int version) {
+        final char[] text = new char[45];
+        int length = 0;
+        if (version == IPV4) {
+            return new String(text, 0, appendIpv4(text, 0, ipv4(address)));
+        }
+        if (ipv4(address) != INVALID_IPV4) {
+            System.arraycopy(MAPPED_PREFIX, 0, text, 0, MAPPED_PREFIX.length);
+            return new String(text, 0, appendIpv4(text, MAPPED_PREFIX.length, ipv4(address)));
+        }
+
+        int bestStart = -1;
+        int bestLength = 1;
+        for (int group = 0; group < 8; ) {
+            int run = 0;
+            while (group + run < 8 && address[2 * (group + run)] == 0 && address[2 * (group + run) + 1] == 0) {
+                run++;
+            }
+            if (run > bestLength) {
+                bestStart = group;
+                bestLength = run;
+            }
+            group += Math.max(run, 1);
+        }
+
+        for (int group = 0; group < 8; group++) {
+            if (group == bestStart) {
+                text[length++] = ':';
+                if (group == 0) {
+                    text[length++] = ':';
+                }
+                group += bestLength - 1;
+                continue;
+            }
+            final int value = (address[2 * group] & 0xff) << 8 | (address[2 * group + 1] & 0xff);
+            boolean leading = true;
+            for (int shift = 12; shift >= 0; shift -= 4) {
+                final int digit = value >>> shift & 0xf;
+                if (digit != 0 || !leading || shift == 0) {
+                    text[length++] = HEX[digit];
+                    leading = false;
+                }
+            }
+            if (group < 7) {
+                text[length++] = ':';
+            }
+        }
+        return new String(text, 0, length);
+    }
+
+    private static int appendIpv4(char[] text, int length, long ipv4) {
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            final int octet = (int) (ipv4 >>> shift & 0xff);
+            if (octet >= 100) {
+                text[length++] = (char) ('0' + octet / 100);
+            }
+            if (octet >= 10) {
+                text[length++] = (char) ('0' + octet / 10 % 10);
+            }
+            text[length++] = (char) ('0' + octet % 10);
+            if (shift > 0) {
+                text[length++] = '.';
+            }
+        }
+        return length;
+    }
+}
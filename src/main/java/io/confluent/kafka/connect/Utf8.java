@@ -0,0 +1,35 @@
+package io.confluent.kafka.connect;
+
+/**
+ * UTF-8 sizes of text, counted from the chars without encoding them.
+ * <p>
+ * This class is public because its users live in more than one package; it is not part of the plugin configuration.
+ */
+public final class Utf8 {
+
+    private Utf8() {
+    }
+
+    /**
+     * The number of bytes of the text in UTF-8. A surrogate pair is 4 bytes; a lone surrogate counts 3, which is never
+     * less than what an encoder writes in its place.
+     */
+    public static long length(CharSequence text) {
+        long length = 0;
+        final int chars = text.length();
+        for (int i = 0; i < chars; i++) {
+            final char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < chars && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
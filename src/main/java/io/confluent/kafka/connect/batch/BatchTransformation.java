@@ -0,0 +1,31 @@
+package io.confluent.kafka.connect.batch;
+
+import org.apache.kafka.common.Configurable;
+import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.connect.connector.ConnectRecord;
+
+import java.io.Closeable;
+import java.util.List;
+
+/**
+ * A transformation applied to a whole batch of records at once, such as the records of one {@code put()} or
+ * {@code poll()} call in a sink or source task. It is the batch counterpart of
+ * {@link org.apache.kafka.connect.transforms.Transformation}, so an implementation is free to spread the work over
+ * several threads.
+ */
+public interface BatchTransformation<R extends ConnectRecord<R>> extends Configurable, Closeable {
+
+    /**
+     * Transforms the records. The result keeps the order of the input; records the transformation drops (a
+     * {@code null} result from a per-record transformation) are left out.
+     */
+    List<R> apply(List<R> records);
+
+    /**
+     * Configuration specification for this transformation.
+     */
+    ConfigDef config();
+
+    @Override
+    void close();
+}
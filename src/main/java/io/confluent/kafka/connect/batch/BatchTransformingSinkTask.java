@@ -0,0 +1,96 @@
+package io.confluent.kafka.connect.batch;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.apache.kafka.connect.sink.SinkTask;
+import org.apache.kafka.connect.sink.SinkTaskContext;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Wraps a sink task so each {@code put()} batch goes through a {@link BatchTransformation} before the wrapped task
+ * sees it. A custom task extends this class with a no-argument constructor passing its real task, and configures the
+ * transformation with {@code batch.*} task properties (see {@link ParallelBatchTransformation}); without
+ * {@code batch.transform.type} records are passed on unchanged. Offsets are still tracked by the wrapped task, which
+ * receives every record the transformation keeps.
+ */
+public class BatchTransformingSinkTask extends SinkTask {
+
+    private final SinkTask delegate;
+    private BatchTransformation<SinkRecord> transformation;
+
+    public BatchTransformingSinkTask(SinkTask delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Uses the given transformation instead of the one from the {@code batch.*} task properties.
+     */
+    public BatchTransformingSinkTask(SinkTask delegate, BatchTransformation<SinkRecord> transformation) {
+        this.delegate = delegate;
+        this.transformation = transformation;
+    }
+
+    @Override
+    public String version() {
+        return delegate.version();
+    }
+
+    @Override
+    public void initialize(SinkTaskContext context) {
+        super.initialize(context);
+        delegate.initialize(context);
+    }
+
+    @Override
+    public void start(Map<String, String> props) {
+        if (transformation == null) {
+            transformation = TaskBatchConfig.transformation(props);
+        }
+        delegate.start(props);
+    }
+
+    @Override
+    public void put(Collection<SinkRecord> records) {
+        if (transformation == null || records.isEmpty()) {
+            delegate.put(records);
+        } else {
+            delegate.put(transformation.apply(new ArrayList<>(records)));
+        }
+    }
+
+    @Override
+    public void flush(Map<TopicPartition, OffsetAndMetadata> currentOffsets) {
+        delegate.flush(currentOffsets);
+    }
+
+    @Override
+    public Map<TopicPartition, OffsetAndMetadata> preCommit(Map<TopicPartition, OffsetAndMetadata> currentOffsets) {
+        return delegate.preCommit(currentOffsets);
+    }
+
+    @Override
+    public void open(Collection<TopicPartition> partitions) {
+        delegate.open(partitions);
+    }
+
+    @Override
+    public void close(Collection<TopicPartition> partitions) {
+        delegate.close(partitions);
+    }
+
+    @Override
+    public void stop() {
+        try {
+            delegate.stop();
+        } finally {
+            if (transformation != null) {
+                transformation.close();
+                transformation = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package io.confluent.kafka.connect.batch;
+
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.apache.kafka.connect.source.SourceTask;
+import org.apache.kafka.connect.source.SourceTaskContext;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wraps a source task so the records of each {@code poll()} go through a {@link BatchTransformation} before they are
+ * handed to the worker. A custom task extends this class with a no-argument constructor passing its real task, and
+ * configures the transformation with {@code batch.*} task properties (see {@link ParallelBatchTransformation});
+ * without {@code batch.transform.type} records are passed on unchanged. Source offsets travel inside the records, so
+ * {@code commitRecord()} reaches the wrapped task with the transformed record. Records the transformation drops never
+ * reach the worker, so unlike records dropped by a connector's transforms they get no {@code commitRecord()} call.
+ */
+public class BatchTransformingSourceTask extends SourceTask {
+
+    private final SourceTask delegate;
+    private BatchTransformation<SourceRecord> transformation;
+
+    public BatchTransformingSourceTask(SourceTask delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Uses the given transformation instead of the one from the {@code batch.*} task properties.
+     */
+    public BatchTransformingSourceTask(SourceTask delegate, BatchTransformation<SourceRecord> transformation) {
+        this.delegate = delegate;
+        this.transformation = transformation;
+    }
+
+    @Override
+    public String version() {
+        return delegate.version();
+    }
+
+    @Override
+    public void initialize(SourceTaskContext context) {
+        super.initialize(context);
+        delegate.initialize(context);
+    }
+
+    @Override
+    public void start(Map<String, String> props) {
+        if (transformation == null) {
+            transformation = TaskBatchConfig.transformation(props);
+        }
+        delegate.start(props);
+    }
+
+    @Override
+    public List<SourceRecord> poll() throws InterruptedException {
+        final List<SourceRecord> records = delegate.poll();
+        if (transformation == null || records == null || records.isEmpty()) {
+            return records;
+        }
+        return transformation.apply(records);
+    }
+
+    @Override
+    public void commit() throws InterruptedException {
+        delegate.commit();
+    }
+
+    @Override
+    public void commitRecord(SourceRecord record, RecordMetadata metadata) throws InterruptedException {
+        delegate.commitRecord(record, metadata);
+    }
+
+    @Override
+    public void stop() {
+        try {
+            delegate.stop();
+        } finally {
+            if (transformation != null) {
+                transformation.close();
+                transformation = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package io.confluent.kafka.connect.batch;
+
+import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.utils.Utils;
+import org.apache.kafka.connect.connector.ConnectRecord;
+import org.apache.kafka.connect.transforms.Transformation;
+import org.apache.kafka.connect.transforms.util.SimpleConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a batch of records through one per-record {@link Transformation} on a {@link ForkJoinPool}, so a CPU-heavy
+ * transform uses more than the task thread. The batch is split into contiguous ranges and each result is written back
+ * at its input position, so the output order is the input order. When a record fails, the exception of the first
+ * failing record is rethrown, the same one applying the records one by one would have thrown.
+ * <p>
+ * The wrapped transform is shared by all pool threads, so its {@code apply()} must be safe to call from several
+ * threads at once. This project's transforms are safe. Their state is fixed in {@code configure()} and their schema
+ * caches are synchronized. Their metrics create sensors behind volatile fields and sample latency without shared
+ * counters. A transform from elsewhere has to be checked before it is wrapped.
+ */
+public class ParallelBatchTransformation<R extends ConnectRecord<R>> implements BatchTransformation<R> {
+
+    public static final String OVERVIEW_DOC =
+            "Apply a per-record transformation to a batch of records in parallel, keeping the record order.";
+
+    private interface ConfigName {
+        String TRANSFORM = "transform";
+        String TYPE = "type";
+        String PARALLELISM = "parallelism";
+        String MIN_BATCH_SIZE = "min.batch.size";
+    }
+
+    public static final ConfigDef CONFIG_DEF = new ConfigDef()
+            .define(ConfigName.TRANSFORM + "." + ConfigName.TYPE, ConfigDef.Type.STRING, ConfigDef.NO_DEFAULT_VALUE,
+                    new ConfigDef.NonEmptyString(), ConfigDef.Importance.HIGH,
+                    "Class of the transformation to apply. It is configured with the properties prefixed with 'transform.'.")
+            .define(ConfigName.PARALLELISM, ConfigDef.Type.INT, Runtime.getRuntime().availableProcessors(),
+                    ConfigDef.Range.atLeast(1), ConfigDef.Importance.MEDIUM,
+                    "Number of threads in the pool. Defaults to the number of available processors.")
+            .define(ConfigName.MIN_BATCH_SIZE, ConfigDef.Type.INT, 64, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW,
+                    "Batches smaller than this are transformed on the calling thread, where handing off to the pool costs more than it saves.");
+
+    private Transformation<R> transform;
+    private ForkJoinPool pool;
+    private int parallelism;
+    private int minBatchSize;
+
+    public ParallelBatchTransformation() {
+    }
+
+    /**
+     * Wraps an already configured transform, for tasks that build their transforms in code. {@link #configure} must
+     * not be called on an instance created this way.
+     */
+    public ParallelBatchTransformation(Transformation<R> transform, int parallelism, int minBatchSize) {
+        this.transform = transform;
+        this.parallelism = parallelism;
+        this.minBatchSize = minBatchSize;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void configure(Map<String, ?> props) {
+        final SimpleConfig config = new SimpleConfig(CONFIG_DEF, props);
+        final Map<String, Object> transformProps = config.originalsWithPrefix(ConfigName.TRANSFORM + ".");
+        final Object type = transformProps.remove(ConfigName.TYPE);
+
+        final Transformation<R> newTransform;
+        try {
+            newTransform = Utils.newInstance(type.toString(), Transformation.class);
+        } catch (ClassNotFoundException e) {
+            throw new ConfigException(ConfigName.TRANSFORM + "." + ConfigName.TYPE, type, "Class not found");
+        }
+        newTransform.configure(transformProps);
+
+        close();
+        transform = newTransform;
+        parallelism = config.getInt(ConfigName.PARALLELISM);
+        minBatchSize = config.getInt(ConfigName.MIN_BATCH_SIZE);
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @Override
+    public List<R> apply(List<R> records) {
+        final Object[] results = new Object[records.size()];
+        if (records.size() < minBatchSize || parallelism == 1) {
+            for (int i = 0; i < results.length; i++) {
+                results[i] = transform.apply(records.get(i));
+            }
+        } else {
+            //a few ranges per thread so a slow range does not leave the other threads idle
+            final int rangeSize = Math.max(1, records.size() / (parallelism * 4));
+            final Batch<R> batch = new Batch<>(transform, records, results);
+            pool.invoke(new Range<>(batch, 0, results.length, rangeSize));
+            if (batch.failure != null) {
+                throw batch.failure;
+            }
+        }
+
+        final List<R> transformed = new ArrayList<>(results.length);
+        for (Object result : results) {
+            if (result != null) {
+                @SuppressWarnings("unchecked")
+                final R record = (R) result;
+                transformed.add(record);
+            }
+        }
+        return transformed;
+    }
+
+    @Override
+    public ConfigDef config() {
+        return CONFIG_DEF;
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+            try {
+                pool.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            pool = null;
+        }
+        if (transform != null) {
+            transform.close();
+            transform = null;
+        }
+    }
+
+    //state shared by the ranges of one apply() call
+    private static final class Batch<R extends ConnectRecord<R>> {
+        final Transformation<R> transform;
+        final List<R> records;
+        final Object[] results;
+
+        //index and exception of the first record that failed, so the error matches sequential application
+        int failedIndex = Integer.MAX_VALUE;
+        RuntimeException failure;
+        volatile boolean failed;
+
+        Batch(Transformation<R> transform, List<R> records, Object[] results) {
+            this.transform = transform;
+            this.records = records;
+            this.results = results;
+        }
+
+        synchronized void fail(int index, RuntimeException e) {
+            if (index < failedIndex) {
+                failedIndex = index;
+                failure = e;
+            }
+            failed = true;
+        }
+    }
+
+    private static final class Range<R extends ConnectRecord<R>> extends RecursiveAction {
+        private final Batch<R> batch;
+        private final int from;
+        private final int to;
+        private final int rangeSize;
+
+        Range(Batch<R> batch, int from, int to, int rangeSize) {
+            this.batch = batch;
+            this.from = from;
+            this.to = to;
+            this.rangeSize = rangeSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > rangeSize) {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new Range<>(batch, from, middle, rangeSize), new Range<>(batch, middle, to, rangeSize));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                //records after a failure are skipped, but earlier ones still run so the first failure is found
+                if (batch.failed && i > batch.failedIndex) {
+                    return;
+                }
+                try {
+                    batch.results[i] = batch.transform.apply(batch.records.get(i));
+                } catch (RuntimeException e) {
+                    batch.fail(i, e);
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package io.confluent.kafka.connect.batch;
+
+import org.apache.kafka.connect.connector.ConnectRecord;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads the batch transformation of a wrapped task from its properties: everything under {@value #PREFIX} configures
+ * a {@link ParallelBatchTransformation}, for example {@code batch.transform.type}, {@code batch.transform.<option>}
+ * and {@code batch.parallelism}.
+ */
+final class TaskBatchConfig {
+
+    static final String PREFIX = "batch.";
+
+    private TaskBatchConfig() {
+    }
+
+    /**
+     * @return the configured transformation, or null when the task has no {@code batch.transform.type}
+     */
+    static <R extends ConnectRecord<R>> BatchTransformation<R> transformation(Map<String, String> taskProps) {
+        final Map<String, String> batchProps = new HashMap<>();
+        for (Map.Entry<String, String> entry : taskProps.entrySet()) {
+            if (entry.getKey().startsWith(PREFIX)) {
+                batchProps.put(entry.getKey().substring(PREFIX.length()), entry.getValue());
+            }
+        }
+        if (!batchProps.containsKey("transform.type")) {
+            return null;
+        }
+
+        final ParallelBatchTransformation<R> transformation = new ParallelBatchTransformation<>();
+        transformation.configure(batchProps);
+        return transformation;
+    }
+}
@@ -0,0 +1,66 @@
+package io.confluent.kafka.connect.expression;
+
+import org.apache.kafka.connect.connector.ConnectRecord;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A boolean condition over a record, compiled once from text such as
+ * {@code level == "ERROR" && isIp(src) && !cidr(src, internal)}.
+ * <p>
+ * Paths name fields of the record value, with dots into nested Structs and Maps; {@code $key.}, {@code $topic},
+ * {@code $timestamp} and {@code $header.} reach the rest of the record. Conditions are comparisons
+ * ({@code == != < <= > >=}), regular expressions ({@code =~ !~}), set membership ({@code in}, {@code not in}) and the
+ * functions {@code isIp}, {@code cidr}, {@code exists}, {@code matches}, {@code contains}, {@code startsWith} and
+ * {@code endsWith}, combined with {@code && || !} or {@code and or not}.
+ * <p>
+ * Compiling folds every part that does not depend on the record, compiles regular expressions and builds the sets.
+ * Evaluation walks the remaining tree once, stopping as soon as the answer is known. Instances are thread-safe.
+ */
+public final class CompiledExpression {
+
+    private final String source;
+    private final Node root;
+
+    private CompiledExpression(String source, Node root) {
+        this.source = source;
+        this.root = root;
+    }
+
+    public static CompiledExpression compile(String source) {
+        return compile(source, Collections.emptyMap());
+    }
+
+    /**
+     * @param sets named sets for {@code in} and {@code cidr}, where CIDR blocks and single addresses are allowed
+     * @throws IllegalArgumentException with the position of the problem when the expression is invalid
+     */
+    public static CompiledExpression compile(String source, Map<String, ? extends Collection<String>> sets) {
+        return new CompiledExpression(source, ExpressionParser.parse(source, sets));
+    }
+
+    public boolean test(ConnectRecord<?> record) {
+        return root.test(record);
+    }
+
+    /**
+     * True when the expression does not depend on the record at all.
+     */
+    public boolean isConstant() {
+        return root.constant();
+    }
+
+    public String source() {
+        return source;
+    }
+
+    /**
+     * The compiled tree, after folding.
+     */
+    @Override
+    public String toString() {
+        return root.toString();
+    }
+}
@@ -0,0 +1,392 @@
+package io.confluent.kafka.connect.expression;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Recursive descent parser that builds the node tree of an expression. Grammar, lowest precedence first:
+ * <pre>
+ * or         := and (("||" | "or") and)*
+ * and        := unary (("&amp;&amp;" | "and") unary)*
+ * unary      := ("!" | "not") unary | comparison
+ * comparison := operand ((== | != | &lt; | &lt;= | &gt; | &gt;=) operand | (=~ | !~) string | ["not"] "in" set)?
+ * operand    := string | number | true | false | null | "(" or ")" | name "(" arguments ")" | path
+ * path       := name ("." name)* | $key ("." name)* | $value ("." name)* | $topic | $timestamp | $header.name
+ * set        := name | "[" literal ("," literal)* "]"
+ * </pre>
+ * Names may be quoted with backticks when they contain other characters.
+ */
+final class ExpressionParser {
+
+    private enum Kind {
+        NAME, STRING, NUMBER, SYMBOL, END
+    }
+
+    private static final class Token {
+        final Kind kind;
+        final String text;
+        final int position;
+        //a name in backticks is never a keyword
+        final boolean quoted;
+
+        Token(Kind kind, String text, int position, boolean quoted) {
+            this.kind = kind;
+            this.text = text;
+            this.position = position;
+            this.quoted = quoted;
+        }
+
+        boolean is(String symbol) {
+            return (kind == Kind.SYMBOL || kind == Kind.NAME && !quoted) && text.equals(symbol);
+        }
+    }
+
+    private static final String[] SYMBOLS = {"&&", "||", "==", "!=", "<=", ">=", "=~", "!~", "<", ">", "!", "(", ")", "[", "]", ",", ".", "$"};
+
+    private final String source;
+    private final Map<String, ? extends Collection<String>> sets;
+    private final List<Token> tokens;
+    private int next;
+
+    private ExpressionParser(String source, Map<String, ? extends Collection<String>> sets) {
+        this.source = source;
+        this.sets = sets;
+        this.tokens = tokenize(source);
+    }
+
+    static Node parse(String source, Map<String, ? extends Collection<String>> sets) {
+        final ExpressionParser parser = new ExpressionParser(source, sets);
+        final Node node = parser.or();
+        if (parser.peek().kind != Kind.END) {
+            throw parser.error(parser.peek(), "Unexpected '" + parser.peek().text + "'");
+        }
+        return node;
+    }
+
+    private Node or() {
+        final List<Node> operands = new ArrayList<>();
+        operands.add(and());
+        while (peek().is("||") || peek().is("or")) {
+            next++;
+            operands.add(and());
+        }
+        return operands.size() == 1 ? operands.get(0) : Nodes.or(operands);
+    }
+
+    private Node and() {
+        final List<Node> operands = new ArrayList<>();
+        operands.add(unary());
+        while (peek().is("&&") || peek().is("and")) {
+            next++;
+            operands.add(unary());
+        }
+        return operands.size() == 1 ? operands.get(0) : Nodes.and(operands);
+    }
+
+    private Node unary() {
+        if (peek().is("!") || peek().is("not")) {
+            next++;
+            return Nodes.not(unary());
+        }
+        return comparison();
+    }
+
+    private Node comparison() {
+        final Node left = operand();
+        final Token operator = peek();
+        for (Nodes.Comparison comparison : Nodes.Comparison.values()) {
+            if (operator.kind == Kind.SYMBOL && operator.text.equals(comparison.symbol)) {
+                next++;
+                return Nodes.compare(comparison, left, operand());
+            }
+        }
+        if (operator.is("=~") || operator.is("!~")) {
+            next++;
+            final Node matches = Nodes.matches(left, pattern(expect(Kind.STRING, "a quoted regular expression")));
+            return operator.is("=~") ? matches : Nodes.not(matches);
+        }
+        if (operator.is("in")) {
+            next++;
+            return Nodes.in(left, set());
+        }
+        if (operator.is("not") && peekAt(1).is("in")) {
+            next += 2;
+            return Nodes.not(Nodes.in(left, set()));
+        }
+        return left;
+    }
+
+    private Node operand() {
+        final Token token = advance();
+        switch (token.kind) {
+            case STRING:
+                return Nodes.constant(token.text);
+            case NUMBER:
+                return Nodes.constant(number(token));
+            case SYMBOL:
+                if (token.is("(")) {
+                    final Node node = or();
+                    expectSymbol(")");
+                    return node;
+                }
+                if (token.is("$")) {
+                    return special();
+                }
+                throw error(token, "Expected a value, field or function but found '" + token.text + "'");
+            case NAME:
+                switch (token.quoted ? "" : token.text) {
+                    case "true":
+                        return Nodes.TRUE;
+                    case "false":
+                        return Nodes.FALSE;
+                    case "null":
+                        return Nodes.constant(null);
+                    default:
+                        if (peek().is("(")) {
+                            next++;
+                            return function(token);
+                        }
+                        return new Nodes.Path(Nodes.Root.VALUE, names(token.text));
+                }
+            default:
+                throw error(token, "Unexpected end of expression");
+        }
+    }
+
+    private Node special() {
+        final Token name = expect(Kind.NAME, "key, value, topic, timestamp or header after '$'");
+        switch (name.text) {
+            case "topic":
+                return new Nodes.Topic();
+            case "timestamp":
+                return new Nodes.Timestamp();
+            case "header":
+                expectSymbol(".");
+                return new Nodes.HeaderValue(expect(Kind.NAME, "a header name").text);
+            case "key":
+            case "value":
+                final List<String> names = new ArrayList<>();
+                while (peek().is(".")) {
+                    next++;
+                    names.add(expect(Kind.NAME, "a field name").text);
+                }
+                return new Nodes.Path(name.text.equals("key") ? Nodes.Root.KEY : Nodes.Root.VALUE, names.toArray(new String[0]));
+            default:
+                throw error(name, "Unknown '$" + name.text + "', expected $key, $value, $topic, $timestamp or $header");
+        }
+    }
+
+    private String[] names(String first) {
+        final List<String> names = new ArrayList<>();
+        names.add(first);
+        while (peek().is(".")) {
+            next++;
+            names.add(expect(Kind.NAME, "a field name").text);
+        }
+        return names.toArray(new String[0]);
+    }
+
+    private Node function(Token name) {
+        final Node operand = or();
+        final Node result;
+        switch (name.text) {
+            case "isIp":
+                result = Nodes.isIp(operand);
+                break;
+            case "exists":
+                result = Nodes.exists(operand);
+                break;
+            case "matches":
+                expectSymbol(",");
+                result = Nodes.matches(operand, pattern(expect(Kind.STRING, "a quoted regular expression")));
+                break;
+            case "contains":
+            case "startsWith":
+            case "endsWith":
+                expectSymbol(",");
+                final String argument = expect(Kind.STRING, "a quoted string").text;
+                result = Nodes.text(name.text.equals("contains") ? Nodes.TextTest.CONTAINS
+                        : name.text.equals("startsWith") ? Nodes.TextTest.STARTS_WITH : Nodes.TextTest.ENDS_WITH, operand, argument);
+                break;
+            case "cidr":
+                final List<long[]> blocks = new ArrayList<>();
+                do {
+                    expectSymbol(",");
+                    final Token block = peek();
+                    for (String text : block.kind == Kind.STRING ? Collections.singleton(advance().text) : set()) {
+                        try {
+                            blocks.add(Ipv4.parseBlock(text));
+                        } catch (IllegalArgumentException e) {
+                            throw error(block, e.getMessage());
+                        }
+                    }
+                } while (peek().is(","));
+                result = Nodes.cidr(operand, blocks.toArray(new long[0][]));
+                break;
+            default:
+                throw error(name, "Unknown function " + name.text
+                        + ", expected isIp, exists, cidr, matches, contains, startsWith or endsWith");
+        }
+        expectSymbol(")");
+        return result;
+    }
+
+    private Set<String> set() {
+        final Token token = advance();
+        if (token.kind == Kind.NAME) {
+            final Collection<String> values = sets.get(token.text);
+            if (values == null) {
+                throw error(token, "Unknown set " + token.text + ", sets are " + sets.keySet());
+            }
+            return new HashSet<>(values);
+        }
+        if (!token.is("[")) {
+            throw error(token, "Expected a set name or a [list]");
+        }
+        final Set<String> values = new HashSet<>();
+        do {
+            final Token value = advance();
+            if (value.kind == Kind.STRING) {
+                values.add(value.text);
+            } else if (value.kind == Kind.NUMBER) {
+                values.add(number(value).toString());
+            } else {
+                throw error(value, "Expected a string or number in the list");
+            }
+        } while (advanceIf(","));
+        expectSymbol("]");
+        return values;
+    }
+
+    private Pattern pattern(Token token) {
+        try {
+            return Pattern.compile(token.text);
+        } catch (PatternSyntaxException e) {
+            throw error(token, "Invalid regular expression: " + e.getDescription());
+        }
+    }
+
+    private Object number(Token token) {
+        try {
+            return Long.parseLong(token.text);
+        } catch (NumberFormatException e) {
+            try {
+                return Double.parseDouble(token.text);
+            } catch (NumberFormatException notDecimal) {
+                throw error(token, "Invalid number " + token.text);
+            }
+        }
+    }
+
+    private Token peek() {
+        return tokens.get(next);
+    }
+
+    private Token peekAt(int ahead) {
+        return tokens.get(Math.min(next + ahead, tokens.size() - 1));
+    }
+
+    private Token advance() {
+        final Token token = tokens.get(next);
+        if (token.kind != Kind.END) {
+            next++;
+        }
+        return token;
+    }
+
+    private boolean advanceIf(String symbol) {
+        if (peek().is(symbol)) {
+            next++;
+            return true;
+        }
+        return false;
+    }
+
+    private Token expect(Kind kind, String description) {
+        final Token token = advance();
+        if (token.kind != kind) {
+            throw error(token, "Expected " + description);
+        }
+        return token;
+    }
+
+    private void expectSymbol(String symbol) {
+        final Token token = advance();
+        if (!token.is(symbol)) {
+            throw error(token, "Expected '" + symbol + "'");
+        }
+    }
+
+    private IllegalArgumentException error(Token token, String message) {
+        return error(source, token.position, message);
+    }
+
+    private static IllegalArgumentException error(String source, int position, String message) {
+        return new IllegalArgumentException(message + " at position " + position + " of: " + source);
+    }
+
+    private static List<Token> tokenize(String source) {
+        final List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < source.length()) {
+            final char c = source.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '"' || c == '\'' || c == '`') {
+                final StringBuilder text = new StringBuilder();
+                int j = i + 1;
+                while (j < source.length() && source.charAt(j) != c) {
+                    //a backslash escapes the quote and itself, and is kept before anything else for regular expressions
+                    if (source.charAt(j) == '\\' && j + 1 < source.length()
+                            && (source.charAt(j + 1) == c || source.charAt(j + 1) == '\\')) {
+                        j++;
+                    }
+                    text.append(source.charAt(j++));
+                }
+                if (j >= source.length()) {
+                    throw error(source, i, "Unterminated quote");
+                }
+                tokens.add(new Token(c == '`' ? Kind.NAME : Kind.STRING, text.toString(), i, true));
+                i = j + 1;
+            } else if (Character.isDigit(c) || c == '-' && i + 1 < source.length() && Character.isDigit(source.charAt(i + 1))) {
+                int j = i + 1;
+                while (j < source.length() && (Character.isDigit(source.charAt(j)) || source.charAt(j) == '.'
+                        || source.charAt(j) == 'e' || source.charAt(j) == 'E')) {
+                    j++;
+                }
+                tokens.add(new Token(Kind.NUMBER, source.substring(i, j), i, false));
+                i = j;
+            } else if (Character.isLetter(c) || c == '_') {
+                int j = i + 1;
+                while (j < source.length() && (Character.isLetterOrDigit(source.charAt(j)) || source.charAt(j) == '_'
+                        || source.charAt(j) == '-')) {
+                    j++;
+                }
+                tokens.add(new Token(Kind.NAME, source.substring(i, j), i, false));
+                i = j;
+            } else {
+                String symbol = null;
+                for (String candidate : SYMBOLS) {
+                    if (source.startsWith(candidate, i)) {
+                        symbol = candidate;
+                        break;
+                    }
+                }
+                if (symbol == null) {
+                    throw error(source, i, "Unexpected character '" + c + "'");
+                }
+                tokens.add(new Token(Kind.SYMBOL, symbol, i, false));
+                i += symbol.length();
+            }
+        }
+        tokens.add(new Token(Kind.END, "end of expression", source.length(), false));
+        return tokens;
+    }
+}
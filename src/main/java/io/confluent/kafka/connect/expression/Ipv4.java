@@ -0,0 +1,37 @@
+package io.confluent.kafka.connect.expression;
+
+import io.confluent.kafka.connect.IpAddresses;
+
+/**
+ * IPv4 blocks of the cidr() function, as the first and last address in unsigned 32-bit numbers. Field values are
+ * parsed with {@link IpAddresses#parseIpv4(CharSequence)}.
+ */
+final class Ipv4 {
+
+    private Ipv4() {
+    }
+
+    /**
+     * First and last address of a block written as {@code a.b.c.d/n} or a single address.
+     *
+     * @throws IllegalArgumentException when the text is neither
+     */
+    static long[] parseBlock(String text) {
+        final int slash = text.indexOf('/');
+        final long address = IpAddresses.parseIpv4(slash < 0 ? text : text.substring(0, slash));
+        int bits = 32;
+        if (slash >= 0) {
+            try {
+                bits = Integer.parseInt(text.substring(slash + 1));
+            } catch (NumberFormatException e) {
+                bits = -1;
+            }
+        }
+        if (address == IpAddresses.INVALID_IPV4 || bits < 0 || bits > 32) {
+            throw new IllegalArgumentException("Not an IPv4 address or CIDR block: " + text);
+        }
+        final long size = 1L << (32 - bits);
+        final long first = address & ~(size - 1) & 0xffffffffL;
+        return new long[]{first, first + size - 1};
+    }
+}
@@ -0,0 +1,26 @@
+package io.confluent.kafka.connect.expression;
+
+import org.apache.kafka.connect.connector.ConnectRecord;
+
+/**
+ * A node of a compiled expression. Conditions answer {@link #test}, operands answer {@link #evaluate}; each falls back
+ * on the other, so any node can stand in either place.
+ */
+abstract class Node {
+
+    abstract Object evaluate(ConnectRecord<?> record);
+
+    /**
+     * True only for a {@link Boolean#TRUE} result.
+     */
+    boolean test(ConnectRecord<?> record) {
+        return Boolean.TRUE.equals(evaluate(record));
+    }
+
+    /**
+     * True when the node gives the same result for every record, so the compiler can fold it.
+     */
+    boolean constant() {
+        return false;
+    }
+}
@@ -0,0 +1,593 @@
+package io.confluent.kafka.connect.expression;
+
+import io.confluent.kafka.connect.IpAddresses;
+import org.apache.kafka.common.cache.Cache;
+import org.apache.kafka.common.cache.LRUCache;
+import org.apache.kafka.common.cache.SynchronizedCache;
+import org.apache.kafka.connect.connector.ConnectRecord;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.header.Header;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * The node types of compiled expressions. Factory methods fold constants as the tree is built, so the tree that is
+ * evaluated only has nodes that depend on the record.
+ */
+final class Nodes {
+
+    private Nodes() {
+    }
+
+    static final Node TRUE = new Constant(Boolean.TRUE);
+    static final Node FALSE = new Constant(Boolean.FALSE);
+
+    static Node constant(Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value ? TRUE : FALSE;
+        }
+        return new Constant(value);
+    }
+
+    private static Node fold(Node node) {
+        return node.constant() ? constant(node.evaluate(null)) : node;
+    }
+
+    static Node not(Node operand) {
+        if (operand instanceof Not) {
+            return ((Not) operand).operand;
+        }
+        return fold(new Not(operand));
+    }
+
+    static Node and(List<Node> operands) {
+        final List<Node> remaining = new ArrayList<>();
+        for (Node operand : operands) {
+            if (operand.constant()) {
+                if (!operand.test(null)) {
+                    return FALSE;
+                }
+            } else {
+                remaining.add(operand);
+            }
+        }
+        if (remaining.isEmpty()) {
+            return TRUE;
+        }
+        return remaining.size() == 1 ? remaining.get(0) : new And(remaining.toArray(new Node[0]));
+    }
+
+    static Node or(List<Node> operands) {
+        final List<Node> remaining = new ArrayList<>();
+        for (Node operand : operands) {
+            if (operand.constant()) {
+                if (operand.test(null)) {
+                    return TRUE;
+                }
+            } else {
+                remaining.add(operand);
+            }
+        }
+        if (remaining.isEmpty()) {
+            return FALSE;
+        }
+        return remaining.size() == 1 ? remaining.get(0) : new Or(remaining.toArray(new Node[0]));
+    }
+
+    static Node compare(Comparison comparison, Node left, Node right) {
+        return fold(new Compare(comparison, left, right));
+    }
+
+    static Node matches(Node operand, Pattern pattern) {
+        return fold(new Matches(operand, pattern));
+    }
+
+    static Node in(Node operand, Set<String> values) {
+        return fold(new In(operand, values));
+    }
+
+    static Node cidr(Node operand, long[][] blocks) {
+        return fold(new Cidr(operand, blocks));
+    }
+
+    static Node isIp(Node operand) {
+        return fold(new IsIp(operand));
+    }
+
+    static Node exists(Node operand) {
+        return fold(new Exists(operand));
+    }
+
+    static Node text(TextTest test, Node operand, String argument) {
+        return fold(new Text(test, operand, argument));
+    }
+
+    static final class Constant extends Node {
+        final Object value;
+
+        Constant(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        Object evaluate(ConnectRecord<?> record) {
+            return value;
+        }
+
+        @Override
+        boolean constant() {
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return value instanceof String ? '"' + (String) value + '"' : String.valueOf(value);
+        }
+    }
+
+    //conditions evaluate to the shared Boolean instances, so nothing is allocated
+    abstract static class Condition extends Node {
+        @Override
+        final Object evaluate(ConnectRecord<?> record) {
+            return test(record) ? Boolean.TRUE : Boolean.FALSE;
+        }
+
+        @Override
+        abstract boolean test(ConnectRecord<?> record);
+    }
+
+    static final class Not extends Condition {
+        final Node operand;
+
+        Not(Node operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        boolean test(ConnectRecord<?> record) {
+            return !operand.test(record);
+        }
+
+        @Override
+        boolean constant() {
+            return operand.constant();
+        }
+
+        @Override
+        public String toString() {
+            return "!" + operand;
+        }
+    }
+
+    static final class And extends Condition {
+        final Node[] operands;
+
+        And(Node[] operands) {
+            this.operands = operands;
+        }
+
+        @Override
+        boolean test(ConnectRecord<?> record) {
+            for (Node operand : operands) {
+                if (!operand.test(record)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.stream(operands).map(Node::toString).collect(Collectors.joining(" && ", "(", ")"));
+        }
+    }
+
+    static final class Or extends Condition {
+        final Node[] operands;
+
+        Or(Node[] operands) {
+            this.operands = operands;
+        }
+
+        @Override
+        boolean test(ConnectRecord<?> record) {
+            for (Node operand : operands) {
+                if (operand.test(record)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.stream(operands).map(Node::toString).collect(Collectors.joining(" || ", "(", ")"));
+        }
+    }
+
+    enum Comparison {
+        EQ("=="), NE("!="), LT("<"), LE("<="), GT(">"), GE(">=");
+
+        final String symbol;
+
+        Comparison(String symbol) {
+            this.symbol = symbol;
+        }
+    }
+
+    static final class Compare extends Condition {
+        final Comparison comparison;
+        final Node left;
+        final Node right;
+
+        Compare(Comparison comparison, Node left, Node right) {
+            this.comparison = comparison;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean test(ConnectRecord<?> record) {
+            final Object a = left.evaluate(record);
+            final Object b = right.evaluate(record);
+            switch (comparison) {
+                case EQ:
+                    return Values.equal(a, b);
+                case NE:
+                    return !Values.equal(a, b);
+                default:
+                    final int order = Values.compare(a, b);
+                    if (order == Values.UNORDERED) {
+                        return false;
+                    }
+                    switch (comparison) {
+                        case LT:
+                            return order < 0;
+                        case LE:
+                            return order <= 0;
+                        case GT:
+                            return order > 0;
+                        default:
+                            return order >= 0;
+                    }
+            }
+        }
+
+        @Override
+        boolean constant() {
+            return left.constant() && right.constant();
+        }
+
+        @Override
+        public String toString() {
+            return left + " " + comparison.symbol + " " + right;
+        }
+    }
+
+    static final class Matches extends Condition {
+        final Node operand;
+        final Pattern pattern;
+
+        Matches(Node operand, Pattern pattern) {
+            this.operand = operand;
+            this.pattern = pattern;
+        }
+
+        @Override
+        boolean test(ConnectRecord<?> record) {
+            final Object value = operand.evaluate(record);
+            return value != null && pattern.matcher(Values.text(value)).find();
+        }
+
+        @Override
+        boolean constant() {
+            return operand.constant();
+        }
+
+        @Override
+        public String toString() {
+            return operand + " =~ /" + pattern + "/";
+        }
+    }
+
+    static final class In extends Condition {
+        final Node operand;
+        final Set<String> values;
+
+        In(Node operand, Set<String> values) {
+            this.operand = operand;
+            this.values = values;
+        }
+
+        @Override
+        boolean test(ConnectRecord<?> record) {
+            final Object value = operand.evaluate(record);
+            return value != null && values.contains(value instanceof String ? value : value.toString());
+        }
+
+        @Override
+        boolean constant() {
+            return operand.constant();
+        }
+
+        @Override
+        public String toString() {
+            return operand + " in " + values;
+        }
+    }
+
+    static final class Cidr extends Condition {
+        final Node operand;
+        //first and last address of each block
+        final long[][] blocks;
+
+        Cidr(Node operand, long[][] blocks) {
+            this.operand = operand;
+            this.blocks = blocks;
+        }
+
+        @Override
+        boolean test(ConnectRecord<?> record) {
+            final Object value = operand.evaluate(record);
+            if (!(value instanceof CharSequence)) {
+                return false;
+            }
+            final long address = IpAddresses.parseIpv4((CharSequence) value);
+            if (address == IpAddresses.INVALID_IPV4) {
+                return false;
+            }
+            for (long[] block : blocks) {
+                if (address >= block[0] && address <= block[1]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        boolean constant() {
+            return operand.constant();
+        }
+
+        @Override
+        public String toString() {
+            return "cidr(" + operand + ", " + blocks.length + " blocks)";
+        }
+    }
+
+    static final class IsIp extends Condition {
+        final Node operand;
+
+        IsIp(Node operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        boolean test(ConnectRecord<?> record) {
+            final Object value = operand.evaluate(record);
+            return value instanceof CharSequence && IpAddresses.parseIpv4((CharSequence) value) != IpAddresses.INVALID_IPV4;
+        }
+
+        @Override
+        boolean constant() {
+            return operand.constant();
+        }
+
+        @Override
+        public String toString() {
+            return "isIp(" + operand + ")";
+        }
+    }
+
+    static final class Exists extends Condition {
+        final Node operand;
+
+        Exists(Node operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        boolean test(ConnectRecord<?> record) {
+            return operand.evaluate(record) != null;
+        }
+
+        @Override
+        boolean constant() {
+            return operand.constant();
+        }
+
+        @Override
+        public String toString() {
+            return "exists(" + operand + ")";
+        }
+    }
+
+    enum TextTest {
+        CONTAINS("contains"), STARTS_WITH("startsWith"), ENDS_WITH("endsWith");
+
+        final String function;
+
+        TextTest(String function) {
+            this.function = function;
+        }
+    }
+
+    static final class Text extends Condition {
+        final TextTest test;
+        final Node operand;
+        final String argument;
+
+        Text(TextTest test, Node operand, String argument) {
+            this.test = test;
+            this.operand = operand;
+            this.argument = argument;
+        }
+
+        @Override
+        boolean test(ConnectRecord<?> record) {
+            final Object value = operand.evaluate(record);
+            if (value == null) {
+                return false;
+            }
+            final String text = Values.text(value);
+            switch (test) {
+                case CONTAINS:
+                    return text.contains(argument);
+                case STARTS_WITH:
+                    return text.startsWith(argument);
+                default:
+                    return text.endsWith(argument);
+            }
+        }
+
+        @Override
+        boolean constant() {
+            return operand.constant();
+        }
+
+        @Override
+        public String toString() {
+            return test.function + "(" + operand + ", \"" + argument + "\")";
+        }
+    }
+
+    enum Root {
+        VALUE, KEY
+    }
+
+    /**
+     * A dotted field path into the key or value. Through Structs the path is resolved once per schema into the
+     * {@link Field}s to read, so evaluating it does no name lookups; through Maps each step is a {@code get}.
+     */
+    static final class Path extends Node {
+        final Root root;
+        final String[] names;
+
+        private final Cache<Schema, Field[]> resolved = new SynchronizedCache<>(new LRUCache<>(16));
+        //the schema seen last, checked by identity before the cache
+        private volatile Resolution last;
+
+        Path(Root root, String[] names) {
+            this.root = root;
+            this.names = names;
+        }
+
+        @Override
+        Object evaluate(ConnectRecord<?> record) {
+            Object current = root == Root.VALUE ? record.value() : record.key();
+            if (current instanceof Struct) {
+                final Struct struct = (Struct) current;
+                final Field[] fields = fields(struct.schema());
+                current = struct;
+                for (int i = 0; i < names.length; i++) {
+                    if (current instanceof Struct && fields[i] != null) {
+                        current = ((Struct) current).get(fields[i]);
+                    } else if (current instanceof Map) {
+                        current = ((Map<?, ?>) current).get(names[i]);
+                    } else {
+                        return null;
+                    }
+                }
+                return current;
+            }
+            for (String name : names) {
+                if (!(current instanceof Map)) {
+                    return null;
+                }
+                current = ((Map<?, ?>) current).get(name);
+            }
+            return current;
+        }
+
+        private Field[] fields(Schema schema) {
+            final Resolution previous = last;
+            if (previous != null && previous.schema == schema) {
+                return previous.fields;
+            }
+            Field[] fields = resolved.get(schema);
+            if (fields == null) {
+                fields = resolve(schema);
+                resolved.put(schema, fields);
+            }
+            last = new Resolution(schema, fields);
+            return fields;
+        }
+
+        //a null entry reads the step by name from a Map, or ends the path when the value is not a Map
+        private Field[] resolve(Schema schema) {
+            final Field[] fields = new Field[names.length];
+            Schema current = schema;
+            for (int i = 0; i < names.length && current != null && current.type() == Schema.Type.STRUCT; i++) {
+                fields[i] = current.field(names[i]);
+                current = fields[i] == null ? null : fields[i].schema();
+            }
+            return fields;
+        }
+
+        @Override
+        public String toString() {
+            return (root == Root.KEY ? "$key." : "") + String.join(".", names);
+        }
+
+        private static final class Resolution {
+            final Schema schema;
+            final Field[] fields;
+
+            Resolution(Schema schema, Field[] fields) {
+                this.schema = schema;
+                this.fields = fields;
+            }
+        }
+    }
+
+    static final class Topic extends Node {
+        @Override
+        Object evaluate(ConnectRecord<?> record) {
+            return record.topic();
+        }
+
+        @Override
+        public String toString() {
+            return "$topic";
+        }
+    }
+
+    static final class Timestamp extends Node {
+        @Override
+        Object evaluate(ConnectRecord<?> record) {
+            return record.timestamp();
+        }
+
+        @Override
+        public String toString() {
+            return "$timestamp";
+        }
+    }
+
+    static final class HeaderValue extends Node {
+        final String name;
+
+        HeaderValue(String name) {
+            this.name = name;
+        }
+
+        @Override
+        Object evaluate(ConnectRecord<?> record) {
+            final Header header = record.headers().lastWithName(name);
+            return header == null ? null : header.value();
+        }
+
+        @Override
+        public String toString() {
+            return "$header." + name;
+        }
+    }
+}
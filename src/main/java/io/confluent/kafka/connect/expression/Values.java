@@ -0,0 +1,70 @@
+package io.confluent.kafka.connect.expression;
+
+/**
+ * Comparison rules of the expression language. Numbers compare by value whatever their type, text compares by
+ * content, and a number compares with text that parses as a number. Anything else is only equal when
+ * {@link Object#equals} says so and has no order.
+ */
+final class Values {
+
+    static final int UNORDERED = Integer.MIN_VALUE;
+
+    private Values() {
+    }
+
+    static boolean equal(Object a, Object b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        if (a instanceof CharSequence && b instanceof CharSequence) {
+            return text(a).contentEquals((CharSequence) b);
+        }
+        if (a instanceof Number || b instanceof Number) {
+            return compare(a, b) == 0;
+        }
+        return a.equals(b);
+    }
+
+    /**
+     * Sign of the comparison of {@code a} with {@code b}, or {@link #UNORDERED}.
+     */
+    static int compare(Object a, Object b) {
+        if (a == null || b == null) {
+            return UNORDERED;
+        }
+        if (a instanceof CharSequence && b instanceof CharSequence) {
+            return Integer.signum(text(a).compareTo(text(b)));
+        }
+        if (isIntegral(a) && isIntegral(b)) {
+            return Long.compare(((Number) a).longValue(), ((Number) b).longValue());
+        }
+        final double x = number(a);
+        final double y = number(b);
+        if (Double.isNaN(x) || Double.isNaN(y)) {
+            return UNORDERED;
+        }
+        return Double.compare(x, y);
+    }
+
+    static String text(Object value) {
+        return value instanceof String ? (String) value : value.toString();
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+    }
+
+    private static double number(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof CharSequence) {
+            try {
+                return Double.parseDouble(value.toString());
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+        return Double.NaN;
+    }
+}
@@ -0,0 +1,336 @@
+package io.confluent.kafka.connect.json;
+
+import org.apache.kafka.connect.errors.DataException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads one field of a JSON document held as a {@code String} or UTF-8 {@code byte[]}, as the String and ByteArray
+ * converters deliver it, without parsing the document. The scanner walks the members of each object on the path,
+ * skips the values it does not need without looking inside them, and stops as soon as it has the field.
+ * <p>
+ * The value comes back as a {@link CharSequence} view of the payload: the text of a string without quotes, or the raw
+ * text of a number, boolean, object or array. Only strings with escapes, and strings with non-ASCII bytes in a
+ * {@code byte[]}, are decoded into a new String. The payload itself is never copied or changed. Instances are
+ * immutable and thread-safe.
+ */
+public final class RawJsonField {
+
+    private final String path;
+    private final String[] names;
+    //names as UTF-8, compared with the bytes of byte[] payloads
+    private final byte[][] utf8Names;
+
+    /**
+     * @param path field name, with dots between the names of nested objects
+     */
+    public RawJsonField(String path) {
+        this.path = path;
+        this.names = path.split("\\.", -1);
+        this.utf8Names = new byte[names.length][];
+        for (int i = 0; i < names.length; i++) {
+            utf8Names[i] = names[i].getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    public String path() {
+        return path;
+    }
+
+    /**
+     * The field value, or null when the payload is null, the field is missing or its value is JSON null.
+     *
+     * @throws DataException when the payload is not a String or byte[], or the JSON before the field is malformed
+     */
+    public CharSequence find(Object payload) {
+        if (payload == null) {
+            return null;
+        }
+        final Cursor cursor;
+        if (payload instanceof byte[]) {
+            cursor = new Cursor((byte[]) payload, null);
+        } else if (payload instanceof String) {
+            cursor = new Cursor(null, (String) payload);
+        } else {
+            throw new DataException("Raw JSON needs a String or byte[] value, found " + payload.getClass().getName()
+                    + ". Use the String or ByteArray converter.");
+        }
+        return find(cursor);
+    }
+
+    private CharSequence find(Cursor in) {
+        in.skipWhitespace();
+        for (int level = 0; level < names.length; level++) {
+            if (in.peek() != '{') {
+                return null;
+            }
+            in.position++;
+            in.skipWhitespace();
+            if (in.peek() == '}') {
+                return null;
+            }
+            while (true) {
+                final boolean match = in.readKey(names[level], utf8Names[level]);
+                in.skipWhitespace();
+                in.expect(':');
+                in.skipWhitespace();
+                if (match) {
+                    if (level == names.length - 1) {
+                        return in.readValue();
+                    }
+                    break;
+                }
+                in.skipValue();
+                in.skipWhitespace();
+                final int next = in.peek();
+                if (next == '}') {
+                    return null;
+                }
+                in.expect(',');
+                in.skipWhitespace();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+
+    //reads either payload type through at(), a branch the JIT predicts once per call site
+    private static final class Cursor {
+        final byte[] bytes;
+        final String text;
+        final int length;
+        int position;
+
+        Cursor(byte[] bytes, String text) {
+            this.bytes = bytes;
+            this.text = text;
+            this.length = bytes != null ? bytes.length : text.length();
+        }
+
+        int at(int index) {
+            return bytes != null ? bytes[index] & 0xff : text.charAt(index);
+        }
+
+        int peek() {
+            if (position >= length) {
+                throw malformed("Unexpected end of JSON");
+            }
+            return at(position);
+        }
+
+        void expect(char c) {
+            if (peek() != c) {
+                throw malformed("Expected '" + c + "'");
+            }
+            position++;
+        }
+
+        void skipWhitespace() {
+            while (position < length) {
+                final int c = at(position);
+                if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                    return;
+                }
+                position++;
+            }
+        }
+
+        //leaves the position after the closing quote and returns whether the string had escapes
+        private boolean skipString() {
+            expect('"');
+            boolean escaped = false;
+            while (position < length) {
+                final int c = at(position++);
+                if (c == '"') {
+                    return escaped;
+                }
+                if (c == '\\') {
+                    escaped = true;
+                    position++;
+                }
+            }
+            throw malformed("Unterminated string");
+        }
+
+        boolean readKey(String name, byte[] utf8Name) {
+            final int start = position + 1;
+            final boolean escaped = skipString();
+            final int end = position - 1;
+            if (escaped) {
+                return name.equals(unescape(start, end));
+            }
+            if (bytes != null) {
+                if (end - start != utf8Name.length) {
+                    return false;
+                }
+                for (int i = 0; i < utf8Name.length; i++) {
+                    if (bytes[start + i] != utf8Name[i]) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            return end - start == name.length() && text.regionMatches(start, name, 0, name.length());
+        }
+
+        void skipValue() {
+            final int c = peek();
+            if (c == '"') {
+                skipString();
+            } else if (c == '{' || c == '[') {
+                int depth = 0;
+                do {
+                    final int d = peek();
+                    if (d == '"') {
+                        skipString();
+                        continue;
+                    }
+                    if (d == '{' || d == '[') {
+                        depth++;
+                    } else if (d == '}' || d == ']') {
+                        depth--;
+                    }
+                    position++;
+                } while (depth > 0);
+            } else {
+                while (position < length) {
+                    final int d = at(position);
+                    if (d == ',' || d == '}' || d == ']' || d == ' ' || d == '\t' || d == '\n' || d == '\r') {
+                        break;
+                    }
+                    position++;
+                }
+            }
+        }
+
+        CharSequence readValue() {
+            final int start = position;
+            if (peek() == '"') {
+                final boolean escaped = skipString();
+                final int end = position - 1;
+                if (escaped) {
+                    return unescape(start + 1, end);
+                }
+                if (bytes != null) {
+                    for (int i = start + 1; i < end; i++) {
+                        if (bytes[i] < 0) {
+                            return new String(bytes, start + 1, end - start - 1, StandardCharsets.UTF_8);
+                        }
+                    }
+                }
+                return new Slice(bytes, text, start + 1, end);
+            }
+            skipValue();
+            if (position - start == 4 && at(start) == 'n' && at(start + 1) == 'u' && at(start + 2) == 'l' && at(start + 3) == 'l') {
+                return null;
+            }
+            //object and array text is raw JSON, which may hold non-ASCII strings
+            if (bytes != null) {
+                for (int i = start; i < position; i++) {
+                    if (bytes[i] < 0) {
+                        return new String(bytes, start, position - start, StandardCharsets.UTF_8);
+                    }
+                }
+            }
+            return new Slice(bytes, text, start, position);
+        }
+
+        private String unescape(int start, int end) {
+            final String raw = bytes != null ? new String(bytes, start, end - start, StandardCharsets.UTF_8) : text.substring(start, end);
+            final StringBuilder out = new StringBuilder(raw.length());
+            for (int i = 0; i < raw.length(); i++) {
+                final char c = raw.charAt(i);
+                if (c != '\\') {
+                    out.append(c);
+                    continue;
+                }
+                if (++i >= raw.length()) {
+                    throw malformed("Unterminated escape");
+                }
+                final char e = raw.charAt(i);
+                switch (e) {
+                    case 'b':
+                        out.append('\b');
+                        break;
+                    case 'f':
+                        out.append('\f');
+                        break;
+                    case 'n':
+                        out.append('\n');
+                        break;
+                    case 'r':
+                        out.append('\r');
+                        break;
+                    case 't':
+                        out.append('\t');
+                        break;
+                    case 'u':
+                        if (i + 4 >= raw.length()) {
+                            throw malformed("Short \\u escape");
+                        }
+                        try {
+                            out.append((char) Integer.parseInt(raw.substring(i + 1, i + 5), 16));
+                        } catch (NumberFormatException ex) {
+                            throw malformed("Invalid \\u escape");
+                        }
+                        i += 4;
+                        break;
+                    default:
+                        out.append(e);
+                }
+            }
+            return out.toString();
+        }
+
+        private DataException malformed(String message) {
+            return new DataException(message + " at offset " + position + " of raw JSON value");
+        }
+    }
+
+    /**
+     * A view of part of the payload. Over a byte[] it is only made for ASCII text, so each byte is one char.
+     */
+    private static final class Slice implements CharSequence {
+        private final byte[] bytes;
+        private final String text;
+        private final int start;
+        private final int end;
+
+        Slice(byte[] bytes, String text, int start, int end) {
+            this.bytes = bytes;
+            this.text = text;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= end - start) {
+                throw new IndexOutOfBoundsException("index " + index + ", length " + (end - start));
+            }
+            return bytes != null ? (char) bytes[start + index] : text.charAt(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            if (from < 0 || to > end - start || from > to) {
+                throw new IndexOutOfBoundsException("from " + from + ", to " + to + ", length " + (end - start));
+            }
+            return new Slice(bytes, text, start + from, start + to);
+        }
+
+        @Override
+        public String toString() {
+            return bytes != null ? new String(bytes, start, end - start, StandardCharsets.US_ASCII) : text.substring(start, end);
+        }
+    }
+}
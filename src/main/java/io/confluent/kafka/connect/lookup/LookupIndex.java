@@ -0,0 +1,154 @@
+package io.confluent.kafka.connect.lookup;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read side of a lookup file written by {@link LookupIndexBuilder}: a memory-mapped open-addressing hash table from a
+ * string key to a row of nullable string fields. A lookup hashes and compares the key in place in the mapped file, so it
+ * allocates nothing; only the field values read afterwards become Strings.
+ * <p>
+ * File layout, big-endian:
+ * <pre>
+ * header  magic, version, slot count, entry count, slots offset, data offset, field count, field names
+ * slots   slot count x (int key hash, long entry offset), offset 0 marking an empty slot, linear probing
+ * data    entries of (int key length, key as UTF-16 chars, per field: short byte length or -1 for null, UTF-8 bytes)
+ * </pre>
+ * Instances are immutable and thread-safe. The mapping is released by the garbage collector, so replacing the file
+ * with a rename never breaks a reader still holding the old index.
+ */
+public final class LookupIndex {
+
+    public static final long NOT_FOUND = -1;
+
+    static final int MAGIC = 0x4C4B5031;
+    static final int VERSION = 1;
+    static final int SLOT_BYTES = Integer.BYTES + Long.BYTES;
+
+    static final long SLOT_COUNT_POSITION = 8;
+    static final long ENTRY_COUNT_POSITION = 16;
+    static final long SLOTS_OFFSET_POSITION = 24;
+    static final long DATA_OFFSET_POSITION = 32;
+    static final long FIELDS_POSITION = 40;
+
+    private final MappedFile file;
+    private final List<String> fields;
+    private final SlotTable slots;
+    private final long entries;
+
+    private LookupIndex(MappedFile file, List<String> fields, long slotCount, long slotsOffset, long entries) {
+        this.file = file;
+        this.fields = fields;
+        this.slots = new SlotTable(file, slotCount, slotsOffset);
+        this.entries = entries;
+    }
+
+    public static LookupIndex open(Path path) throws IOException {
+        return open(path, MappedFile.DEFAULT_SEGMENT_BITS);
+    }
+
+    static LookupIndex open(Path path, int segmentBits) throws IOException {
+        final MappedFile file;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < FIELDS_POSITION + Integer.BYTES) {
+                throw new IOException("Not a lookup index, file too short: " + path);
+            }
+            file = MappedFile.map(channel, FileChannel.MapMode.READ_ONLY, channel.size(), segmentBits);
+        }
+
+        if (file.getInt(0) != MAGIC) {
+            throw new IOException("Not a lookup index: " + path);
+        }
+        if (file.getInt(4) != VERSION) {
+            throw new IOException("Unsupported lookup index version " + file.getInt(4) + ": " + path);
+        }
+        final long slotCount = file.getLong(SLOT_COUNT_POSITION);
+        final long entries = file.getLong(ENTRY_COUNT_POSITION);
+        final long slotsOffset = file.getLong(SLOTS_OFFSET_POSITION);
+        final long dataOffset = file.getLong(DATA_OFFSET_POSITION);
+        if (Long.bitCount(slotCount) != 1 || slotsOffset + slotCount * SLOT_BYTES != dataOffset || dataOffset > file.size()) {
+            throw new IOException("Corrupt lookup index header: " + path);
+        }
+
+        final int fieldCount = file.getInt(FIELDS_POSITION);
+        final List<String> fields = new ArrayList<>(fieldCount);
+        long position = FIELDS_POSITION + Integer.BYTES;
+        for (int i = 0; i < fieldCount; i++) {
+            final short length = file.getShort(position);
+            fields.add(readUtf8(file, position + Short.BYTES, length));
+            position += Short.BYTES + length;
+        }
+        return new LookupIndex(file, Collections.unmodifiableList(fields), slotCount, slotsOffset, entries);
+    }
+
+    /**
+     * Names of the fields of every row, in file order.
+     */
+    public List<String> fields() {
+        return fields;
+    }
+
+    /**
+     * Number of distinct keys.
+     */
+    public long size() {
+        return entries;
+    }
+
+    /**
+     * @return the position of the row for the key, to pass to {@link #value}, or {@link #NOT_FOUND}
+     */
+    public long find(CharSequence key) {
+        final long entry = slots.find(key);
+        return entry == SlotTable.NOT_FOUND ? NOT_FOUND : entry;
+    }
+
+    /**
+     * @param entry a position returned by {@link #find}
+     * @param field index into {@link #fields()}
+     * @return the field value, or null
+     */
+    public String value(long entry, int field) {
+        long position = entry + Integer.BYTES + (long) file.getInt(entry) * Character.BYTES;
+        for (int i = 0; i < field; i++) {
+            position += Short.BYTES + Math.max(0, file.getShort(position));
+        }
+        final short length = file.getShort(position);
+        return length < 0 ? null : readUtf8(file, position + Short.BYTES, length);
+    }
+
+    //FNV-1a over the UTF-16 chars with a murmur3 finalizer, so the low bits used for the slot are well mixed
+    static int hash(CharSequence key) {
+        int h = FNV_OFFSET;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * FNV_PRIME;
+        }
+        return finish(h);
+    }
+
+    static final int FNV_OFFSET = 0x811c9dc5;
+    static final int FNV_PRIME = 0x01000193;
+
+    static int finish(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    static String readUtf8(MappedFile file, long position, int length) {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = file.get(position + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,227 @@
+package io.confluent.kafka.connect.lookup;
+
+import io.confluent.kafka.connect.Utf8;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Offline tool that turns a delimited text file into a {@link LookupIndex} file. The first line names the columns,
+ * the first column is the key and the others become the fields of each row; an empty column is stored as null. Lines
+ * are split on the delimiter with no quoting. When a key repeats, the last row wins.
+ * <p>
+ * The file is built in two passes so heap use does not grow with the number of rows: the first counts rows and bytes,
+ * the second writes rows and slots straight into the memory-mapped output. It is written next to the target and then
+ * renamed over it, so a transform watching the target only ever sees a complete index.
+ * <pre>
+ * java -cp kafka-connect-custom-transforms.jar io.confluent.kafka.connect.lookup.LookupIndexBuilder devices.csv devices.idx [delimiter]
+ * </pre>
+ */
+public final class LookupIndexBuilder {
+
+    private LookupIndexBuilder() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3 || (args.length == 3 && args[2].length() != 1)) {
+            System.err.println("Usage: LookupIndexBuilder <input file> <output file> [single character delimiter, default ,]");
+            System.exit(1);
+        }
+        final long start = System.nanoTime();
+        final long entries = build(Paths.get(args[0]), Paths.get(args[1]), args.length == 3 ? args[2].charAt(0) : ',');
+        System.out.printf("Wrote %d keys to %s in %.1f s%n", entries, args[1], (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * @return the number of distinct keys written
+     */
+    public static long build(Path input, Path output, char delimiter) throws IOException {
+        return build(input, output, delimiter, MappedFile.DEFAULT_SEGMENT_BITS);
+    }
+
+    static long build(Path input, Path output, char delimiter, int segmentBits) throws IOException {
+        final List<String> fields;
+        long rows = 0;
+        long dataBytes = 0;
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            final String header = reader.readLine();
+            if (header == null) {
+                throw new IOException("Empty input, the first line must name the columns: " + input);
+            }
+            final List<String> columns = split(header, delimiter, -1);
+            if (columns.size() < 2) {
+                throw new IOException("The first line must name a key column and at least one field: " + input);
+            }
+            fields = columns.subList(1, columns.size());
+
+            String line;
+            //counts blank lines too, for error messages
+            long lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (!line.isEmpty()) {
+                    dataBytes += entryBytes(split(line, delimiter, columns.size()), lineNumber);
+                    rows++;
+                }
+            }
+        }
+
+        final long slotCount = Math.max(2, Long.highestOneBit(Math.max(1, rows)) << 2);
+        long headerBytes = LookupIndex.FIELDS_POSITION + Integer.BYTES;
+        for (String field : fields) {
+            headerBytes += Short.BYTES + Utf8.length(field);
+        }
+        final long slotsOffset = (headerBytes + 7) & ~7L;
+        final long dataOffset = slotsOffset + slotCount * LookupIndex.SLOT_BYTES;
+        final long size = dataOffset + dataBytes;
+
+        final Path temp = output.resolveSibling(output.getFileName() + ".tmp");
+        final long entries;
+        try (RandomAccessFile raf = new RandomAccessFile(temp.toFile(), "rw")) {
+            raf.setLength(0);
+            raf.setLength(size);
+            final MappedFile file = MappedFile.map(raf.getChannel(), FileChannel.MapMode.READ_WRITE, size, segmentBits);
+
+            file.putInt(0, LookupIndex.MAGIC);
+            file.putInt(4, LookupIndex.VERSION);
+            file.putLong(LookupIndex.SLOT_COUNT_POSITION, slotCount);
+            file.putLong(LookupIndex.SLOTS_OFFSET_POSITION, slotsOffset);
+            file.putLong(LookupIndex.DATA_OFFSET_POSITION, dataOffset);
+            file.putInt(LookupIndex.FIELDS_POSITION, fields.size());
+            long position = LookupIndex.FIELDS_POSITION + Integer.BYTES;
+            for (String field : fields) {
+                position = putUtf8(file, position, field);
+            }
+
+            entries = writeEntries(input, delimiter, fields.size() + 1, file, slotCount, slotsOffset, dataOffset);
+            file.putLong(LookupIndex.ENTRY_COUNT_POSITION, entries);
+            file.force();
+        }
+        Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return entries;
+    }
+
+    private static long writeEntries(Path input, char delimiter, int columns, MappedFile file, long slotCount,
+                                     long slotsOffset, long dataOffset) throws IOException {
+        final long slotMask = slotCount - 1;
+        long entries = 0;
+        long position = dataOffset;
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                final List<String> values = split(line, delimiter, columns);
+                final String key = values.get(0);
+                final long entry = position;
+
+                file.putInt(position, key.length());
+                position += Integer.BYTES;
+                for (int i = 0; i < key.length(); i++) {
+                    file.putChar(position, key.charAt(i));
+                    position += Character.BYTES;
+                }
+                for (int i = 1; i < columns; i++) {
+                    final String value = values.get(i);
+                    if (value.isEmpty()) {
+                        file.putShort(position, (short) -1);
+                        position += Short.BYTES;
+                    } else {
+                        position = putUtf8(file, position, value);
+                    }
+                }
+
+                if (putSlot(file, slotsOffset, slotMask, key, entry)) {
+                    entries++;
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Points the slot of the key at the entry, which starts with the key as (int length, UTF-16 chars).
+     *
+     * @return false if the key was already present; its earlier entry stays in the data section unreferenced
+     */
+    static boolean putSlot(MappedFile file, long slotsOffset, long slotMask, String key, long entry) {
+        final int hash = LookupIndex.hash(key);
+        long slot = hash & slotMask;
+        while (true) {
+            final long slotPosition = slotsOffset + slot * LookupIndex.SLOT_BYTES;
+            final long existing = file.getLong(slotPosition + Integer.BYTES);
+            if (existing == 0) {
+                file.putInt(slotPosition, hash);
+                file.putLong(slotPosition + Integer.BYTES, entry);
+                return true;
+            }
+            if (file.getInt(slotPosition) == hash && keyEquals(file, existing, key)) {
+                file.putLong(slotPosition + Integer.BYTES, entry);
+                return false;
+            }
+            slot = (slot + 1) & slotMask;
+        }
+    }
+
+    private static boolean keyEquals(MappedFile file, long entry, String key) {
+        if (file.getInt(entry) != key.length()) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (file.getChar(entry + Integer.BYTES + (long) i * Character.BYTES) != key.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long entryBytes(List<String> values, long lineNumber) throws IOException {
+        long bytes = Integer.BYTES + (long) values.get(0).length() * Character.BYTES;
+        for (int i = 1; i < values.size(); i++) {
+            final long length = Utf8.length(values.get(i));
+            if (length > Short.MAX_VALUE) {
+                throw new IOException("Value longer than " + Short.MAX_VALUE + " bytes on line " + lineNumber);
+            }
+            bytes += Short.BYTES + length;
+        }
+        return bytes;
+    }
+
+    static long putUtf8(MappedFile file, long position, String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        file.putShort(position, (short) bytes.length);
+        position += Short.BYTES;
+        for (byte b : bytes) {
+            file.put(position++, b);
+        }
+        return position;
+    }
+
+    //splits on the delimiter; rows must have exactly the header's column count
+    static List<String> split(String line, char delimiter, int columns) throws IOException {
+        final List<String> values = new ArrayList<>(columns > 0 ? columns : 8);
+        int start = 0;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == delimiter) {
+                values.add(line.substring(start, i));
+                start = i + 1;
+            }
+        }
+        values.add(line.substring(start));
+        if (columns > 0 && values.size() != columns) {
+            throw new IOException("Expected " + columns + " columns but found " + values.size() + ": " + line);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,103 @@
+package io.confluent.kafka.connect.lookup;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A file memory-mapped as a list of segments, since one {@link MappedByteBuffer} cannot address more than 2 GB.
+ * Positions are absolute file offsets. Each segment maps a few bytes past its end, so a primitive that starts near a
+ * segment boundary is still read from a single buffer.
+ * <p>
+ * Read-only instances are safe to share between threads; the absolute get methods do not touch buffer positions.
+ */
+final class MappedFile {
+
+    static final int DEFAULT_SEGMENT_BITS = 30;
+
+    private static final int OVERLAP = Long.BYTES;
+
+    private final MappedByteBuffer[] segments;
+    private final int segmentBits;
+    private final long segmentMask;
+    private final long size;
+
+    private MappedFile(MappedByteBuffer[] segments, int segmentBits, long size) {
+        this.segments = segments;
+        this.segmentBits = segmentBits;
+        this.segmentMask = (1L << segmentBits) - 1;
+        this.size = size;
+    }
+
+    /**
+     * Maps the first {@code size} bytes of the channel. The mapping stays valid after the channel is closed.
+     */
+    static MappedFile map(FileChannel channel, FileChannel.MapMode mode, long size, int segmentBits) throws IOException {
+        final long segmentSize = 1L << segmentBits;
+        final int count = (int) Math.max(1, (size + segmentSize - 1) >>> segmentBits);
+        final MappedByteBuffer[] segments = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            final long start = (long) i << segmentBits;
+            segments[i] = channel.map(mode, start, Math.min(size - start, segmentSize + OVERLAP));
+        }
+        return new MappedFile(segments, segmentBits, size);
+    }
+
+    long size() {
+        return size;
+    }
+
+    byte get(long position) {
+        return segment(position).get(offset(position));
+    }
+
+    char getChar(long position) {
+        return segment(position).getChar(offset(position));
+    }
+
+    short getShort(long position) {
+        return segment(position).getShort(offset(position));
+    }
+
+    int getInt(long position) {
+        return segment(position).getInt(offset(position));
+    }
+
+    long getLong(long position) {
+        return segment(position).getLong(offset(position));
+    }
+
+    void put(long position, byte value) {
+        segment(position).put(offset(position), value);
+    }
+
+    void putChar(long position, char value) {
+        segment(position).putChar(offset(position), value);
+    }
+
+    void putShort(long position, short value) {
+        segment(position).putShort(offset(position), value);
+    }
+
+    void putInt(long position, int value) {
+        segment(position).putInt(offset(position), value);
+    }
+
+    void putLong(long position, long value) {
+        segment(position).putLong(offset(position), value);
+    }
+
+    void force() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    private MappedByteBuffer segment(long position) {
+        return segments[(int) (position >>> segmentBits)];
+    }
+
+    private int offset(long position) {
+        return (int) (position & segmentMask);
+    }
+}
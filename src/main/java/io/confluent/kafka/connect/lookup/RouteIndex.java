@@ -0,0 +1,110 @@
+package io.confluent.kafka.connect.lookup;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read side of a routing file written by {@link RouteIndexBuilder}: a memory-mapped open-addressing hash table from a
+ * string key to a topic. Topics are stored once in a dictionary section that is read into a String array on open, and
+ * each entry holds an index into it, so a lookup is one probe of the mapped table that returns a shared String and
+ * allocates nothing.
+ * <p>
+ * File layout, big-endian:
+ * <pre>
+ * header  magic, version, slot count, entry count, slots offset, data offset, topic count, topic names
+ * slots   slot count x (int key hash, long entry offset), offset 0 marking an empty slot, linear probing
+ * data    entries of (int key length, key as UTF-16 chars, int topic index)
+ * </pre>
+ * The slots and keys are laid out as in {@link LookupIndex}. Instances are immutable and thread-safe.
+ */
+public final class RouteIndex {
+
+    static final int MAGIC = 0x52544531;
+    static final int VERSION = 1;
+
+    private final MappedFile file;
+    private final String[] topics;
+    private final SlotTable slots;
+    private final long entries;
+
+    private RouteIndex(MappedFile file, String[] topics, long slotCount, long slotsOffset, long entries) {
+        this.file = file;
+        this.topics = topics;
+        this.slots = new SlotTable(file, slotCount, slotsOffset);
+        this.entries = entries;
+    }
+
+    public static RouteIndex open(Path path) throws IOException {
+        return open(path, MappedFile.DEFAULT_SEGMENT_BITS);
+    }
+
+    static RouteIndex open(Path path, int segmentBits) throws IOException {
+        final MappedFile file;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < LookupIndex.FIELDS_POSITION + Integer.BYTES) {
+                throw new IOException("Not a route index, file too short: " + path);
+            }
+            file = MappedFile.map(channel, FileChannel.MapMode.READ_ONLY, channel.size(), segmentBits);
+        }
+
+        if (file.getInt(0) != MAGIC) {
+            throw new IOException("Not a route index: " + path);
+        }
+        if (file.getInt(4) != VERSION) {
+            throw new IOException("Unsupported route index version " + file.getInt(4) + ": " + path);
+        }
+        final long slotCount = file.getLong(LookupIndex.SLOT_COUNT_POSITION);
+        final long entries = file.getLong(LookupIndex.ENTRY_COUNT_POSITION);
+        final long slotsOffset = file.getLong(LookupIndex.SLOTS_OFFSET_POSITION);
+        final long dataOffset = file.getLong(LookupIndex.DATA_OFFSET_POSITION);
+        if (Long.bitCount(slotCount) != 1 || slotsOffset + slotCount * LookupIndex.SLOT_BYTES != dataOffset || dataOffset > file.size()) {
+            throw new IOException("Corrupt route index header: " + path);
+        }
+
+        final String[] topics = new String[file.getInt(LookupIndex.FIELDS_POSITION)];
+        long position = LookupIndex.FIELDS_POSITION + Integer.BYTES;
+        for (int i = 0; i < topics.length; i++) {
+            final short length = file.getShort(position);
+            topics[i] = LookupIndex.readUtf8(file, position + Short.BYTES, length).intern();
+            position += Short.BYTES + length;
+        }
+        return new RouteIndex(file, topics, slotCount, slotsOffset, entries);
+    }
+
+    /**
+     * Number of distinct keys.
+     */
+    public long size() {
+        return entries;
+    }
+
+    /**
+     * Number of distinct topics.
+     */
+    public int topics() {
+        return topics.length;
+    }
+
+    /**
+     * @return the topic of the key, or null
+     */
+    public String route(CharSequence key) {
+        return topic(slots.find(key));
+    }
+
+    /**
+     * The topic of the key written in decimal, as {@code route(Long.toString(key))} without creating the String.
+     */
+    public String route(long key) {
+        return topic(slots.find(key));
+    }
+
+    private String topic(long entry) {
+        if (entry == SlotTable.NOT_FOUND) {
+            return null;
+        }
+        return topics[file.getInt(entry + Integer.BYTES + (long) file.getInt(entry) * Character.BYTES)];
+    }
+}
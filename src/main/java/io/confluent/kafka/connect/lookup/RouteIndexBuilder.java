@@ -0,0 +1,146 @@
+package io.confluent.kafka.connect.lookup;
+
+import io.confluent.kafka.connect.Utf8;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Offline tool that turns a delimited text file of key and topic columns into a {@link RouteIndex} file. The first
+ * line names the two columns and is skipped. Lines are split on the delimiter with no quoting. When a key repeats, the
+ * last row wins.
+ * <p>
+ * Like {@link LookupIndexBuilder} it makes two passes: the first counts rows and collects the distinct topics into the
+ * dictionary, the only part held on the heap, and the second writes rows and slots straight into the memory-mapped
+ * output, which is renamed over the target when complete.
+ * <pre>
+ * java -cp kafka-connect-custom-transforms.jar io.confluent.kafka.connect.lookup.RouteIndexBuilder customers.csv customers.routes [delimiter]
+ * </pre>
+ */
+public final class RouteIndexBuilder {
+
+    private RouteIndexBuilder() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3 || (args.length == 3 && args[2].length() != 1)) {
+            System.err.println("Usage: RouteIndexBuilder <input file> <output file> [single character delimiter, default ,]");
+            System.exit(1);
+        }
+        final long start = System.nanoTime();
+        final long entries = build(Paths.get(args[0]), Paths.get(args[1]), args.length == 3 ? args[2].charAt(0) : ',');
+        System.out.printf("Wrote %d keys to %s in %.1f s%n", entries, args[1], (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * @return the number of distinct keys written
+     */
+    public static long build(Path input, Path output, char delimiter) throws IOException {
+        return build(input, output, delimiter, MappedFile.DEFAULT_SEGMENT_BITS);
+    }
+
+    static long build(Path input, Path output, char delimiter, int segmentBits) throws IOException {
+        final Map<String, Integer> topics = new LinkedHashMap<>();
+        long rows = 0;
+        long dataBytes = 0;
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            final String header = reader.readLine();
+            if (header == null || LookupIndexBuilder.split(header, delimiter, -1).size() != 2) {
+                throw new IOException("The first line must name a key column and a topic column: " + input);
+            }
+
+            String line;
+            //counts blank lines too, for error messages
+            long lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (!line.isEmpty()) {
+                    final List<String> values = LookupIndexBuilder.split(line, delimiter, 2);
+                    final String topic = values.get(1);
+                    if (topic.isEmpty()) {
+                        throw new IOException("Missing topic on line " + lineNumber + ": " + line);
+                    }
+                    topics.putIfAbsent(topic, topics.size());
+                    dataBytes += Integer.BYTES + (long) values.get(0).length() * Character.BYTES + Integer.BYTES;
+                    rows++;
+                }
+            }
+        }
+
+        final long slotCount = Math.max(2, Long.highestOneBit(Math.max(1, rows)) << 2);
+        long headerBytes = LookupIndex.FIELDS_POSITION + Integer.BYTES;
+        for (String topic : topics.keySet()) {
+            headerBytes += Short.BYTES + Utf8.length(topic);
+        }
+        final long slotsOffset = (headerBytes + 7) & ~7L;
+        final long dataOffset = slotsOffset + slotCount * LookupIndex.SLOT_BYTES;
+        final long size = dataOffset + dataBytes;
+
+        final Path temp = output.resolveSibling(output.getFileName() + ".tmp");
+        final long entries;
+        try (RandomAccessFile raf = new RandomAccessFile(temp.toFile(), "rw")) {
+            raf.setLength(0);
+            raf.setLength(size);
+            final MappedFile file = MappedFile.map(raf.getChannel(), FileChannel.MapMode.READ_WRITE, size, segmentBits);
+
+            file.putInt(0, RouteIndex.MAGIC);
+            file.putInt(4, RouteIndex.VERSION);
+            file.putLong(LookupIndex.SLOT_COUNT_POSITION, slotCount);
+            file.putLong(LookupIndex.SLOTS_OFFSET_POSITION, slotsOffset);
+            file.putLong(LookupIndex.DATA_OFFSET_POSITION, dataOffset);
+            file.putInt(LookupIndex.FIELDS_POSITION, topics.size());
+            long position = LookupIndex.FIELDS_POSITION + Integer.BYTES;
+            for (String topic : topics.keySet()) {
+                position = LookupIndexBuilder.putUtf8(file, position, topic);
+            }
+
+            entries = writeEntries(input, delimiter, topics, file, slotCount - 1, slotsOffset, dataOffset);
+            file.putLong(LookupIndex.ENTRY_COUNT_POSITION, entries);
+            file.force();
+        }
+        Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return entries;
+    }
+
+    private static long writeEntries(Path input, char delimiter, Map<String, Integer> topics, MappedFile file,
+                                     long slotMask, long slotsOffset, long dataOffset) throws IOException {
+        long entries = 0;
+        long position = dataOffset;
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                final List<String> values = LookupIndexBuilder.split(line, delimiter, 2);
+                final String key = values.get(0);
+                final long entry = position;
+
+                file.putInt(position, key.length());
+                position += Integer.BYTES;
+                for (int i = 0; i < key.length(); i++) {
+                    file.putChar(position, key.charAt(i));
+                    position += Character.BYTES;
+                }
+                file.putInt(position, topics.get(values.get(1)));
+                position += Integer.BYTES;
+
+                if (LookupIndexBuilder.putSlot(file, slotsOffset, slotMask, key, entry)) {
+                    entries++;
+                }
+            }
+        }
+        return entries;
+    }
+}
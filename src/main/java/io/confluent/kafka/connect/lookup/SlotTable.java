@@ -0,0 +1,96 @@
+package io.confluent.kafka.connect.lookup;
+
+/**
+ * The slots section of the files read by {@link LookupIndex} and {@link RouteIndex}: slot count x (int key hash, long
+ * entry offset), offset 0 marking an empty slot, probed linearly. Every entry starts with its key as (int length, UTF-16
+ * chars), so a probe compares the key in place in the mapped file and allocates nothing.
+ */
+final class SlotTable {
+
+    static final long NOT_FOUND = 0;
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final MappedFile file;
+    private final long slotMask;
+    private final long slotsOffset;
+
+    SlotTable(MappedFile file, long slotCount, long slotsOffset) {
+        this.file = file;
+        this.slotMask = slotCount - 1;
+        this.slotsOffset = slotsOffset;
+    }
+
+    /**
+     * @return the offset of the entry of the key, or {@link #NOT_FOUND}
+     */
+    long find(CharSequence key) {
+        return probe(LookupIndex.hash(key), key, 0, key.length());
+    }
+
+    /**
+     * The entry of the key written in decimal, as {@code find(Long.toString(key))} without creating the String.
+     */
+    long find(long key) {
+        if (key == Long.MIN_VALUE) {
+            return find(Long.toString(key));
+        }
+        final int length = decimalLength(key);
+        int h = LookupIndex.FNV_OFFSET;
+        for (int i = 0; i < length; i++) {
+            h = (h ^ decimalChar(key, length, i)) * LookupIndex.FNV_PRIME;
+        }
+        return probe(LookupIndex.finish(h), null, key, length);
+    }
+
+    //the key is text, or the decimal digits of number when text is null
+    private long probe(int hash, CharSequence text, long number, int length) {
+        long slot = hash & slotMask;
+        while (true) {
+            final long slotPosition = slotsOffset + slot * LookupIndex.SLOT_BYTES;
+            final long entry = file.getLong(slotPosition + Integer.BYTES);
+            if (entry == NOT_FOUND || file.getInt(slotPosition) == hash && keyEquals(entry, text, number, length)) {
+                return entry;
+            }
+            slot = (slot + 1) & slotMask;
+        }
+    }
+
+    private boolean keyEquals(long entry, CharSequence text, long number, int length) {
+        if (file.getInt(entry) != length) {
+            return false;
+        }
+        final long chars = entry + Integer.BYTES;
+        for (int i = 0; i < length; i++) {
+            final char expected = text != null ? text.charAt(i) : decimalChar(number, length, i);
+            if (file.getChar(chars + (long) i * Character.BYTES) != expected) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //number of chars of the key in decimal, with the minus sign; never called with Long.MIN_VALUE
+    private static int decimalLength(long key) {
+        final long magnitude = Math.abs(key);
+        int digits = 1;
+        while (digits < POWERS_OF_TEN.length && magnitude >= POWERS_OF_TEN[digits]) {
+            digits++;
+        }
+        return key < 0 ? digits + 1 : digits;
+    }
+
+    private static char decimalChar(long key, int length, int i) {
+        if (key < 0 && i == 0) {
+            return '-';
+        }
+        return (char) ('0' + Math.abs(key) / POWERS_OF_TEN[length - 1 - i] % 10);
+    }
+}
@@ -0,0 +1,352 @@
+package io.confluent.kafka.connect.metrics;
+
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.config.AbstractConfig;
+import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.common.metrics.JmxReporter;
+import org.apache.kafka.common.metrics.KafkaMetric;
+import org.apache.kafka.common.metrics.KafkaMetricsContext;
+import org.apache.kafka.common.metrics.MetricConfig;
+import org.apache.kafka.common.metrics.Metrics;
+import org.apache.kafka.common.metrics.MetricsReporter;
+import org.apache.kafka.common.metrics.Sensor;
+import org.apache.kafka.common.metrics.stats.Avg;
+import org.apache.kafka.common.metrics.stats.Max;
+import org.apache.kafka.common.metrics.stats.Meter;
+import org.apache.kafka.common.metrics.stats.Percentile;
+import org.apache.kafka.common.metrics.stats.Percentiles;
+import org.apache.kafka.common.utils.Time;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Per-instance Kafka {@link Metrics} sensors for the transforms and predicates of this project, reported over JMX as
+ * {@code kafka.connect.custom:type=transform-metrics|predicate-metrics,class=<class name>,instance=<name>,id=<n>}.
+ * The {@code id} tag is a sequence number per instance, so the tasks of one connector, which share a config and so a
+ * {@code metrics.name}, each get their own metrics instead of colliding in the JVM-wide registry.
+ *
+ * <p>Metrics are off unless {@value #METRICS_ENABLED_CONFIG} is set. A disabled instance is the shared
+ * {@link #DISABLED} object whose methods return after one field read, so transforms call it unconditionally.
+ * {@code apply()} latency is measured on a random one in {@value #METRICS_LATENCY_SAMPLE_INTERVAL_CONFIG} calls on
+ * average to keep the {@code System.nanoTime()} pair off most records. An instance may be called from several threads
+ * at once, as in a parallel batch: the optional sensors are created in their groups behind a volatile field.
+ */
+public final class TransformMetrics {
+
+    public static final String METRICS_ENABLED_CONFIG = "metrics.enabled";
+    public static final String METRICS_NAME_CONFIG = "metrics.name";
+    public static final String METRICS_LATENCY_SAMPLE_INTERVAL_CONFIG = "metrics.latency.sample.interval";
+
+    public static final String JMX_PREFIX = "kafka.connect.custom";
+    public static final String TRANSFORM_GROUP = "transform-metrics";
+    public static final String PREDICATE_GROUP = "predicate-metrics";
+
+    public static final TransformMetrics DISABLED = new TransformMetrics();
+
+    private static final double LATENCY_MAX_MICROS = 100_000;
+    private static final int LATENCY_HISTOGRAM_BYTES = 4 * 1024;
+
+    private static final AtomicInteger INSTANCE_IDS = new AtomicInteger();
+    private static volatile Metrics registry;
+
+    private final boolean enabled;
+    private final Metrics metrics;
+    private final String group;
+    private final Map<String, String> tags;
+    private final String sensorPrefix;
+    private final int sampleInterval;
+    //sensor names and metric names this instance added to the registry, removed by close(); guarded by itself
+    private final List<Object> registered = new ArrayList<>();
+
+    private Sensor recordsIn;
+    private Sensor recordsOut;
+    private Sensor latency;
+    private volatile Sensor passedThrough;
+    //true and false, created together so a reader never sees one without the other
+    private volatile Sensor[] predicateSensors;
+    //hits and misses, created together
+    private volatile Sensor[] cacheSensors;
+    private final Map<String, Sensor> routedByTopic = new ConcurrentHashMap<>();
+
+    private TransformMetrics() {
+        enabled = false;
+        metrics = null;
+        group = null;
+        tags = Collections.emptyMap();
+        sensorPrefix = null;
+        sampleInterval = 0;
+    }
+
+    private TransformMetrics(Metrics metrics, String group, Class<?> type, String name, int id, int sampleInterval) {
+        this.enabled = true;
+        this.metrics = metrics;
+        this.group = group;
+        this.sampleInterval = sampleInterval;
+
+        final Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("class", className(type));
+        tags.put("instance", name);
+        tags.put("id", Integer.toString(id));
+        this.tags = Collections.unmodifiableMap(tags);
+        this.sensorPrefix = group + ":" + className(type) + ":" + name + ":" + id + ":";
+
+        recordsIn = meter("records-in", "records passed to the transform");
+        recordsOut = meter("records-out", "records returned by the transform");
+
+        latency = sensor("apply-latency", sensor -> {
+            sensor.add(metricName("apply-latency-avg", "Average sampled apply() time in microseconds."), new Avg());
+            sensor.add(metricName("apply-latency-max", "Maximum sampled apply() time in microseconds."), new Max());
+            sensor.add(new Percentiles(LATENCY_HISTOGRAM_BYTES, LATENCY_MAX_MICROS, Percentiles.BucketSizing.LINEAR,
+                    new Percentile(metricName("apply-latency-p50", "Median sampled apply() time in microseconds."), 50),
+                    new Percentile(metricName("apply-latency-p99", "99th percentile sampled apply() time in microseconds."), 99),
+                    new Percentile(metricName("apply-latency-p999", "99.9th percentile sampled apply() time in microseconds."), 99.9)));
+        });
+    }
+    /**
+     * Adds the metrics settings to a transform or predicate config definition.
+     */
+    public static ConfigDef withMetricsConfig(ConfigDef configDef) {
+        return configDef
+                .define(METRICS_ENABLED_CONFIG, ConfigDef.Type.BOOLEAN, false, ConfigDef.Importance.LOW,
+                        "Register Kafka metrics for this instance, reported over JMX.")
+                .define(METRICS_NAME_CONFIG, ConfigDef.Type.STRING, "", ConfigDef.Importance.LOW,
+                        "Value of the 'instance' metrics tag, usually the transform alias. Defaults to the class name.")
+                .define(METRICS_LATENCY_SAMPLE_INTERVAL_CONFIG, ConfigDef.Type.INT, 16, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW,
+                        "Measure the apply() latency of one in this many records. 1 measures every record.");
+    }
+
+    /**
+     * Returns {@link #DISABLED} unless metrics are enabled in the config, which must have been defined through
+     * {@link #withMetricsConfig(ConfigDef)}.
+     */
+    public static TransformMetrics create(AbstractConfig config, String group, Class<?> type) {
+        if (!config.getBoolean(METRICS_ENABLED_CONFIG)) {
+            return DISABLED;
+        }
+        String name = config.getString(METRICS_NAME_CONFIG);
+        if (name == null || name.isEmpty()) {
+            name = className(type);
+        }
+        return new TransformMetrics(registry(), group, type, name, INSTANCE_IDS.incrementAndGet(),
+                config.getInt(METRICS_LATENCY_SAMPLE_INTERVAL_CONFIG));
+    }
+
+    /**
+     * The registry shared by every instance in this JVM, created with a JMX reporter on first use.
+     */
+    public static Metrics registry() {
+        Metrics current = registry;
+        if (current == null) {
+            synchronized (TransformMetrics.class) {
+                current = registry;
+                if (current == null) {
+                    final List<MetricsReporter> reporters = Collections.singletonList(new JmxReporter());
+                    current = new Metrics(new MetricConfig(), reporters, Time.SYSTEM, new KafkaMetricsContext(JMX_PREFIX));
+                    registry = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    public Map<String, String> tags() {
+        return tags;
+    }
+
+    /**
+     * Counts a record in and returns the start time to hand to {@link #recordOut(long, Object)}, or 0 when this call
+     * is not sampled for latency.
+     */
+    public long recordIn() {
+        if (!enabled) {
+            return 0L;
+        }
+        recordsIn.record();
+        //random rather than a shared countdown, which threads calling one instance would race on
+        if (sampleInterval > 1 && ThreadLocalRandom.current().nextInt(sampleInterval) != 0) {
+            return 0L;
+        }
+        return System.nanoTime();
+    }
+
+    public void recordOut(long startNanos, Object result) {
+        if (!enabled) {
+            return;
+        }
+        if (startNanos != 0L) {
+            latency.record((System.nanoTime() - startNanos) / 1000.0);
+        }
+        if (result != null) {
+            recordsOut.record();
+        }
+    }
+
+    public void routed(String topic) {
+        if (!enabled) {
+            return;
+        }
+        Sensor sensor = routedByTopic.get(topic);
+        if (sensor == null) {
+            sensor = routedByTopic.computeIfAbsent(topic, this::routedSensor);
+        }
+        sensor.record();
+    }
+
+    public void passedThrough() {
+        if (!enabled) {
+            return;
+        }
+        Sensor sensor = passedThrough;
+        if (sensor == null) {
+            synchronized (this) {
+                sensor = passedThrough;
+                if (sensor == null) {
+                    sensor = meter("passed-through", "records left on their original topic");
+                    passedThrough = sensor;
+                }
+            }
+        }
+        sensor.record();
+    }
+
+    public void predicate(boolean result) {
+        if (!enabled) {
+            return;
+        }
+        Sensor[] sensors = predicateSensors;
+        if (sensors == null) {
+            synchronized (this) {
+                sensors = predicateSensors;
+                if (sensors == null) {
+                    sensors = new Sensor[]{
+                            meter("predicate-true", "records the predicate matched"),
+                            meter("predicate-false", "records the predicate did not match")};
+                    predicateSensors = sensors;
+                }
+            }
+        }
+        sensors[result ? 0 : 1].record();
+    }
+
+    public void cacheHit() {
+        if (!enabled) {
+            return;
+        }
+        cacheSensors()[0].record();
+    }
+
+    public void cacheMiss() {
+        if (!enabled) {
+            return;
+        }
+        cacheSensors()[1].record();
+    }
+
+    /**
+     * Removes the sensors and metrics of this instance from the shared registry.
+     */
+    public void close() {
+        if (!enabled) {
+            return;
+        }
+        final List<Object> released;
+        synchronized (registered) {
+            released = new ArrayList<>(registered);
+            registered.clear();
+        }
+        //metrics first: the schema cache hit ratio reads the totals of two sensors
+        for (Object key : released) {
+            if (key instanceof MetricName) {
+                metrics.removeMetric((MetricName) key);
+            }
+        }
+        for (Object key : released) {
+            if (key instanceof String) {
+                metrics.removeSensor((String) key);
+            }
+        }
+    }
+
+    private Sensor[] cacheSensors() {
+        Sensor[] sensors = cacheSensors;
+        if (sensors != null) {
+            return sensors;
+        }
+        synchronized (this) {
+            sensors = cacheSensors;
+            if (sensors == null) {
+                sensors = new Sensor[]{
+                        meter("schema-cache-hit", "schema cache lookups that found an entry"),
+                        meter("schema-cache-miss", "schema cache lookups that had to build a schema")};
+                final MetricName hitsTotal = metricName("schema-cache-hit-total", "");
+                final MetricName missesTotal = metricName("schema-cache-miss-total", "");
+                final MetricName ratio = metricName("schema-cache-hit-ratio", "Fraction of schema cache lookups that found an entry.");
+                metrics.addMetric(ratio, (config, now) -> {
+                    final KafkaMetric hits = metrics.metric(hitsTotal);
+                    final KafkaMetric misses = metrics.metric(missesTotal);
+                    if (hits == null || misses == null) {
+                        return Double.NaN;
+                    }
+                    final double hitCount = (double) hits.metricValue();
+                    final double lookups = hitCount + (double) misses.metricValue();
+                    return lookups == 0 ? Double.NaN : hitCount / lookups;
+                });
+                register(ratio);
+                cacheSensors = sensors;
+            }
+        }
+        return sensors;
+    }
+
+    private Sensor routedSensor(String topic) {
+        return sensor("routed:" + topic, sensor -> {
+            final Map<String, String> topicTags = new LinkedHashMap<>(tags);
+            topicTags.put("topic", topic);
+            sensor.add(new Meter(
+                    metrics.metricName("routed-rate", group, "Rate of records routed to the topic.", topicTags),
+                    metrics.metricName("routed-total", group, "Total records routed to the topic.", topicTags)));
+        });
+    }
+
+    private Sensor meter(String name, String description) {
+        return sensor(name, sensor -> sensor.add(new Meter(
+                metricName(name + "-rate", "Rate of " + description + "."),
+                metricName(name + "-total", "Total " + description + "."))));
+    }
+
+    //the id in the prefix makes the name unique to this instance, so the sensor is always new
+    private Sensor sensor(String name, Consumer<Sensor> stats) {
+        final String sensorName = sensorPrefix + name;
+        final Sensor sensor = metrics.sensor(sensorName);
+        stats.accept(sensor);
+        register(sensorName);
+        return sensor;
+    }
+
+    private void register(Object key) {
+        synchronized (registered) {
+            registered.add(key);
+        }
+    }
+
+    //InsertUuid$Value rather than the simple name Value
+    private static String className(Class<?> type) {
+        return type.getName().substring(type.getName().lastIndexOf('.') + 1);
+    }
+
+    private MetricName metricName(String name, String description) {
+        return metrics.metricName(name, group, description, tags);
+    }
+}
@@ -0,0 +1,359 @@
+package io.confluent.kafka.connect.predicates;
+
+import io.confluent.kafka.connect.Utf8;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * A read-only set of values loaded from a file of one value per line, held in a few primitive arrays instead of a
+ * {@code HashSet<String>}. When every line is an integer the set is a table of longs, 8 to 16 bytes per value;
+ * otherwise the values are stored as sorted UTF-8 in one byte array, the UTF-8 length plus 4 bytes per value. Lookups
+ * read the field value in place and allocate nothing for strings and integers.
+ * <p>
+ * Numbers get a hash table because it costs them little on top of the 8 bytes of a long. Strings get a packed sorted
+ * array instead, because a hash table would add a slot and a stored hash to every value, more than many of the values
+ * themselves. A lookup then takes about log2(n) comparisons, some 21 for 2 million values, instead of one probe.
+ * <p>
+ * Blank lines and lines starting with {@code #} are skipped, and values are trimmed.
+ */
+abstract class CompactValueSet {
+
+    abstract boolean contains(Object value);
+
+    abstract int size();
+
+    static CompactValueSet load(Path file) throws IOException {
+        return load(file, () -> { });
+    }
+
+    /**
+     * @param betweenPasses runs after the file was sized and before it is read again, for tests
+     */
+    static CompactValueSet load(Path file, Runnable betweenPasses) throws IOException {
+        //the first pass sizes the arrays, so the second can fill them without growing
+        int count = 0;
+        long bytes = 0;
+        boolean numeric = true;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String value = value(line);
+                if (value != null) {
+                    count++;
+                    bytes += Utf8.length(value);
+                    numeric &= isLong(value);
+                }
+            }
+        }
+        if (bytes > Integer.MAX_VALUE - 8) {
+            throw new IOException("Values in " + file + " take more than 2 GB");
+        }
+
+        betweenPasses.run();
+
+        final Longs longs = numeric ? new Longs(count) : null;
+        final Strings.Builder strings = numeric ? null : new Strings.Builder(count, (int) bytes);
+        //a file rewritten in place between the passes would overflow the arrays sized by the first
+        int filled = 0;
+        long filledBytes = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String value = value(line);
+                if (value == null) {
+                    continue;
+                }
+                filled++;
+                filledBytes += Utf8.length(value);
+                if (filled > count || filledBytes > bytes || numeric && !isLong(value)) {
+                    throw changedWhileReading(file);
+                }
+                if (numeric) {
+                    longs.add(parseLong(value));
+                } else {
+                    strings.add(value);
+                }
+            }
+        }
+        if (filled != count) {
+            throw changedWhileReading(file);
+        }
+        return numeric ? longs : strings.build();
+    }
+
+    private static IOException changedWhileReading(Path file) {
+        return new IOException("File " + file + " changed while it was read");
+    }
+
+    private static String value(String line) {
+        final String value = line.trim();
+        return value.isEmpty() || value.charAt(0) == '#' ? null : value;
+    }
+
+    static boolean isLong(CharSequence text) {
+        final int length = text.length();
+        int i = length > 0 && text.charAt(0) == '-' ? 1 : 0;
+        if (i == length || length - i > 19) {
+            return false;
+        }
+        long value = 0;
+        for (; i < length; i++) {
+            final char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+            //accumulated negatively so Long.MIN_VALUE fits
+            if (value < (Long.MIN_VALUE + (c - '0')) / 10) {
+                return false;
+            }
+            value = value * 10 - (c - '0');
+        }
+        return text.charAt(0) == '-' || value != Long.MIN_VALUE;
+    }
+
+    /**
+     * The value of text that passed {@link #isLong}.
+     */
+    static long parseLong(CharSequence text) {
+        final boolean negative = text.charAt(0) == '-';
+        long value = 0;
+        for (int i = negative ? 1 : 0; i < text.length(); i++) {
+            value = value * 10 - (text.charAt(i) - '0');
+        }
+        return negative ? value : -value;
+    }
+
+    //table sizes are powers of two kept at most two thirds full
+    private static int tableSize(int count) {
+        return Math.max(4, Integer.highestOneBit(Math.max(1, count + count / 2)) << 1);
+    }
+
+    static final class Longs extends CompactValueSet {
+        //0 marks an empty slot, so the value 0 is tracked on its own
+        private final long[] table;
+        private final int mask;
+        private boolean containsZero;
+        private int size;
+
+        Longs(int capacity) {
+            table = new long[tableSize(capacity)];
+            mask = table.length - 1;
+        }
+
+        void add(long value) {
+            if (value == 0) {
+                if (!containsZero) {
+                    containsZero = true;
+                    size++;
+                }
+                return;
+            }
+            int slot = (int) FieldHash.mix(value) & mask;
+            while (table[slot] != 0) {
+                if (table[slot] == value) {
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = value;
+            size++;
+        }
+
+        boolean containsLong(long value) {
+            if (value == 0) {
+                return containsZero;
+            }
+            int slot = (int) FieldHash.mix(value) & mask;
+            while (table[slot] != 0) {
+                if (table[slot] == value) {
+                    return true;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return false;
+        }
+
+        @Override
+        boolean contains(Object value) {
+            if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                return containsLong(((Number) value).longValue());
+            }
+            if (value instanceof CharSequence) {
+                final CharSequence text = (CharSequence) value;
+                return isLong(text) && containsLong(parseLong(text));
+            }
+            return false;
+        }
+
+        @Override
+        int size() {
+            return size;
+        }
+    }
+
+    /**
+     * The values as UTF-8, sorted by their bytes and packed into one array, with the start of each value in a second
+     * one: 4 bytes per value on top of the bytes themselves. A lookup is a binary search that compares the field value
+     * with the packed bytes as it encodes it, so it allocates nothing. UTF-8 byte order is code point order, so the
+     * comparison can stop at the first differing byte.
+     */
+    static final class Strings extends CompactValueSet {
+        private final byte[] data;
+        //start of each value in data, with one extra entry marking the end of the last
+        private final int[] offsets;
+        private final int size;
+
+        private Strings(byte[] data, int[] offsets, int size) {
+            this.data = data;
+            this.offsets = offsets;
+            this.size = size;
+        }
+
+        @Override
+        boolean contains(Object value) {
+            if (value == null) {
+                return false;
+            }
+            final CharSequence text = value instanceof CharSequence ? (CharSequence) value : value.toString();
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                final int middle = (low + high) >>> 1;
+                final int comparison = compare(middle, text);
+                if (comparison < 0) {
+                    low = middle + 1;
+                } else if (comparison > 0) {
+                    high = middle - 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        //the order of the entry relative to the text, comparing the entry's bytes with the text encoded as UTF-8
+        private int compare(int entry, CharSequence text) {
+            int position = offsets[entry];
+            final int limit = offsets[entry + 1];
+            for (int i = 0; i < text.length(); i++) {
+                final char c = text.charAt(i);
+                final int codePoint;
+                if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    codePoint = Character.toCodePoint(c, text.charAt(++i));
+                } else {
+                    //a lone surrogate is encoded as '?', like String.getBytes does
+                    codePoint = Character.isSurrogate(c) ? '?' : c;
+                }
+                final int length = codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+                for (int b = 0; b < length; b++) {
+                    if (position == limit) {
+                        return -1;
+                    }
+                    final int difference = (data[position++] & 0xff) - utf8Byte(codePoint, length, b);
+                    if (difference != 0) {
+                        return difference;
+                    }
+                }
+            }
+            return position == limit ? 0 : 1;
+        }
+
+        //byte b of the length-byte UTF-8 encoding of the code point
+        private static int utf8Byte(int codePoint, int length, int b) {
+            if (length == 1) {
+                return codePoint;
+            }
+            final int bits = codePoint >> 6 * (length - 1 - b);
+            return b == 0 ? (0xff00 >> length & 0xff) | bits : 0x80 | bits & 0x3f;
+        }
+
+        @Override
+        int size() {
+            return size;
+        }
+
+        int dataBytes() {
+            return offsets[size];
+        }
+
+        /**
+         * Collects values in file order, then sorts and packs them, dropping duplicates.
+         */
+        static final class Builder {
+            private final byte[] data;
+            private final int[] offsets;
+            private int count;
+            private int end;
+
+            Builder(int capacity, int bytes) {
+                data = new byte[bytes];
+                offsets = new int[capacity + 1];
+            }
+
+            void add(String value) {
+                final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                System.arraycopy(bytes, 0, data, end, bytes.length);
+                end += bytes.length;
+                offsets[++count] = end;
+            }
+
+            Strings build() {
+                final int[] order = new int[count];
+                for (int i = 0; i < count; i++) {
+                    order[i] = i;
+                }
+                sort(order, new int[count], 0, count);
+
+                final byte[] packed = new byte[end];
+                final int[] packedOffsets = new int[count + 1];
+                int size = 0;
+                int position = 0;
+                for (int i = 0; i < count; i++) {
+                    if (i > 0 && compareValues(order[i - 1], order[i]) == 0) {
+                        continue;
+                    }
+                    final int length = offsets[order[i] + 1] - offsets[order[i]];
+                    System.arraycopy(data, offsets[order[i]], packed, position, length);
+                    position += length;
+                    packedOffsets[++size] = position;
+                }
+                if (size == count) {
+                    return new Strings(packed, packedOffsets, size);
+                }
+                return new Strings(Arrays.copyOf(packed, position), Arrays.copyOf(packedOffsets, size + 1), size);
+            }
+
+            //merge sort of value indexes, so no boxed comparator is needed for millions of values
+            private void sort(int[] order, int[] scratch, int from, int to) {
+                if (to - from < 2) {
+                    return;
+                }
+                final int middle = (from + to) >>> 1;
+                sort(order, scratch, from, middle);
+                sort(order, scratch, middle, to);
+                if (compareValues(order[middle - 1], order[middle]) <= 0) {
+                    return;
+                }
+                System.arraycopy(order, from, scratch, from, to - from);
+                int left = from;
+                int right = middle;
+                for (int i = from; i < to; i++) {
+                    if (right == to || left < middle && compareValues(scratch[left], scratch[right]) <= 0) {
+                        order[i] = scratch[left++];
+                    } else {
+                        order[i] = scratch[right++];
+                    }
+                }
+            }
+
+            private int compareValues(int a, int b) {
+                return Arrays.compareUnsigned(data, offsets[a], offsets[a + 1], data, offsets[b], offsets[b + 1]);
+            }
+        }
+    }
+}
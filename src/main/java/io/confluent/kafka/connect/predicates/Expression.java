@@ -0,0 +1,82 @@
+package io.confluent.kafka.connect.predicates;
+
+import io.confluent.kafka.connect.expression.CompiledExpression;
+import io.confluent.kafka.connect.metrics.TransformMetrics;
+import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.connect.connector.ConnectRecord;
+import org.apache.kafka.connect.transforms.predicates.Predicate;
+import org.apache.kafka.connect.transforms.util.SimpleConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class Expression<R extends ConnectRecord<R>> implements Predicate<R> {
+    private static final Logger log = LoggerFactory.getLogger(Expression.class);
+
+    public static final String OVERVIEW_DOC = "A predicate which is true for records matching a boolean expression over "
+            + "their fields, such as level == \"ERROR\" && isIp(src) && !cidr(src, internal).";
+
+    private interface ConfigName {
+        String EXPRESSION = "expression";
+    }
+
+    //named sets are given as set.<name>=<comma separated values>
+    static final String SET_PREFIX = "set.";
+
+    public static final ConfigDef CONFIG_DEF = TransformMetrics.withMetricsConfig(new ConfigDef()
+            .define(ConfigName.EXPRESSION, ConfigDef.Type.STRING, ConfigDef.NO_DEFAULT_VALUE, new ConfigDef.NonEmptyString(),
+                    ConfigDef.Importance.HIGH, "The condition. Named sets for in and cidr are configured as "
+                            + SET_PREFIX + "<name>, a comma separated list."));
+
+    private CompiledExpression expression;
+    private TransformMetrics metrics = TransformMetrics.DISABLED;
+
+    @Override
+    public ConfigDef config() {
+        return CONFIG_DEF;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        final SimpleConfig config = new SimpleConfig(config(), configs);
+        final Map<String, List<String>> sets = new HashMap<>();
+        for (Map.Entry<String, Object> entry : config.originalsWithPrefix(SET_PREFIX).entrySet()) {
+            @SuppressWarnings("unchecked")
+            final List<String> values = (List<String>) ConfigDef.parseType(SET_PREFIX + entry.getKey(), entry.getValue(), ConfigDef.Type.LIST);
+            sets.put(entry.getKey(), values);
+        }
+
+        final String source = config.getString(ConfigName.EXPRESSION);
+        try {
+            expression = CompiledExpression.compile(source, sets);
+        } catch (IllegalArgumentException e) {
+            throw new ConfigException(ConfigName.EXPRESSION, source, e.getMessage());
+        }
+        if (expression.isConstant()) {
+            log.warn("Expression {} does not depend on the record and is always {}", source, expression.test(null));
+        }
+        log.debug("Compiled expression {} to {}", source, expression);
+
+        metrics.close();
+        metrics = TransformMetrics.create(config, TransformMetrics.PREDICATE_GROUP, getClass());
+    }
+
+    @Override
+    public boolean test(R record) {
+        final long start = metrics.recordIn();
+        final boolean result = expression.test(record);
+        metrics.predicate(result);
+        metrics.recordOut(start, record);
+        return result;
+    }
+
+    @Override
+    public void close() {
+        metrics.close();
+        metrics = TransformMetrics.DISABLED;
+    }
+}
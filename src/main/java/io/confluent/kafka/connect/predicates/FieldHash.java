@@ -0,0 +1,71 @@
+package io.confluent.kafka.connect.predicates;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Seeded 64-bit hashing of field values read in place: strings char by char, integers by value and bytes one at a
+ * time, so hashing a field allocates nothing. Integer types of the same value hash alike, so a field that is an int in
+ * one schema version and a long in the next keeps its hash. Values of other types are hashed by their string form.
+ */
+final class FieldHash {
+
+    static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    //mixed in after each value and for null, so ("ab", "c") and ("a", "bc") differ
+    private static final long SEPARATOR = 0x9e3779b97f4a7c15L;
+
+    private FieldHash() {
+    }
+
+    static long start(long seed) {
+        return FNV_OFFSET ^ mix(seed);
+    }
+
+    /**
+     * FNV-1a step over one value, chained by passing the previous result as {@code hash}.
+     */
+    static long update(long hash, Object value) {
+        if (value == null) {
+            return (hash ^ SEPARATOR) * FNV_PRIME;
+        }
+        if (value instanceof CharSequence) {
+            final CharSequence chars = (CharSequence) value;
+            for (int i = 0; i < chars.length(); i++) {
+                hash = (hash ^ chars.charAt(i)) * FNV_PRIME;
+            }
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            hash = (hash ^ ((Number) value).longValue()) * FNV_PRIME;
+        } else if (value instanceof byte[]) {
+            for (byte b : (byte[]) value) {
+                hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+            }
+        } else if (value instanceof ByteBuffer) {
+            final ByteBuffer buffer = (ByteBuffer) value;
+            for (int i = buffer.position(); i < buffer.limit(); i++) {
+                hash = (hash ^ (buffer.get(i) & 0xff)) * FNV_PRIME;
+            }
+        } else {
+            return update(hash, value.toString());
+        }
+        return (hash ^ (SEPARATOR >>> 1)) * FNV_PRIME;
+    }
+
+    /**
+     * Murmur3 finalizer, spreads the weak high bits of FNV over the whole word.
+     */
+    static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * A second hash independent of {@code mix(hash)}, for double hashing.
+     */
+    static long mix2(long hash) {
+        return mix(hash ^ SEPARATOR);
+    }
+}
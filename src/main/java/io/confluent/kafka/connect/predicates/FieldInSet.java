@@ -0,0 +1,157 @@
+package io.confluent.kafka.connect.predicates;
+
+import io.confluent.kafka.connect.metrics.TransformMetrics;
+import io.confluent.kafka.connect.reload.ReloadingFile;
+import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.connect.connector.ConnectRecord;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.transforms.predicates.Predicate;
+import org.apache.kafka.connect.transforms.util.SimpleConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.kafka.connect.transforms.util.Requirements.requireMap;
+import static org.apache.kafka.connect.transforms.util.Requirements.requireStruct;
+
+/**
+ * True when a field value is in a large set loaded from a file, such as an allowlist of account ids. The set is held in
+ * a {@link CompactValueSet} and loaded once per worker: every predicate configured with the same file shares it through
+ * a reference counted registry. A background thread checks the file every {@code reload.interval.ms}; when it has been
+ * replaced, the new set is loaded next to the old one and swapped in with a single volatile write.
+ */
+public class FieldInSet<R extends ConnectRecord<R>> implements Predicate<R> {
+    private static final Logger log = LoggerFactory.getLogger(FieldInSet.class);
+
+    public static final String OVERVIEW_DOC = "A predicate which is true for records whose field value is in a set "
+            + "loaded from a local file of one value per line.";
+
+    private interface ConfigName {
+        String FIELD = "field";
+        String USE_VALUE = "useValue";
+        String FILE = "file";
+        String RELOAD_INTERVAL_MS = "reload.interval.ms";
+    }
+
+    public static final ConfigDef CONFIG_DEF = TransformMetrics.withMetricsConfig(new ConfigDef()
+            .define(ConfigName.FIELD, ConfigDef.Type.STRING, ConfigDef.NO_DEFAULT_VALUE, new ConfigDef.NonEmptyString(),
+                    ConfigDef.Importance.HIGH, "Field whose value is looked up in the set.")
+            .define(ConfigName.USE_VALUE, ConfigDef.Type.BOOLEAN, true, ConfigDef.Importance.LOW,
+                    "Read the field from the message value instead of the key.")
+            .define(ConfigName.FILE, ConfigDef.Type.STRING, ConfigDef.NO_DEFAULT_VALUE, new ConfigDef.NonEmptyString(),
+                    ConfigDef.Importance.HIGH, "File of one value per line. When every line is an integer the values "
+                            + "are stored as numbers. Blank lines and lines starting with # are skipped.")
+            .define(ConfigName.RELOAD_INTERVAL_MS, ConfigDef.Type.LONG, 10_000L, ConfigDef.Range.atLeast(0),
+                    ConfigDef.Importance.LOW, "How often to check whether the file was replaced. 0 disables reloading. "
+                            + "The first predicate to load a file sets the interval for all that share it."));
+
+    private static final SharedInstances<ReloadingFile<CompactValueSet>> SHARED = new SharedInstances<>();
+
+    private String fieldName;
+    private boolean useValue;
+    private String sharedName;
+    private ReloadingFile<CompactValueSet> setFile;
+    private TransformMetrics metrics = TransformMetrics.DISABLED;
+
+    @Override
+    public ConfigDef config() {
+        return CONFIG_DEF;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        final SimpleConfig config = new SimpleConfig(config(), configs);
+        fieldName = config.getString(ConfigName.FIELD);
+        useValue = config.getBoolean(ConfigName.USE_VALUE);
+        final Path file = Paths.get(config.getString(ConfigName.FILE)).toAbsolutePath().normalize();
+        final long interval = config.getLong(ConfigName.RELOAD_INTERVAL_MS);
+
+        release();
+        try {
+            setFile = SHARED.acquire(file.toString(), () -> load(file, interval));
+        } catch (UncheckedIOException | IllegalArgumentException e) {
+            throw new ConfigException(ConfigName.FILE, file.toString(), e.getMessage());
+        }
+        sharedName = file.toString();
+
+        metrics.close();
+        metrics = TransformMetrics.create(config, TransformMetrics.PREDICATE_GROUP, getClass());
+    }
+
+    @Override
+    public boolean test(R record) {
+        final long start = metrics.recordIn();
+        final boolean result = inSet(record);
+        metrics.predicate(result);
+        metrics.recordOut(start, record);
+        return result;
+    }
+
+    private boolean inSet(R record) {
+        final Object data = useValue ? record.value() : record.key();
+        if (data == null) {
+            return false;
+        }
+        final Object fieldValue;
+        if ((useValue ? record.valueSchema() : record.keySchema()) == null) {
+            fieldValue = requireMap(data, "set membership").get(fieldName);
+        } else {
+            final Struct value = requireStruct(data, "set membership");
+            final Field field = value.schema().field(fieldName);
+            fieldValue = field == null ? null : value.get(field);
+        }
+        return fieldValue != null && setFile.get().contains(fieldValue);
+    }
+
+    static int sharedReferences(Path file) {
+        return SHARED.references(file.toAbsolutePath().normalize().toString());
+    }
+
+    void reloadIfReplaced() {
+        setFile.reloadIfChanged();
+    }
+
+    private void release() {
+        if (sharedName != null) {
+            final ReloadingFile<CompactValueSet> last = SHARED.release(sharedName);
+            if (last != null) {
+                last.close();
+            }
+            sharedName = null;
+        }
+        setFile = null;
+    }
+
+    @Override
+    public void close() {
+        release();
+        metrics.close();
+        metrics = TransformMetrics.DISABLED;
+    }
+
+    //one file and its current set, shared by every predicate that uses the file
+    private static ReloadingFile<CompactValueSet> load(Path file, long interval) {
+        try {
+            return ReloadingFile.load(file, "field-in-set", FieldInSet::loadSet).poll(interval);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static CompactValueSet loadSet(Path file) throws IOException {
+        final long start = System.nanoTime();
+        final CompactValueSet loaded = CompactValueSet.load(file);
+        log.info("Loaded {} {} values from {} in {} ms", loaded.size(),
+                loaded instanceof CompactValueSet.Longs ? "numeric" : "string", file,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return loaded;
+    }
+}
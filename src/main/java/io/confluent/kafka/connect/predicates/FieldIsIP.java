@@ -1,5 +1,8 @@
 package io.confluent.kafka.connect.predicates;
 
+import io.confluent.kafka.connect.IpAddresses;
+import io.confluent.kafka.connect.json.RawJsonField;
+import io.confluent.kafka.connect.metrics.TransformMetrics;
 import org.apache.kafka.common.config.ConfigDef;
 import org.apache.kafka.connect.data.Struct;
 import org.apache.kafka.connect.errors.DataException;
@@ -9,9 +12,6 @@ import org.apache.kafka.connect.transforms.util.SimpleConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 import java.util.Map;
 
 import static org.apache.kafka.connect.transforms.util.Requirements.requireMap;
@@ -22,25 +22,23 @@ public class FieldIsIP<R extends ConnectRecord<R>> implements Predicate<R> {
 
     private static final String FIELD_CONFIG = "field";
     private static final String USE_VALUE_CONFIG = "useValue";
+    private static final String RAW_JSON_CONFIG = "rawJson";
     public static final String OVERVIEW_DOC = "A predicate which is true for records with an IP address as the value of the configured field name.";
-    public static final ConfigDef CONFIG_DEF = new ConfigDef()
+    public static final ConfigDef CONFIG_DEF = TransformMetrics.withMetricsConfig(new ConfigDef()
             .define(FIELD_CONFIG, ConfigDef.Type.STRING, ConfigDef.NO_DEFAULT_VALUE,
                     new ConfigDef.NonEmptyString(), ConfigDef.Importance.HIGH,
                     "The field name to look for an IP address.")
             .define(USE_VALUE_CONFIG, ConfigDef.Type.BOOLEAN, false,
                     null, ConfigDef.Importance.LOW,
-                    "Use the message value instead of the key to look for an IP address.");
+                    "Use the message value instead of the key to look for an IP address.")
+            .define(RAW_JSON_CONFIG, ConfigDef.Type.BOOLEAN, false,
+                    null, ConfigDef.Importance.LOW,
+                    "The key or value is raw JSON text, a String or byte[] from the String or ByteArray converter. The "
+                            + "field is read without parsing the document, and may be a dotted path into nested objects."));
     private String fieldName;
     private boolean useValue = false;
-
-    private Pattern pattern;
-    private Matcher matcher;
-
-    private static final String IPADDRESS_PATTERN =
-            "^([01]?\\d\\d?|2[0-4]\\d|25[0-5])\\." +
-            "([01]?\\d\\d?|2[0-4]\\d|25[0-5])\\." +
-            "([01]?\\d\\d?|2[0-4]\\d|25[0-5])\\." +
-            "([01]?\\d\\d?|2[0-4]\\d|25[0-5])$";
+    private RawJsonField rawJsonField;
+    private TransformMetrics metrics = TransformMetrics.DISABLED;
 
     @Override
     public ConfigDef config() {
@@ -49,9 +47,23 @@ public class FieldIsIP<R extends ConnectRecord<R>> implements Predicate<R> {
 
     @Override
     public boolean test(R record) {
-        log.debug("Running FieldIsIP predicate using message " + (useValue ? "value" : "key") + " and field name of  "+ fieldName +"'");
+        final long start = metrics.recordIn();
+        final boolean result = isIPField(record);
+        metrics.predicate(result);
+        metrics.recordOut(start, record);
+        return result;
+    }
+
+    private boolean isIPField(R record) {
+        log.debug("Running FieldIsIP predicate using message {} and field name of '{}'", useValue ? "value" : "key", fieldName);
 
         try {
+            if (rawJsonField != null) {
+                final CharSequence rawValue = rawJsonField.find(useValue ? record.value() : record.key());
+                final boolean isIP = rawValue != null && isIPAddress(rawValue);
+                log.debug("isIPAddress() returned {} for value: {}", isIP, rawValue);
+                return isIP;
+            }
             String dataValue = "";
             if ( useValue ? (record.valueSchema() == null) : (record.keySchema() == null) ) {
                 final Map<String, Object> value = useValue ? requireMap(record.value(), "") : requireMap(record.key(), "");
@@ -60,30 +72,34 @@ public class FieldIsIP<R extends ConnectRecord<R>> implements Predicate<R> {
                 final Struct value = useValue ? requireStruct(record.value(), "") : requireStruct(record.key(), "");
                 dataValue = String.valueOf(value.get(fieldName));
             }
-            dataValue = dataValue.replaceAll("\"","");
             boolean isIP = isIPAddress(dataValue);
-            log.debug("isIPAddress() returned "+ isIP +" for value: "+ dataValue);
+            log.debug("isIPAddress() returned {} for value: {}", isIP, dataValue);
             return isIP;
         } catch (DataException ex) {
-            log.warn("Unable to get a field named '"+ fieldName +"' from the kafka message.", ex);
+            log.warn("Unable to get a field named '{}' from the kafka message.", fieldName, ex);
             return false;
         }
     }
 
     @Override
     public void close() {
-
+        metrics.close();
+        metrics = TransformMetrics.DISABLED;
     }
 
     @Override
     public void configure(Map<String, ?> configs) {
-        fieldName = new SimpleConfig(config(), configs).getString(FIELD_CONFIG);
-        useValue = new SimpleConfig(config(), configs).getBoolean(USE_VALUE_CONFIG);
-        pattern = Pattern.compile(IPADDRESS_PATTERN);
+        final SimpleConfig config = new SimpleConfig(config(), configs);
+        fieldName = config.getString(FIELD_CONFIG);
+        useValue = config.getBoolean(USE_VALUE_CONFIG);
+        rawJsonField = config.getBoolean(RAW_JSON_CONFIG) ? new RawJsonField(fieldName) : null;
+        metrics.close();
+        metrics = TransformMetrics.create(config, TransformMetrics.PREDICATE_GROUP, getClass());
     }
 
-    private boolean isIPAddress(String checkMe) {
-        matcher = pattern.matcher(checkMe);
-        return matcher.matches();
+    //dotted-quad IPv4 with octets of 1-3 digits up to 255, ignoring any double quotes; scanned in place so the
+    //per-record check allocates nothing
+    static boolean isIPAddress(CharSequence checkMe) {
+        return IpAddresses.parseIpv4IgnoringQuotes(checkMe) != IpAddresses.INVALID_IPV4;
     }
 }
@@ -0,0 +1,112 @@
+package io.confluent.kafka.connect.predicates;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A Bloom filter whose bits live in direct byte buffers, outside the heap. Bits are set with an atomic
+ * {@code getAndBitwiseOr} on the 64-bit word holding them, so any number of threads can add and query at once without
+ * locks. Positions come from double hashing, {@code h1 + i * h2}, of a 64-bit pair computed by the caller.
+ */
+final class OffHeapBloomFilter {
+
+    private static final VarHandle WORDS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    //words per direct buffer, a buffer is limited to 2 GB
+    private static final int CHUNK_WORD_BITS = 27;
+    private static final long CHUNK_WORD_MASK = (1L << CHUNK_WORD_BITS) - 1;
+
+    private final ByteBuffer[] chunks;
+    private final long bits;
+    private final int hashes;
+
+    /**
+     * @param bits   size in bits, rounded up to a multiple of 64
+     * @param hashes bits set per entry
+     */
+    OffHeapBloomFilter(long bits, int hashes) {
+        final long words = Math.max(1, (bits + 63) >>> 6);
+        this.bits = words << 6;
+        this.hashes = hashes;
+        final int chunkCount = (int) ((words + CHUNK_WORD_MASK) >>> CHUNK_WORD_BITS);
+        chunks = new ByteBuffer[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            final long chunkWords = Math.min(words - ((long) i << CHUNK_WORD_BITS), 1L << CHUNK_WORD_BITS);
+            chunks[i] = ByteBuffer.allocateDirect((int) (chunkWords * Long.BYTES)).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * Bits that minimize memory for {@code entries} at the false positive rate.
+     */
+    static long optimalBits(long entries, double falsePositiveRate) {
+        return (long) Math.ceil(-Math.max(1, entries) * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    }
+
+    static int optimalHashes(long entries, long bits) {
+        return Math.max(1, (int) Math.round((double) bits / Math.max(1, entries) * Math.log(2)));
+    }
+
+    /**
+     * Expected false positive rate after {@code entries} adds.
+     */
+    static double falsePositiveRate(long entries, long bits, int hashes) {
+        return Math.pow(1 - Math.exp(-(double) hashes * entries / bits), hashes);
+    }
+
+    long bits() {
+        return bits;
+    }
+
+    int hashes() {
+        return hashes;
+    }
+
+    /**
+     * Adds the entry.
+     *
+     * @return true when every bit was already set, so the entry was probably added before
+     */
+    boolean add(long h1, long h2) {
+        boolean present = true;
+        for (int i = 0; i < hashes; i++) {
+            final long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bits;
+            final long mask = 1L << (bit & 63);
+            final long old = (long) WORDS.getAndBitwiseOr(chunk(bit), offset(bit), mask);
+            present &= (old & mask) != 0;
+        }
+        return present;
+    }
+
+    boolean mightContain(long h1, long h2) {
+        for (int i = 0; i < hashes; i++) {
+            final long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bits;
+            final long word = (long) WORDS.getAcquire(chunk(bit), offset(bit));
+            if ((word & (1L << (bit & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Zeroes every bit. Not atomic, callers make sure no thread uses the filter meanwhile.
+     */
+    void clear() {
+        for (ByteBuffer chunk : chunks) {
+            for (int offset = 0; offset < chunk.capacity(); offset += Long.BYTES) {
+                chunk.putLong(offset, 0L);
+            }
+        }
+    }
+
+    private ByteBuffer chunk(long bit) {
+        return chunks[(int) (bit >>> (6 + CHUNK_WORD_BITS))];
+    }
+
+    private static int offset(long bit) {
+        return (int) ((bit >>> 6) & CHUNK_WORD_MASK) * Long.BYTES;
+    }
+}
@@ -0,0 +1,147 @@
+package io.confluent.kafka.connect.predicates;
+
+import io.confluent.kafka.connect.metrics.TransformMetrics;
+import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.connect.connector.ConnectRecord;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.transforms.predicates.Predicate;
+import org.apache.kafka.connect.transforms.util.SimpleConfig;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static org.apache.kafka.connect.transforms.util.Requirements.requireMap;
+import static org.apache.kafka.connect.transforms.util.Requirements.requireStruct;
+
+public class RateExceeded<R extends ConnectRecord<R>> implements Predicate<R> {
+
+    public static final String OVERVIEW_DOC = "A predicate which is true for records whose key field value is over "
+            + "its rate. Each value has a token bucket refilled at the configured rate, and a record takes one token. "
+            + "Use it with the Filter transformation to shed the excess, or with a router to divert it.";
+
+    private interface ConfigName {
+        String FIELD = "field";
+        String USE_VALUE = "useValue";
+        String RATE = "rate";
+        String BURST = "burst";
+        String MAX_KEYS = "max.keys";
+        String IDLE_TIMEOUT_MS = "idle.timeout.ms";
+        String LIMITER_NAME = "limiter.name";
+    }
+
+    public static final ConfigDef CONFIG_DEF = TransformMetrics.withMetricsConfig(new ConfigDef()
+            .define(ConfigName.FIELD, ConfigDef.Type.STRING, ConfigDef.NO_DEFAULT_VALUE, new ConfigDef.NonEmptyString(),
+                    ConfigDef.Importance.HIGH, "Field whose values are rate limited separately, such as a device id.")
+            .define(ConfigName.USE_VALUE, ConfigDef.Type.BOOLEAN, true, ConfigDef.Importance.LOW,
+                    "Read the field from the message value instead of the key.")
+            .define(ConfigName.RATE, ConfigDef.Type.DOUBLE, ConfigDef.NO_DEFAULT_VALUE, ConfigDef.Range.atLeast(0),
+                    ConfigDef.Importance.HIGH, "Records per second allowed for each value.")
+            .define(ConfigName.BURST, ConfigDef.Type.DOUBLE, 0.0, ConfigDef.Range.atLeast(0), ConfigDef.Importance.MEDIUM,
+                    "Records a value may send at once after a quiet period. 0 allows one second of the rate.")
+            .define(ConfigName.MAX_KEYS, ConfigDef.Type.INT, 65_536, ConfigDef.Range.atLeast(1), ConfigDef.Importance.MEDIUM,
+                    "Values tracked at once, rounded up to a power of two. Memory is fixed at 24 bytes per value.")
+            .define(ConfigName.IDLE_TIMEOUT_MS, ConfigDef.Type.LONG, 60_000L, ConfigDef.Range.atLeast(1),
+                    ConfigDef.Importance.LOW, "A value without records for this long is forgotten and its slot reused.")
+            .define(ConfigName.LIMITER_NAME, ConfigDef.Type.STRING, "", ConfigDef.Importance.LOW,
+                    "Predicates in the same worker with the same name share their buckets, so the rate applies across "
+                            + "the tasks of a connector. Settings are taken from the first to configure. Empty keeps "
+                            + "the buckets private."));
+
+    private static final SharedInstances<TokenBucketTable> SHARED = new SharedInstances<>();
+
+    private final LongSupplier nanoClock;
+
+    private String fieldName;
+    private boolean useValue;
+    private String limiterName;
+    private TokenBucketTable buckets;
+    private TransformMetrics metrics = TransformMetrics.DISABLED;
+
+    public RateExceeded() {
+        this(System::nanoTime);
+    }
+
+    RateExceeded(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+    }
+
+    @Override
+    public ConfigDef config() {
+        return CONFIG_DEF;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        final SimpleConfig config = new SimpleConfig(config(), configs);
+        fieldName = config.getString(ConfigName.FIELD);
+        useValue = config.getBoolean(ConfigName.USE_VALUE);
+        final double rate = config.getDouble(ConfigName.RATE);
+        final double configuredBurst = config.getDouble(ConfigName.BURST);
+        final double burst = configuredBurst > 0 ? configuredBurst : Math.max(1, rate);
+        final int maxKeys = config.getInt(ConfigName.MAX_KEYS);
+        final long idleNanos = TimeUnit.MILLISECONDS.toNanos(config.getLong(ConfigName.IDLE_TIMEOUT_MS));
+
+        release();
+        limiterName = config.getString(ConfigName.LIMITER_NAME);
+        if (limiterName.isEmpty()) {
+            limiterName = null;
+            buckets = new TokenBucketTable(maxKeys, rate, burst, idleNanos);
+        } else {
+            buckets = SHARED.acquire(limiterName, () -> new TokenBucketTable(maxKeys, rate, burst, idleNanos));
+        }
+
+        metrics.close();
+        metrics = TransformMetrics.create(config, TransformMetrics.PREDICATE_GROUP, getClass());
+    }
+
+    @Override
+    public boolean test(R record) {
+        final long start = metrics.recordIn();
+        final boolean result = exceeded(record);
+        metrics.predicate(result);
+        metrics.recordOut(start, record);
+        return result;
+    }
+
+    private boolean exceeded(R record) {
+        final Object data = useValue ? record.value() : record.key();
+        if (data == null) {
+            return false;
+        }
+        final Object fieldValue;
+        if ((useValue ? record.valueSchema() : record.keySchema()) == null) {
+            fieldValue = requireMap(data, "rate limiting").get(fieldName);
+        } else {
+            final Struct value = requireStruct(data, "rate limiting");
+            final Field field = value.schema().field(fieldName);
+            fieldValue = field == null ? null : value.get(field);
+        }
+        //records without the field are not limited
+        if (fieldValue == null) {
+            return false;
+        }
+        final long hash = FieldHash.mix(FieldHash.update(FieldHash.FNV_OFFSET, fieldValue));
+        return buckets.exceeded(hash, nanoClock.getAsLong());
+    }
+
+    static int sharedReferences(String name) {
+        return SHARED.references(name);
+    }
+
+    private void release() {
+        if (limiterName != null) {
+            SHARED.release(limiterName);
+            limiterName = null;
+        }
+        buckets = null;
+    }
+
+    @Override
+    public void close() {
+        release();
+        metrics.close();
+        metrics = TransformMetrics.DISABLED;
+    }
+}
@@ -0,0 +1,195 @@
+package io.confluent.kafka.connect.predicates;
+
+import io.confluent.kafka.connect.metrics.TransformMetrics;
+import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.connect.connector.ConnectRecord;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.transforms.predicates.Predicate;
+import org.apache.kafka.connect.transforms.util.SimpleConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import static org.apache.kafka.connect.transforms.util.Requirements.requireMap;
+import static org.apache.kafka.connect.transforms.util.Requirements.requireStruct;
+
+public class RecordSeenBefore<R extends ConnectRecord<R>> implements Predicate<R> {
+    private final Logger log = LoggerFactory.getLogger(RecordSeenBefore.class);
+
+    public static final String OVERVIEW_DOC = "A predicate which is true for records whose key fields were already seen "
+            + "within a time window. Records are remembered in rotating off-heap Bloom filters, so the predicate can "
+            + "report a record it has not seen at the configured false positive rate, but only misses a duplicate "
+            + "within the window when both copies are tested at the same moment. Use it with the Filter transformation to drop duplicates.";
+
+    private interface ConfigName {
+        String FIELDS = "fields";
+        String USE_VALUE = "useValue";
+        String WINDOW_MS = "window.ms";
+        String WINDOW_SEGMENTS = "window.segments";
+        String EXPECTED_RECORDS = "expected.records";
+        String FALSE_POSITIVE_RATE = "false.positive.rate";
+        String MAX_MEMORY_BYTES = "max.memory.bytes";
+        String FILTER_NAME = "filter.name";
+    }
+
+    public static final ConfigDef CONFIG_DEF = TransformMetrics.withMetricsConfig(new ConfigDef()
+            .define(ConfigName.FIELDS, ConfigDef.Type.LIST, "uuid", ConfigDef.Importance.HIGH,
+                    "Fields that identify a record. Defaults to the field InsertUuid writes.")
+            .define(ConfigName.USE_VALUE, ConfigDef.Type.BOOLEAN, true, ConfigDef.Importance.LOW,
+                    "Read the fields from the message value instead of the key.")
+            .define(ConfigName.WINDOW_MS, ConfigDef.Type.LONG, 3_600_000L, ConfigDef.Range.atLeast(1),
+                    ConfigDef.Importance.HIGH, "How long a record is remembered.")
+            .define(ConfigName.WINDOW_SEGMENTS, ConfigDef.Type.INT, 4, ConfigDef.Range.between(1, 64),
+                    ConfigDef.Importance.LOW,
+                    "Filters the window is split into. A record is forgotten between window.ms and "
+                            + "window.ms * (1 + 1 / window.segments) after it was last seen.")
+            .define(ConfigName.EXPECTED_RECORDS, ConfigDef.Type.LONG, 10_000_000L, ConfigDef.Range.atLeast(1),
+                    ConfigDef.Importance.MEDIUM, "Distinct records expected per window, used to size the filters.")
+            .define(ConfigName.FALSE_POSITIVE_RATE, ConfigDef.Type.DOUBLE, 0.001, ConfigDef.Range.between(1e-9, 0.5),
+                    ConfigDef.Importance.MEDIUM,
+                    "Chance that a record not seen before is reported as seen, at the expected record count.")
+            .define(ConfigName.MAX_MEMORY_BYTES, ConfigDef.Type.LONG, 64L * 1024 * 1024, ConfigDef.Range.atLeast(1024),
+                    ConfigDef.Importance.MEDIUM,
+                    "Upper bound on the off-heap memory of the filters. When the false positive rate needs more, "
+                            + "the filters are capped and the effective rate is logged.")
+            .define(ConfigName.FILTER_NAME, ConfigDef.Type.STRING, "", ConfigDef.Importance.LOW,
+                    "Predicates in the same worker with the same name share one set of filters, so the tasks of a "
+                            + "connector deduplicate across each other. Sizing is taken from the first to configure. "
+                            + "Empty keeps the filters private."));
+
+    private static final SharedInstances<RotatingBloomFilter> SHARED = new SharedInstances<>();
+
+    private final LongSupplier clock;
+
+    private String[] fields;
+    private boolean useValue;
+    private String filterName;
+    private RotatingBloomFilter filter;
+    private TransformMetrics metrics = TransformMetrics.DISABLED;
+
+    public RecordSeenBefore() {
+        this(System::currentTimeMillis);
+    }
+
+    RecordSeenBefore(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public ConfigDef config() {
+        return CONFIG_DEF;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        final SimpleConfig config = new SimpleConfig(config(), configs);
+        final List<String> fieldList = config.getList(ConfigName.FIELDS);
+        if (fieldList.isEmpty()) {
+            throw new ConfigException(ConfigName.FIELDS, fieldList, "At least one field is required");
+        }
+        fields = fieldList.toArray(new String[0]);
+        useValue = config.getBoolean(ConfigName.USE_VALUE);
+
+        final long windowMs = config.getLong(ConfigName.WINDOW_MS);
+        final int segments = config.getInt(ConfigName.WINDOW_SEGMENTS);
+        final long expected = config.getLong(ConfigName.EXPECTED_RECORDS);
+        final double fpp = config.getDouble(ConfigName.FALSE_POSITIVE_RATE);
+        final long maxBytes = config.getLong(ConfigName.MAX_MEMORY_BYTES);
+
+        release();
+        filterName = config.getString(ConfigName.FILTER_NAME);
+        if (filterName.isEmpty()) {
+            filterName = null;
+            filter = newFilter(windowMs, segments, expected, fpp, maxBytes);
+        } else {
+            filter = SHARED.acquire(filterName, () -> newFilter(windowMs, segments, expected, fpp, maxBytes));
+        }
+
+        metrics.close();
+        metrics = TransformMetrics.create(config, TransformMetrics.PREDICATE_GROUP, getClass());
+    }
+
+    private RotatingBloomFilter newFilter(long windowMs, int segments, long expected, double fpp, long maxBytes) {
+        //a lookup checks every segment, so each one gets a share of the rate; the spare segment counts for memory
+        final long perSegment = Math.max(1, expected / segments);
+        long bits = OffHeapBloomFilter.optimalBits(perSegment, fpp / segments);
+        final long maxBits = maxBytes * 8 / (segments + 1);
+        if (bits > maxBits) {
+            bits = maxBits;
+            log.warn("Filters capped at {} bytes, the false positive rate at {} records per window is about {}",
+                    maxBytes, expected, segments * OffHeapBloomFilter.falsePositiveRate(perSegment, bits,
+                            OffHeapBloomFilter.optimalHashes(perSegment, bits)));
+        }
+        final RotatingBloomFilter filter = new RotatingBloomFilter(windowMs, segments, bits,
+                OffHeapBloomFilter.optimalHashes(perSegment, bits), clock);
+        log.info("Allocated {} bytes off-heap for {} filters of {} ms", filter.bytes(), segments + 1, windowMs / segments);
+        return filter;
+    }
+
+    @Override
+    public boolean test(R record) {
+        final long start = metrics.recordIn();
+        final boolean result = seenBefore(record);
+        metrics.predicate(result);
+        metrics.recordOut(start, record);
+        return result;
+    }
+
+    private boolean seenBefore(R record) {
+        final Object data = useValue ? record.value() : record.key();
+        final Object schema = useValue ? record.valueSchema() : record.keySchema();
+        if (data == null) {
+            return false;
+        }
+
+        long hash = FieldHash.FNV_OFFSET;
+        boolean anyField = false;
+        if (schema == null) {
+            final Map<String, Object> value = requireMap(data, "deduplication");
+            for (String name : fields) {
+                final Object fieldValue = value.get(name);
+                anyField |= fieldValue != null;
+                hash = FieldHash.update(hash, fieldValue);
+            }
+        } else {
+            final Struct value = requireStruct(data, "deduplication");
+            for (String name : fields) {
+                final Field field = value.schema().field(name);
+                final Object fieldValue = field == null ? null : value.get(field);
+                anyField |= fieldValue != null;
+                hash = FieldHash.update(hash, fieldValue);
+            }
+        }
+        //records without any key field cannot be told apart, so they are never duplicates
+        if (!anyField) {
+            return false;
+        }
+        final long h1 = FieldHash.mix(hash);
+        final long h2 = FieldHash.mix2(hash) | 1;
+        return filter.add(h1, h2);
+    }
+
+    static int sharedReferences(String name) {
+        return SHARED.references(name);
+    }
+
+    private void release() {
+        if (filterName != null) {
+            SHARED.release(filterName);
+            filterName = null;
+        }
+        filter = null;
+    }
+
+    @Override
+    public void close() {
+        release();
+        metrics.close();
+        metrics = TransformMetrics.DISABLED;
+    }
+}
@@ -0,0 +1,87 @@
+package io.confluent.kafka.connect.predicates;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers entries for a sliding time window with {@code segments} Bloom filters, one per slice of the window, plus
+ * a spare. New entries go into the filter of the current slice and lookups check every live one. When a slice ends,
+ * the filter of the slice that just left the window is cleared and reused.
+ * <p>
+ * Adds and lookups are lock-free. Only the rotation, once per slice, takes a lock: the filters it clears belong to
+ * slices no thread can still be adding to, and they are marked with their new slice before the new slice is
+ * published, so readers skip them while they are cleared.
+ */
+final class RotatingBloomFilter {
+
+    private static final long UNUSED = Long.MIN_VALUE;
+
+    private final OffHeapBloomFilter[] filters;
+    private final AtomicLongArray sliceOfFilter;
+    private final long sliceMs;
+    private final int segments;
+    private final LongSupplier clock;
+
+    private volatile long currentSlice;
+
+    RotatingBloomFilter(long windowMs, int segments, long bitsPerFilter, int hashes, LongSupplier clock) {
+        this.segments = segments;
+        this.sliceMs = Math.max(1, windowMs / segments);
+        this.clock = clock;
+        this.filters = new OffHeapBloomFilter[segments + 1];
+        this.sliceOfFilter = new AtomicLongArray(segments + 1);
+        for (int i = 0; i < filters.length; i++) {
+            filters[i] = new OffHeapBloomFilter(bitsPerFilter, hashes);
+            sliceOfFilter.set(i, UNUSED);
+        }
+        currentSlice = clock.getAsLong() / sliceMs;
+        sliceOfFilter.set(index(currentSlice), currentSlice);
+    }
+
+    long bytes() {
+        return filters.length * (filters[0].bits() / 8);
+    }
+
+    /**
+     * Adds the entry to the current slice.
+     *
+     * @return true when it was probably added before within the window
+     */
+    boolean add(long h1, long h2) {
+        final long slice = advance();
+        boolean seen = filters[index(slice)].add(h1, h2);
+        //the current slice and the segments before it: a slice started mid-window is only left after a full window
+        for (int i = 1; i <= segments && !seen; i++) {
+            final int index = index(slice - i);
+            if (sliceOfFilter.get(index) == slice - i) {
+                seen = filters[index].mightContain(h1, h2);
+            }
+        }
+        return seen;
+    }
+
+    private long advance() {
+        final long now = clock.getAsLong() / sliceMs;
+        final long current = currentSlice;
+        if (now <= current) {
+            return current;
+        }
+        synchronized (this) {
+            final long previous = currentSlice;
+            if (now > previous) {
+                //slices after the previous one reuse filters of slices that already left the window
+                for (long slice = Math.max(previous + 1, now - segments); slice <= now; slice++) {
+                    final int index = index(slice);
+                    sliceOfFilter.set(index, slice);
+                    filters[index].clear();
+                }
+                currentSlice = now;
+            }
+            return currentSlice;
+        }
+    }
+
+    private int index(long slice) {
+        return (int) Math.floorMod(slice, (long) filters.length);
+    }
+}
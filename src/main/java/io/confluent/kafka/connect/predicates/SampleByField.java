@@ -0,0 +1,206 @@
+package io.confluent.kafka.connect.predicates;
+
+import io.confluent.kafka.connect.metrics.TransformMetrics;
+import io.confluent.kafka.connect.reload.ReloadingFile;
+import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.connect.connector.ConnectRecord;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.transforms.predicates.Predicate;
+import org.apache.kafka.connect.transforms.util.SimpleConfig;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.apache.kafka.connect.transforms.util.Requirements.requireMap;
+import static org.apache.kafka.connect.transforms.util.Requirements.requireStruct;
+
+/**
+ * Keeps a consistent share of entities: the configured field is hashed with a seeded hash, and the record is in the
+ * sample when the hash falls below the ratio of its topic. Every record with the same field value gets the same
+ * answer, on every task and after restarts, as long as the seed is unchanged. Ratios per topic can come from a
+ * properties file of {@code topic=ratio} lines that is checked for changes every {@code reload.interval.ms}.
+ */
+public class SampleByField<R extends ConnectRecord<R>> implements Predicate<R> {
+
+    public static final String OVERVIEW_DOC = "A predicate which is true for the records in a deterministic sample "
+            + "chosen by the hash of a field. Use it with the Filter transformation and negate=true to keep the sample.";
+
+    private interface ConfigName {
+        String FIELD = "field";
+        String USE_VALUE = "useValue";
+        String RATIO = "ratio";
+        String SEED = "seed";
+        String RATIOS_FILE = "ratios.file";
+        String RELOAD_INTERVAL_MS = "reload.interval.ms";
+    }
+
+    //key of the ratios file that replaces the configured ratio for topics not in the file
+    static final String ANY_TOPIC = "*";
+
+    public static final ConfigDef CONFIG_DEF = TransformMetrics.withMetricsConfig(new ConfigDef()
+            .define(ConfigName.FIELD, ConfigDef.Type.STRING, ConfigDef.NO_DEFAULT_VALUE, new ConfigDef.NonEmptyString(),
+                    ConfigDef.Importance.HIGH, "Field identifying the entity to sample, such as a user id.")
+            .define(ConfigName.USE_VALUE, ConfigDef.Type.BOOLEAN, true, ConfigDef.Importance.LOW,
+                    "Read the field from the message value instead of the key.")
+            .define(ConfigName.RATIO, ConfigDef.Type.DOUBLE, 0.01, ConfigDef.Range.between(0, 1), ConfigDef.Importance.HIGH,
+                    "Share of entities in the sample, for topics without a ratio in the ratios file.")
+            .define(ConfigName.SEED, ConfigDef.Type.LONG, 0L, ConfigDef.Importance.LOW,
+                    "Hash seed. Changing it picks a different sample.")
+            .define(ConfigName.RATIOS_FILE, ConfigDef.Type.STRING, "", ConfigDef.Importance.MEDIUM,
+                    "Properties file of topic=ratio lines. The key * replaces the configured ratio. Empty uses the "
+                            + "configured ratio for every topic.")
+            .define(ConfigName.RELOAD_INTERVAL_MS, ConfigDef.Type.LONG, 10_000L, ConfigDef.Range.atLeast(0),
+                    ConfigDef.Importance.LOW, "How often to check whether the ratios file changed. 0 disables reloading."));
+
+    //the top 53 bits of the hash are compared, so a ratio maps exactly onto a threshold
+    private static final int HASH_BITS = 53;
+
+    private String fieldName;
+    private boolean useValue;
+    private long seedHash;
+    private long defaultThreshold;
+    private TransformMetrics metrics = TransformMetrics.DISABLED;
+
+    private Ratios configuredRatios;
+    private ReloadingFile<Ratios> ratiosFile;
+
+    @Override
+    public ConfigDef config() {
+        return CONFIG_DEF;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        final SimpleConfig config = new SimpleConfig(config(), configs);
+        fieldName = config.getString(ConfigName.FIELD);
+        useValue = config.getBoolean(ConfigName.USE_VALUE);
+        seedHash = FieldHash.start(config.getLong(ConfigName.SEED));
+        defaultThreshold = threshold(config.getDouble(ConfigName.RATIO));
+        stopReloading();
+
+        final String file = config.getString(ConfigName.RATIOS_FILE);
+        if (file.isEmpty()) {
+            configuredRatios = new Ratios(defaultThreshold, Collections.emptyMap());
+        } else {
+            try {
+                ratiosFile = ReloadingFile.load(Paths.get(file), "sample-by-field", this::load)
+                        .poll(config.getLong(ConfigName.RELOAD_INTERVAL_MS));
+            } catch (IOException | IllegalArgumentException e) {
+                throw new ConfigException(ConfigName.RATIOS_FILE, file, e.getMessage());
+            }
+        }
+
+        metrics.close();
+        metrics = TransformMetrics.create(config, TransformMetrics.PREDICATE_GROUP, getClass());
+    }
+
+    @Override
+    public boolean test(R record) {
+        final long start = metrics.recordIn();
+        final boolean result = sampled(record);
+        metrics.predicate(result);
+        metrics.recordOut(start, record);
+        return result;
+    }
+
+    private boolean sampled(R record) {
+        final Object data = useValue ? record.value() : record.key();
+        if (data == null) {
+            return false;
+        }
+        final Object fieldValue;
+        if ((useValue ? record.valueSchema() : record.keySchema()) == null) {
+            fieldValue = requireMap(data, "sampling").get(fieldName);
+        } else {
+            final Struct value = requireStruct(data, "sampling");
+            final Field field = value.schema().field(fieldName);
+            fieldValue = field == null ? null : value.get(field);
+        }
+        //records without the entity cannot be sampled consistently, so they are left out
+        if (fieldValue == null) {
+            return false;
+        }
+        final long hash = FieldHash.mix(FieldHash.update(seedHash, fieldValue)) >>> (Long.SIZE - HASH_BITS);
+        final Ratios ratios = ratiosFile != null ? ratiosFile.get() : configuredRatios;
+        return hash < ratios.threshold(record.topic());
+    }
+
+    static long threshold(double ratio) {
+        return (long) (ratio * (1L << HASH_BITS));
+    }
+
+    private Ratios load(Path file) throws IOException {
+        final Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        long fallback = defaultThreshold;
+        final Map<String, Long> thresholds = new HashMap<>();
+        for (String topic : properties.stringPropertyNames()) {
+            final String text = properties.getProperty(topic).trim();
+            final double ratio;
+            try {
+                ratio = Double.parseDouble(text);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Ratio for " + topic + " is not a number: " + text);
+            }
+            if (!(ratio >= 0 && ratio <= 1)) {
+                throw new IllegalArgumentException("Ratio for " + topic + " is not between 0 and 1: " + text);
+            }
+            if (topic.equals(ANY_TOPIC)) {
+                fallback = threshold(ratio);
+            } else {
+                thresholds.put(topic, threshold(ratio));
+            }
+        }
+        return new Ratios(fallback, thresholds);
+    }
+
+    void reloadIfChanged() {
+        ratiosFile.reloadIfChanged();
+    }
+
+    private void stopReloading() {
+        if (ratiosFile != null) {
+            ratiosFile.close();
+            ratiosFile = null;
+        }
+        configuredRatios = null;
+    }
+
+    @Override
+    public void close() {
+        stopReloading();
+        metrics.close();
+        metrics = TransformMetrics.DISABLED;
+    }
+
+    //the thresholds of one version of the file
+    private static final class Ratios {
+        final long fallback;
+        final Map<String, Long> thresholds;
+
+        Ratios(long fallback, Map<String, Long> thresholds) {
+            this.fallback = fallback;
+            this.thresholds = thresholds;
+        }
+
+        long threshold(String topic) {
+            if (thresholds.isEmpty()) {
+                return fallback;
+            }
+            final Long threshold = thresholds.get(topic);
+            return threshold == null ? fallback : threshold;
+        }
+    }
+}
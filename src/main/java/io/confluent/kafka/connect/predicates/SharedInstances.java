@@ -0,0 +1,46 @@
+package io.confluent.kafka.connect.predicates;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Reference counted instances shared by name between predicates in one worker, so tasks of a connector can share
+ * state. The instance is created by the first {@link #acquire} and dropped by the last {@link #release}.
+ */
+final class SharedInstances<V> {
+
+    private static final class Entry<V> {
+        final V instance;
+        int references;
+
+        Entry(V instance) {
+            this.instance = instance;
+        }
+    }
+
+    private final Map<String, Entry<V>> entries = new HashMap<>();
+
+    synchronized V acquire(String name, Supplier<V> factory) {
+        final Entry<V> entry = entries.computeIfAbsent(name, n -> new Entry<>(factory.get()));
+        entry.references++;
+        return entry.instance;
+    }
+
+    /**
+     * @return the instance when this was the last reference, for the caller to clean up, otherwise null
+     */
+    synchronized V release(String name) {
+        final Entry<V> entry = entries.get(name);
+        if (entry != null && --entry.references == 0) {
+            entries.remove(name);
+            return entry.instance;
+        }
+        return null;
+    }
+
+    synchronized int references(String name) {
+        final Entry<V> entry = entries.get(name);
+        return entry == null ? 0 : entry.references;
+    }
+}
@@ -0,0 +1,103 @@
+package io.confluent.kafka.connect.predicates;
+
+/**
+ * Token buckets for many keys in a fixed number of slots, held in primitive arrays so a key costs no objects. Keys
+ * are 64-bit hashes, placed by open addressing with a short linear probe. The table is split into stripes, each
+ * guarded by its own lock, and a probe never leaves the stripe of its key, so threads only contend when their keys
+ * share a stripe.
+ * <p>
+ * A slot whose bucket has been idle for the idle timeout is free for another key, which is how idle keys are evicted.
+ * When every slot of a probe is busy, the least recently used one is taken over; its key starts again with a full
+ * bucket when it comes back.
+ */
+final class TokenBucketTable {
+
+    private static final long EMPTY = 0;
+    private static final int PROBES = 8;
+    private static final int MAX_STRIPES = 64;
+
+    private final long[] keys;
+    private final double[] tokens;
+    private final long[] lastNanos;
+    private final Object[] locks;
+    private final int stripeShift;
+
+    private final double tokensPerNano;
+    private final double burst;
+    private final long idleNanos;
+
+    /**
+     * @param slots         number of keys tracked at once, rounded up to a power of two
+     * @param ratePerSecond tokens added per second
+     * @param burst         bucket capacity, the most records let through at once after a quiet period
+     * @param idleNanos     time after which a key's slot can be reused
+     */
+    TokenBucketTable(int slots, double ratePerSecond, double burst, long idleNanos) {
+        final int size = Math.max(PROBES, Integer.highestOneBit(Math.max(1, slots - 1)) << 1);
+        keys = new long[size];
+        tokens = new double[size];
+        lastNanos = new long[size];
+        final int stripes = Math.min(MAX_STRIPES, size / PROBES);
+        locks = new Object[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new Object();
+        }
+        stripeShift = Integer.numberOfTrailingZeros(size / stripes);
+        this.tokensPerNano = ratePerSecond / 1e9;
+        this.burst = burst;
+        this.idleNanos = idleNanos;
+    }
+
+    int slots() {
+        return keys.length;
+    }
+
+    /**
+     * Takes a token from the bucket of {@code hash}.
+     *
+     * @return true when the bucket was empty, so the key is over its rate
+     */
+    boolean exceeded(long hash, long nowNanos) {
+        final long key = hash == EMPTY ? 1 : hash;
+        final int stripe = (int) (key >>> 32) & (locks.length - 1);
+        final int stripeSize = 1 << stripeShift;
+        final int base = stripe << stripeShift;
+        final int start = (int) key & (stripeSize - 1);
+
+        synchronized (locks[stripe]) {
+            int slot = -1;
+            int free = -1;
+            int leastRecent = -1;
+            for (int i = 0; i < PROBES && i < stripeSize; i++) {
+                final int candidate = base + ((start + i) & (stripeSize - 1));
+                if (keys[candidate] == key) {
+                    slot = candidate;
+                    break;
+                }
+                if (free < 0 && (keys[candidate] == EMPTY || nowNanos - lastNanos[candidate] >= idleNanos)) {
+                    free = candidate;
+                }
+                if (leastRecent < 0 || lastNanos[candidate] - lastNanos[leastRecent] < 0) {
+                    leastRecent = candidate;
+                }
+            }
+
+            if (slot < 0) {
+                //a new key, or one whose slot was taken over, starts with a full bucket
+                slot = free >= 0 ? free : leastRecent;
+                keys[slot] = key;
+                tokens[slot] = burst;
+            } else {
+                final long elapsed = nowNanos - lastNanos[slot];
+                tokens[slot] = Math.min(burst, tokens[slot] + Math.max(0, elapsed) * tokensPerNano);
+            }
+            lastNanos[slot] = nowNanos;
+
+            if (tokens[slot] < 1) {
+                return true;
+            }
+            tokens[slot] -= 1;
+            return false;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package io.confluent.kafka.connect.reload;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A value loaded from a file, and loaded again when the file is replaced, for the transforms and predicates that read
+ * reference data from a file. Everything derived from one version of the file is one value, published with a single
+ * volatile write, so readers never wait and a record in flight finishes against the value it started with.
+ * <p>
+ * The version of the file is its inode where the file system has them, its modification time and its size, read
+ * through symlinks. It is checked every interval by a daemon thread ({@link #poll}) or after every burst of events in
+ * the file's directory ({@link #watch}). A replaced file that cannot be loaded leaves the previous value in place,
+ * and is not tried again until its version changes once more.
+ * <p>
+ * This class is public because its users live in more than one package; it is not part of the plugin configuration.
+ */
+public final class ReloadingFile<T> implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReloadingFile.class);
+
+    //events of one save or rename arrive in a burst, reload once after it
+    private static final long SETTLE_MS = 25;
+
+    /**
+     * Reads one version of the file. Invalid content is reported with an {@link IllegalArgumentException}.
+     */
+    @FunctionalInterface
+    public interface Loader<T> {
+        T load(Path file) throws IOException;
+    }
+
+    private final Path file;
+    private final String owner;
+    private final Loader<T> loader;
+
+    private volatile T value;
+    private Object version;
+    private Object failedVersion;
+
+    private ScheduledExecutorService reloader;
+    private WatchService watchService;
+    private Thread watcher;
+
+    private ReloadingFile(Path file, String owner, Loader<T> loader) {
+        this.file = file;
+        this.owner = owner;
+        this.loader = loader;
+    }
+
+    /**
+     * Loads the file once; call {@link #poll} or {@link #watch} to keep it up to date.
+     *
+     * @param owner names the reloading thread and log messages, such as {@code lookup-enrich}
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the loader rejects its content
+     */
+    public static <T> ReloadingFile<T> load(Path file, String owner, Loader<T> loader) throws IOException {
+        final ReloadingFile<T> reloading = new ReloadingFile<>(file, owner, loader);
+        //read before loading, so a replacement during the load is picked up by the next check
+        reloading.version = reloading.fileVersion();
+        reloading.value = loader.load(file);
+        return reloading;
+    }
+
+    public T get() {
+        return value;
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    /**
+     * Checks the file every {@code intervalMs} milliseconds on a daemon thread. 0 disables reloading.
+     */
+    public ReloadingFile<T> poll(long intervalMs) {
+        if (intervalMs > 0) {
+            reloader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, owner + "-reload-" + file.getFileName());
+                thread.setDaemon(true);
+                return thread;
+            });
+            reloader.scheduleWithFixedDelay(this::reloadIfChanged, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+        return this;
+    }
+
+    /**
+     * Checks the file after every burst of events in its directory. Any event leads to a check rather than only events
+     * named after the file: the file may be a symlink whose target is swapped by renaming another entry, like the
+     * ..data link of a Kubernetes ConfigMap volume.
+     *
+     * @throws IOException if the directory cannot be watched
+     */
+    public ReloadingFile<T> watch() throws IOException {
+        final Path directory = file.toAbsolutePath().getParent();
+        watchService = directory.getFileSystem().newWatchService();
+        try {
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+        final WatchService service = watchService;
+        watcher = new Thread(() -> watch(service), owner + "-watch-" + file.getFileName());
+        watcher.setDaemon(true);
+        watcher.start();
+        return this;
+    }
+
+    private void watch(WatchService service) {
+        try {
+            while (true) {
+                drain(service.take());
+                WatchKey key;
+                while ((key = service.poll(SETTLE_MS, TimeUnit.MILLISECONDS)) != null) {
+                    drain(key);
+                }
+                reloadIfChanged();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            //closed
+        }
+    }
+
+    private void drain(WatchKey key) {
+        key.pollEvents();
+        if (!key.reset()) {
+            log.warn("Directory of {} file {} is no longer watched, changes will not be picked up", owner, file);
+        }
+    }
+
+    private Object fileVersion() throws IOException {
+        final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        return Arrays.asList(attributes.fileKey(), attributes.lastModifiedTime(), attributes.size());
+    }
+
+    /**
+     * Loads the file again if its version changed since the last load or failed load.
+     */
+    public synchronized void reloadIfChanged() {
+        try {
+            final Object current = fileVersion();
+            if (current.equals(version) || current.equals(failedVersion)) {
+                return;
+            }
+            try {
+                value = loader.load(file);
+                version = current;
+                failedVersion = null;
+                log.info("Reloaded {} file {}", owner, file);
+            } catch (IOException | IllegalArgumentException e) {
+                failedVersion = current;
+                log.warn("Keeping the previous {} data, could not load the replaced file {}", owner, file, e);
+            }
+        } catch (IOException e) {
+            log.warn("Could not check {} file {} for changes", owner, file, e);
+        } catch (RuntimeException e) {
+            //an exception would cancel the scheduled task or end the watcher
+            log.error("Unexpected error reloading {} file {}", owner, file, e);
+        }
+    }
+
+    /**
+     * Stops reloading. The last value stays readable.
+     */
+    @Override
+    public void close() {
+        if (reloader != null) {
+            reloader.shutdownNow();
+            reloader = null;
+        }
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.warn("Could not close the watch service of {} file {}", owner, file, e);
+            }
+            watchService = null;
+        }
+        if (watcher != null) {
+            watcher.interrupt();
+            watcher = null;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package io.confluent.kafka.connect.transforms;
+
+import io.confluent.kafka.connect.IpAddresses;
+import io.confluent.kafka.connect.metrics.TransformMetrics;
+import org.apache.kafka.common.cache.Cache;
+import org.apache.kafka.common.cache.LRUCache;
+import org.apache.kafka.common.cache.SynchronizedCache;
+import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.connect.connector.ConnectRecord;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.transforms.Transformation;
+import org.apache.kafka.connect.transforms.util.SchemaUtil;
+import org.apache.kafka.connect.transforms.util.SimpleConfig;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.kafka.connect.transforms.util.Requirements.requireMap;
+import static org.apache.kafka.connect.transforms.util.Requirements.requireStruct;
+
+/**
+ * Finds IPv4 and IPv6 addresses in free text, such as a syslog message, and writes them to a new field of the record
+ * value. The text is scanned once, without regular expressions: a small state machine splits it into candidate tokens
+ * of hex digits, colons and dots that stand apart from surrounding words, and each candidate is checked in place by
+ * the address parser. Only the first {@code max.scan.chars} characters are scanned.
+ */
+public class ExtractIps<R extends ConnectRecord<R>> implements Transformation<R> {
+
+    public static final String OVERVIEW_DOC =
+            "Extract the IP addresses found in a text field into a new field.";
+
+    public static final String MODE_ALL = "all";
+    public static final String MODE_FIRST = "first";
+    public static final String MODE_LAST = "last";
+
+    private interface ConfigName {
+        String FIELD_NAME = "field.name";
+        String TARGET_FIELD = "target.field";
+        String MODE = "mode";
+        String MAX_SCAN_CHARS = "max.scan.chars";
+    }
+
+    public static final ConfigDef CONFIG_DEF = TransformMetrics.withMetricsConfig(new ConfigDef()
+            .define(ConfigName.FIELD_NAME, ConfigDef.Type.STRING, ConfigDef.NO_DEFAULT_VALUE, new ConfigDef.NonEmptyString(),
+                    ConfigDef.Importance.HIGH, "Text field to scan for IP addresses.")
+            .define(ConfigName.TARGET_FIELD, ConfigDef.Type.STRING, "ips", new ConfigDef.NonEmptyString(),
+                    ConfigDef.Importance.MEDIUM, "Field to write the addresses to.")
+            .define(ConfigName.MODE, ConfigDef.Type.STRING, MODE_ALL, ConfigDef.ValidString.in(MODE_ALL, MODE_FIRST, MODE_LAST),
+                    ConfigDef.Importance.MEDIUM, "'all' writes an array of every address found, 'first' and 'last' write "
+                            + "a single address, or null when there is none.")
+            .define(ConfigName.MAX_SCAN_CHARS, ConfigDef.Type.INT, 4096, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW,
+                    "Scan at most this many characters of the text, so a huge line costs a bounded amount."));
+
+    private static final String PURPOSE = "extracting IP addresses from a text field";
+
+    //the longest address text, an IPv6 address with an embedded dotted quad
+    private static final int MAX_ADDRESS_CHARS = 45;
+
+    private String fieldName;
+    private String targetField;
+    private String mode;
+    private int maxScanChars;
+    private TransformMetrics metrics = TransformMetrics.DISABLED;
+
+    private Cache<Schema, Schema> schemaUpdateCache;
+
+    @Override
+    public void configure(Map<String, ?> props) {
+        final SimpleConfig config = new SimpleConfig(CONFIG_DEF, props);
+        fieldName = config.getString(ConfigName.FIELD_NAME);
+        targetField = config.getString(ConfigName.TARGET_FIELD);
+        mode = config.getString(ConfigName.MODE);
+        maxScanChars = config.getInt(ConfigName.MAX_SCAN_CHARS);
+
+        schemaUpdateCache = new SynchronizedCache<>(new LRUCache<Schema, Schema>(16));
+        metrics.close();
+        metrics = TransformMetrics.create(config, TransformMetrics.TRANSFORM_GROUP, getClass());
+    }
+
+    @Override
+    public R apply(R record) {
+        final long start = metrics.recordIn();
+        final R result;
+        if (record.valueSchema() == null) {
+            result = applySchemaless(record);
+        } else {
+            result = applyWithSchema(record);
+        }
+        metrics.recordOut(start, result);
+        return result;
+    }
+
+    private R applySchemaless(R record) {
+        final Map<String, Object> value = requireMap(record.value(), PURPOSE);
+
+        final Object text = value.get(fieldName);
+        if (text == null) {
+            return record;
+        }
+
+        final Map<String, Object> updatedValue = new OverlayMap<>(value, targetField, extract(text));
+
+        return record.newRecord(record.topic(), record.kafkaPartition(), record.keySchema(), record.key(), null, updatedValue, record.timestamp());
+    }
+
+    private R applyWithSchema(R record) {
+        final Struct value = requireStruct(record.value(), PURPOSE);
+
+        Schema updatedSchema = schemaUpdateCache.get(value.schema());
+        if (updatedSchema == null) {
+            metrics.cacheMiss();
+            updatedSchema = makeUpdatedSchema(value.schema());
+            schemaUpdateCache.put(value.schema(), updatedSchema);
+        } else {
+            metrics.cacheHit();
+        }
+
+        final Struct updatedValue = new Struct(updatedSchema);
+        for (Field field : value.schema().fields()) {
+            final Object fieldValue = value.get(field);
+            if (fieldValue != null) {
+                updatedValue.put(field.name(), fieldValue);
+            }
+        }
+        final Object text = value.get(fieldName);
+        updatedValue.put(targetField, text == null ? null : extract(text));
+
+        return record.newRecord(record.topic(), record.kafkaPartition(), record.keySchema(), record.key(), updatedSchema, updatedValue, record.timestamp());
+    }
+
+    private Schema makeUpdatedSchema(Schema schema) {
+        final Field textField = schema.field(fieldName);
+        if (textField == null) {
+            throw new DataException("Field does not exist in the value: " + fieldName);
+        }
+        if (textField.schema().type() != Schema.Type.STRING) {
+            throw new DataException("Field " + fieldName + " must be a string but is " + textField.schema().type());
+        }
+        if (schema.field(targetField) != null) {
+            throw new DataException("Field already exists in the value: " + targetField);
+        }
+
+        final SchemaBuilder builder = SchemaUtil.copySchemaBasics(schema, SchemaBuilder.struct());
+        for (Field field : schema.fields()) {
+            builder.field(field.name(), field.schema());
+        }
+        builder.field(targetField, MODE_ALL.equals(mode)
+                ? SchemaBuilder.array(Schema.STRING_SCHEMA).optional().build()
+                : Schema.OPTIONAL_STRING_SCHEMA);
+        return builder.build();
+    }
+
+    private Object extract(Object value) {
+        final CharSequence text = value instanceof CharSequence ? (CharSequence) value : value.toString();
+        final Matches matches = new Matches(text, mode);
+        scan(text, Math.min(text.length(), maxScanChars), matches);
+        return matches.result();
+    }
+
+    /**
+     * Reports every address in the first {@code end} chars of the text, in order, until the sink asks to stop.
+     */
+    static void scan(CharSequence text, int end, Sink sink) {
+        final byte[] address = new byte[16];
+        int tokenStart = -1;
+        for (int i = 0; i <= end; i++) {
+            final boolean tokenChar = i < end && isTokenChar(text.charAt(i));
+            if (tokenStart < 0) {
+                if (tokenChar) {
+                    tokenStart = i;
+                }
+            } else if (!tokenChar) {
+                //a token cut off by the scan limit may be part of a longer address
+                final boolean cut = i == end && end < text.length() && isTokenChar(text.charAt(end));
+                if (!cut && !candidate(text, tokenStart, i, address, sink)) {
+                    return;
+                }
+                tokenStart = -1;
+            }
+        }
+    }
+
+    //checks a maximal run of token chars; returns false when the sink wants no more
+    private static boolean candidate(CharSequence text, int start, int end, byte[] address, Sink sink) {
+        //sentence punctuation and a single separating colon around the address
+        while (start < end && text.charAt(start) == '.') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) == '.') {
+            end--;
+        }
+        if (end - start >= 2 && text.charAt(start) == ':' && text.charAt(start + 1) != ':') {
+            start++;
+        }
+        if (end - start >= 2 && text.charAt(end - 1) == ':' && text.charAt(end - 2) != ':') {
+            end--;
+        }
+        if (end - start < 2 || isWordChar(text, start - 1) || isWordChar(text, end)) {
+            return true;
+        }
+        if (end - start <= MAX_ADDRESS_CHARS && IpAddresses.parse(text, start, end, address) != IpAddresses.INVALID
+                && hasGroup(text, start, end)) {
+            return sink.found(start, end);
+        }
+        //an IPv4 address with a port or other colon-separated parts, as in 10.0.0.1:8080
+        int part = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || text.charAt(i) == ':') {
+                if (i - part >= 7 && IpAddresses.parseIpv4(text, part, i) != IpAddresses.INVALID_IPV4 && !sink.found(part, i)) {
+                    return false;
+                }
+                part = i + 1;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isTokenChar(char c) {
+        return c >= '0' && c <= '9' || c >= 'a' && c <= 'f' || c >= 'A' && c <= 'F' || c == ':' || c == '.';
+    }
+
+    //letters, digits and underscores next to a token make it part of a word, like d:: in std::vector
+    private static boolean isWordChar(CharSequence text, int i) {
+        if (i < 0 || i >= text.length()) {
+            return false;
+        }
+        final char c = text.charAt(i);
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    //rules out a bare "::", which in text is punctuation rather than the unspecified address
+    private static boolean hasGroup(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) != ':') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    interface Sink {
+        /**
+         * @return false to stop scanning
+         */
+        boolean found(int start, int end);
+    }
+
+    //collects the addresses for one mode
+    private static final class Matches implements Sink {
+        private final CharSequence text;
+        private final String mode;
+        private List<String> all;
+        private int lastStart = -1;
+        private int lastEnd;
+
+        Matches(CharSequence text, String mode) {
+            this.text = text;
+            this.mode = mode;
+        }
+
+        @Override
+        public boolean found(int start, int end) {
+            if (MODE_ALL.equals(mode)) {
+                if (all == null) {
+                    all = new ArrayList<>(4);
+                }
+                all.add(text.subSequence(start, end).toString());
+                return true;
+            }
+            lastStart = start;
+            lastEnd = end;
+            return !MODE_FIRST.equals(mode);
+        }
+
+        Object result() {
+            if (MODE_ALL.equals(mode)) {
+                return all == null ? Collections.emptyList() : all;
+            }
+            return lastStart < 0 ? null : text.subSequence(lastStart, lastEnd).toString();
+        }
+    }
+
+    @Override
+    public ConfigDef config() {
+        return CONFIG_DEF;
+    }
+
+    @Override
+    public void close() {
+        schemaUpdateCache = null;
+        metrics.close();
+        metrics = TransformMetrics.DISABLED;
+    }
+}
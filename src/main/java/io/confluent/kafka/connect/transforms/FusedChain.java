@@ -0,0 +1,609 @@
+package io.confluent.kafka.connect.transforms;
+
+import io.confluent.kafka.connect.metrics.TransformMetrics;
+import org.apache.kafka.common.cache.Cache;
+import org.apache.kafka.common.cache.LRUCache;
+import org.apache.kafka.common.cache.SynchronizedCache;
+import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.utils.Utils;
+import org.apache.kafka.connect.connector.ConnectRecord;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.header.Headers;
+import org.apache.kafka.connect.transforms.Transformation;
+import org.apache.kafka.connect.transforms.util.SchemaUtil;
+import org.apache.kafka.connect.transforms.util.SimpleConfig;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Applies a chain of this project's transforms as one step. The schema changes of all stages are merged into a single
+ * cached target schema, the key and value are copied at most once each, and routing is decided before the one and only
+ * {@code newRecord} call. Records whose shape the fused path does not cover (mixed schema and schemaless sides, a stage
+ * that would fail) are run through the configured stages one after another, so the output always matches the
+ * unfused chain.
+ */
+public class FusedChain<R extends ConnectRecord<R>> implements Transformation<R> {
+
+    public static final String OVERVIEW_DOC =
+            "Apply several of the project transforms in a single record rebuild.";
+
+    private interface ConfigName {
+        String STAGES = "stages";
+        String TYPE = "type";
+    }
+
+    public static final ConfigDef CONFIG_DEF = TransformMetrics.withMetricsConfig(new ConfigDef()
+            .define(ConfigName.STAGES, ConfigDef.Type.LIST, ConfigDef.NO_DEFAULT_VALUE, ConfigDef.Importance.HIGH,
+                    "Ordered aliases of the transforms to fuse. Each stage is configured with the 'stages.<alias>.' prefix, "
+                            + "and 'stages.<alias>.type' names its class."));
+
+    private List<Stage<R>> stages;
+    private boolean fusable;
+    private boolean touchesKey;
+    private boolean touchesValue;
+    private boolean writesKey;
+    private boolean writesValue;
+    private boolean copiesNulls;
+    private boolean routes;
+    private TransformMetrics metrics = TransformMetrics.DISABLED;
+
+    private Cache<SchemaPair, Plan> planCache;
+
+    @Override
+    public void configure(Map<String, ?> props) {
+        final SimpleConfig config = new SimpleConfig(CONFIG_DEF, props);
+        final List<String> aliases = config.getList(ConfigName.STAGES);
+        if (aliases.isEmpty()) {
+            throw new ConfigException(ConfigName.STAGES, aliases, "At least one stage is required.");
+        }
+
+        stages = new ArrayList<>(aliases.size());
+        for (String alias : aliases) {
+            stages.add(newStage(alias, config.originalsWithPrefix(ConfigName.STAGES + "." + alias + ".")));
+        }
+
+        fusable = true;
+        boolean keyDropped = false;
+        for (Stage<R> stage : stages) {
+            if (keyDropped && stage.readsKey()) {
+                //the unfused chain fails on every record here, let it report its own error
+                fusable = false;
+            }
+            keyDropped |= stage.dropsKey();
+            touchesKey |= stage.readsKey();
+            touchesValue |= stage.readsValue();
+            writesKey |= stage.writesKey();
+            writesValue |= stage.writesValue();
+            copiesNulls |= stage.copiesNulls();
+            routes |= stage instanceof RegexRouterStage;
+        }
+
+        planCache = new SynchronizedCache<>(new LRUCache<SchemaPair, Plan>(16));
+        metrics.close();
+        metrics = TransformMetrics.create(config, TransformMetrics.TRANSFORM_GROUP, getClass());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Stage<R> newStage(String alias, Map<String, Object> stageProps) {
+        final Object type = stageProps.remove(ConfigName.TYPE);
+        if (type == null) {
+            throw new ConfigException("Missing '" + ConfigName.STAGES + "." + alias + "." + ConfigName.TYPE + "' for stage " + alias);
+        }
+
+        final Transformation<R> transform;
+        try {
+            transform = Utils.newInstance(type.toString(), Transformation.class);
+        } catch (ClassNotFoundException e) {
+            throw new ConfigException("Class not found for stage " + alias + ": " + type);
+        }
+        transform.configure(stageProps);
+
+        if (transform instanceof KeyToValue) {
+            return new KeyToValueStage<>((KeyToValue<R>) transform);
+        } else if (transform instanceof InsertUuid) {
+            final InsertUuid<R> insertUuid = (InsertUuid<R>) transform;
+            return new InsertFieldStage<>(insertUuid, insertUuid instanceof InsertUuid.Key, insertUuid.headerTarget(), insertUuid.fieldName(),
+                    Schema.STRING_SCHEMA, insertUuid::getRandomUuid);
+        } else if (transform instanceof InsertTimestamp) {
+            final InsertTimestamp<R> insertTimestamp = (InsertTimestamp<R>) transform;
+            return new InsertFieldStage<>(insertTimestamp, insertTimestamp instanceof InsertTimestamp.Key, insertTimestamp.headerTarget(), insertTimestamp.fieldName(),
+                    Schema.INT64_SCHEMA, System::currentTimeMillis);
+        } else if (transform instanceof RegexRouter && !((RegexRouter<R>) transform).rawJson()) {
+            return new RegexRouterStage<>((RegexRouter<R>) transform);
+        }
+
+        transform.close();
+        throw new ConfigException("Stage " + alias + " of type " + type + " cannot be fused, only KeyToValue, InsertUuid, "
+                + "InsertTimestamp and RegexRouter without raw.json are supported.");
+    }
+
+    @Override
+    public R apply(R record) {
+        final long start = metrics.recordIn();
+        final R result = applyStages(record);
+        if (routes && result != null) {
+            if (Objects.equals(result.topic(), record.topic())) {
+                metrics.passedThrough();
+            } else {
+                metrics.routed(result.topic());
+            }
+        }
+        metrics.recordOut(start, result);
+        return result;
+    }
+
+    private R applyStages(R record) {
+        if (!fusable) {
+            return applySequentially(record);
+        }
+
+        //the side that is transformed decides between the schema and the schemaless path, like the stages themselves do
+        final boolean withSchema = touchesValue ? record.valueSchema() != null : record.keySchema() != null;
+        if (touchesKey && withSchema != (record.keySchema() != null)) {
+            return applySequentially(record);
+        }
+
+        if (withSchema) {
+            return applyWithSchema(record);
+        } else {
+            return applySchemaless(record);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private R applySchemaless(R record) {
+        if ((touchesKey && !(record.key() instanceof Map)) || (touchesValue && !(record.value() instanceof Map))) {
+            return applySequentially(record);
+        }
+
+        final Working working = new Working(record.topic(), record.headers(),
+                writesKey ? new HashMap<>((Map<String, Object>) record.key()) : record.key(),
+                writesValue ? new HashMap<>((Map<String, Object>) record.value()) : record.value());
+
+        for (Stage<R> stage : stages) {
+            stage.apply(working);
+        }
+
+        return newRecord(record, working, record.keySchema(), record.valueSchema());
+    }
+
+    private R applyWithSchema(R record) {
+        if ((touchesKey && !(record.key() instanceof Struct)) || (touchesValue && !(record.value() instanceof Struct))) {
+            return applySequentially(record);
+        }
+
+        final Struct key = touchesKey ? (Struct) record.key() : null;
+        final Struct value = touchesValue ? (Struct) record.value() : null;
+        final SchemaPair shape = new SchemaPair(key == null ? null : key.schema(), value == null ? null : value.schema());
+
+        Plan plan = planCache.get(shape);
+        if (plan == null) {
+            metrics.cacheMiss();
+            plan = makePlan(shape);
+            planCache.put(shape, plan);
+        } else {
+            metrics.cacheHit();
+        }
+        if (plan == Plan.UNFUSABLE) {
+            return applySequentially(record);
+        }
+
+        final Working working = new Working(record.topic(), record.headers(),
+                plan.keySchema != null ? copy(key, plan.keySchema, false) : record.key(),
+                plan.valueSchema != null ? copy(value, plan.valueSchema, copiesNulls) : record.value());
+
+        for (Stage<R> stage : stages) {
+            stage.apply(working);
+        }
+
+        return newRecord(record, working,
+                plan.keySchema != null ? plan.keySchema : record.keySchema(),
+                plan.valueSchema != null ? plan.valueSchema : record.valueSchema());
+    }
+
+    private Plan makePlan(SchemaPair shape) {
+        final Draft key = shape.key == null ? null : new Draft(shape.key);
+        final Draft value = shape.value == null ? null : new Draft(shape.value);
+        for (Stage<R> stage : stages) {
+            if (!stage.plan(key, value)) {
+                return Plan.UNFUSABLE;
+            }
+        }
+        return new Plan(key == null ? null : key.build(), value == null ? null : value.build());
+    }
+
+    private R newRecord(R record, Working working, Schema keySchema, Schema valueSchema) {
+        if (working.keyDropped) {
+            keySchema = null;
+        }
+        if (working.headers != null) {
+            return record.newRecord(working.topic, record.kafkaPartition(), keySchema, working.key, valueSchema, working.value, record.timestamp(), working.headers);
+        }
+        if (!working.keyDropped && working.key == record.key() && working.value == record.value()
+                && Objects.equals(working.topic, record.topic())) {
+            return record;
+        }
+        return record.newRecord(working.topic, record.kafkaPartition(), keySchema, working.key, valueSchema, working.value, record.timestamp());
+    }
+
+    private R applySequentially(R record) {
+        R current = record;
+        for (Stage<R> stage : stages) {
+            current = stage.transform.apply(current);
+            if (current == null) {
+                return null;
+            }
+        }
+        return current;
+    }
+
+    private static Struct copy(Struct source, Schema targetSchema, boolean copyNulls) {
+        final Struct target = new Struct(targetSchema);
+        for (Field field : source.schema().fields()) {
+            final Object fieldValue = source.get(field);
+            if (fieldValue != null || copyNulls) {
+                target.put(field.name(), fieldValue);
+            }
+        }
+        return target;
+    }
+
+    @Override
+    public ConfigDef config() {
+        return CONFIG_DEF;
+    }
+
+    @Override
+    public void close() {
+        if (stages != null) {
+            for (Stage<R> stage : stages) {
+                stage.transform.close();
+            }
+        }
+        planCache = null;
+        metrics.close();
+        metrics = TransformMetrics.DISABLED;
+    }
+
+    /**
+     * Mutable state threaded through the stages of one record. Key and value are either the record's own objects or
+     * the single copy made for this record, headers are copied on the first header write.
+     */
+    private static final class Working {
+        private final Headers sourceHeaders;
+        private String topic;
+        private Object key;
+        private Object value;
+        private Headers headers;
+        private boolean keyDropped;
+
+        private Working(String topic, Headers sourceHeaders, Object key, Object value) {
+            this.topic = topic;
+            this.sourceHeaders = sourceHeaders;
+            this.key = key;
+            this.value = value;
+        }
+
+        private void addHeader(String name, Object headerValue, Schema headerSchema) {
+            if (headers == null) {
+                headers = sourceHeaders.duplicate();
+            }
+            headers.add(name, headerValue, headerSchema);
+        }
+
+        private Object get(Object container, String fieldName) {
+            if (container instanceof Struct) {
+                return ((Struct) container).get(fieldName);
+            }
+            return ((Map<?, ?>) container).get(fieldName);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void put(Object container, String fieldName, Object fieldValue) {
+            if (container instanceof Struct) {
+                ((Struct) container).put(fieldName, fieldValue);
+            } else {
+                ((Map<String, Object>) container).put(fieldName, fieldValue);
+            }
+        }
+    }
+
+    /**
+     * The target schema of one side under construction: the source schema plus the fields appended by the stages.
+     * {@link #touched()} records that the side needs a new Struct even when no field is appended.
+     */
+    private static final class Draft {
+        private final Schema source;
+        private final Map<String, Schema> appended = new LinkedHashMap<>();
+        private boolean touched;
+
+        private Draft(Schema source) {
+            this.source = source;
+        }
+
+        private Schema fieldSchema(String name) {
+            final Field field = source.field(name);
+            return field != null ? field.schema() : appended.get(name);
+        }
+
+        private boolean append(String name, Schema schema) {
+            touched = true;
+            if (fieldSchema(name) != null) {
+                return false;
+            }
+            appended.put(name, schema);
+            return true;
+        }
+
+        private void touched() {
+            touched = true;
+        }
+
+        private Schema build() {
+            if (!touched) {
+                return null;
+            }
+            if (appended.isEmpty()) {
+                return source;
+            }
+            final SchemaBuilder builder = SchemaUtil.copySchemaBasics(source, SchemaBuilder.struct());
+            for (Field field : source.fields()) {
+                builder.field(field.name(), field.schema());
+            }
+            for (Map.Entry<String, Schema> field : appended.entrySet()) {
+                builder.field(field.getKey(), field.getValue());
+            }
+            return builder.build();
+        }
+    }
+
+    /**
+     * Target schemas for one source shape, {@code null} for a side that is passed through by reference.
+     */
+    private static final class Plan {
+        private static final Plan UNFUSABLE = new Plan(null, null);
+
+        private final Schema keySchema;
+        private final Schema valueSchema;
+
+        private Plan(Schema keySchema, Schema valueSchema) {
+            this.keySchema = keySchema;
+            this.valueSchema = valueSchema;
+        }
+    }
+
+    private static final class SchemaPair {
+        private final Schema key;
+        private final Schema value;
+
+        private SchemaPair(Schema key, Schema value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SchemaPair)) {
+                return false;
+            }
+            final SchemaPair that = (SchemaPair) o;
+            return Objects.equals(key, that.key) && Objects.equals(value, that.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(key, value);
+        }
+    }
+
+    /**
+     * One configured transform, described by what it reads and writes so the chain can merge it with the others.
+     * {@link #plan} mirrors the schema checks of the transform and returns false wherever the transform would take a
+     * path that is not fused, typically because it is going to fail.
+     */
+    private abstract static class Stage<R extends ConnectRecord<R>> {
+        private final Transformation<R> transform;
+
+        private Stage(Transformation<R> transform) {
+            this.transform = transform;
+        }
+
+        boolean readsKey() {
+            return false;
+        }
+
+        boolean readsValue() {
+            return false;
+        }
+
+        boolean writesKey() {
+            return false;
+        }
+
+        boolean writesValue() {
+            return false;
+        }
+
+        boolean dropsKey() {
+            return false;
+        }
+
+        boolean copiesNulls() {
+            return false;
+        }
+
+        abstract boolean plan(Draft key, Draft value);
+
+        abstract void apply(Working working);
+    }
+
+    private static final class KeyToValueStage<R extends ConnectRecord<R>> extends Stage<R> {
+        private final String keyField;
+        private final String msgField;
+        private final boolean dropKey;
+        private final boolean toHeader;
+
+        private KeyToValueStage(KeyToValue<R> transform) {
+            super(transform);
+            keyField = transform.keyField();
+            msgField = transform.msgField();
+            dropKey = transform.dropKey();
+            toHeader = transform.headerTarget();
+        }
+
+        @Override
+        boolean readsKey() {
+            return true;
+        }
+
+        @Override
+        boolean readsValue() {
+            return !toHeader;
+        }
+
+        @Override
+        boolean writesValue() {
+            return !toHeader;
+        }
+
+        @Override
+        boolean dropsKey() {
+            return dropKey;
+        }
+
+        //KeyToValue copies every value field as is, which rejects nulls in required fields
+        @Override
+        boolean copiesNulls() {
+            return !toHeader;
+        }
+
+        @Override
+        boolean plan(Draft key, Draft value) {
+            final Schema keyFieldSchema = key.fieldSchema(keyField);
+            if (keyFieldSchema == null) {
+                return false;
+            }
+            if (toHeader) {
+                return true;
+            }
+            if (value.fieldSchema(msgField) == null) {
+                value.append(msgField, keyFieldSchema);
+            } else {
+                value.touched();
+            }
+            return true;
+        }
+
+        @Override
+        void apply(Working working) {
+            final Object fieldValue = working.get(working.key, keyField);
+            if (toHeader) {
+                working.addHeader(msgField, fieldValue,
+                        working.key instanceof Struct ? ((Struct) working.key).schema().field(keyField).schema() : null);
+            } else {
+                working.put(working.value, msgField, fieldValue);
+            }
+            if (dropKey) {
+                working.key = null;
+                working.keyDropped = true;
+            }
+        }
+    }
+
+    private static final class InsertFieldStage<R extends ConnectRecord<R>> extends Stage<R> {
+        private final boolean onKey;
+        private final boolean toHeader;
+        private final String fieldName;
+        private final Schema fieldSchema;
+        private final Supplier<Object> fieldValue;
+
+        private InsertFieldStage(Transformation<R> transform, boolean onKey, boolean toHeader, String fieldName,
+                                 Schema fieldSchema, Supplier<Object> fieldValue) {
+            super(transform);
+            this.onKey = onKey;
+            this.toHeader = toHeader;
+            this.fieldName = fieldName;
+            this.fieldSchema = fieldSchema;
+            this.fieldValue = fieldValue;
+        }
+
+        @Override
+        boolean readsKey() {
+            return onKey && !toHeader;
+        }
+
+        @Override
+        boolean readsValue() {
+            return !onKey && !toHeader;
+        }
+
+        @Override
+        boolean writesKey() {
+            return readsKey();
+        }
+
+        @Override
+        boolean writesValue() {
+            return readsValue();
+        }
+
+        @Override
+        boolean plan(Draft key, Draft value) {
+            return toHeader || (onKey ? key : value).append(fieldName, fieldSchema);
+        }
+
+        @Override
+        void apply(Working working) {
+            if (toHeader) {
+                working.addHeader(fieldName, fieldValue.get(), fieldSchema);
+            } else {
+                working.put(onKey ? working.key : working.value, fieldName, fieldValue.get());
+            }
+        }
+    }
+
+    private static final class RegexRouterStage<R extends ConnectRecord<R>> extends Stage<R> {
+        private final RegexRouter<R> router;
+        private final String fieldName;
+
+        private RegexRouterStage(RegexRouter<R> transform) {
+            super(transform);
+            router = transform;
+            fieldName = transform.fieldName();
+        }
+
+        @Override
+        boolean readsValue() {
+            return true;
+        }
+
+        @Override
+        boolean plan(Draft key, Draft value) {
+            return value.fieldSchema(fieldName) != null;
+        }
+
+        //evaluated at its position in the chain against the value as the previous stages left it
+        @Override
+        void apply(Working working) {
+            final Object fieldValue = working.get(working.value, fieldName);
+            //asks the router, so reloaded rules apply to the fused chain too
+            final String topic = fieldValue == null ? null : router.route(fieldValue.toString());
+            if (topic != null) {
+                working.topic = topic;
+            }
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package io.confluent.kafka.connect.transforms;
+
+import com.maxmind.db.Reader;
+import io.confluent.kafka.connect.metrics.TransformMetrics;
+import org.apache.kafka.common.cache.Cache;
+import org.apache.kafka.common.cache.LRUCache;
+import org.apache.kafka.common.cache.SynchronizedCache;
+import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.connect.connector.ConnectRecord;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.transforms.Transformation;
+import org.apache.kafka.connect.transforms.util.SchemaUtil;
+import org.apache.kafka.connect.transforms.util.SimpleConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+import static org.apache.kafka.connect.transforms.util.Requirements.requireMap;
+import static org.apache.kafka.connect.transforms.util.Requirements.requireStruct;
+
+/**
+ * Adds GeoIP attributes of the IP address in a value field, read from local MaxMind DB (MMDB) files such as
+ * GeoLite2-City and GeoLite2-ASN. The databases are memory-mapped and only the records of looked-up networks are
+ * decoded; a bounded LRU cache of results sits in front of them for repeated addresses. Only IP literals are looked
+ * up, a host name is never resolved, so the transform needs no network access. Fields of addresses that are invalid or
+ * not in any database are null.
+ */
+public class GeoIpEnrich<R extends ConnectRecord<R>> implements Transformation<R> {
+
+    private static final Logger log = LoggerFactory.getLogger(GeoIpEnrich.class);
+
+    public static final String OVERVIEW_DOC =
+            "Add country, city and ASN attributes of an IP address field from local MMDB files.";
+
+    private interface ConfigName {
+        String IP_FIELD = "ip.field";
+        String DATABASES = "databases";
+        String FIELDS = "fields";
+        String FIELD_PREFIX = "field.prefix";
+        String LOCALE = "locale";
+        String CACHE_SIZE = "cache.size";
+    }
+
+    public static final ConfigDef CONFIG_DEF = TransformMetrics.withMetricsConfig(new ConfigDef()
+            .define(ConfigName.IP_FIELD, ConfigDef.Type.STRING, ConfigDef.NO_DEFAULT_VALUE, new ConfigDef.NonEmptyString(),
+                    ConfigDef.Importance.HIGH, "Field in the record value holding the IP address.")
+            .define(ConfigName.DATABASES, ConfigDef.Type.LIST, ConfigDef.NO_DEFAULT_VALUE, ConfigDef.Importance.HIGH,
+                    "Paths of the MMDB files, for example a City and an ASN database. Each output field takes the first non-null value in this order.")
+            .define(ConfigName.FIELDS, ConfigDef.Type.LIST, "country_code,country_name,city,latitude,longitude,asn,as_org",
+                    ConfigDef.Importance.MEDIUM, "Fields to add: " + GeoField.names() + ".")
+            .define(ConfigName.FIELD_PREFIX, ConfigDef.Type.STRING, "geo_", ConfigDef.Importance.LOW,
+                    "Prefix for the names of the added fields.")
+            .define(ConfigName.LOCALE, ConfigDef.Type.STRING, "en", ConfigDef.Importance.LOW,
+                    "Language of the country, city and subdivision names.")
+            .define(ConfigName.CACHE_SIZE, ConfigDef.Type.INT, 4096, ConfigDef.Range.atLeast(0), ConfigDef.Importance.LOW,
+                    "Number of IP addresses whose results are cached. 0 disables the cache."));
+
+    private static final String PURPOSE = "adding GeoIP fields to record value";
+    private static final Object[] NOT_FOUND = new Object[0];
+
+    private String ipField;
+    private String locale;
+    private GeoField[] fields;
+    private String[] outputFields;
+    private List<Reader> readers;
+    private TransformMetrics metrics = TransformMetrics.DISABLED;
+
+    private Cache<String, Object[]> resultCache;
+    private Cache<Schema, Schema> schemaUpdateCache;
+
+    @Override
+    public void configure(Map<String, ?> props) {
+        final SimpleConfig config = new SimpleConfig(CONFIG_DEF, props);
+        ipField = config.getString(ConfigName.IP_FIELD);
+        locale = config.getString(ConfigName.LOCALE);
+
+        final List<String> names = config.getList(ConfigName.FIELDS);
+        fields = new GeoField[names.size()];
+        outputFields = new String[names.size()];
+        for (int i = 0; i < names.size(); i++) {
+            fields[i] = GeoField.forName(names.get(i));
+            outputFields[i] = config.getString(ConfigName.FIELD_PREFIX) + names.get(i);
+        }
+
+        closeReaders();
+        readers = new ArrayList<>();
+        for (String path : config.getList(ConfigName.DATABASES)) {
+            try {
+                readers.add(new Reader(new File(path), Reader.FileMode.MEMORY_MAPPED));
+            } catch (IOException e) {
+                closeReaders();
+                throw new ConfigException(ConfigName.DATABASES, path, "Cannot open MMDB file: " + e.getMessage());
+            }
+        }
+        if (readers.isEmpty()) {
+            throw new ConfigException(ConfigName.DATABASES, "", "At least one database is required.");
+        }
+
+        final int cacheSize = config.getInt(ConfigName.CACHE_SIZE);
+        resultCache = cacheSize > 0 ? new SynchronizedCache<>(new LRUCache<>(cacheSize)) : null;
+        schemaUpdateCache = new SynchronizedCache<>(new LRUCache<>(16));
+        metrics.close();
+        metrics = TransformMetrics.create(config, TransformMetrics.TRANSFORM_GROUP, getClass());
+    }
+
+    @Override
+    public R apply(R record) {
+        final long start = metrics.recordIn();
+        final R result;
+        if (record.valueSchema() == null) {
+            result = applySchemaless(record);
+        } else {
+            result = applyWithSchema(record);
+        }
+        metrics.recordOut(start, result);
+        return result;
+    }
+
+    private R applySchemaless(R record) {
+        final Map<String, Object> value = requireMap(record.value(), PURPOSE);
+        final Object[] geo = lookup(value.get(ipField));
+
+        final Map<String, Object> updatedValue = new HashMap<>(value.size() + outputFields.length + 1, 1f);
+        updatedValue.putAll(value);
+        for (int i = 0; i < outputFields.length; i++) {
+            updatedValue.put(outputFields[i], geo == NOT_FOUND ? null : geo[i]);
+        }
+
+        return record.newRecord(record.topic(), record.kafkaPartition(), record.keySchema(), record.key(), null, updatedValue, record.timestamp());
+    }
+
+    private R applyWithSchema(R record) {
+        final Struct value = requireStruct(record.value(), PURPOSE);
+        final Field field = value.schema().field(ipField);
+        if (field == null) {
+            throw new DataException("Field does not exist in the value: " + ipField);
+        }
+        final Object[] geo = lookup(value.get(field));
+
+        Schema updatedSchema = schemaUpdateCache.get(value.schema());
+        if (updatedSchema == null) {
+            metrics.cacheMiss();
+            updatedSchema = makeUpdatedSchema(value.schema());
+            schemaUpdateCache.put(value.schema(), updatedSchema);
+        } else {
+            metrics.cacheHit();
+        }
+
+        final Struct updatedValue = new Struct(updatedSchema);
+        for (Field f : value.schema().fields()) {
+            updatedValue.put(f.name(), value.get(f));
+        }
+        if (geo != NOT_FOUND) {
+            for (int i = 0; i < outputFields.length; i++) {
+                updatedValue.put(outputFields[i], geo[i]);
+            }
+        }
+
+        return record.newRecord(record.topic(), record.kafkaPartition(), record.keySchema(), record.key(), updatedSchema, updatedValue, record.timestamp());
+    }
+
+    private Schema makeUpdatedSchema(Schema schema) {
+        final SchemaBuilder builder = SchemaUtil.copySchemaBasics(schema, SchemaBuilder.struct());
+        for (Field field : schema.fields()) {
+            builder.field(field.name(), field.schema());
+        }
+        for (int i = 0; i < outputFields.length; i++) {
+            if (schema.field(outputFields[i]) != null) {
+                throw new DataException("Field already exists in the value: " + outputFields[i]);
+            }
+            builder.field(outputFields[i], fields[i].schema);
+        }
+        return builder.build();
+    }
+
+    private Object[] lookup(Object ipValue) {
+        if (ipValue == null) {
+            return NOT_FOUND;
+        }
+        final String ip = ipValue.toString();
+        if (resultCache == null) {
+            return lookupDatabases(ip);
+        }
+        Object[] result = resultCache.get(ip);
+        if (result == null) {
+            result = lookupDatabases(ip);
+            resultCache.put(ip, result);
+        }
+        return result;
+    }
+
+    private Object[] lookupDatabases(String ip) {
+        final InetAddress address = parseAddress(ip);
+        if (address == null) {
+            return NOT_FOUND;
+        }
+
+        Object[] result = NOT_FOUND;
+        for (Reader reader : readers) {
+            final Map<?, ?> data;
+            try {
+                data = reader.get(address, Map.class);
+            } catch (IOException | RuntimeException e) {
+                //an IPv6 address against an IPv4-only database, or a corrupt record
+                log.debug("GeoIP lookup of {} failed", ip, e);
+                continue;
+            }
+            if (data == null) {
+                continue;
+            }
+            if (result == NOT_FOUND) {
+                result = new Object[fields.length];
+            }
+            for (int i = 0; i < fields.length; i++) {
+                if (result[i] == null) {
+                    result[i] = fields[i].extractor.apply(data, locale);
+                }
+            }
+        }
+        return result;
+    }
+
+    //IP literals only: InetAddress.getByName would resolve anything else over DNS
+    static InetAddress parseAddress(String value) {
+        final String ip = value.indexOf('"') >= 0 ? value.replace("\"", "") : value;
+        if (ip.isEmpty()) {
+            return null;
+        }
+        try {
+            if (ip.indexOf(':') >= 0) {
+                //the JDK parses a value starting with a hex digit or ':' and containing ':' as an IPv6 literal and never resolves it
+                final char first = ip.charAt(0);
+                if (first != ':' && Character.digit(first, 16) < 0) {
+                    return null;
+                }
+                return InetAddress.getByName(ip);
+            }
+            final byte[] octets = parseIPv4(ip);
+            return octets == null ? null : InetAddress.getByAddress(octets);
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    private static byte[] parseIPv4(String ip) {
+        final byte[] octets = new byte[4];
+        int octet = 0;
+        int digits = 0;
+        int count = 0;
+        for (int i = 0; i <= ip.length(); i++) {
+            final char c = i < ip.length() ? ip.charAt(i) : '.';
+            if (c >= '0' && c <= '9' && digits < 3) {
+                octet = octet * 10 + (c - '0');
+                digits++;
+            } else if (c == '.' && digits > 0 && octet <= 255 && count < 4) {
+                octets[count++] = (byte) octet;
+                octet = 0;
+                digits = 0;
+            } else {
+                return null;
+            }
+        }
+        return count == 4 ? octets : null;
+    }
+
+    @Override
+    public ConfigDef config() {
+        return CONFIG_DEF;
+    }
+
+    @Override
+    public void close() {
+        closeReaders();
+        resultCache = null;
+        schemaUpdateCache = null;
+        metrics.close();
+        metrics = TransformMetrics.DISABLED;
+    }
+
+    private void closeReaders() {
+        if (readers == null) {
+            return;
+        }
+        for (Reader reader : readers) {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                log.warn("Failed to close GeoIP database", e);
+            }
+        }
+        readers = null;
+    }
+
+    //output fields and where they are in the GeoIP2 City/Country and ASN record layouts
+    private enum GeoField {
+        COUNTRY_CODE("country_code", Schema.OPTIONAL_STRING_SCHEMA, (data, locale) -> string(data, "country", "iso_code")),
+        COUNTRY_NAME("country_name", Schema.OPTIONAL_STRING_SCHEMA, (data, locale) -> string(data, "country", "names", locale)),
+        CONTINENT_CODE("continent_code", Schema.OPTIONAL_STRING_SCHEMA, (data, locale) -> string(data, "continent", "code")),
+        SUBDIVISION("subdivision", Schema.OPTIONAL_STRING_SCHEMA, (data, locale) -> {
+            final Object subdivisions = data.get("subdivisions");
+            return subdivisions instanceof List && !((List<?>) subdivisions).isEmpty() && ((List<?>) subdivisions).get(0) instanceof Map
+                    ? string((Map<?, ?>) ((List<?>) subdivisions).get(0), "names", locale) : null;
+        }),
+        CITY("city", Schema.OPTIONAL_STRING_SCHEMA, (data, locale) -> string(data, "city", "names", locale)),
+        POSTAL_CODE("postal_code", Schema.OPTIONAL_STRING_SCHEMA, (data, locale) -> string(data, "postal", "code")),
+        LATITUDE("latitude", Schema.OPTIONAL_FLOAT64_SCHEMA, (data, locale) -> number(path(data, "location", "latitude"), true)),
+        LONGITUDE("longitude", Schema.OPTIONAL_FLOAT64_SCHEMA, (data, locale) -> number(path(data, "location", "longitude"), true)),
+        TIME_ZONE("time_zone", Schema.OPTIONAL_STRING_SCHEMA, (data, locale) -> string(data, "location", "time_zone")),
+        ASN("asn", Schema.OPTIONAL_INT64_SCHEMA, (data, locale) -> number(data.get("autonomous_system_number"), false)),
+        AS_ORG("as_org", Schema.OPTIONAL_STRING_SCHEMA, (data, locale) -> string(data, "autonomous_system_organization"));
+
+        final String name;
+        final Schema schema;
+        final BiFunction<Map<?, ?>, String, Object> extractor;
+
+        GeoField(String name, Schema schema, BiFunction<Map<?, ?>, String, Object> extractor) {
+            this.name = name;
+            this.schema = schema;
+            this.extractor = extractor;
+        }
+
+        static GeoField forName(String name) {
+            for (GeoField field : values()) {
+                if (field.name.equals(name)) {
+                    return field;
+                }
+            }
+            throw new ConfigException(ConfigName.FIELDS, name, "Unknown GeoIP field, expected one of " + names());
+        }
+
+        static String names() {
+            final List<String> names = new ArrayList<>();
+            for (GeoField field : values()) {
+                names.add(field.name);
+            }
+            return String.join(", ", names);
+        }
+
+        private static Object path(Map<?, ?> data, String... keys) {
+            Object current = data;
+            for (String key : keys) {
+                if (!(current instanceof Map)) {
+                    return null;
+                }
+                current = ((Map<?, ?>) current).get(key);
+            }
+            return current;
+        }
+
+        private static String string(Map<?, ?> data, String... keys) {
+            final Object value = path(data, keys);
+            return value == null ? null : value.toString();
+        }
+
+        private static Object number(Object value, boolean floating) {
+            if (!(value instanceof Number)) {
+                return null;
+            }
+            if (floating) {
+                return ((Number) value).doubleValue();
+            }
+            return value instanceof BigInteger ? ((BigInteger) value).longValue() : ((Number) value).longValue();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package io.confluent.kafka.connect.transforms;
 
+import io.confluent.kafka.connect.metrics.TransformMetrics;
 import org.apache.kafka.common.cache.Cache;
 import org.apache.kafka.common.cache.LRUCache;
 import org.apache.kafka.common.cache.SynchronizedCache;
@@ -9,12 +10,12 @@ import org.apache.kafka.connect.data.Field;
 import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.data.SchemaBuilder;
 import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.header.Headers;
 
 import org.apache.kafka.connect.transforms.Transformation;
 import org.apache.kafka.connect.transforms.util.SchemaUtil;
 import org.apache.kafka.connect.transforms.util.SimpleConfig;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
@@ -26,17 +27,25 @@ public abstract class InsertUuid<R extends ConnectRecord<R>> implements Transfor
     public static final String OVERVIEW_DOC =
             "Insert a random UUID into a connect record";
 
+    public static final String TARGET_FIELD = "field";
+    public static final String TARGET_HEADER = "header";
+
     private interface ConfigName {
+        String TARGET = "target";
         String UUID_FIELD_NAME = "uuid.field.name";
     }
 
-    public static final ConfigDef CONFIG_DEF = new ConfigDef()
+    public static final ConfigDef CONFIG_DEF = TransformMetrics.withMetricsConfig(new ConfigDef()
             .define(ConfigName.UUID_FIELD_NAME, ConfigDef.Type.STRING, "uuid", ConfigDef.Importance.HIGH,
-                    "Field name for UUID");
+                    "Field name for UUID")
+            .define(ConfigName.TARGET, ConfigDef.Type.STRING, TARGET_FIELD, ConfigDef.ValidString.in(TARGET_FIELD, TARGET_HEADER), ConfigDef.Importance.LOW,
+                    "Where to write the UUID: 'field' adds it to the record key or value, 'header' adds a record header named after the field and leaves key and value untouched."));
 
     private static final String PURPOSE = "adding UUID to record";
 
     private String fieldName;
+    private boolean headerTarget;
+    private TransformMetrics metrics = TransformMetrics.DISABLED;
 
     private Cache<Schema, Schema> schemaUpdateCache;
 
@@ -44,26 +53,41 @@ public abstract class InsertUuid<R extends ConnectRecord<R>> implements Transfor
     public void configure(Map<String, ?> props) {
         final SimpleConfig config = new SimpleConfig(CONFIG_DEF, props);
         fieldName = config.getString(ConfigName.UUID_FIELD_NAME);
+        headerTarget = TARGET_HEADER.equals(config.getString(ConfigName.TARGET));
 
         schemaUpdateCache = new SynchronizedCache<>(new LRUCache<Schema, Schema>(16));
+        metrics.close();
+        metrics = TransformMetrics.create(config, TransformMetrics.TRANSFORM_GROUP, getClass());
     }
 
 
     @Override
     public R apply(R record) {
-        if (operatingSchema(record) == null) {
-            return applySchemaless(record);
+        final long start = metrics.recordIn();
+        final R result;
+        if (headerTarget) {
+            result = applyToHeaders(record);
+        } else if (operatingSchema(record) == null) {
+            result = applySchemaless(record);
         } else {
-            return applyWithSchema(record);
+            result = applyWithSchema(record);
         }
+        metrics.recordOut(start, result);
+        return result;
+    }
+
+    //key and value are passed on by reference, only the headers are copied so the input record is left untouched
+    private R applyToHeaders(R record) {
+        final Headers headers = record.headers().duplicate();
+        headers.addString(fieldName, getRandomUuid());
+
+        return record.newRecord(record.topic(), record.kafkaPartition(), record.keySchema(), record.key(), record.valueSchema(), record.value(), record.timestamp(), headers);
     }
 
     private R applySchemaless(R record) {
         final Map<String, Object> value = requireMap(operatingValue(record), PURPOSE);
 
-        final Map<String, Object> updatedValue = new HashMap<>(value);
-
-        updatedValue.put(fieldName, getRandomUuid());
+        final Map<String, Object> updatedValue = new OverlayMap<>(value, fieldName, getRandomUuid());
 
         return newRecord(record, null, updatedValue);
     }
@@ -73,8 +97,11 @@ public abstract class InsertUuid<R extends ConnectRecord<R>> implements Transfor
 
         Schema updatedSchema = schemaUpdateCache.get(value.schema());
         if(updatedSchema == null) {
+            metrics.cacheMiss();
             updatedSchema = makeUpdatedSchema(value.schema());
             schemaUpdateCache.put(value.schema(), updatedSchema);
+        } else {
+            metrics.cacheHit();
         }
 
         final Struct updatedValue = new Struct(updatedSchema);
@@ -98,9 +125,19 @@ public abstract class InsertUuid<R extends ConnectRecord<R>> implements Transfor
     @Override
     public void close() {
         schemaUpdateCache = null;
+        metrics.close();
+        metrics = TransformMetrics.DISABLED;
+    }
+
+    String fieldName() {
+        return fieldName;
+    }
+
+    boolean headerTarget() {
+        return headerTarget;
     }
 
-    private String getRandomUuid() {
+    String getRandomUuid() {
         return UUID.randomUUID().toString();
     }
 
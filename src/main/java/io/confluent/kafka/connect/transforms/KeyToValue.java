@@ -1,5 +1,6 @@
 package io.confluent.kafka.connect.transforms;
 
+import io.confluent.kafka.connect.metrics.TransformMetrics;
 import org.apache.kafka.common.config.ConfigDef;
 import org.apache.kafka.common.utils.AppInfoParser;
 import org.apache.kafka.connect.components.Versioned;
@@ -9,6 +10,7 @@ import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.data.SchemaBuilder;
 import org.apache.kafka.connect.data.Struct;
 import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.header.Headers;
 import org.apache.kafka.connect.transforms.Transformation;
 import org.apache.kafka.connect.transforms.util.SchemaUtil;
 import org.apache.kafka.connect.transforms.util.SimpleConfig;
@@ -24,20 +26,28 @@ public class KeyToValue<R extends ConnectRecord<R>> implements Transformation<R>
     public static final String KEY_FIELD_CONFIG = "keyField";
     public static final String MSG_FIELD_CONFIG = "msgField";
     public static final String DROP_KEY_CONFIG = "dropKey";
+    public static final String TARGET_CONFIG = "target";
 
-    public static final ConfigDef CONFIG_DEF = new ConfigDef()
+    public static final String TARGET_VALUE = "value";
+    public static final String TARGET_HEADER = "header";
+
+    public static final ConfigDef CONFIG_DEF = TransformMetrics.withMetricsConfig(new ConfigDef()
             .define(KEY_FIELD_CONFIG, ConfigDef.Type.STRING, ConfigDef.NO_DEFAULT_VALUE, ConfigDef.Importance.HIGH,
                     "Field name in the record key to copy into the record message value.")
             .define(MSG_FIELD_CONFIG, ConfigDef.Type.STRING, ConfigDef.NO_DEFAULT_VALUE, ConfigDef.Importance.HIGH,
                     "Field names in the record message value to copy the key into.")
             .define(DROP_KEY_CONFIG, ConfigDef.Type.BOOLEAN, false, ConfigDef.Importance.LOW,
-                    "If set to true, will set the entire key to null.");
+                    "If set to true, will set the entire key to null.")
+            .define(TARGET_CONFIG, ConfigDef.Type.STRING, TARGET_VALUE, ConfigDef.ValidString.in(TARGET_VALUE, TARGET_HEADER), ConfigDef.Importance.LOW,
+                    "Where to copy the key field: 'value' adds it to the record message value, 'header' adds a record header named msgField and leaves the value untouched."));
 
     private static final String PURPOSE = "copying a field from the key to the message value";
 
     private String keyField;
     private String msgField;
     private boolean dropKey;
+    private boolean headerTarget;
+    private TransformMetrics metrics = TransformMetrics.DISABLED;
 
     @Override
     public String version() {
@@ -50,29 +60,66 @@ public class KeyToValue<R extends ConnectRecord<R>> implements Transformation<R>
         keyField = config.getString(KEY_FIELD_CONFIG);
         msgField = config.getString(MSG_FIELD_CONFIG);
         dropKey = config.getBoolean(DROP_KEY_CONFIG);
+        headerTarget = TARGET_HEADER.equals(config.getString(TARGET_CONFIG));
+        metrics.close();
+        metrics = TransformMetrics.create(config, TransformMetrics.TRANSFORM_GROUP, getClass());
     }
 
     @Override
     public R apply(R record) {
+        final long start = metrics.recordIn();
+        final R result;
+        if (headerTarget) {
+            result = applyToHeaders(record);
+        } else if (record.valueSchema() == null) {
+            result = applySchemaless(record);
+        } else {
+            result = applyWithSchema(record);
+        }
+        metrics.recordOut(start, result);
+        return result;
+    }
 
-        if (record.valueSchema() == null) {
-            return applySchemaless(record);
+    //the value is passed on by reference, only the headers are copied so the input record is left untouched
+    private R applyToHeaders(R record) {
+        final Object fieldValue;
+        final Schema fieldSchema;
+        if (record.keySchema() == null) {
+            final Map<String, Object> key = requireMap(record.key(), PURPOSE);
+            fieldValue = key.get(keyField);
+            fieldSchema = null;
         } else {
-            return applyWithSchema(record);
+            final Struct key = requireStruct(record.key(), PURPOSE);
+            final Field fieldFromKey = key.schema().field(keyField);
+            if (fieldFromKey == null) {
+                throw new DataException("Field does not exist in the key: " + keyField);
+            }
+            fieldValue = key.get(fieldFromKey);
+            fieldSchema = fieldFromKey.schema();
         }
+
+        final Headers headers = record.headers().duplicate();
+        headers.add(msgField, fieldValue, fieldSchema);
+
+        if(dropKey){
+            return record.newRecord(record.topic(), record.kafkaPartition(), null, null, record.valueSchema(), record.value(), record.timestamp(), headers);
+        }
+
+        return record.newRecord(record.topic(), record.kafkaPartition(), record.keySchema(), record.key(), record.valueSchema(), record.value(), record.timestamp(), headers);
     }
 
     private R applySchemaless(R record) {
         final Map<String, Object> value = requireMap(record.value(), PURPOSE);
         final Map<String, Object> key = requireMap(record.key(), PURPOSE);
 
-        value.put(msgField, key.get(keyField));
+        //never write into the incoming map, the same record may be handed to us again on a retry
+        final Map<String, Object> updatedValue = new OverlayMap<>(value, msgField, key.get(keyField));
 
         if(dropKey){
-            return record.newRecord(record.topic(), record.kafkaPartition(), null, null, null, value, record.timestamp());
+            return record.newRecord(record.topic(), record.kafkaPartition(), null, null, null, updatedValue, record.timestamp());
         }
 
-        return record.newRecord(record.topic(), record.kafkaPartition(), null, key, null, value, record.timestamp());
+        return record.newRecord(record.topic(), record.kafkaPartition(), null, key, null, updatedValue, record.timestamp());
     }
 
     //this works like org.apache.kafka.connect.transforms.InsertField.applyWithSchema()
@@ -115,6 +162,22 @@ public class KeyToValue<R extends ConnectRecord<R>> implements Transformation<R>
         return record.newRecord(record.topic(), record.kafkaPartition(), keySchema, key, valueSchema, updatedValue, record.timestamp());
     }
 
+    String keyField() {
+        return keyField;
+    }
+
+    String msgField() {
+        return msgField;
+    }
+
+    boolean dropKey() {
+        return dropKey;
+    }
+
+    boolean headerTarget() {
+        return headerTarget;
+    }
+
     @Override
     public ConfigDef config() {
         return CONFIG_DEF;
@@ -122,7 +185,8 @@ public class KeyToValue<R extends ConnectRecord<R>> implements Transformation<R>
 
     @Override
     public void close() {
-
+        metrics.close();
+        metrics = TransformMetrics.DISABLED;
     }
 
 }
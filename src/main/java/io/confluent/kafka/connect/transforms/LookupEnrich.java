@@ -0,0 +1,224 @@
+package io.confluent.kafka.connect.transforms;
+
+import io.confluent.kafka.connect.lookup.LookupIndex;
+import io.confluent.kafka.connect.metrics.TransformMetrics;
+import io.confluent.kafka.connect.reload.ReloadingFile;
+import org.apache.kafka.common.cache.Cache;
+import org.apache.kafka.common.cache.LRUCache;
+import org.apache.kafka.common.cache.SynchronizedCache;
+import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.connect.connector.ConnectRecord;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.transforms.Transformation;
+import org.apache.kafka.connect.transforms.util.SchemaUtil;
+import org.apache.kafka.connect.transforms.util.SimpleConfig;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.kafka.connect.transforms.util.Requirements.requireMap;
+import static org.apache.kafka.connect.transforms.util.Requirements.requireStruct;
+
+/**
+ * Appends fields looked up by a key field of the record value in a {@link LookupIndex} file built offline with
+ * {@link io.confluent.kafka.connect.lookup.LookupIndexBuilder}. The index is memory-mapped, so the reference table
+ * lives in the page cache rather than the heap. A background thread checks the file every
+ * {@code reload.interval.ms}; when it has been replaced, the new index is opened and swapped in with a single volatile
+ * write by {@link ReloadingFile}, and records in flight finish against the index they started with.
+ */
+public class LookupEnrich<R extends ConnectRecord<R>> implements Transformation<R> {
+
+    public static final String OVERVIEW_DOC =
+            "Append fields looked up by a key field in a memory-mapped reference file.";
+
+    private interface ConfigName {
+        String LOOKUP_FILE = "lookup.file";
+        String KEY_FIELD = "key.field";
+        String FIELDS = "fields";
+        String FIELD_PREFIX = "field.prefix";
+        String RELOAD_INTERVAL_MS = "reload.interval.ms";
+    }
+
+    public static final ConfigDef CONFIG_DEF = TransformMetrics.withMetricsConfig(new ConfigDef()
+            .define(ConfigName.LOOKUP_FILE, ConfigDef.Type.STRING, ConfigDef.NO_DEFAULT_VALUE, new ConfigDef.NonEmptyString(),
+                    ConfigDef.Importance.HIGH, "Path of the lookup file written by LookupIndexBuilder.")
+            .define(ConfigName.KEY_FIELD, ConfigDef.Type.STRING, ConfigDef.NO_DEFAULT_VALUE, new ConfigDef.NonEmptyString(),
+                    ConfigDef.Importance.HIGH, "Field in the record value holding the lookup key.")
+            .define(ConfigName.FIELDS, ConfigDef.Type.LIST, "", ConfigDef.Importance.MEDIUM,
+                    "Fields of the lookup file to append. Empty appends all of them.")
+            .define(ConfigName.FIELD_PREFIX, ConfigDef.Type.STRING, "", ConfigDef.Importance.LOW,
+                    "Prefix for the names of the appended fields.")
+            .define(ConfigName.RELOAD_INTERVAL_MS, ConfigDef.Type.LONG, 10_000L, ConfigDef.Range.atLeast(0), ConfigDef.Importance.LOW,
+                    "How often to check whether the lookup file was replaced. 0 disables reloading."));
+
+    private static final String PURPOSE = "enriching record value from lookup file";
+
+    private String keyField;
+    private List<String> fields;
+    private String fieldPrefix;
+    private TransformMetrics metrics = TransformMetrics.DISABLED;
+
+    private ReloadingFile<Lookup> lookup;
+
+    @Override
+    public void configure(Map<String, ?> props) {
+        final SimpleConfig config = new SimpleConfig(CONFIG_DEF, props);
+        final Path lookupFile = Paths.get(config.getString(ConfigName.LOOKUP_FILE));
+        keyField = config.getString(ConfigName.KEY_FIELD);
+        fields = config.getList(ConfigName.FIELDS);
+        fieldPrefix = config.getString(ConfigName.FIELD_PREFIX);
+
+        stopReloading();
+        try {
+            lookup = ReloadingFile.load(lookupFile, "lookup-enrich", this::load)
+                    .poll(config.getLong(ConfigName.RELOAD_INTERVAL_MS));
+        } catch (IOException | IllegalArgumentException e) {
+            throw new ConfigException(ConfigName.LOOKUP_FILE, lookupFile.toString(), e.getMessage());
+        }
+
+        metrics.close();
+        metrics = TransformMetrics.create(config, TransformMetrics.TRANSFORM_GROUP, getClass());
+    }
+
+    @Override
+    public R apply(R record) {
+        final long start = metrics.recordIn();
+        final Lookup current = lookup.get();
+        final R result;
+        if (record.valueSchema() == null) {
+            result = applySchemaless(record, current);
+        } else {
+            result = applyWithSchema(record, current);
+        }
+        metrics.recordOut(start, result);
+        return result;
+    }
+
+    private R applySchemaless(R record, Lookup current) {
+        final Map<String, Object> value = requireMap(record.value(), PURPOSE);
+        final long entry = current.find(value.get(keyField));
+
+        final Map<String, Object> updatedValue = new HashMap<>(value.size() + current.outputFields.length + 1, 1f);
+        updatedValue.putAll(value);
+        for (int i = 0; i < current.outputFields.length; i++) {
+            updatedValue.put(current.outputFields[i], current.value(entry, i));
+        }
+
+        return record.newRecord(record.topic(), record.kafkaPartition(), record.keySchema(), record.key(), null, updatedValue, record.timestamp());
+    }
+
+    private R applyWithSchema(R record, Lookup current) {
+        final Struct value = requireStruct(record.value(), PURPOSE);
+        final Field field = value.schema().field(keyField);
+        if (field == null) {
+            throw new DataException("Field does not exist in the value: " + keyField);
+        }
+        final long entry = current.find(value.get(field));
+
+        Schema updatedSchema = current.schemaUpdateCache.get(value.schema());
+        if (updatedSchema == null) {
+            metrics.cacheMiss();
+            updatedSchema = makeUpdatedSchema(value.schema(), current);
+            current.schemaUpdateCache.put(value.schema(), updatedSchema);
+        } else {
+            metrics.cacheHit();
+        }
+
+        final Struct updatedValue = new Struct(updatedSchema);
+        for (Field f : value.schema().fields()) {
+            updatedValue.put(f.name(), value.get(f));
+        }
+        for (int i = 0; i < current.outputFields.length; i++) {
+            updatedValue.put(current.outputFields[i], current.value(entry, i));
+        }
+
+        return record.newRecord(record.topic(), record.kafkaPartition(), record.keySchema(), record.key(), updatedSchema, updatedValue, record.timestamp());
+    }
+
+    private Schema makeUpdatedSchema(Schema schema, Lookup current) {
+        final SchemaBuilder builder = SchemaUtil.copySchemaBasics(schema, SchemaBuilder.struct());
+        for (Field field : schema.fields()) {
+            builder.field(field.name(), field.schema());
+        }
+        for (String outputField : current.outputFields) {
+            if (schema.field(outputField) != null) {
+                throw new DataException("Field already exists in the value: " + outputField);
+            }
+            builder.field(outputField, Schema.OPTIONAL_STRING_SCHEMA);
+        }
+        return builder.build();
+    }
+
+    private Lookup load(Path lookupFile) throws IOException {
+        final LookupIndex index = LookupIndex.open(lookupFile);
+
+        final List<String> selected = fields.isEmpty() ? index.fields() : fields;
+        final int[] fieldIndexes = new int[selected.size()];
+        final String[] outputFields = new String[selected.size()];
+        for (int i = 0; i < selected.size(); i++) {
+            fieldIndexes[i] = index.fields().indexOf(selected.get(i));
+            if (fieldIndexes[i] < 0) {
+                throw new IllegalArgumentException("Field " + selected.get(i) + " is not in the lookup file, which has " + index.fields());
+            }
+            outputFields[i] = fieldPrefix + selected.get(i);
+        }
+        return new Lookup(index, fieldIndexes, outputFields);
+    }
+
+    void reloadIfReplaced() {
+        lookup.reloadIfChanged();
+    }
+
+    @Override
+    public ConfigDef config() {
+        return CONFIG_DEF;
+    }
+
+    private void stopReloading() {
+        if (lookup != null) {
+            lookup.close();
+            lookup = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        stopReloading();
+        metrics.close();
+        metrics = TransformMetrics.DISABLED;
+    }
+
+    //everything derived from one version of the file
+    private static final class Lookup {
+        final LookupIndex index;
+        final int[] fieldIndexes;
+        final String[] outputFields;
+        final Cache<Schema, Schema> schemaUpdateCache = new SynchronizedCache<>(new LRUCache<>(16));
+
+        Lookup(LookupIndex index, int[] fieldIndexes, String[] outputFields) {
+            this.index = index;
+            this.fieldIndexes = fieldIndexes;
+            this.outputFields = outputFields;
+        }
+
+        long find(Object key) {
+            if (key == null) {
+                return LookupIndex.NOT_FOUND;
+            }
+            return index.find(key instanceof CharSequence ? (CharSequence) key : key.toString());
+        }
+
+        String value(long entry, int i) {
+            return entry == LookupIndex.NOT_FOUND ? null : index.value(entry, fieldIndexes[i]);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package io.confluent.kafka.connect.transforms;
+
+import io.confluent.kafka.connect.json.RawJsonField;
+import io.confluent.kafka.connect.lookup.RouteIndex;
+import io.confluent.kafka.connect.metrics.TransformMetrics;
+import io.confluent.kafka.connect.reload.ReloadingFile;
+import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.connect.connector.ConnectRecord;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.transforms.Transformation;
+import org.apache.kafka.connect.transforms.util.SimpleConfig;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
+import static org.apache.kafka.connect.transforms.util.Requirements.requireMap;
+import static org.apache.kafka.connect.transforms.util.Requirements.requireStruct;
+
+/**
+ * Routes records to the topic a field value maps to in a {@link RouteIndex} file built offline with
+ * {@link io.confluent.kafka.connect.lookup.RouteIndexBuilder}, such as customer id to a dedicated topic. The index is
+ * memory-mapped and its topic names are read once into a dictionary, so a lookup is one hash probe of the mapped file
+ * and returns a shared topic String. Integral values are looked up by their decimal digits without creating a String.
+ * The file is reloaded the same way as in {@link LookupEnrich}.
+ */
+public class LookupRouter<R extends ConnectRecord<R>> implements Transformation<R> {
+
+    public static final String OVERVIEW_DOC =
+            "Route records to the topic a field value maps to in a memory-mapped routing file.";
+
+    private interface ConfigName {
+        String LOOKUP_FILE = "lookup.file";
+        String FIELD_NAME = "field.name";
+        String RELOAD_INTERVAL_MS = "reload.interval.ms";
+        String RAW_JSON = "raw.json";
+    }
+
+    public static final ConfigDef CONFIG_DEF = TransformMetrics.withMetricsConfig(new ConfigDef()
+            .define(ConfigName.LOOKUP_FILE, ConfigDef.Type.STRING, ConfigDef.NO_DEFAULT_VALUE, new ConfigDef.NonEmptyString(),
+                    ConfigDef.Importance.HIGH, "Path of the routing file written by RouteIndexBuilder.")
+            .define(ConfigName.FIELD_NAME, ConfigDef.Type.STRING, ConfigDef.NO_DEFAULT_VALUE, new ConfigDef.NonEmptyString(),
+                    ConfigDef.Importance.HIGH, "Field in the record value holding the routing key.")
+            .define(ConfigName.RELOAD_INTERVAL_MS, ConfigDef.Type.LONG, 10_000L, ConfigDef.Range.atLeast(0), ConfigDef.Importance.LOW,
+                    "How often to check whether the routing file was replaced. 0 disables reloading.")
+            .define(ConfigName.RAW_JSON, ConfigDef.Type.BOOLEAN, false, ConfigDef.Importance.LOW,
+                    "Read the field from a value that is raw JSON text, a String or byte[] from the String or ByteArray "
+                            + "converter, without parsing it. The field name may be a dotted path into nested objects."));
+
+    private static final String PURPOSE = "routing based on lookup file";
+
+    private String fieldName;
+    private RawJsonField rawJsonField;
+    private TransformMetrics metrics = TransformMetrics.DISABLED;
+
+    private ReloadingFile<RouteIndex> routes;
+
+    @Override
+    public void configure(Map<String, ?> props) {
+        final SimpleConfig config = new SimpleConfig(CONFIG_DEF, props);
+        final Path lookupFile = Paths.get(config.getString(ConfigName.LOOKUP_FILE));
+        fieldName = config.getString(ConfigName.FIELD_NAME);
+        rawJsonField = config.getBoolean(ConfigName.RAW_JSON) ? new RawJsonField(fieldName) : null;
+
+        stopReloading();
+        try {
+            routes = ReloadingFile.load(lookupFile, "lookup-router", RouteIndex::open)
+                    .poll(config.getLong(ConfigName.RELOAD_INTERVAL_MS));
+        } catch (IOException e) {
+            throw new ConfigException(ConfigName.LOOKUP_FILE, lookupFile.toString(), e.getMessage());
+        }
+
+        metrics.close();
+        metrics = TransformMetrics.create(config, TransformMetrics.TRANSFORM_GROUP, getClass());
+    }
+
+    @Override
+    public R apply(R record) {
+        final long start = metrics.recordIn();
+        final Object key;
+        if (rawJsonField != null) {
+            key = rawJsonField.find(record.value());
+        } else if (record.valueSchema() == null) {
+            key = requireMap(record.value(), PURPOSE).get(fieldName);
+        } else {
+            final Struct value = requireStruct(record.value(), PURPOSE);
+            final Field field = value.schema().field(fieldName);
+            if (field == null) {
+                throw new DataException("Field does not exist in the value: " + fieldName);
+            }
+            key = value.get(field);
+        }
+
+        final String topic = route(routes.get(), key);
+        final R result;
+        if (topic == null) {
+            //no mapping for the key, keep original topic
+            result = record;
+            metrics.passedThrough();
+        } else {
+            result = record.newRecord(
+                    topic,
+                    record.kafkaPartition(),
+                    record.keySchema(),
+                    record.key(),
+                    record.valueSchema(),
+                    record.value(),
+                    record.timestamp()
+            );
+            metrics.routed(topic);
+        }
+        metrics.recordOut(start, result);
+        return result;
+    }
+
+    private static String route(RouteIndex index, Object key) {
+        if (key == null) {
+            return null;
+        }
+        if (key instanceof CharSequence) {
+            return index.route((CharSequence) key);
+        }
+        if (key instanceof Long || key instanceof Integer || key instanceof Short || key instanceof Byte) {
+            return index.route(((Number) key).longValue());
+        }
+        return index.route(key.toString());
+    }
+
+    void reloadIfReplaced() {
+        routes.reloadIfChanged();
+    }
+
+    @Override
+    public ConfigDef config() {
+        return CONFIG_DEF;
+    }
+
+    private void stopReloading() {
+        if (routes != null) {
+            routes.close();
+            routes = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        stopReloading();
+        metrics.close();
+        metrics = TransformMetrics.DISABLED;
+    }
+}
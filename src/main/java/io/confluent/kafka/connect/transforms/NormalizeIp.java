@@ -0,0 +1,253 @@
+package io.confluent.kafka.connect.transforms;
+
+import io.confluent.kafka.connect.IpAddresses;
+import io.confluent.kafka.connect.metrics.TransformMetrics;
+import org.apache.kafka.common.cache.Cache;
+import org.apache.kafka.common.cache.LRUCache;
+import org.apache.kafka.common.cache.SynchronizedCache;
+import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.connect.connector.ConnectRecord;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.transforms.Transformation;
+import org.apache.kafka.connect.transforms.util.SchemaUtil;
+import org.apache.kafka.connect.transforms.util.SimpleConfig;
+
+import java.util.Map;
+
+import static org.apache.kafka.connect.transforms.util.Requirements.requireMap;
+import static org.apache.kafka.connect.transforms.util.Requirements.requireStruct;
+
+/**
+ * Replaces an IP address field holding text with a compact form: an INT64 for IPv4, 16 bytes for any address, or the
+ * canonical text. The text is parsed in place, and the updated schema is built once per source schema.
+ */
+public abstract class NormalizeIp<R extends ConnectRecord<R>> implements Transformation<R> {
+
+    public static final String OVERVIEW_DOC =
+            "Replace an IP address field with an INT64, 16 bytes or canonical text.";
+
+    /**
+     * Schema name of an INT64 field holding an IPv4 address as an unsigned 32-bit number.
+     */
+    public static final String IPV4_SCHEMA_NAME = "io.confluent.kafka.connect.data.Ipv4Address";
+
+    /**
+     * Schema name of a BYTES field holding the 16 bytes of an IPv6 address, IPv4 as {@code ::ffff:a.b.c.d}.
+     */
+    public static final String IP_SCHEMA_NAME = "io.confluent.kafka.connect.data.IpAddress";
+
+    public static final String FORMAT_INT64 = "int64";
+    public static final String FORMAT_BYTES = "bytes";
+    public static final String FORMAT_TEXT = "text";
+
+    public static final String ON_INVALID_FAIL = "fail";
+    public static final String ON_INVALID_NULL = "null";
+
+    private interface ConfigName {
+        String FIELD_NAME = "field.name";
+        String FORMAT = "format";
+        String ON_INVALID = "on.invalid";
+    }
+
+    public static final ConfigDef CONFIG_DEF = TransformMetrics.withMetricsConfig(new ConfigDef()
+            .define(ConfigName.FIELD_NAME, ConfigDef.Type.STRING, ConfigDef.NO_DEFAULT_VALUE, new ConfigDef.NonEmptyString(),
+                    ConfigDef.Importance.HIGH, "Field holding the IP address as text.")
+            .define(ConfigName.FORMAT, ConfigDef.Type.STRING, FORMAT_BYTES,
+                    ConfigDef.ValidString.in(FORMAT_INT64, FORMAT_BYTES, FORMAT_TEXT), ConfigDef.Importance.MEDIUM,
+                    "'int64' writes IPv4 addresses as an unsigned 32-bit number, 'bytes' writes any address as 16 bytes "
+                            + "with IPv4 mapped to ::ffff:a.b.c.d, 'text' writes the canonical text form.")
+            .define(ConfigName.ON_INVALID, ConfigDef.Type.STRING, ON_INVALID_FAIL,
+                    ConfigDef.ValidString.in(ON_INVALID_FAIL, ON_INVALID_NULL), ConfigDef.Importance.LOW,
+                    "What to do with a value that is not an address the format can hold: 'fail' the record, or write "
+                            + "'null', which makes the field optional."));
+
+    private static final String PURPOSE = "normalizing an IP address field";
+
+    private String fieldName;
+    private String format;
+    private boolean nullIfInvalid;
+    private TransformMetrics metrics = TransformMetrics.DISABLED;
+
+    private Cache<Schema, Schema> schemaUpdateCache;
+
+    @Override
+    public void configure(Map<String, ?> props) {
+        final SimpleConfig config = new SimpleConfig(CONFIG_DEF, props);
+        fieldName = config.getString(ConfigName.FIELD_NAME);
+        format = config.getString(ConfigName.FORMAT);
+        nullIfInvalid = ON_INVALID_NULL.equals(config.getString(ConfigName.ON_INVALID));
+
+        schemaUpdateCache = new SynchronizedCache<>(new LRUCache<Schema, Schema>(16));
+        metrics.close();
+        metrics = TransformMetrics.create(config, TransformMetrics.TRANSFORM_GROUP, getClass());
+    }
+
+    @Override
+    public R apply(R record) {
+        final long start = metrics.recordIn();
+        final R result;
+        if (operatingSchema(record) == null) {
+            result = applySchemaless(record);
+        } else {
+            result = applyWithSchema(record);
+        }
+        metrics.recordOut(start, result);
+        return result;
+    }
+
+    private R applySchemaless(R record) {
+        final Map<String, Object> value = requireMap(operatingValue(record), PURPOSE);
+
+        final Object address = value.get(fieldName);
+        if (address == null) {
+            return record;
+        }
+
+        final Map<String, Object> updatedValue = new OverlayMap<>(value, fieldName, normalize(address));
+
+        return newRecord(record, null, updatedValue);
+    }
+
+    private R applyWithSchema(R record) {
+        final Struct value = requireStruct(operatingValue(record), PURPOSE);
+
+        Schema updatedSchema = schemaUpdateCache.get(value.schema());
+        if (updatedSchema == null) {
+            metrics.cacheMiss();
+            updatedSchema = makeUpdatedSchema(value.schema());
+            schemaUpdateCache.put(value.schema(), updatedSchema);
+        } else {
+            metrics.cacheHit();
+        }
+
+        final Struct updatedValue = new Struct(updatedSchema);
+        for (Field field : value.schema().fields()) {
+            final Object fieldValue = value.get(field);
+            if (field.name().equals(fieldName)) {
+                updatedValue.put(field.name(), fieldValue == null ? null : normalize(fieldValue));
+            } else if (fieldValue != null) {
+                updatedValue.put(field.name(), fieldValue);
+            }
+        }
+
+        return newRecord(record, updatedSchema, updatedValue);
+    }
+
+    private Object normalize(Object value) {
+        final byte[] address = new byte[16];
+        final int version = value instanceof CharSequence ? IpAddresses.parse((CharSequence) value, address) : IpAddresses.INVALID;
+        if (version != IpAddresses.INVALID) {
+            switch (format) {
+                case FORMAT_INT64:
+                    final long ipv4 = IpAddresses.ipv4(address);
+                    if (ipv4 != IpAddresses.INVALID_IPV4) {
+                        return ipv4;
+                    }
+                    break;
+                case FORMAT_BYTES:
+                    return address;
+                default:
+                    return IpAddresses.format(address, version);
+            }
+        }
+        if (nullIfInvalid) {
+            return null;
+        }
+        throw new DataException("Field " + fieldName + " is not an " + (FORMAT_INT64.equals(format) ? "IPv4" : "IP")
+                + " address: " + value);
+    }
+
+    private Schema makeUpdatedSchema(Schema schema) {
+        final Field addressField = schema.field(fieldName);
+        if (addressField == null) {
+            throw new DataException("Field does not exist: " + fieldName);
+        }
+        if (addressField.schema().type() != Schema.Type.STRING) {
+            throw new DataException("Field " + fieldName + " must be a string but is " + addressField.schema().type());
+        }
+
+        final SchemaBuilder addressSchema;
+        switch (format) {
+            case FORMAT_INT64:
+                addressSchema = SchemaBuilder.int64().name(IPV4_SCHEMA_NAME).version(1);
+                break;
+            case FORMAT_BYTES:
+                addressSchema = SchemaBuilder.bytes().name(IP_SCHEMA_NAME).version(1);
+                break;
+            default:
+                addressSchema = SchemaBuilder.string();
+        }
+        if (addressField.schema().isOptional() || nullIfInvalid) {
+            addressSchema.optional();
+        }
+        if (addressField.schema().doc() != null) {
+            addressSchema.doc(addressField.schema().doc());
+        }
+
+        final SchemaBuilder builder = SchemaUtil.copySchemaBasics(schema, SchemaBuilder.struct());
+        for (Field field : schema.fields()) {
+            builder.field(field.name(), field.name().equals(fieldName) ? addressSchema.build() : field.schema());
+        }
+        return builder.build();
+    }
+
+    @Override
+    public ConfigDef config() {
+        return CONFIG_DEF;
+    }
+
+    @Override
+    public void close() {
+        schemaUpdateCache = null;
+        metrics.close();
+        metrics = TransformMetrics.DISABLED;
+    }
+
+    protected abstract Schema operatingSchema(R record);
+
+    protected abstract Object operatingValue(R record);
+
+    protected abstract R newRecord(R record, Schema updatedSchema, Object updatedValue);
+
+    public static class Key<R extends ConnectRecord<R>> extends NormalizeIp<R> {
+
+        @Override
+        protected Schema operatingSchema(R record) {
+            return record.keySchema();
+        }
+
+        @Override
+        protected Object operatingValue(R record) {
+            return record.key();
+        }
+
+        @Override
+        protected R newRecord(R record, Schema updatedSchema, Object updatedValue) {
+            return record.newRecord(record.topic(), record.kafkaPartition(), updatedSchema, updatedValue, record.valueSchema(), record.value(), record.timestamp());
+        }
+
+    }
+
+    public static class Value<R extends ConnectRecord<R>> extends NormalizeIp<R> {
+
+        @Override
+        protected Schema operatingSchema(R record) {
+            return record.valueSchema();
+        }
+
+        @Override
+        protected Object operatingValue(R record) {
+            return record.value();
+        }
+
+        @Override
+        protected R newRecord(R record, Schema updatedSchema, Object updatedValue) {
+            return record.newRecord(record.topic(), record.kafkaPartition(), record.keySchema(), record.key(), updatedSchema, updatedValue, record.timestamp());
+        }
+
+    }
+}
@@ -0,0 +1,205 @@
+package io.confluent.kafka.connect.transforms;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A read-through view of a base map with a single entry laid over it. The base map is never written to: reads of the
+ * overlaid key see the overlay value, everything else is served from the base map, and the first write through the
+ * view, including {@code Entry.setValue()} and {@code Iterator.remove()}, copies the base map into a private
+ * {@link HashMap} (copy-on-write). Nothing about the base map is cached, so the view follows later changes to it.
+ * Creating the view costs one object, which keeps it on par with an in-place {@code put}.
+ * <p>
+ * Iterating the entry set allocates the iterator and one small entry per element, which wraps the base map's entry
+ * rather than copying it. Entries stay valid after the iteration moves on, as {@link Map.Entry} requires of callers
+ * that keep them, and read through to the copy once the view has been written to.
+ */
+final class OverlayMap<K, V> extends AbstractMap<K, V> {
+
+    private final Map<K, V> base;
+    private final K key;
+    private final V value;
+
+    private Map<K, V> copy;
+    private Set<Map.Entry<K, V>> entrySet;
+
+    OverlayMap(Map<K, V> base, K key, V value) {
+        this.base = base;
+        this.key = key;
+        this.value = value;
+    }
+
+    @Override
+    public int size() {
+        if (copy != null) {
+            return copy.size();
+        }
+        return base.containsKey(key) ? base.size() : base.size() + 1;
+    }
+
+    @Override
+    public boolean containsKey(Object k) {
+        if (copy != null) {
+            return copy.containsKey(k);
+        }
+        return Objects.equals(key, k) || base.containsKey(k);
+    }
+
+    @Override
+    public V get(Object k) {
+        if (copy != null) {
+            return copy.get(k);
+        }
+        return Objects.equals(key, k) ? value : base.get(k);
+    }
+
+    @Override
+    public V put(K k, V v) {
+        return materialize().put(k, v);
+    }
+
+    @Override
+    public V remove(Object k) {
+        return materialize().remove(k);
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        materialize().putAll(m);
+    }
+
+    @Override
+    public void clear() {
+        materialize().clear();
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        if (copy != null) {
+            return copy.entrySet();
+        }
+        if (entrySet == null) {
+            entrySet = new OverlayEntrySet();
+        }
+        return entrySet;
+    }
+
+    private Map<K, V> materialize() {
+        if (copy == null) {
+            copy = new HashMap<>(base);
+            copy.put(key, value);
+            entrySet = null;
+        }
+        return copy;
+    }
+
+    private final class OverlayEntrySet extends AbstractSet<Map.Entry<K, V>> {
+
+        @Override
+        public int size() {
+            return OverlayMap.this.size();
+        }
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            if (copy != null) {
+                return copy.entrySet().iterator();
+            }
+            return new OverlayIterator();
+        }
+    }
+
+    //the overlaid key is reported where the base map has it, or last
+    private final class OverlayIterator implements Iterator<Map.Entry<K, V>> {
+        private final Iterator<Map.Entry<K, V>> baseIterator = base.entrySet().iterator();
+        private boolean overlayReturned;
+        //the entry returned by next(), null once removed
+        private OverlayEntry current;
+
+        @Override
+        public boolean hasNext() {
+            return baseIterator.hasNext() || !overlayReturned;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (baseIterator.hasNext()) {
+                final Map.Entry<K, V> entry = baseIterator.next();
+                if (Objects.equals(key, entry.getKey())) {
+                    overlayReturned = true;
+                    current = new OverlayEntry(null);
+                } else {
+                    current = new OverlayEntry(entry);
+                }
+            } else if (!overlayReturned) {
+                overlayReturned = true;
+                current = new OverlayEntry(null);
+            } else {
+                throw new NoSuchElementException();
+            }
+            return current;
+        }
+
+        @Override
+        public void remove() {
+            if (current == null) {
+                throw new IllegalStateException();
+            }
+            materialize().remove(current.getKey());
+            current = null;
+        }
+    }
+
+    //an entry of the view: reads through to the base entry, or the copy once there is one, and writes through the map
+    private final class OverlayEntry implements Map.Entry<K, V> {
+        //null on the overlaid key
+        private final Map.Entry<K, V> baseEntry;
+
+        OverlayEntry(Map.Entry<K, V> baseEntry) {
+            this.baseEntry = baseEntry;
+        }
+
+        @Override
+        public K getKey() {
+            return baseEntry != null ? baseEntry.getKey() : key;
+        }
+
+        @Override
+        public V getValue() {
+            if (copy != null) {
+                return copy.get(getKey());
+            }
+            return baseEntry != null ? baseEntry.getValue() : value;
+        }
+
+        @Override
+        public V setValue(V v) {
+            return materialize().put(getKey(), v);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            final Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+            return Objects.equals(getKey(), other.getKey()) && Objects.equals(getValue(), other.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+}
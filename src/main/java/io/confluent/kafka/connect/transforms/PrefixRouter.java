@@ -0,0 +1,213 @@
+package io.confluent.kafka.connect.transforms;
+
+import io.confluent.kafka.connect.json.RawJsonField;
+import io.confluent.kafka.connect.metrics.TransformMetrics;
+import io.confluent.kafka.connect.reload.ReloadingFile;
+import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.connect.connector.ConnectRecord;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.transforms.Transformation;
+import org.apache.kafka.connect.transforms.util.SimpleConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.apache.kafka.connect.transforms.util.Requirements.requireMap;
+import static org.apache.kafka.connect.transforms.util.Requirements.requireStruct;
+
+/**
+ * Routes records by the longest rule prefix of a field value, such as a host name or tenant key. Rules come from the
+ * configuration and from an optional file, and are compiled into a {@link PrefixTrie}, so a lookup costs one walk
+ * down the trie however many rules there are. A background thread checks the file every {@code reload.interval.ms};
+ * when it has been replaced, the rules are compiled again and swapped in with a single volatile write.
+ */
+public class PrefixRouter<R extends ConnectRecord<R>> implements Transformation<R> {
+
+    private static final Logger log = LoggerFactory.getLogger(PrefixRouter.class);
+
+    public static final String OVERVIEW_DOC =
+            "Route records to the topic of the longest rule prefix matching a field value.";
+
+    private interface ConfigName {
+        String FIELD_NAME = "field.name";
+        String RULES = "rules";
+        String RULES_FILE = "rules.file";
+        String RELOAD_INTERVAL_MS = "reload.interval.ms";
+        String RAW_JSON = "raw.json";
+    }
+
+    public static final ConfigDef CONFIG_DEF = TransformMetrics.withMetricsConfig(new ConfigDef()
+            .define(ConfigName.FIELD_NAME, ConfigDef.Type.STRING, ConfigDef.NO_DEFAULT_VALUE, new ConfigDef.NonEmptyString(),
+                    ConfigDef.Importance.HIGH, "Field name in the record value whose prefix selects the topic.")
+            .define(ConfigName.RULES, ConfigDef.Type.LIST, "", ConfigDef.Importance.HIGH,
+                    "Rules as prefix=topic. A trailing * on the prefix is optional.")
+            .define(ConfigName.RULES_FILE, ConfigDef.Type.STRING, "", ConfigDef.Importance.MEDIUM,
+                    "File of prefix=topic rules, one per line, added to the configured rules and winning over them for "
+                            + "the same prefix. Blank lines and lines starting with # are skipped.")
+            .define(ConfigName.RELOAD_INTERVAL_MS, ConfigDef.Type.LONG, 10_000L, ConfigDef.Range.atLeast(0),
+                    ConfigDef.Importance.LOW, "How often to check whether the rules file was replaced. 0 disables reloading.")
+            .define(ConfigName.RAW_JSON, ConfigDef.Type.BOOLEAN, false, ConfigDef.Importance.LOW,
+                    "Read the field from a value that is raw JSON text, a String or byte[] from the String or ByteArray "
+                            + "converter, without parsing it. The field name may be a dotted path into nested objects."));
+
+    private static final String PURPOSE = "routing based on field prefix";
+
+    private String fieldName;
+    private RawJsonField rawJsonField;
+    private Map<String, String> configuredRules;
+    private TransformMetrics metrics = TransformMetrics.DISABLED;
+
+    //without a rules file the configured rules are compiled once, with one they are compiled into each version of it
+    private PrefixTrie<String> configuredTrie;
+    private ReloadingFile<PrefixTrie<String>> rulesFile;
+
+    @Override
+    public void configure(Map<String, ?> props) {
+        final SimpleConfig config = new SimpleConfig(CONFIG_DEF, props);
+        fieldName = config.getString(ConfigName.FIELD_NAME);
+        rawJsonField = config.getBoolean(ConfigName.RAW_JSON) ? new RawJsonField(fieldName) : null;
+        stopReloading();
+
+        configuredRules = new LinkedHashMap<>();
+        try {
+            for (String rule : config.getList(ConfigName.RULES)) {
+                addRule(configuredRules, rule);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new ConfigException(ConfigName.RULES, config.getList(ConfigName.RULES), e.getMessage());
+        }
+
+        final String file = config.getString(ConfigName.RULES_FILE);
+        if (file.isEmpty()) {
+            if (configuredRules.isEmpty()) {
+                throw new ConfigException("PrefixRouter needs rules, a rules file or both");
+            }
+            configuredTrie = PrefixTrie.compile(configuredRules);
+        } else {
+            try {
+                rulesFile = ReloadingFile.load(Paths.get(file), "prefix-router", this::load)
+                        .poll(config.getLong(ConfigName.RELOAD_INTERVAL_MS));
+            } catch (IOException | IllegalArgumentException e) {
+                throw new ConfigException(ConfigName.RULES_FILE, file, e.getMessage());
+            }
+        }
+
+        metrics.close();
+        metrics = TransformMetrics.create(config, TransformMetrics.TRANSFORM_GROUP, getClass());
+    }
+
+    @Override
+    public R apply(R record) {
+        final long start = metrics.recordIn();
+        final CharSequence fieldValue;
+        if (rawJsonField != null) {
+            fieldValue = rawJsonField.find(record.value());
+        } else if (record.valueSchema() == null) {
+            fieldValue = text(requireMap(record.value(), PURPOSE).get(fieldName));
+        } else {
+            final Struct value = requireStruct(record.value(), PURPOSE);
+            final Field field = value.schema().field(fieldName);
+            if (field == null) {
+                throw new DataException("Field does not exist in the value: " + fieldName);
+            }
+            fieldValue = text(value.get(field));
+        }
+
+        final PrefixTrie<String> trie = rulesFile != null ? rulesFile.get() : configuredTrie;
+        final String topic = fieldValue == null ? null : trie.longestPrefix(fieldValue);
+        final R result;
+        if (topic == null) {
+            //no rule matches, keep original topic
+            result = record;
+            metrics.passedThrough();
+        } else {
+            result = record.newRecord(
+                    topic,
+                    record.kafkaPartition(),
+                    record.keySchema(),
+                    record.key(),
+                    record.valueSchema(),
+                    record.value(),
+                    record.timestamp()
+            );
+            metrics.routed(topic);
+        }
+        metrics.recordOut(start, result);
+        return result;
+    }
+
+    private static CharSequence text(Object value) {
+        if (value == null) {
+            return null;
+        }
+        return value instanceof CharSequence ? (CharSequence) value : value.toString();
+    }
+
+    //prefix=topic, with an optional * after the prefix
+    static void addRule(Map<String, String> rules, String rule) {
+        final int separator = rule.lastIndexOf('=');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Rule " + rule + " is not prefix=topic");
+        }
+        String prefix = rule.substring(0, separator).trim();
+        if (prefix.endsWith("*")) {
+            prefix = prefix.substring(0, prefix.length() - 1);
+        }
+        final String topic = rule.substring(separator + 1).trim();
+        if (topic.isEmpty()) {
+            throw new IllegalArgumentException("Rule " + rule + " has no topic");
+        }
+        rules.put(prefix, topic);
+    }
+
+    private PrefixTrie<String> load(Path file) throws IOException {
+        final Map<String, String> all = new LinkedHashMap<>(configuredRules);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String rule = line.trim();
+                if (!rule.isEmpty() && rule.charAt(0) != '#') {
+                    addRule(all, rule);
+                }
+            }
+        }
+        final PrefixTrie<String> trie = PrefixTrie.compile(all);
+        log.info("Compiled {} prefix rules into {} trie nodes", trie.size(), trie.nodes());
+        return trie;
+    }
+
+    void reloadIfReplaced() {
+        rulesFile.reloadIfChanged();
+    }
+
+    private void stopReloading() {
+        if (rulesFile != null) {
+            rulesFile.close();
+            rulesFile = null;
+        }
+        configuredTrie = null;
+    }
+
+    @Override
+    public ConfigDef config() {
+        return CONFIG_DEF;
+    }
+
+    @Override
+    public void close() {
+        stopReloading();
+        metrics.close();
+        metrics = TransformMetrics.DISABLED;
+    }
+}
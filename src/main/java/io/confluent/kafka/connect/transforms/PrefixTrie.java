@@ -0,0 +1,192 @@
+package io.confluent.kafka.connect.transforms;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Longest-prefix lookup from strings to values, compiled into a radix trie laid out in flat arrays. Each node has an
+ * edge label, a slice of one shared char array, and its children are a contiguous run of nodes sorted by the first
+ * char of their label, searched by binary search. A lookup walks at most one node per label and allocates nothing.
+ * Instances are immutable and thread-safe.
+ */
+final class PrefixTrie<V> {
+
+    private static final int NONE = -1;
+
+    private final char[] labels;
+    private final int[] labelStart;
+    private final int[] labelLength;
+    private final char[] firstChar;
+    private final int[] childStart;
+    private final int[] childCount;
+    private final int[] valueIndex;
+    private final Object[] values;
+
+    private PrefixTrie(char[] labels, int[] labelStart, int[] labelLength, char[] firstChar, int[] childStart,
+                       int[] childCount, int[] valueIndex, Object[] values) {
+        this.labels = labels;
+        this.labelStart = labelStart;
+        this.labelLength = labelLength;
+        this.firstChar = firstChar;
+        this.childStart = childStart;
+        this.childCount = childCount;
+        this.valueIndex = valueIndex;
+        this.values = values;
+    }
+
+    /**
+     * Compiles the rules. The empty prefix matches every key.
+     */
+    static <V> PrefixTrie<V> compile(Map<String, V> rules) {
+        final Builder root = new Builder("");
+        for (Map.Entry<String, V> rule : rules.entrySet()) {
+            root.insert(rule.getKey(), 0, rule.getValue());
+        }
+
+        //breadth first, so the children of every node are numbered consecutively
+        final List<Builder> order = new ArrayList<>();
+        final Deque<Builder> queue = new ArrayDeque<>();
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            final Builder node = queue.poll();
+            order.add(node);
+            queue.addAll(node.children.values());
+        }
+
+        final int nodes = order.size();
+        final StringBuilder labels = new StringBuilder();
+        final int[] labelStart = new int[nodes];
+        final int[] labelLength = new int[nodes];
+        final char[] firstChar = new char[nodes];
+        final int[] childStart = new int[nodes];
+        final int[] childCount = new int[nodes];
+        final int[] valueIndex = new int[nodes];
+        final List<Object> values = new ArrayList<>();
+        int nextChild = 1;
+        for (int i = 0; i < nodes; i++) {
+            final Builder node = order.get(i);
+            labelStart[i] = labels.length();
+            labelLength[i] = node.label.length();
+            labels.append(node.label);
+            firstChar[i] = node.label.isEmpty() ? 0 : node.label.charAt(0);
+            childStart[i] = nextChild;
+            childCount[i] = node.children.size();
+            nextChild += node.children.size();
+            if (node.hasValue) {
+                valueIndex[i] = values.size();
+                values.add(node.value);
+            } else {
+                valueIndex[i] = NONE;
+            }
+        }
+        final char[] labelChars = new char[labels.length()];
+        labels.getChars(0, labels.length(), labelChars, 0);
+        return new PrefixTrie<>(labelChars, labelStart, labelLength, firstChar, childStart, childCount, valueIndex,
+                values.toArray());
+    }
+
+    /**
+     * The value of the longest rule that is a prefix of {@code key}, or null.
+     */
+    @SuppressWarnings("unchecked")
+    V longestPrefix(CharSequence key) {
+        int node = 0;
+        int position = 0;
+        int best = valueIndex[0];
+        while (position < key.length()) {
+            final int child = child(node, key.charAt(position));
+            if (child == NONE) {
+                break;
+            }
+            final int length = labelLength[child];
+            if (position + length > key.length()) {
+                break;
+            }
+            final int start = labelStart[child];
+            for (int i = 1; i < length; i++) {
+                if (labels[start + i] != key.charAt(position + i)) {
+                    return best == NONE ? null : (V) values[best];
+                }
+            }
+            position += length;
+            node = child;
+            if (valueIndex[node] != NONE) {
+                best = valueIndex[node];
+            }
+        }
+        return best == NONE ? null : (V) values[best];
+    }
+
+    private int child(int node, char c) {
+        int low = childStart[node];
+        int high = low + childCount[node] - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final char first = firstChar[middle];
+            if (first < c) {
+                low = middle + 1;
+            } else if (first > c) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return NONE;
+    }
+
+    int size() {
+        return values.length;
+    }
+
+    int nodes() {
+        return labelStart.length;
+    }
+
+    private static final class Builder {
+        String label;
+        boolean hasValue;
+        Object value;
+        //sorted by char, which is the order the lookup searches
+        TreeMap<Character, Builder> children = new TreeMap<>();
+
+        Builder(String label) {
+            this.label = label;
+        }
+
+        //inserts the rest of the key, starting at offset, below this node
+        void insert(String key, int offset, Object ruleValue) {
+            if (offset == key.length()) {
+                hasValue = true;
+                value = ruleValue;
+                return;
+            }
+            final Builder child = children.get(key.charAt(offset));
+            if (child == null) {
+                final Builder leaf = new Builder(key.substring(offset));
+                leaf.hasValue = true;
+                leaf.value = ruleValue;
+                children.put(key.charAt(offset), leaf);
+                return;
+            }
+            int common = 0;
+            while (common < child.label.length() && offset + common < key.length()
+                    && child.label.charAt(common) == key.charAt(offset + common)) {
+                common++;
+            }
+            if (common < child.label.length()) {
+                //split the edge where the key leaves it
+                final Builder split = new Builder(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                split.children.put(child.label.charAt(0), child);
+                children.put(split.label.charAt(0), split);
+                split.insert(key, offset + common, ruleValue);
+            } else {
+                child.insert(key, offset + common, ruleValue);
+            }
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package io.confluent.kafka.connect.transforms;
+
+import io.confluent.kafka.connect.IpAddresses;
+import io.confluent.kafka.connect.metrics.TransformMetrics;
+import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.connect.connector.ConnectRecord;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.transforms.Transformation;
+import org.apache.kafka.connect.transforms.util.SimpleConfig;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static org.apache.kafka.connect.transforms.util.Requirements.requireMap;
+import static org.apache.kafka.connect.transforms.util.Requirements.requireStruct;
+
+/**
+ * Masks personal data, such as email addresses, card numbers and IP addresses, in free-text fields of the record value.
+ * All patterns are compiled into one alternation, so each field is scanned once from left to right however many
+ * patterns there are. A pattern with a validator, such as the Luhn check for card numbers, only runs it on the spans
+ * the pattern matched; when it rejects a span, the patterns after it are tried at the same position before the scan
+ * moves on by one char. Masked text is written into a per-thread builder that is reused across records, and a field
+ * without a match is left as it is, without a copy.
+ */
+public class Redact<R extends ConnectRecord<R>> implements Transformation<R> {
+
+    public static final String OVERVIEW_DOC =
+            "Mask emails, card numbers, IP addresses and custom patterns in text fields in a single pass.";
+
+    public static final String EMAIL = "email";
+    public static final String CARD = "card";
+    public static final String IP = "ip";
+
+    private interface ConfigName {
+        String FIELDS = "fields";
+        String PATTERNS = "patterns";
+        String REGEX = "regex";
+        String REPLACEMENT = "replacement";
+    }
+
+    public static final ConfigDef CONFIG_DEF = TransformMetrics.withMetricsConfig(new ConfigDef()
+            .define(ConfigName.FIELDS, ConfigDef.Type.LIST, ConfigDef.NO_DEFAULT_VALUE, ConfigDef.Importance.HIGH,
+                    "Text fields in the record value to redact.")
+            .define(ConfigName.PATTERNS, ConfigDef.Type.LIST, EMAIL + "," + CARD + "," + IP, ConfigDef.Importance.HIGH,
+                    "Names of the patterns to mask, tried in this order at each position. 'email', 'card' and 'ip' are "
+                            + "built in; any other name is a custom pattern with its regex in 'patterns.<name>.regex'.")
+            .define(ConfigName.REPLACEMENT, ConfigDef.Type.STRING, null, ConfigDef.Importance.MEDIUM,
+                    "Text that replaces every match. By default a match is replaced by the pattern name in upper case "
+                            + "and brackets, such as [EMAIL]."));
+
+    private static final String PURPOSE = "redacting text fields";
+
+    //every built-in pattern starts where no word continues, so a long token is not rescanned from each of its chars
+    private static final String EMAIL_REGEX =
+            "(?<![\\w.%+-])[\\w.%+-]+@[A-Za-z0-9-]+(?:\\.[A-Za-z0-9-]+)*\\.[A-Za-z]{2,}";
+    private static final String CARD_REGEX = "(?<![\\w-])\\d(?:[ -]?\\d){12,18}(?![\\w-])";
+    private static final String IP_REGEX = "(?<![\\w.:])(?:"
+            + "(?:\\d{1,3}\\.){3}\\d{1,3}(?!\\w|\\.\\d)"
+            + "|(?:[0-9A-Fa-f]{0,4}:){2,7}(?:(?:\\d{1,3}\\.){3}\\d{1,3}|[0-9A-Fa-f]{1,4})?(?![\\w:]))";
+
+    private interface Validator {
+        boolean isValid(CharSequence text, int start, int end, byte[] address);
+    }
+
+    //per-thread state reused across records; one instance may be shared by the threads of a parallel batch
+    private static final class Scratch {
+        final Matcher matcher;
+        //one per pattern, to try the patterns after a rejected span on their own
+        final Matcher[] alternatives;
+        final StringBuilder out = new StringBuilder();
+        final byte[] address = new byte[16];
+
+        Scratch(Pattern pattern, Pattern[] patterns) {
+            //transparent so the lookbehinds of a pattern still see the text before a region
+            matcher = pattern.matcher("").useTransparentBounds(true).useAnchoringBounds(false);
+            alternatives = new Matcher[patterns.length];
+            for (int i = 0; i < patterns.length; i++) {
+                alternatives[i] = patterns[i].matcher("").useTransparentBounds(true).useAnchoringBounds(false);
+            }
+        }
+    }
+
+    //a builder grown by an unusually large field is not kept for the life of the thread
+    private static final int MAX_RETAINED_CHARS = 1 << 16;
+
+    private String[] fields;
+    private Pattern pattern;
+    //each alternative compiled on its own
+    private Pattern[] alternatives;
+    //group number of each alternative, and its validator (null when there is none) and replacement
+    private int[] groups;
+    private Validator[] validators;
+    private String[] replacements;
+    private ThreadLocal<Scratch> threadScratch;
+    private TransformMetrics metrics = TransformMetrics.DISABLED;
+
+    @Override
+    public void configure(Map<String, ?> props) {
+        final SimpleConfig config = new SimpleConfig(CONFIG_DEF, props);
+        fields = config.getList(ConfigName.FIELDS).toArray(new String[0]);
+        if (fields.length == 0) {
+            throw new ConfigException(ConfigName.FIELDS, config.getList(ConfigName.FIELDS), "At least one field is required.");
+        }
+        final List<String> names = config.getList(ConfigName.PATTERNS);
+        if (names.isEmpty()) {
+            throw new ConfigException(ConfigName.PATTERNS, names, "At least one pattern is required.");
+        }
+        final String replacement = config.getString(ConfigName.REPLACEMENT);
+
+        final StringBuilder alternation = new StringBuilder();
+        groups = new int[names.size()];
+        validators = new Validator[names.size()];
+        alternatives = new Pattern[names.size()];
+        replacements = new String[names.size()];
+        int group = 1;
+        for (int i = 0; i < names.size(); i++) {
+            final String name = names.get(i);
+            final String regex;
+            switch (name) {
+                case EMAIL:
+                    regex = EMAIL_REGEX;
+                    break;
+                case CARD:
+                    regex = CARD_REGEX;
+                    validators[i] = Redact::isLuhnValid;
+                    break;
+                case IP:
+                    regex = IP_REGEX;
+                    validators[i] = Redact::isIp;
+                    break;
+                default:
+                    regex = customRegex(config, name);
+            }
+            //each alternative is wrapped in a group, and its own groups shift the numbers of the ones after it
+            alternatives[i] = compile(regex, ConfigName.PATTERNS + "." + name + "." + ConfigName.REGEX);
+            final int ownGroups = alternatives[i].matcher("").groupCount();
+            alternation.append(i == 0 ? "(" : "|(").append(regex).append(')');
+            groups[i] = group;
+            group += 1 + ownGroups;
+            replacements[i] = replacement != null ? replacement : "[" + name.toUpperCase(Locale.ROOT) + "]";
+        }
+        pattern = compile(alternation.toString(), ConfigName.PATTERNS);
+        final Pattern compiled = pattern;
+        final Pattern[] compiledAlternatives = alternatives;
+        threadScratch = ThreadLocal.withInitial(() -> new Scratch(compiled, compiledAlternatives));
+
+        metrics.close();
+        metrics = TransformMetrics.create(config, TransformMetrics.TRANSFORM_GROUP, getClass());
+    }
+
+    private static String customRegex(SimpleConfig config, String name) {
+        final Object regex = config.originals().get(ConfigName.PATTERNS + "." + name + "." + ConfigName.REGEX);
+        if (regex == null || regex.toString().isEmpty()) {
+            throw new ConfigException("Missing '" + ConfigName.PATTERNS + "." + name + "." + ConfigName.REGEX
+                    + "' for pattern " + name + ", which is not one of the built-in patterns " + EMAIL + ", " + CARD + " and " + IP);
+        }
+        return regex.toString();
+    }
+
+    private static Pattern compile(String regex, String name) {
+        try {
+            return Pattern.compile(regex);
+        } catch (PatternSyntaxException e) {
+            throw new ConfigException(name, regex, e.getDescription());
+        }
+    }
+
+    @Override
+    public R apply(R record) {
+        final long start = metrics.recordIn();
+        final R result;
+        if (record.value() == null) {
+            result = record;
+        } else if (record.valueSchema() == null) {
+            result = applySchemaless(record);
+        } else {
+            result = applyWithSchema(record);
+        }
+        metrics.recordOut(start, result);
+        return result;
+    }
+
+    private R applySchemaless(R record) {
+        final Map<String, Object> value = requireMap(record.value(), PURPOSE);
+        Map<String, Object> updatedValue = value;
+        for (String field : fields) {
+            final Object text = value.get(field);
+            if (text instanceof CharSequence) {
+                final String redacted = redact((CharSequence) text);
+                if (redacted != null) {
+                    updatedValue = new OverlayMap<>(updatedValue, field, redacted);
+                }
+            }
+        }
+        if (updatedValue == value) {
+            return record;
+        }
+        return record.newRecord(record.topic(), record.kafkaPartition(), record.keySchema(), record.key(), null, updatedValue, record.timestamp());
+    }
+
+    private R applyWithSchema(R record) {
+        final Struct value = requireStruct(record.value(), PURPOSE);
+        Struct updatedValue = null;
+        for (String field : fields) {
+            final Field schemaField = value.schema().field(field);
+            if (schemaField == null) {
+                throw new DataException("Field does not exist in the value: " + field);
+            }
+            if (schemaField.schema().type() != Schema.Type.STRING) {
+                throw new DataException("Field " + field + " must be a string but is " + schemaField.schema().type());
+            }
+            final String text = value.getString(field);
+            final String redacted = text == null ? null : redact(text);
+            if (redacted != null) {
+                if (updatedValue == null) {
+                    updatedValue = copy(value);
+                }
+                updatedValue.put(schemaField, redacted);
+            }
+        }
+        if (updatedValue == null) {
+            return record;
+        }
+        return record.newRecord(record.topic(), record.kafkaPartition(), record.keySchema(), record.key(), record.valueSchema(), updatedValue, record.timestamp());
+    }
+
+    private static Struct copy(Struct value) {
+        final Struct copy = new Struct(value.schema());
+        for (Field field : value.schema().fields()) {
+            final Object fieldValue = value.get(field);
+            if (fieldValue != null) {
+                copy.put(field, fieldValue);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * The text with every match masked, or null when nothing matched.
+     */
+    String redact(CharSequence text) {
+        final Scratch scratch = threadScratch.get();
+        final Matcher matcher = scratch.matcher.reset(text);
+        final StringBuilder out = scratch.out;
+        int copied = 0;
+        boolean masked = false;
+        while (matcher.find()) {
+            int alternative = alternative(matcher);
+            final int start = matcher.start();
+            int end = matcher.end();
+            if (!isValid(alternative, text, start, end, scratch.address)) {
+                //the alternation only reports the first pattern that matched here, the later ones get their own try
+                alternative = laterAlternative(scratch, text, alternative, start);
+                if (alternative < 0) {
+                    matcher.region(start + 1, text.length());
+                    continue;
+                }
+                end = scratch.alternatives[alternative].end();
+                matcher.region(Math.max(end, start + 1), text.length());
+            }
+            if (!masked) {
+                out.setLength(0);
+                masked = true;
+            }
+            out.append(text, copied, start).append(replacements[alternative]);
+            copied = end;
+        }
+        //the matchers keep a reference to the text until the next reset
+        matcher.reset("");
+        for (Matcher alternativeMatcher : scratch.alternatives) {
+            alternativeMatcher.reset("");
+        }
+        if (!masked) {
+            return null;
+        }
+        final String redacted = out.append(text, copied, text.length()).toString();
+        if (out.capacity() > MAX_RETAINED_CHARS) {
+            out.setLength(0);
+            out.trimToSize();
+        }
+        return redacted;
+    }
+
+    private boolean isValid(int alternative, CharSequence text, int start, int end, byte[] address) {
+        final Validator validator = validators[alternative];
+        return validator == null || validator.isValid(text, start, end, address);
+    }
+
+    //the first pattern after the rejected one that matches at start and passes its validator, or -1
+    private int laterAlternative(Scratch scratch, CharSequence text, int rejected, int start) {
+        for (int i = rejected + 1; i < validators.length; i++) {
+            final Matcher matcher = scratch.alternatives[i].reset(text).region(start, text.length());
+            if (matcher.lookingAt() && isValid(i, text, start, matcher.end(), scratch.address)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int alternative(Matcher matcher) {
+        for (int i = 0; i < groups.length - 1; i++) {
+            if (matcher.start(groups[i]) >= 0) {
+                return i;
+            }
+        }
+        return groups.length - 1;
+    }
+
+    static boolean isLuhnValid(CharSequence text, int start, int end, byte[] address) {
+        int sum = 0;
+        boolean doubled = false;
+        for (int i = end - 1; i >= start; i--) {
+            final char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                continue;
+            }
+            int digit = c - '0';
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return sum % 10 == 0;
+    }
+
+    //the regex only finds runs shaped like addresses; the parser rejects 999.1.1.1, times, MAC addresses and a bare ::
+    private static boolean isIp(CharSequence text, int start, int end, byte[] address) {
+        return end - start > 2 && IpAddresses.parse(text, start, end, address) != IpAddresses.INVALID;
+    }
+
+    @Override
+    public ConfigDef config() {
+        return CONFIG_DEF;
+    }
+
+    @Override
+    public void close() {
+        metrics.close();
+        metrics = TransformMetrics.DISABLED;
+    }
+}
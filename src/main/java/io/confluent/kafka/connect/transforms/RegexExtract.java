@@ -0,0 +1,341 @@
+package io.confluent.kafka.connect.transforms;
+
+import io.confluent.kafka.connect.metrics.TransformMetrics;
+import org.apache.kafka.common.cache.Cache;
+import org.apache.kafka.common.cache.LRUCache;
+import org.apache.kafka.common.cache.SynchronizedCache;
+import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.connect.connector.ConnectRecord;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.transforms.Transformation;
+import org.apache.kafka.connect.transforms.util.SchemaUtil;
+import org.apache.kafka.connect.transforms.util.SimpleConfig;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static org.apache.kafka.connect.transforms.util.Requirements.requireMap;
+import static org.apache.kafka.connect.transforms.util.Requirements.requireStruct;
+
+/**
+ * Applies one regex with named groups to a text field and writes every group to a typed field of the record value,
+ * such as the parts of an access log line. The pattern is matched once per record, and numbers are parsed straight
+ * from the matched region of the text. The output schema is built once per source schema. What happens to a record
+ * the regex does not match is configurable: it passes through, gets null fields, or is routed to another topic.
+ */
+public class RegexExtract<R extends ConnectRecord<R>> implements Transformation<R> {
+
+    public static final String OVERVIEW_DOC =
+            "Extract the named groups of a regex match on a text field into typed fields.";
+
+    public static final String ON_NO_MATCH_PASS = "pass";
+    public static final String ON_NO_MATCH_NULL = "null";
+    public static final String ON_NO_MATCH_ROUTE = "route";
+
+    private interface ConfigName {
+        String FIELD_NAME = "field.name";
+        String REGEX = "regex";
+        String TYPES = "types";
+        String FIELD_PREFIX = "field.prefix";
+        String ON_NO_MATCH = "on.no.match";
+        String NO_MATCH_TOPIC = "no.match.topic";
+    }
+
+    public static final ConfigDef CONFIG_DEF = TransformMetrics.withMetricsConfig(new ConfigDef()
+            .define(ConfigName.FIELD_NAME, ConfigDef.Type.STRING, ConfigDef.NO_DEFAULT_VALUE, new ConfigDef.NonEmptyString(),
+                    ConfigDef.Importance.HIGH, "Text field in the record value to match the regex against.")
+            .define(ConfigName.REGEX, ConfigDef.Type.STRING, ConfigDef.NO_DEFAULT_VALUE, new ConfigDef.NonEmptyString(),
+                    ConfigDef.Importance.HIGH, "Regular expression with named groups, (?<name>...). Each named group "
+                            + "becomes a field.")
+            .define(ConfigName.TYPES, ConfigDef.Type.LIST, "", ConfigDef.Importance.MEDIUM,
+                    "Types of the group fields as group:type, with type one of string, int32, int64, float64 or "
+                            + "boolean. Groups not listed are strings.")
+            .define(ConfigName.FIELD_PREFIX, ConfigDef.Type.STRING, "", ConfigDef.Importance.LOW,
+                    "Prefix for the names of the group fields.")
+            .define(ConfigName.ON_NO_MATCH, ConfigDef.Type.STRING, ON_NO_MATCH_PASS,
+                    ConfigDef.ValidString.in(ON_NO_MATCH_PASS, ON_NO_MATCH_NULL, ON_NO_MATCH_ROUTE), ConfigDef.Importance.MEDIUM,
+                    "When the regex does not match: 'pass' leaves the record unchanged, 'null' adds the group fields as "
+                            + "null, 'route' sends the unchanged record to no.match.topic.")
+            .define(ConfigName.NO_MATCH_TOPIC, ConfigDef.Type.STRING, null, ConfigDef.Importance.MEDIUM,
+                    "Topic for records the regex does not match, with on.no.match=route."));
+
+    private static final String PURPOSE = "extracting regex groups from a text field";
+
+    private enum Type {
+        STRING(Schema.OPTIONAL_STRING_SCHEMA),
+        INT32(Schema.OPTIONAL_INT32_SCHEMA),
+        INT64(Schema.OPTIONAL_INT64_SCHEMA),
+        FLOAT64(Schema.OPTIONAL_FLOAT64_SCHEMA),
+        BOOLEAN(Schema.OPTIONAL_BOOLEAN_SCHEMA);
+
+        final Schema schema;
+
+        Type(Schema schema) {
+            this.schema = schema;
+        }
+    }
+
+    private String fieldName;
+    private Pattern regex;
+    private int[] groups;
+    private String[] outputFields;
+    private Type[] types;
+    private String onNoMatch;
+    private String noMatchTopic;
+    private TransformMetrics metrics = TransformMetrics.DISABLED;
+
+    private Cache<Schema, Schema> schemaUpdateCache;
+
+    @Override
+    public void configure(Map<String, ?> props) {
+        final SimpleConfig config = new SimpleConfig(CONFIG_DEF, props);
+        fieldName = config.getString(ConfigName.FIELD_NAME);
+        final String source = config.getString(ConfigName.REGEX);
+        try {
+            regex = Pattern.compile(source);
+        } catch (PatternSyntaxException e) {
+            throw new ConfigException(ConfigName.REGEX, source, e.getDescription());
+        }
+
+        final List<String> names = groupNames(source);
+        final List<Integer> namedGroups = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) {
+            if (names.get(i) != null) {
+                namedGroups.add(i + 1);
+            }
+        }
+        if (namedGroups.isEmpty()) {
+            throw new ConfigException(ConfigName.REGEX, source, "The regex has no named groups, (?<name>...)");
+        }
+
+        final Map<String, Type> typesByGroup = new HashMap<>();
+        for (String entry : config.getList(ConfigName.TYPES)) {
+            final int colon = entry.lastIndexOf(':');
+            final String group = colon < 0 ? entry : entry.substring(0, colon).trim();
+            final Type type;
+            try {
+                type = Type.valueOf(entry.substring(colon + 1).trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new ConfigException(ConfigName.TYPES, entry, "Expected group:type with type string, int32, int64, float64 or boolean");
+            }
+            if (colon < 0 || !names.contains(group)) {
+                throw new ConfigException(ConfigName.TYPES, entry, "Expected group:type for a named group of the regex, which has " + names);
+            }
+            typesByGroup.put(group, type);
+        }
+
+        final String prefix = config.getString(ConfigName.FIELD_PREFIX);
+        groups = new int[namedGroups.size()];
+        outputFields = new String[groups.length];
+        types = new Type[groups.length];
+        for (int i = 0; i < groups.length; i++) {
+            groups[i] = namedGroups.get(i);
+            final String name = names.get(groups[i] - 1);
+            outputFields[i] = prefix + name;
+            types[i] = typesByGroup.getOrDefault(name, Type.STRING);
+        }
+
+        onNoMatch = config.getString(ConfigName.ON_NO_MATCH);
+        noMatchTopic = config.getString(ConfigName.NO_MATCH_TOPIC);
+        if (ON_NO_MATCH_ROUTE.equals(onNoMatch) && (noMatchTopic == null || noMatchTopic.isEmpty())) {
+            throw new ConfigException(ConfigName.NO_MATCH_TOPIC, noMatchTopic, "Required with on.no.match=route");
+        }
+
+        schemaUpdateCache = new SynchronizedCache<>(new LRUCache<Schema, Schema>(16));
+        metrics.close();
+        metrics = TransformMetrics.create(config, TransformMetrics.TRANSFORM_GROUP, getClass());
+    }
+
+    @Override
+    public R apply(R record) {
+        final long start = metrics.recordIn();
+        final R result;
+        if (record.valueSchema() == null) {
+            result = applySchemaless(record);
+        } else {
+            result = applyWithSchema(record);
+        }
+        metrics.recordOut(start, result);
+        return result;
+    }
+
+    private R applySchemaless(R record) {
+        final Map<String, Object> value = requireMap(record.value(), PURPOSE);
+        if (!value.containsKey(fieldName)) {
+            return record;
+        }
+
+        final CharSequence text = text(value.get(fieldName));
+        final Matcher matcher = match(text);
+        if (matcher == null && !ON_NO_MATCH_NULL.equals(onNoMatch)) {
+            return noMatch(record);
+        }
+
+        final Map<String, Object> updatedValue = new HashMap<>(value.size() + outputFields.length + 1, 1f);
+        updatedValue.putAll(value);
+        for (int i = 0; i < outputFields.length; i++) {
+            updatedValue.put(outputFields[i], matcher == null ? null : group(matcher, text, i));
+        }
+
+        return record.newRecord(record.topic(), record.kafkaPartition(), record.keySchema(), record.key(), null, updatedValue, record.timestamp());
+    }
+
+    private R applyWithSchema(R record) {
+        final Struct value = requireStruct(record.value(), PURPOSE);
+
+        Schema updatedSchema = schemaUpdateCache.get(value.schema());
+        if (updatedSchema == null) {
+            metrics.cacheMiss();
+            updatedSchema = makeUpdatedSchema(value.schema());
+            schemaUpdateCache.put(value.schema(), updatedSchema);
+        } else {
+            metrics.cacheHit();
+        }
+
+        final CharSequence text = text(value.get(fieldName));
+        final Matcher matcher = match(text);
+        if (matcher == null && !ON_NO_MATCH_NULL.equals(onNoMatch)) {
+            return noMatch(record);
+        }
+
+        final Struct updatedValue = new Struct(updatedSchema);
+        for (Field field : value.schema().fields()) {
+            final Object fieldValue = value.get(field);
+            if (fieldValue != null) {
+                updatedValue.put(field.name(), fieldValue);
+            }
+        }
+        if (matcher != null) {
+            for (int i = 0; i < outputFields.length; i++) {
+                updatedValue.put(outputFields[i], group(matcher, text, i));
+            }
+        }
+
+        return record.newRecord(record.topic(), record.kafkaPartition(), record.keySchema(), record.key(), updatedSchema, updatedValue, record.timestamp());
+    }
+
+    private static CharSequence text(Object value) {
+        return value == null || value instanceof CharSequence ? (CharSequence) value : value.toString();
+    }
+
+    //the matcher positioned on the first match, or null
+    private Matcher match(CharSequence text) {
+        if (text == null) {
+            return null;
+        }
+        final Matcher matcher = regex.matcher(text);
+        return matcher.find() ? matcher : null;
+    }
+
+    private R noMatch(R record) {
+        if (ON_NO_MATCH_ROUTE.equals(onNoMatch)) {
+            metrics.routed(noMatchTopic);
+            return record.newRecord(noMatchTopic, record.kafkaPartition(), record.keySchema(), record.key(), record.valueSchema(), record.value(), record.timestamp());
+        }
+        metrics.passedThrough();
+        return record;
+    }
+
+    //numbers are parsed from the region of the text, without a substring
+    private Object group(Matcher matcher, CharSequence text, int i) {
+        final int start = matcher.start(groups[i]);
+        if (start < 0) {
+            return null;
+        }
+        final int end = matcher.end(groups[i]);
+        try {
+            switch (types[i]) {
+                case INT32:
+                    return Integer.parseInt(text, start, end, 10);
+                case INT64:
+                    return Long.parseLong(text, start, end, 10);
+                case FLOAT64:
+                    return Double.parseDouble(text.subSequence(start, end).toString());
+                case BOOLEAN:
+                    return Boolean.parseBoolean(text.subSequence(start, end).toString());
+                default:
+                    return text.subSequence(start, end).toString();
+            }
+        } catch (NumberFormatException e) {
+            throw new DataException("Group " + outputFields[i] + " is not a valid " + types[i].name().toLowerCase(Locale.ROOT)
+                    + ": " + text.subSequence(start, end));
+        }
+    }
+
+    private Schema makeUpdatedSchema(Schema schema) {
+        final Field textField = schema.field(fieldName);
+        if (textField == null) {
+            throw new DataException("Field does not exist in the value: " + fieldName);
+        }
+        if (textField.schema().type() != Schema.Type.STRING) {
+            throw new DataException("Field " + fieldName + " must be a string but is " + textField.schema().type());
+        }
+
+        final SchemaBuilder builder = SchemaUtil.copySchemaBasics(schema, SchemaBuilder.struct());
+        for (Field field : schema.fields()) {
+            builder.field(field.name(), field.schema());
+        }
+        for (int i = 0; i < outputFields.length; i++) {
+            if (schema.field(outputFields[i]) != null) {
+                throw new DataException("Field already exists in the value: " + outputFields[i]);
+            }
+            builder.field(outputFields[i], types[i].schema);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Names of the capturing groups of a regex in group number order, null for unnamed groups. Escapes, quoted
+     * sections and character classes are skipped, so only real groups are counted.
+     */
+    static List<String> groupNames(String regex) {
+        final List<String> names = new ArrayList<>();
+        int classDepth = 0;
+        for (int i = 0; i < regex.length(); i++) {
+            final char c = regex.charAt(i);
+            if (c == '\\') {
+                if (regex.startsWith("Q", i + 1)) {
+                    final int quoteEnd = regex.indexOf("\\E", i + 2);
+                    i = quoteEnd < 0 ? regex.length() : quoteEnd + 1;
+                } else {
+                    i++;
+                }
+            } else if (c == '[') {
+                classDepth++;
+            } else if (c == ']' && classDepth > 0) {
+                classDepth--;
+            } else if (c == '(' && classDepth == 0) {
+                if (!regex.startsWith("?", i + 1)) {
+                    names.add(null);
+                } else if (regex.startsWith("?<", i + 1) && i + 3 < regex.length() && Character.isLetter(regex.charAt(i + 3))) {
+                    final int nameEnd = regex.indexOf('>', i + 3);
+                    names.add(regex.substring(i + 3, nameEnd));
+                }
+            }
+        }
+        return names;
+    }
+
+    @Override
+    public ConfigDef config() {
+        return CONFIG_DEF;
+    }
+
+    @Override
+    public void close() {
+        schemaUpdateCache = null;
+        metrics.close();
+        metrics = TransformMetrics.DISABLED;
+    }
+}
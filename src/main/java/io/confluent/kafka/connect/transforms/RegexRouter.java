@@ -1,6 +1,10 @@
 package io.confluent.kafka.connect.transforms;
 
+import io.confluent.kafka.connect.json.RawJsonField;
+import io.confluent.kafka.connect.metrics.TransformMetrics;
+import io.confluent.kafka.connect.reload.ReloadingFile;
 import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.common.config.ConfigException;
 import org.apache.kafka.connect.connector.ConnectRecord;
 import org.apache.kafka.connect.data.Field;
 import org.apache.kafka.connect.data.Struct;
@@ -8,12 +12,29 @@ import org.apache.kafka.connect.errors.DataException;
 import org.apache.kafka.connect.transforms.Transformation;
 import org.apache.kafka.connect.transforms.util.SimpleConfig;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import static org.apache.kafka.connect.transforms.util.Requirements.requireMap;
 import static org.apache.kafka.connect.transforms.util.Requirements.requireStruct;
 
+/**
+ * Routes records whose field value matches a regex. The rule is either configured with {@code regex} and
+ * {@code topic.name}, or read as an ordered list of rules from {@code rules.file}. The file's directory is watched
+ * with a {@link java.nio.file.WatchService}; when the file changes, the watcher thread compiles the new rules and
+ * {@link ReloadingFile} publishes them with a single volatile write, so the processing thread never waits and records
+ * in flight finish against the rules they started with.
+ */
 public class RegexRouter<R extends ConnectRecord<R>> implements Transformation<R> {
 
     public static final String OVERVIEW_DOC =
@@ -23,37 +44,116 @@ public class RegexRouter<R extends ConnectRecord<R>> implements Transformation<R
         String FIELD_NAME = "field.name";
         String REGEX = "regex";
         String TOPIC_NAME = "topic.name";
+        String RULES_FILE = "rules.file";
+        String RAW_JSON = "raw.json";
     }
 
-    public static final ConfigDef CONFIG_DEF = new ConfigDef()
+    public static final ConfigDef CONFIG_DEF = TransformMetrics.withMetricsConfig(new ConfigDef()
             .define(ConfigName.FIELD_NAME, ConfigDef.Type.STRING, ConfigDef.NO_DEFAULT_VALUE, ConfigDef.Importance.HIGH,
                     "Field name in the record value to match against the regex.")
-            .define(ConfigName.REGEX, ConfigDef.Type.STRING, ConfigDef.NO_DEFAULT_VALUE, ConfigDef.Importance.HIGH,
-                    "Regular expression to match against the field value.")
-            .define(ConfigName.TOPIC_NAME, ConfigDef.Type.STRING, ConfigDef.NO_DEFAULT_VALUE, ConfigDef.Importance.HIGH,
-                    "Target topic name to route to when the regex matches.");
+            .define(ConfigName.REGEX, ConfigDef.Type.STRING, null, new ConfigDef.NonEmptyString(), ConfigDef.Importance.HIGH,
+                    "Regular expression to match against the field value. Required unless rules.file is set.",
+                    null, -1, ConfigDef.Width.NONE, ConfigName.REGEX, new RequiredUnlessRulesFile())
+            .define(ConfigName.TOPIC_NAME, ConfigDef.Type.STRING, null, new ConfigDef.NonEmptyString(), ConfigDef.Importance.HIGH,
+                    "Target topic name to route to when the regex matches. Required unless rules.file is set.",
+                    null, -1, ConfigDef.Width.NONE, ConfigName.TOPIC_NAME, new RequiredUnlessRulesFile())
+            .define(ConfigName.RULES_FILE, ConfigDef.Type.STRING, "", ConfigDef.Importance.MEDIUM,
+                    "File of regex=topic rules, one per line, used instead of regex and topic.name. The first rule "
+                            + "that matches wins. Blank lines and lines starting with # are skipped. Changes to the "
+                            + "file are picked up without restarting the task.")
+            .define(ConfigName.RAW_JSON, ConfigDef.Type.BOOLEAN, false, ConfigDef.Importance.LOW,
+                    "Read the field from a value that is raw JSON text, a String or byte[] from the String or ByteArray "
+                            + "converter, without parsing it. The field name may be a dotted path into nested objects."));
 
     private static final String PURPOSE = "routing based on regex match";
 
+    /**
+     * Makes {@code regex} and {@code topic.name} required while {@code rules.file} is unset, and hides them once it is
+     * set. A validator only sees its own value, but a recommender sees the whole config and is kept when Connect
+     * embeds the transform's definition in the connector's, so {@code validate()} and the REST API report the
+     * missing value.
+     */
+    private static final class RequiredUnlessRulesFile implements ConfigDef.Recommender {
+
+        @Override
+        public List<Object> validValues(String name, Map<String, Object> parsedConfig) {
+            final Object file = parsedConfig.get(ConfigName.RULES_FILE);
+            final boolean fromFile = file != null && !file.toString().isEmpty();
+            if (!fromFile && parsedConfig.get(name) == null) {
+                throw new ConfigException("Missing required configuration \"" + name + "\", which has no default value "
+                        + "unless " + ConfigName.RULES_FILE + " is set.");
+            }
+            if (fromFile && parsedConfig.get(name) != null) {
+                throw new ConfigException(name + " cannot be combined with " + ConfigName.RULES_FILE + ".");
+            }
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean visible(String name, Map<String, Object> parsedConfig) {
+            final Object file = parsedConfig.get(ConfigName.RULES_FILE);
+            return file == null || file.toString().isEmpty() || parsedConfig.get(name) != null;
+        }
+    }
+
     private String fieldName;
-    private Pattern regex;
-    private String topicName;
+    private RawJsonField rawJsonField;
+    private TransformMetrics metrics = TransformMetrics.DISABLED;
+
+    private Rules configuredRules;
+    private ReloadingFile<Rules> rulesFile;
 
     @Override
     public void configure(Map<String, ?> props) {
         final SimpleConfig config = new SimpleConfig(CONFIG_DEF, props);
         fieldName = config.getString(ConfigName.FIELD_NAME);
-        regex = Pattern.compile(config.getString(ConfigName.REGEX));
-        topicName = config.getString(ConfigName.TOPIC_NAME);
+        rawJsonField = config.getBoolean(ConfigName.RAW_JSON) ? new RawJsonField(fieldName) : null;
+        stopWatching();
+
+        final String regex = config.getString(ConfigName.REGEX);
+        final String topicName = config.getString(ConfigName.TOPIC_NAME);
+        final String file = config.getString(ConfigName.RULES_FILE);
+        if (file.isEmpty()) {
+            if (regex == null || topicName == null) {
+                throw new ConfigException("RegexRouter needs " + ConfigName.REGEX + " and " + ConfigName.TOPIC_NAME
+                        + ", or " + ConfigName.RULES_FILE);
+            }
+            configuredRules = new Rules(new Pattern[]{Pattern.compile(regex)}, new String[]{topicName});
+        } else {
+            if (regex != null || topicName != null) {
+                throw new ConfigException("RegexRouter takes its rules from either " + ConfigName.RULES_FILE + " or "
+                        + ConfigName.REGEX + " and " + ConfigName.TOPIC_NAME + ", not both");
+            }
+            try {
+                rulesFile = ReloadingFile.load(Paths.get(file).toAbsolutePath(), "regex-router", RegexRouter::load)
+                        .watch();
+            } catch (IOException | IllegalArgumentException e) {
+                throw new ConfigException(ConfigName.RULES_FILE, file, e.getMessage());
+            }
+        }
+
+        metrics.close();
+        metrics = TransformMetrics.create(config, TransformMetrics.TRANSFORM_GROUP, getClass());
     }
 
     @Override
     public R apply(R record) {
-        if (record.valueSchema() == null) {
-            return applySchemaless(record);
+        final long start = metrics.recordIn();
+        final R result;
+        if (rawJsonField != null) {
+            result = applyRawJson(record);
+        } else if (record.valueSchema() == null) {
+            result = applySchemaless(record);
+        } else {
+            result = applyWithSchema(record);
+        }
+        if (result != record) {
+            metrics.routed(result.topic());
         } else {
-            return applyWithSchema(record);
+            metrics.passedThrough();
         }
+        metrics.recordOut(start, result);
+        return result;
     }
 
     private R applySchemaless(R record) {
@@ -65,22 +165,16 @@ public class RegexRouter<R extends ConnectRecord<R>> implements Transformation<R
             return record;
         }
 
-        String fieldValueStr = fieldValue.toString();
-        if (regex.matcher(fieldValueStr).find()) {
-            // Regex found in field value, route to configured topic
-            return record.newRecord(
-                    topicName,
-                    record.kafkaPartition(),
-                    record.keySchema(),
-                    record.key(),
-                    record.valueSchema(),
-                    record.value(),
-                    record.timestamp()
-            );
-        }
+        return routed(record, route(fieldValue.toString()));
+    }
 
-        // No match, keep original topic
-        return record;
+    private R applyRawJson(R record) {
+        //the scanner returns a view of the payload, so matching copies nothing
+        final CharSequence fieldValue = rawJsonField.find(record.value());
+        if (fieldValue == null) {
+            return record;
+        }
+        return routed(record, route(fieldValue));
     }
 
     private R applyWithSchema(R record) {
@@ -97,22 +191,86 @@ public class RegexRouter<R extends ConnectRecord<R>> implements Transformation<R
             return record;
         }
 
-        String fieldValueStr = fieldValue.toString();
-        if (regex.matcher(fieldValueStr).find()) {
-            // Regex found in field value, route to configured topic
-            return record.newRecord(
-                    topicName,
-                    record.kafkaPartition(),
-                    record.keySchema(),
-                    record.key(),
-                    record.valueSchema(),
-                    record.value(),
-                    record.timestamp()
-            );
+        return routed(record, route(fieldValue.toString()));
+    }
+
+    private R routed(R record, String topic) {
+        if (topic == null) {
+            // No match, keep original topic
+            return record;
+        }
+        // Regex found in field value, route to the rule's topic
+        return record.newRecord(
+                topic,
+                record.kafkaPartition(),
+                record.keySchema(),
+                record.key(),
+                record.valueSchema(),
+                record.value(),
+                record.timestamp()
+        );
+    }
+
+    /**
+     * @return the topic of the first rule whose regex is found in the value, or null
+     */
+    String route(CharSequence fieldValue) {
+        final Rules current = rulesFile != null ? rulesFile.get() : configuredRules;
+        for (int i = 0; i < current.patterns.length; i++) {
+            if (current.patterns[i].matcher(fieldValue).find()) {
+                return current.topics[i];
+            }
+        }
+        return null;
+    }
+
+    String fieldName() {
+        return fieldName;
+    }
+
+    boolean rawJson() {
+        return rawJsonField != null;
+    }
+
+    //regex=topic; a topic name cannot contain '=', so the rule splits at the last one
+    private static Rules load(Path rulesFile) throws IOException {
+        final List<Pattern> patterns = new ArrayList<>();
+        final List<String> topics = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(rulesFile, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                final String rule = line.trim();
+                if (rule.isEmpty() || rule.charAt(0) == '#') {
+                    continue;
+                }
+                final int separator = rule.lastIndexOf('=');
+                final String topic = separator < 0 ? "" : rule.substring(separator + 1).trim();
+                if (topic.isEmpty()) {
+                    throw new IllegalArgumentException("Rule on line " + lineNumber + " is not regex=topic: " + rule);
+                }
+                try {
+                    patterns.add(Pattern.compile(rule.substring(0, separator).trim()));
+                } catch (PatternSyntaxException e) {
+                    throw new IllegalArgumentException("Invalid regex on line " + lineNumber + ": " + e.getDescription());
+                }
+                topics.add(topic);
+            }
         }
+        return new Rules(patterns.toArray(new Pattern[0]), topics.toArray(new String[0]));
+    }
 
-        // No match, keep original topic
-        return record;
+    void reloadIfChanged() {
+        rulesFile.reloadIfChanged();
+    }
+
+    private void stopWatching() {
+        if (rulesFile != null) {
+            rulesFile.close();
+            rulesFile = null;
+        }
+        configuredRules = null;
     }
 
     @Override
@@ -122,7 +280,19 @@ public class RegexRouter<R extends ConnectRecord<R>> implements Transformation<R
 
     @Override
     public void close() {
-        // No resources to clean up
+        stopWatching();
+        metrics.close();
+        metrics = TransformMetrics.DISABLED;
     }
-}
 
+    //the configured rule, or the rules of one version of the file
+    private static final class Rules {
+        final Pattern[] patterns;
+        final String[] topics;
+
+        Rules(Pattern[] patterns, String[] topics) {
+            this.patterns = patterns;
+            this.topics = topics;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package io.confluent.kafka.connect.transforms;
+
+import io.confluent.kafka.connect.Utf8;
+import io.confluent.kafka.connect.metrics.TransformMetrics;
+import org.apache.kafka.common.cache.Cache;
+import org.apache.kafka.common.cache.LRUCache;
+import org.apache.kafka.common.cache.SynchronizedCache;
+import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.connect.connector.ConnectRecord;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.header.Headers;
+import org.apache.kafka.connect.transforms.Transformation;
+import org.apache.kafka.connect.transforms.util.SimpleConfig;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Routes records whose key and value are too large for the target topic to an overflow topic, before the producer
+ * fails them with a {@code RecordTooLargeException}. The size is estimated from the data without serializing it:
+ * numbers count their binary width, text its UTF-8 length and bytes their length. For each struct schema the sum of
+ * its fixed-width fields is computed once and cached, so a record only walks its text, bytes and nested fields.
+ */
+public class SizeRouter<R extends ConnectRecord<R>> implements Transformation<R> {
+
+    public static final String OVERVIEW_DOC =
+            "Route records whose estimated key and value size exceeds a threshold to an overflow topic.";
+
+    private interface ConfigName {
+        String MAX_BYTES = "max.bytes";
+        String OVERFLOW_TOPIC = "overflow.topic";
+        String SIZE_HEADER = "size.header";
+    }
+
+    public static final ConfigDef CONFIG_DEF = TransformMetrics.withMetricsConfig(new ConfigDef()
+            .define(ConfigName.MAX_BYTES, ConfigDef.Type.LONG, 1048576L, ConfigDef.Range.atLeast(1), ConfigDef.Importance.HIGH,
+                    "Records whose estimated key and value size is above this many bytes go to the overflow topic. Leave "
+                            + "headroom below the producer and topic limits for the converter's framing and field names.")
+            .define(ConfigName.OVERFLOW_TOPIC, ConfigDef.Type.STRING, ConfigDef.NO_DEFAULT_VALUE, new ConfigDef.NonEmptyString(),
+                    ConfigDef.Importance.HIGH, "Topic for records above max.bytes.")
+            .define(ConfigName.SIZE_HEADER, ConfigDef.Type.STRING, null, ConfigDef.Importance.LOW,
+                    "Name of a header to write the estimated size to, as an int64. No header is written when unset."));
+
+    //width of each type in a binary encoding, -1 for types whose size depends on the value
+    private static final int VARIABLE = -1;
+
+    //the fixed-width part of a struct schema and the fields that have to be measured per record
+    private static final class StructSize {
+        final long fixedBytes;
+        final Field[] variableFields;
+
+        StructSize(long fixedBytes, Field[] variableFields) {
+            this.fixedBytes = fixedBytes;
+            this.variableFields = variableFields;
+        }
+    }
+
+    private long maxBytes;
+    private String overflowTopic;
+    private String sizeHeader;
+    private TransformMetrics metrics = TransformMetrics.DISABLED;
+
+    private Cache<Schema, StructSize> structSizeCache;
+
+    @Override
+    public void configure(Map<String, ?> props) {
+        final SimpleConfig config = new SimpleConfig(CONFIG_DEF, props);
+        maxBytes = config.getLong(ConfigName.MAX_BYTES);
+        overflowTopic = config.getString(ConfigName.OVERFLOW_TOPIC);
+        sizeHeader = config.getString(ConfigName.SIZE_HEADER);
+
+        structSizeCache = new SynchronizedCache<>(new LRUCache<Schema, StructSize>(16));
+        metrics.close();
+        metrics = TransformMetrics.create(config, TransformMetrics.TRANSFORM_GROUP, getClass());
+    }
+
+    @Override
+    public R apply(R record) {
+        final long start = metrics.recordIn();
+        final long size = estimate(record.keySchema(), record.key()) + estimate(record.valueSchema(), record.value());
+
+        final String topic;
+        if (size > maxBytes) {
+            topic = overflowTopic;
+            metrics.routed(topic);
+        } else {
+            topic = record.topic();
+            metrics.passedThrough();
+        }
+
+        final R result;
+        if (sizeHeader != null) {
+            //key and value are passed on by reference, only the headers are copied so the input record is left untouched
+            final Headers headers = record.headers().duplicate();
+            headers.addLong(sizeHeader, size);
+            result = record.newRecord(topic, record.kafkaPartition(), record.keySchema(), record.key(), record.valueSchema(), record.value(), record.timestamp(), headers);
+        } else if (topic != record.topic()) {
+            result = record.newRecord(topic, record.kafkaPartition(), record.keySchema(), record.key(), record.valueSchema(), record.value(), record.timestamp());
+        } else {
+            result = record;
+        }
+        metrics.recordOut(start, result);
+        return result;
+    }
+
+    /**
+     * Estimated size in bytes of a key or value with its schema, or of a schemaless one when the schema is null.
+     */
+    long estimate(Schema schema, Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (schema == null) {
+            return estimateSchemaless(value);
+        }
+        switch (schema.type()) {
+            case STRING:
+                return Utf8.length((CharSequence) value);
+            case BYTES:
+                return bytesLength(value);
+            case ARRAY: {
+                final Collection<?> elements = (Collection<?>) value;
+                final int width = fixedWidth(schema.valueSchema());
+                if (width != VARIABLE) {
+                    return (long) width * elements.size();
+                }
+                long size = 0;
+                for (Object element : elements) {
+                    size += estimate(schema.valueSchema(), element);
+                }
+                return size;
+            }
+            case MAP: {
+                final Map<?, ?> map = (Map<?, ?>) value;
+                final int keyWidth = fixedWidth(schema.keySchema());
+                final int valueWidth = fixedWidth(schema.valueSchema());
+                if (keyWidth != VARIABLE && valueWidth != VARIABLE) {
+                    return (long) (keyWidth + valueWidth) * map.size();
+                }
+                long size = 0;
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    size += estimate(schema.keySchema(), entry.getKey()) + estimate(schema.valueSchema(), entry.getValue());
+                }
+                return size;
+            }
+            case STRUCT: {
+                final Struct struct = (Struct) value;
+                final StructSize structSize = structSize(struct.schema());
+                long size = structSize.fixedBytes;
+                for (Field field : structSize.variableFields) {
+                    size += estimate(field.schema(), struct.get(field));
+                }
+                return size;
+            }
+            default:
+                return fixedWidth(schema);
+        }
+    }
+
+    private StructSize structSize(Schema schema) {
+        StructSize structSize = structSizeCache.get(schema);
+        if (structSize == null) {
+            metrics.cacheMiss();
+            long fixedBytes = 0;
+            final List<Field> variableFields = new ArrayList<>();
+            for (Field field : schema.fields()) {
+                final int width = fixedWidth(field.schema());
+                if (width == VARIABLE) {
+                    variableFields.add(field);
+                } else {
+                    //a null optional field is counted at full width, so the estimate errs on the high side
+                    fixedBytes += width;
+                }
+            }
+            structSize = new StructSize(fixedBytes, variableFields.toArray(new Field[0]));
+            structSizeCache.put(schema, structSize);
+        } else {
+            metrics.cacheHit();
+        }
+        return structSize;
+    }
+
+    private static int fixedWidth(Schema schema) {
+        switch (schema.type()) {
+            case INT8:
+            case BOOLEAN:
+                return 1;
+            case INT16:
+                return 2;
+            case INT32:
+            case FLOAT32:
+                return 4;
+            case INT64:
+            case FLOAT64:
+                return 8;
+            default:
+                return VARIABLE;
+        }
+    }
+
+    private long estimateSchemaless(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof CharSequence) {
+            return Utf8.length((CharSequence) value);
+        }
+        if (value instanceof byte[] || value instanceof ByteBuffer || value instanceof BigDecimal) {
+            return bytesLength(value);
+        }
+        if (value instanceof Byte || value instanceof Boolean) {
+            return 1;
+        }
+        if (value instanceof Short) {
+            return 2;
+        }
+        if (value instanceof Integer || value instanceof Float) {
+            return 4;
+        }
+        if (value instanceof Long || value instanceof Double || value instanceof Date) {
+            return 8;
+        }
+        if (value instanceof Struct) {
+            return estimate(((Struct) value).schema(), value);
+        }
+        if (value instanceof Map) {
+            long size = 0;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                size += estimateSchemaless(entry.getKey()) + estimateSchemaless(entry.getValue());
+            }
+            return size;
+        }
+        if (value instanceof Collection) {
+            long size = 0;
+            for (Object element : (Collection<?>) value) {
+                size += estimateSchemaless(element);
+            }
+            return size;
+        }
+        return Utf8.length(value.toString());
+    }
+
+    //bytes, or a Decimal as the two's complement bytes of its unscaled value
+    private static long bytesLength(Object value) {
+        if (value instanceof byte[]) {
+            return ((byte[]) value).length;
+        }
+        if (value instanceof ByteBuffer) {
+            return ((ByteBuffer) value).remaining();
+        }
+        return ((BigDecimal) value).unscaledValue().bitLength() / 8 + 1;
+    }
+
+    @Override
+    public ConfigDef config() {
+        return CONFIG_DEF;
+    }
+
+    @Override
+    public void close() {
+        structSizeCache = null;
+        metrics.close();
+        metrics = TransformMetrics.DISABLED;
+    }
+}
@@ -0,0 +1,251 @@
+package io.confluent.kafka.connect.transforms;
+
+import io.confluent.kafka.connect.metrics.TransformMetrics;
+import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.connect.connector.ConnectRecord;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.transforms.Transformation;
+import org.apache.kafka.connect.transforms.util.SimpleConfig;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Routes records to a topic per time bucket, such as {@code logs-20240115} or an hourly topic, from the record
+ * timestamp, a field or the wall clock. Buckets are computed the way the TimeBasedPartitioner of
+ * kafka-connect-storage-partitioner computes them, reimplemented on java.time rather than depending on that module:
+ * the timestamp is moved to the configured time zone, floored to a multiple of {@code partition.duration.ms} there,
+ * and the start of the bucket is formatted. The format is a java.time pattern, not the partitioner's Joda one. The
+ * topics of the current and the previous bucket are kept with their bounds, so a record in the same bucket as the ones
+ * before it costs two comparisons and no formatting.
+ */
+public class TimeBucketRouter<R extends ConnectRecord<R>> implements Transformation<R> {
+
+    public static final String OVERVIEW_DOC =
+            "Route records to a topic per time bucket of the record timestamp or a timestamp field.";
+
+    public static final String EXTRACTOR_RECORD = "Record";
+    public static final String EXTRACTOR_RECORD_FIELD = "RecordField";
+    public static final String EXTRACTOR_WALLCLOCK = "Wallclock";
+
+    private static final String TOPIC_PLACEHOLDER = "${topic}";
+    private static final String TIMESTAMP_PLACEHOLDER = "${timestamp}";
+
+    private interface ConfigName {
+        String TOPIC_FORMAT = "topic.format";
+        String TIMESTAMP_FORMAT = "timestamp.format";
+        String PARTITION_DURATION_MS = "partition.duration.ms";
+        String TIMEZONE = "timezone";
+        String LOCALE = "locale";
+        String TIMESTAMP_EXTRACTOR = "timestamp.extractor";
+        String TIMESTAMP_FIELD = "timestamp.field";
+    }
+
+    public static final ConfigDef CONFIG_DEF = TransformMetrics.withMetricsConfig(new ConfigDef()
+            .define(ConfigName.TOPIC_FORMAT, ConfigDef.Type.STRING, TOPIC_PLACEHOLDER + "-" + TIMESTAMP_PLACEHOLDER,
+                    new ConfigDef.NonEmptyString(), ConfigDef.Importance.HIGH,
+                    "Format of the target topic. ${topic} is replaced by the original topic and ${timestamp} by the "
+                            + "formatted start of the bucket.")
+            .define(ConfigName.TIMESTAMP_FORMAT, ConfigDef.Type.STRING, "yyyyMMdd", new ConfigDef.NonEmptyString(),
+                    ConfigDef.Importance.HIGH, "java.time.format.DateTimeFormatter pattern for the start of the bucket, "
+                            + "such as yyyyMMdd or yyyyMMdd-HH.")
+            .define(ConfigName.PARTITION_DURATION_MS, ConfigDef.Type.LONG, 86400000L, ConfigDef.Range.atLeast(1),
+                    ConfigDef.Importance.HIGH, "Length of a bucket in milliseconds, such as 3600000 for hourly topics.")
+            .define(ConfigName.TIMEZONE, ConfigDef.Type.STRING, "UTC", new ConfigDef.NonEmptyString(), ConfigDef.Importance.MEDIUM,
+                    "Time zone that buckets are aligned and formatted in, such as UTC or Europe/Berlin.")
+            .define(ConfigName.LOCALE, ConfigDef.Type.STRING, "en", new ConfigDef.NonEmptyString(), ConfigDef.Importance.LOW,
+                    "Locale for names in the timestamp format, such as month names.")
+            .define(ConfigName.TIMESTAMP_EXTRACTOR, ConfigDef.Type.STRING, EXTRACTOR_RECORD,
+                    ConfigDef.ValidString.in(EXTRACTOR_RECORD, EXTRACTOR_RECORD_FIELD, EXTRACTOR_WALLCLOCK), ConfigDef.Importance.MEDIUM,
+                    "Source of the timestamp: 'Record' for the record timestamp, 'RecordField' for timestamp.field of "
+                            + "the value, 'Wallclock' for the time the record is transformed.")
+            .define(ConfigName.TIMESTAMP_FIELD, ConfigDef.Type.STRING, "timestamp", new ConfigDef.NonEmptyString(),
+                    ConfigDef.Importance.MEDIUM, "Field of the value holding the timestamp, with 'RecordField'. Nested "
+                            + "fields are separated by dots. It holds epoch milliseconds, a Timestamp or ISO-8601 text."));
+
+    private static final String PURPOSE = "reading the timestamp field";
+
+    //one bucket of one source topic: the records from start (inclusive) to end (exclusive) go to topic
+    private static final class Bucket {
+        final String sourceTopic;
+        final long start;
+        final long end;
+        final String topic;
+
+        Bucket(String sourceTopic, long start, long end, String topic) {
+            this.sourceTopic = sourceTopic;
+            this.start = start;
+            this.end = end;
+            this.topic = topic;
+        }
+
+        boolean contains(String sourceTopic, long timestamp) {
+            return timestamp >= start && timestamp < end && this.sourceTopic.equals(sourceTopic);
+        }
+    }
+
+    private String topicFormat;
+    private DateTimeFormatter timestampFormat;
+    private long durationMs;
+    private ZoneId zone;
+    private String extractor;
+    private String[] timestampPath;
+    private TransformMetrics metrics = TransformMetrics.DISABLED;
+
+    //replaced as a unit; a stale read only costs a lookup, never a wrong topic
+    private volatile Bucket current;
+    private volatile Bucket previous;
+
+    @Override
+    public void configure(Map<String, ?> props) {
+        final SimpleConfig config = new SimpleConfig(CONFIG_DEF, props);
+        topicFormat = config.getString(ConfigName.TOPIC_FORMAT);
+        durationMs = config.getLong(ConfigName.PARTITION_DURATION_MS);
+        try {
+            zone = ZoneId.of(config.getString(ConfigName.TIMEZONE));
+        } catch (DateTimeException e) {
+            throw new ConfigException(ConfigName.TIMEZONE, config.getString(ConfigName.TIMEZONE), e.getMessage());
+        }
+        final Locale locale = Locale.forLanguageTag(config.getString(ConfigName.LOCALE).replace('_', '-'));
+        try {
+            timestampFormat = DateTimeFormatter.ofPattern(config.getString(ConfigName.TIMESTAMP_FORMAT), locale).withZone(zone);
+        } catch (IllegalArgumentException e) {
+            throw new ConfigException(ConfigName.TIMESTAMP_FORMAT, config.getString(ConfigName.TIMESTAMP_FORMAT), e.getMessage());
+        }
+        extractor = config.getString(ConfigName.TIMESTAMP_EXTRACTOR);
+        timestampPath = config.getString(ConfigName.TIMESTAMP_FIELD).split("\\.");
+
+        current = null;
+        previous = null;
+        metrics.close();
+        metrics = TransformMetrics.create(config, TransformMetrics.TRANSFORM_GROUP, getClass());
+    }
+
+    @Override
+    public R apply(R record) {
+        final long start = metrics.recordIn();
+        final String topic = topic(record.topic(), timestamp(record));
+        metrics.routed(topic);
+        final R result = record.newRecord(topic, record.kafkaPartition(), record.keySchema(), record.key(), record.valueSchema(), record.value(), record.timestamp());
+        metrics.recordOut(start, result);
+        return result;
+    }
+
+    String topic(String sourceTopic, long timestamp) {
+        final Bucket current = this.current;
+        if (current != null && current.contains(sourceTopic, timestamp)) {
+            return current.topic;
+        }
+        final Bucket previous = this.previous;
+        Bucket bucket;
+        if (previous != null && previous.contains(sourceTopic, timestamp)) {
+            //records at a bucket boundary or from two interleaved topics alternate between the two buckets
+            bucket = previous;
+        } else {
+            bucket = bucket(sourceTopic, timestamp);
+        }
+        this.previous = current;
+        this.current = bucket;
+        return bucket.topic;
+    }
+
+    private Bucket bucket(String sourceTopic, long timestamp) {
+        //floored in local time like the storage partitioner, so daily buckets start at local midnight
+        final Instant instant = Instant.ofEpochMilli(timestamp);
+        final ZoneOffset offset = zone.getRules().getOffset(instant);
+        final long local = timestamp + offset.getTotalSeconds() * 1000L;
+        final long localStart = Math.floorDiv(local, durationMs) * durationMs;
+        final long start = toUtc(localStart);
+        final long end = Math.max(toUtc(localStart + durationMs), timestamp + 1);
+
+        final String formatted = timestampFormat.format(Instant.ofEpochMilli(start));
+        final String topic = topicFormat.replace(TOPIC_PLACEHOLDER, sourceTopic).replace(TIMESTAMP_PLACEHOLDER, formatted);
+        //clamped so that a bucket cut short by a daylight saving change still holds the timestamp it was made for
+        return new Bucket(sourceTopic, Math.min(start, timestamp), end, topic);
+    }
+
+    //a local time in a daylight saving gap moves forward, one in an overlap takes the earlier offset
+    private long toUtc(long localMillis) {
+        final LocalDateTime local = LocalDateTime.ofEpochSecond(Math.floorDiv(localMillis, 1000L),
+                (int) Math.floorMod(localMillis, 1000L) * 1000000, ZoneOffset.UTC);
+        return ZonedDateTime.ofLocal(local, zone, null).toInstant().toEpochMilli();
+    }
+
+    private long timestamp(R record) {
+        switch (extractor) {
+            case EXTRACTOR_WALLCLOCK:
+                return System.currentTimeMillis();
+            case EXTRACTOR_RECORD_FIELD:
+                return fieldTimestamp(record.value());
+            default:
+                if (record.timestamp() == null) {
+                    throw new DataException("Record has no timestamp to route by, topic " + record.topic());
+                }
+                return record.timestamp();
+        }
+    }
+
+    private long fieldTimestamp(Object value) {
+        Object fieldValue = value;
+        for (String name : timestampPath) {
+            if (fieldValue instanceof Struct) {
+                final Struct struct = (Struct) fieldValue;
+                if (struct.schema().field(name) == null) {
+                    throw new DataException("Field does not exist in the value: " + String.join(".", timestampPath));
+                }
+                fieldValue = struct.get(name);
+            } else if (fieldValue instanceof Map) {
+                fieldValue = ((Map<?, ?>) fieldValue).get(name);
+            } else {
+                throw new DataException("Only Struct or Map objects supported for [" + PURPOSE + "], found: "
+                        + (fieldValue == null ? "null" : fieldValue.getClass().getName()));
+            }
+        }
+
+        if (fieldValue instanceof Number) {
+            return ((Number) fieldValue).longValue();
+        }
+        if (fieldValue instanceof Date) {
+            return ((Date) fieldValue).getTime();
+        }
+        if (fieldValue instanceof String) {
+            try {
+                return OffsetDateTime.parse((String) fieldValue, DateTimeFormatter.ISO_DATE_TIME).toInstant().toEpochMilli();
+            } catch (DateTimeParseException noOffset) {
+                try {
+                    //text without an offset is read in UTC, as the storage partitioner does
+                    return LocalDateTime.parse((String) fieldValue, DateTimeFormatter.ISO_DATE_TIME).toInstant(ZoneOffset.UTC).toEpochMilli();
+                } catch (DateTimeParseException e) {
+                    throw new DataException("Field " + String.join(".", timestampPath) + " is not an ISO-8601 timestamp: " + fieldValue);
+                }
+            }
+        }
+        throw new DataException("Field " + String.join(".", timestampPath) + " must hold epoch milliseconds, a Timestamp "
+                + "or ISO-8601 text, found: " + (fieldValue == null ? "null" : fieldValue.getClass().getName()));
+    }
+
+    @Override
+    public ConfigDef config() {
+        return CONFIG_DEF;
+    }
+
+    @Override
+    public void close() {
+        current = null;
+        previous = null;
+        metrics.close();
+        metrics = TransformMetrics.DISABLED;
+    }
+}
@@ -0,0 +1,77 @@
+package io.confluent.kafka.connect;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Measures the bytes a hot path allocates per call with {@code com.sun.management.ThreadMXBean}, after a warm-up long
+ * enough for the JIT to compile it, so escape analysis has had its chance to remove garbage. Used by the tests tagged
+ * {@value #TAG}, which run in their own {@code allocationTest} Gradle task.
+ */
+public final class AllocationMeter {
+
+    public static final String TAG = "allocation";
+
+    private static final int WARMUP_CALLS = 50_000;
+    private static final int MEASURED_CALLS = 20_000;
+
+    //headroom for what differs between JVMs, GC settings and JIT decisions, such as escape analysis and TLAB refills
+    private static final double MARGIN = 1.5;
+    private static final long MIN_BUDGET = 64;
+
+    //results are parked here so the JIT cannot drop the calls under test
+    private static volatile Object sink;
+
+    private AllocationMeter() {
+    }
+
+    /**
+     * Average bytes allocated by one {@code call.apply(i)}, where {@code i} is the call number.
+     */
+    public static double bytesPerCall(IntFunction<?> call) {
+        final com.sun.management.ThreadMXBean threads = threadBean();
+        final long threadId = Thread.currentThread().getId();
+
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            sink = call.apply(i);
+        }
+
+        final long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_CALLS; i++) {
+            sink = call.apply(i);
+        }
+        final long after = threads.getThreadAllocatedBytes(threadId);
+        return (double) (after - before) / MEASURED_CALLS;
+    }
+
+    /**
+     * The budget of a path that was measured at {@code measuredBytes} per call: the measurement times 1.5,
+     * rounded up to a multiple of 64 bytes and never below 64. Budgets are written as {@code budget(measured)} with the
+     * value {@code allocationTest} prints, so the margin is the same everywhere; re-measure when a path changes.
+     */
+    public static long budget(double measuredBytes) {
+        return Math.max(MIN_BUDGET, (long) Math.ceil(measuredBytes * MARGIN / MIN_BUDGET) * MIN_BUDGET);
+    }
+
+    /**
+     * Fails when a call allocates more than {@code budgetBytes} on average.
+     */
+    public static void assertWithinBudget(String path, long budgetBytes, IntFunction<?> call) {
+        final double allocated = bytesPerCall(call);
+        System.out.printf("%s: %.1f bytes per call (budget %d)%n", path, allocated, budgetBytes);
+        assertTrue(allocated <= budgetBytes,
+                String.format("%s allocated %.1f bytes per call, budget is %d", path, allocated, budgetBytes));
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean,
+                "JVM does not report per-thread allocation");
+        final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "JVM does not report per-thread allocation");
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+}
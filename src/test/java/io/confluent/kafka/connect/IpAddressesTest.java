@@ -0,0 +1,118 @@
+package io.confluent.kafka.connect;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IpAddressesTest {
+
+    private static byte[] parse(String text, int expectedVersion) {
+        final byte[] address = new byte[16];
+        assertEquals(expectedVersion, IpAddresses.parse(text, address), text);
+        return address;
+    }
+
+    private static void assertInvalid(String text) {
+        assertEquals(IpAddresses.INVALID, IpAddresses.parse(text, new byte[16]), text);
+    }
+
+    //InetAddress returns IPv4-mapped addresses as 4 bytes, so compare through the mapped form
+    private static byte[] expected(String text) throws UnknownHostException {
+        final byte[] bytes = InetAddress.getByName(text).getAddress();
+        if (bytes.length == 16) {
+            return bytes;
+        }
+        final byte[] mapped = new byte[16];
+        mapped[10] = (byte) 0xff;
+        mapped[11] = (byte) 0xff;
+        System.arraycopy(bytes, 0, mapped, 12, 4);
+        return mapped;
+    }
+
+    @Test
+    public void parsesIpv4() throws UnknownHostException {
+        assertArrayEquals(expected("192.168.1.1"), parse("192.168.1.1", IpAddresses.IPV4));
+        assertArrayEquals(expected("10.0.0.1"), parse("\"10.0.0.1\"", IpAddresses.IPV4));
+        assertEquals(0xc0a80101L, IpAddresses.ipv4(parse("192.168.1.1", IpAddresses.IPV4)));
+        assertEquals(0xffffffffL, IpAddresses.ipv4(parse("255.255.255.255", IpAddresses.IPV4)));
+
+        assertInvalid("256.1.1.1");
+        assertInvalid("1.2.3");
+        assertInvalid("1.2.3.4.5");
+        assertInvalid("1..3.4");
+        assertInvalid("1.2.3.4 ");
+        assertInvalid("localhost");
+        assertInvalid("");
+        assertInvalid("\"");
+    }
+
+    @Test
+    public void parsesIpv4Numbers() {
+        assertEquals(0x0A000001L, IpAddresses.parseIpv4("10.0.0.1"));
+        assertEquals(0xFFFFFFFFL, IpAddresses.parseIpv4("255.255.255.255"));
+        assertEquals(0x0A000001L, IpAddresses.parseIpv4("host 10.0.0.1", 5, 13));
+        assertEquals(IpAddresses.INVALID_IPV4, IpAddresses.parseIpv4("256.0.0.1"));
+        assertEquals(IpAddresses.INVALID_IPV4, IpAddresses.parseIpv4("1.2.3"));
+        assertEquals(IpAddresses.INVALID_IPV4, IpAddresses.parseIpv4("1.2.3.4.5"));
+        assertEquals(IpAddresses.INVALID_IPV4, IpAddresses.parseIpv4("1..3.4"));
+        assertEquals(IpAddresses.INVALID_IPV4, IpAddresses.parseIpv4("\"10.0.0.1\""));
+        assertEquals(0x0A000001L, IpAddresses.parseIpv4IgnoringQuotes("\"10.0.0.1\""));
+        assertEquals(IpAddresses.INVALID_IPV4, IpAddresses.parseIpv4IgnoringQuotes("\"\""));
+    }
+
+    @Test
+    public void parsesIpv6() throws UnknownHostException {
+        for (String text : new String[]{"::", "::1", "1::", "2001:db8::1", "2001:DB8:0:0:8:800:200C:417A",
+                "fe80::1:2:3:4:5:6", "1:2:3:4:5:6:7:8", "1:2:3:4:5:6:7::", "::2:3:4:5:6:7:8", "::ffff:1.2.3.4",
+                "64:ff9b::192.0.2.33", "1:2:3:4:5:6:1.2.3.4", "::1.2.3.4"}) {
+            final byte[] address = parse(text, IpAddresses.IPV6);
+            if (!text.startsWith("::ffff:")) {
+                assertArrayEquals(expected(text), address, text);
+            }
+        }
+        assertArrayEquals(expected("::1"), parse("\"::1\"", IpAddresses.IPV6));
+        assertEquals(0x01020304L, IpAddresses.ipv4(parse("::ffff:1.2.3.4", IpAddresses.IPV6)));
+        assertEquals(IpAddresses.INVALID_IPV4, IpAddresses.ipv4(parse("::1", IpAddresses.IPV6)));
+
+        assertInvalid(":");
+        assertInvalid(":::");
+        assertInvalid("1:::2");
+        assertInvalid("1::2::3");
+        assertInvalid(":1::");
+        assertInvalid("1:");
+        assertInvalid("1:2:3:4:5:6:7");
+        assertInvalid("1:2:3:4:5:6:7:8:9");
+        assertInvalid("1:2:3:4:5:6:7:8::");
+        assertInvalid("12345::");
+        assertInvalid("g::");
+        assertInvalid("::1.2.3");
+        assertInvalid("1:2:3:4:5:6:7:1.2.3.4");
+        assertInvalid("1.2.3.4::");
+        assertInvalid("fe80::1%eth0");
+    }
+
+    @Test
+    public void formatsCanonicalText() {
+        assertEquals("192.168.1.1", format("192.168.001.001"));
+        assertEquals("0.0.0.0", format("0.0.0.0"));
+        assertEquals("::", format("0:0:0:0:0:0:0:0"));
+        assertEquals("::1", format("0:0:0:0:0:0:0:1"));
+        assertEquals("1::", format("1:0:0:0:0:0:0:0"));
+        assertEquals("2001:db8::1", format("2001:0DB8:0000:0000:0000:0000:0000:0001"));
+        assertEquals("2001:db8:0:1:1:1:1:1", format("2001:db8:0:1:1:1:1:1"));
+        assertEquals("2001:0:0:1::1", format("2001:0:0:1:0:0:0:1"));
+        assertEquals("2001:db8::1:0:0:1", format("2001:db8:0:0:1:0:0:1"));
+        assertEquals("::ffff:1.2.3.4", format("::FFFF:0102:0304"));
+        assertEquals("64:ff9b::c000:221", format("64:ff9b::192.0.2.33"));
+    }
+
+    private static String format(String text) {
+        final byte[] address = new byte[16];
+        final int version = IpAddresses.parse(text, address);
+        assertNotEquals(IpAddresses.INVALID, version, text);
+        return IpAddresses.format(address, version);
+    }
+}
@@ -0,0 +1,28 @@
+package io.confluent.kafka.connect;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Utf8Test {
+
+    @Test
+    public void countsUtf8Bytes() {
+        assertEquals(0, Utf8.length(""));
+        assertEquals(3, Utf8.length("abc"));
+        assertEquals(2, Utf8.length("\u00e9"));
+        assertEquals(3, Utf8.length("\u4e2d"));
+        assertEquals(4, Utf8.length("\ud83d\ude00"));
+        assertEquals(6, Utf8.length(new StringBuilder("a\u00e9\u4e2d")));
+        assertEquals(3, Utf8.length("\ud83d"));
+    }
+
+    @Test
+    public void matchesTheEncoder() {
+        for (String text : new String[]{"plain", "caf\u00e9 \u4e2d\u6587", "x\ud83d\ude00y"}) {
+            assertEquals(text.getBytes(StandardCharsets.UTF_8).length, Utf8.length(text), text);
+        }
+    }
+}
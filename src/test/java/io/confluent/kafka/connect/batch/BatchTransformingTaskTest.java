@@ -0,0 +1,127 @@
+package io.confluent.kafka.connect.batch;
+
+import io.confluent.kafka.connect.transforms.RegexRouter;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.apache.kafka.connect.sink.SinkTask;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.apache.kafka.connect.source.SourceTask;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchTransformingTaskTest {
+
+    private static Map<String, String> routerProps() {
+        final Map<String, String> props = new HashMap<>();
+        props.put("batch.transform.type", RegexRouter.class.getName());
+        props.put("batch.transform.field.name", "level");
+        props.put("batch.transform.regex", "ERROR");
+        props.put("batch.transform.topic.name", "errors");
+        props.put("batch.min.batch.size", "1");
+        props.put("other", "value");
+        return props;
+    }
+
+    private static Map<String, Object> value(String level) {
+        return Collections.singletonMap("level", level);
+    }
+
+    @Test
+    public void sinkTaskReceivesTransformedBatch() {
+        final RecordingSinkTask delegate = new RecordingSinkTask();
+        final BatchTransformingSinkTask task = new BatchTransformingSinkTask(delegate);
+        task.start(routerProps());
+
+        task.put(Arrays.asList(
+                new SinkRecord("logs", 0, null, null, null, value("ERROR"), 0),
+                new SinkRecord("logs", 0, null, null, null, value("INFO"), 1)));
+        task.stop();
+
+        assertEquals("value", delegate.props.get("other"));
+        assertEquals(2, delegate.received.size());
+        assertEquals("errors", delegate.received.get(0).topic());
+        assertEquals("logs", delegate.received.get(1).topic());
+        assertEquals(1, delegate.received.get(1).kafkaOffset());
+        assertTrue(delegate.stopped);
+    }
+
+    @Test
+    public void sinkTaskWithoutBatchConfigPassesThrough() {
+        final RecordingSinkTask delegate = new RecordingSinkTask();
+        final BatchTransformingSinkTask task = new BatchTransformingSinkTask(delegate);
+        task.start(Collections.emptyMap());
+
+        final List<SinkRecord> records = Collections.singletonList(new SinkRecord("logs", 0, null, null, null, value("ERROR"), 0));
+        task.put(records);
+
+        assertSame(records.get(0), delegate.received.get(0));
+    }
+
+    @Test
+    public void sourceTaskTransformsPolledRecords() throws InterruptedException {
+        final SourceTask delegate = new SourceTask() {
+            @Override
+            public String version() {
+                return "test";
+            }
+
+            @Override
+            public void start(Map<String, String> props) {
+            }
+
+            @Override
+            public List<SourceRecord> poll() {
+                return Arrays.asList(
+                        new SourceRecord(null, null, "logs", 0, null, value("INFO")),
+                        new SourceRecord(null, null, "logs", 0, null, value("ERROR")));
+            }
+
+            @Override
+            public void stop() {
+            }
+        };
+        final BatchTransformingSourceTask task = new BatchTransformingSourceTask(delegate);
+        task.start(routerProps());
+
+        final List<SourceRecord> records = task.poll();
+        task.stop();
+
+        assertEquals("logs", records.get(0).topic());
+        assertEquals("errors", records.get(1).topic());
+        assertEquals("test", task.version());
+    }
+
+    private static final class RecordingSinkTask extends SinkTask {
+        final List<SinkRecord> received = new ArrayList<>();
+        Map<String, String> props;
+        boolean stopped;
+
+        @Override
+        public String version() {
+            return "test";
+        }
+
+        @Override
+        public void start(Map<String, String> props) {
+            this.props = props;
+        }
+
+        @Override
+        public void put(Collection<SinkRecord> records) {
+            received.addAll(records);
+        }
+
+        @Override
+        public void stop() {
+            stopped = true;
+        }
+    }
+}
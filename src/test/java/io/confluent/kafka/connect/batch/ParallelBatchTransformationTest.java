@@ -0,0 +1,206 @@
+package io.confluent.kafka.connect.batch;
+
+import io.confluent.kafka.connect.metrics.TransformMetrics;
+import io.confluent.kafka.connect.transforms.InsertUuid;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.metrics.KafkaMetric;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.apache.kafka.connect.transforms.Transformation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelBatchTransformationTest {
+
+    private ParallelBatchTransformation<SourceRecord> batch;
+
+    @AfterEach
+    public void tearDown() {
+        if (batch != null) {
+            batch.close();
+        }
+    }
+
+    private static List<SourceRecord> records(int count) {
+        final List<SourceRecord> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            records.add(new SourceRecord(null, null, "topic", 0, null, null, null, Collections.singletonMap("n", i)));
+        }
+        return records;
+    }
+
+    private static int n(SourceRecord record) {
+        return (Integer) ((Map<?, ?>) record.value()).get("n");
+    }
+
+    @Test
+    public void keepsOrderAndUsesPool() {
+        final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        batch = new ParallelBatchTransformation<>(new TestTransform(record -> {
+            threads.add(Thread.currentThread());
+            return record.newRecord("out-" + n(record), null, null, null, null, record.value(), null);
+        }), 4, 8);
+
+        final List<SourceRecord> transformed = batch.apply(records(1000));
+
+        assertEquals(1000, transformed.size());
+        for (int i = 0; i < transformed.size(); i++) {
+            assertEquals("out-" + i, transformed.get(i).topic());
+        }
+        assertFalse(threads.contains(Thread.currentThread()));
+    }
+
+    @Test
+    public void smallBatchRunsOnCallingThread() {
+        final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        batch = new ParallelBatchTransformation<>(new TestTransform(record -> {
+            threads.add(Thread.currentThread());
+            return record;
+        }), 4, 64);
+
+        assertEquals(10, batch.apply(records(10)).size());
+        assertEquals(Collections.singleton(Thread.currentThread()), threads);
+    }
+
+    @Test
+    public void droppedRecordsAreLeftOut() {
+        batch = new ParallelBatchTransformation<>(new TestTransform(record -> n(record) % 3 == 0 ? null : record), 4, 1);
+
+        final List<SourceRecord> transformed = batch.apply(records(300));
+
+        assertEquals(200, transformed.size());
+        int previous = -1;
+        for (SourceRecord record : transformed) {
+            assertNotEquals(0, n(record) % 3);
+            assertTrue(n(record) > previous);
+            previous = n(record);
+        }
+    }
+
+    @Test
+    public void rethrowsFirstFailure() {
+        batch = new ParallelBatchTransformation<>(new TestTransform(record -> {
+            if (n(record) >= 500 && n(record) % 100 == 0) {
+                throw new DataException("bad record " + n(record));
+            }
+            return record;
+        }), 4, 1);
+
+        final DataException e = assertThrows(DataException.class, () -> batch.apply(records(1000)));
+        assertEquals("bad record 500", e.getMessage());
+    }
+
+    @Test
+    public void configuresTransformByClassName() {
+        final Map<String, Object> props = new HashMap<>();
+        props.put("transform.type", InsertUuid.Value.class.getName());
+        props.put("transform.uuid.field.name", "id");
+        props.put("parallelism", "2");
+        props.put("min.batch.size", "1");
+        batch = new ParallelBatchTransformation<>();
+        batch.configure(props);
+
+        final List<SourceRecord> transformed = batch.apply(records(100));
+
+        assertEquals(100, transformed.size());
+        for (int i = 0; i < transformed.size(); i++) {
+            final Map<?, ?> value = (Map<?, ?>) transformed.get(i).value();
+            assertEquals(i, value.get("n"));
+            assertNotNull(value.get("id"));
+        }
+    }
+
+    @Test
+    public void transformWithMetricsIsSharedByPoolThreads() {
+        final Map<String, Object> props = new HashMap<>();
+        props.put("transform.type", InsertUuid.Value.class.getName());
+        props.put("transform.metrics.enabled", "true");
+        props.put("transform.metrics.name", "parallel-uuid");
+        props.put("transform.metrics.latency.sample.interval", "1");
+        props.put("parallelism", "4");
+        props.put("min.batch.size", "1");
+        batch = new ParallelBatchTransformation<>();
+        batch.configure(props);
+
+        final Schema schema = SchemaBuilder.struct().field("n", Schema.INT32_SCHEMA).build();
+        final List<SourceRecord> records = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            records.add(new SourceRecord(null, null, "topic", 0, schema, new Struct(schema).put("n", i)));
+        }
+        final List<SourceRecord> transformed = batch.apply(records);
+
+        assertEquals(2000, transformed.size());
+        for (int i = 0; i < transformed.size(); i++) {
+            assertEquals(i, ((Struct) transformed.get(i).value()).get("n"));
+        }
+        assertEquals(2000.0, metric("records-in-total"));
+        assertEquals(2000.0, metric("records-out-total"));
+        assertEquals(2000.0, metric("schema-cache-hit-total") + metric("schema-cache-miss-total"));
+    }
+
+    private static double metric(String name) {
+        for (Map.Entry<MetricName, KafkaMetric> entry : TransformMetrics.registry().metrics().entrySet()) {
+            if (entry.getKey().name().equals(name) && "parallel-uuid".equals(entry.getKey().tags().get("instance"))) {
+                return (double) entry.getValue().metricValue();
+            }
+        }
+        return fail("missing metric " + name);
+    }
+
+    @Test
+    public void unknownTransformClass() {
+        batch = new ParallelBatchTransformation<>();
+        assertThrows(ConfigException.class,
+                () -> batch.configure(Collections.singletonMap("transform.type", "com.example.Missing")));
+    }
+
+    @Test
+    public void closesTransform() {
+        final TestTransform transform = new TestTransform(record -> record);
+        new ParallelBatchTransformation<>(transform, 2, 1).close();
+        assertTrue(transform.closed);
+    }
+
+    private static final class TestTransform implements Transformation<SourceRecord> {
+        private final java.util.function.Function<SourceRecord, SourceRecord> function;
+        private volatile boolean closed;
+
+        TestTransform(java.util.function.Function<SourceRecord, SourceRecord> function) {
+            this.function = function;
+        }
+
+        @Override
+        public SourceRecord apply(SourceRecord record) {
+            return function.apply(record);
+        }
+
+        @Override
+        public ConfigDef config() {
+            return new ConfigDef();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public void configure(Map<String, ?> configs) {
+        }
+    }
+}
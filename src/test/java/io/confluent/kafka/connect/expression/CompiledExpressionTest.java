@@ -0,0 +1,169 @@
+package io.confluent.kafka.connect.expression;
+
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.header.ConnectHeaders;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompiledExpressionTest {
+
+    private static final Map<String, List<String>> SETS = new HashMap<>();
+
+    static {
+        SETS.put("internal", Arrays.asList("10.0.0.0/8", "192.168.0.0/16", "172.16.0.1"));
+        SETS.put("levels", Arrays.asList("ERROR", "FATAL"));
+    }
+
+    private static SourceRecord record(Object... keyValues) {
+        final Map<String, Object> value = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            value.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return new SourceRecord(null, null, "logs", 0, null, value);
+    }
+
+    private static boolean test(String expression, SourceRecord record) {
+        return CompiledExpression.compile(expression, SETS).test(record);
+    }
+
+    @Test
+    public void requestedCondition() {
+        final CompiledExpression expression = CompiledExpression.compile(
+                "level == \"ERROR\" && isIp(src) && !cidr(src, internal)", SETS);
+
+        assertTrue(expression.test(record("level", "ERROR", "src", "8.8.8.8")));
+        assertFalse(expression.test(record("level", "ERROR", "src", "10.1.2.3")));
+        assertFalse(expression.test(record("level", "ERROR", "src", "172.16.0.1")));
+        assertFalse(expression.test(record("level", "INFO", "src", "8.8.8.8")));
+        assertFalse(expression.test(record("level", "ERROR", "src", "gateway")));
+        assertFalse(expression.test(record("level", "ERROR")));
+    }
+
+    @Test
+    public void comparisons() {
+        final SourceRecord record = record("status", 503, "latency", 12.5, "name", "web-1", "ok", true);
+
+        assertTrue(test("status >= 500 and status < 600", record));
+        assertTrue(test("status == 503.0", record));
+        assertTrue(test("status == '503'", record));
+        assertTrue(test("latency > 12", record));
+        assertFalse(test("latency <= 12", record));
+        assertTrue(test("name != 'web-2' && name < 'web-2'", record));
+        assertTrue(test("ok", record));
+        assertTrue(test("ok == true", record));
+        assertTrue(test("missing == null", record));
+        assertFalse(test("missing < 5", record));
+        assertFalse(test("missing > 5", record));
+        assertFalse(test("name > 5", record));
+    }
+
+    @Test
+    public void regexAndText() {
+        final SourceRecord record = record("message", "disk /dev/sda1 full", "host", "db-3.example.com");
+
+        assertTrue(test("message =~ 'sda[0-9]'", record));
+        assertFalse(test("message !~ 'full$'", record));
+        assertTrue(test("matches(host, '^db-\\\\d')", record));
+        assertTrue(test("contains(message, '/dev/') && startsWith(host, 'db-') && endsWith(host, '.com')", record));
+        assertFalse(test("missing =~ '.*'", record));
+    }
+
+    @Test
+    public void sets() {
+        assertTrue(test("level in levels", record("level", "FATAL")));
+        assertTrue(test("level not in levels", record("level", "WARN")));
+        assertTrue(test("code in [404, 410, 'gone']", record("code", 410)));
+        assertTrue(test("code in [404, 410, 'gone']", record("code", "gone")));
+        assertFalse(test("code in [404, 410]", record("code", 200)));
+        assertTrue(test("cidr(ip, '203.0.113.0/24', [\"198.51.100.7\"])", record("ip", "198.51.100.7")));
+        assertFalse(test("cidr(ip, '203.0.113.0/24')", record("ip", "203.0.114.1")));
+    }
+
+    @Test
+    public void nestedPathsAndRecordParts() {
+        final Schema geo = SchemaBuilder.struct().field("country", Schema.STRING_SCHEMA).build();
+        final Schema schema = SchemaBuilder.struct()
+                .field("geo", geo)
+                .field("labels", SchemaBuilder.map(Schema.STRING_SCHEMA, Schema.STRING_SCHEMA).build())
+                .build();
+        final Struct value = new Struct(schema)
+                .put("geo", new Struct(geo).put("country", "DE"))
+                .put("labels", Collections.singletonMap("team", "core"));
+        final ConnectHeaders headers = new ConnectHeaders();
+        headers.addString("source", "syslog");
+        final SourceRecord record = new SourceRecord(null, null, "events", 0,
+                null, Collections.singletonMap("tenant", "acme"), schema, value, 1000L, headers);
+
+        final CompiledExpression expression = CompiledExpression.compile("geo.country == 'DE' && labels.team == 'core' "
+                + "&& $key.tenant == 'acme' && $topic == 'events' && $timestamp < 2000 && $header.source == 'syslog'");
+        assertTrue(expression.test(record));
+        //the second record of the same schema uses the resolved fields
+        assertTrue(expression.test(record));
+
+        assertFalse(CompiledExpression.compile("exists(geo.city) || exists(geo.country.code)").test(record));
+        assertTrue(CompiledExpression.compile("exists($value.geo)").test(record));
+    }
+
+    @Test
+    public void precedenceAndShortCircuit() {
+        final SourceRecord record = record("a", 1, "b", 2);
+        assertTrue(test("a == 1 || a == 2 && b == 3", record));
+        assertFalse(test("(a == 1 || a == 2) && b == 3", record));
+        assertTrue(test("!(a == 2) and not b == 3", record));
+        //the right side would fail on a record without a value, and is never reached
+        assertFalse(CompiledExpression.compile("$topic == 'other' && a == 1")
+                .test(new SourceRecord(null, null, "logs", 0, null, null)));
+    }
+
+    @Test
+    public void constantFolding() {
+        assertEquals("level == \"ERROR\"", CompiledExpression.compile("1 < 2 && level == 'ERROR' && !false").toString());
+        assertEquals("true", CompiledExpression.compile("level == 'ERROR' || 'a' in ['a']").toString());
+        assertEquals("level", CompiledExpression.compile("!!level").toString());
+        assertTrue(CompiledExpression.compile("isIp('10.0.0.1') and cidr('10.0.0.1', '10.0.0.0/8')").isConstant());
+        assertFalse(CompiledExpression.compile("isIp(src)").isConstant());
+    }
+
+    @Test
+    public void quotedNames() {
+        final SourceRecord record = record("not", "x", "with space", 1);
+        assertTrue(test("`not` == 'x' && `with space` == 1", record));
+    }
+
+    @Test
+    public void errorsHavePositions() {
+        assertError("level ==", "Unexpected end of expression at position 8");
+        assertError("level = 'x'", "Unexpected character '=' at position 6");
+        assertError("level in unknown", "Unknown set unknown");
+        assertError("nope(level)", "Unknown function nope");
+        assertError("level =~ '['", "Invalid regular expression");
+        assertError("cidr(ip, '10.0.0.0/33')", "Not an IPv4 address or CIDR block");
+        assertError("(a == 1", "Expected ')'");
+        assertError("a == 'open", "Unterminated quote at position 5");
+        assertError("a == 1.2.3", "Invalid number 1.2.3");
+    }
+
+    private static void assertError(String expression, String message) {
+        final IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> CompiledExpression.compile(expression, SETS));
+        assertTrue(e.getMessage().contains(message), e.getMessage());
+    }
+
+    @Test
+    public void ipv4Blocks() {
+        assertArrayEquals(new long[]{0x0A000000L, 0x0AFFFFFFL}, Ipv4.parseBlock("10.1.2.3/8"));
+        assertArrayEquals(new long[]{0L, 0xFFFFFFFFL}, Ipv4.parseBlock("0.0.0.0/0"));
+        assertArrayEquals(new long[]{0x0A000001L, 0x0A000001L}, Ipv4.parseBlock("10.0.0.1"));
+        assertThrows(IllegalArgumentException.class, () -> Ipv4.parseBlock("256.0.0.1/8"));
+    }
+}
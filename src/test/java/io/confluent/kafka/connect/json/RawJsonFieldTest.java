@@ -0,0 +1,78 @@
+package io.confluent.kafka.connect.json;
+
+import org.apache.kafka.connect.errors.DataException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RawJsonFieldTest {
+
+    private static final String DOCUMENT = "{ \"id\": 17, \"skip\": {\"a\": [1, {\"b\": \"}]\"}], \"c\": \"\\\"\"},"
+            + " \"src\": {\"ip\": \"10.0.0.1\", \"port\": 443, \"tags\": [\"x\", \"y\"]},"
+            + " \"level\" : \"ERROR\", \"empty\": \"\", \"none\": null, \"ok\": true }";
+
+    private static String find(String path, String json) {
+        final CharSequence text = new RawJsonField(path).find(json);
+        final CharSequence bytes = new RawJsonField(path).find(json.getBytes(StandardCharsets.UTF_8));
+        assertEquals(text == null ? null : text.toString(), bytes == null ? null : bytes.toString(), "String and byte[] differ");
+        return text == null ? null : text.toString();
+    }
+
+    @Test
+    public void topLevelAndNested() {
+        assertEquals("17", find("id", DOCUMENT));
+        assertEquals("ERROR", find("level", DOCUMENT));
+        assertEquals("10.0.0.1", find("src.ip", DOCUMENT));
+        assertEquals("443", find("src.port", DOCUMENT));
+        assertEquals("[\"x\", \"y\"]", find("src.tags", DOCUMENT));
+        assertEquals("", find("empty", DOCUMENT));
+        assertEquals("true", find("ok", DOCUMENT));
+    }
+
+    @Test
+    public void missingAndNull() {
+        assertNull(find("none", DOCUMENT));
+        assertNull(find("missing", DOCUMENT));
+        assertNull(find("src.missing", DOCUMENT));
+        assertNull(find("level.deeper", DOCUMENT));
+        assertNull(find("id", "[1, 2]"));
+        assertNull(find("id", "{}"));
+        assertNull(new RawJsonField("id").find(null));
+    }
+
+    @Test
+    public void escapesAndUnicode() {
+        assertEquals("a\"b\\c\nd\u00e9", find("msg", "{\"msg\": \"a\\\"b\\\\c\\nd\\u00e9\"}"));
+        assertEquals("caf\u00e9", find("name", "{\"name\": \"caf\u00e9\"}"));
+        assertEquals("v", find("k\u00e9y", "{\"k\u00e9y\": \"v\"}"));
+        assertEquals("v", find("key", "{\"k\\u0065y\": \"v\"}"));
+        assertEquals("{\"n\": \"\u00e9\"}", find("o", "{\"o\": {\"n\": \"\u00e9\"}}"));
+    }
+
+    @Test
+    public void stopsAtTheField() {
+        //everything after the field is never read, broken or not
+        assertEquals("1", find("a", "{\"a\": 1, \"b\": [[[ this is not json"));
+    }
+
+    @Test
+    public void viewCopiesNothing() {
+        final byte[] payload = "{\"host\": \"web-1\"}".getBytes(StandardCharsets.US_ASCII);
+        final CharSequence value = new RawJsonField("host").find(payload);
+        assertEquals(5, value.length());
+        assertEquals('w', value.charAt(0));
+        assertEquals("eb", value.subSequence(1, 3).toString());
+        payload[10] = 'W';
+        assertEquals('W', value.charAt(0));
+    }
+
+    @Test
+    public void malformedBeforeTheField() {
+        assertThrows(DataException.class, () -> find("b", "{\"a\" 1, \"b\": 2}"));
+        assertThrows(DataException.class, () -> find("b", "{\"a\": \"open"));
+        assertThrows(DataException.class, () -> find("b", "{\"a\": 1"));
+        assertThrows(DataException.class, () -> new RawJsonField("a").find(42));
+    }
+}
@@ -0,0 +1,107 @@
+package io.confluent.kafka.connect.lookup;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LookupIndexTest {
+
+    @TempDir
+    Path dir;
+
+    private Path csv(String... lines) throws IOException {
+        final Path input = dir.resolve("input.csv");
+        Files.write(input, Arrays.asList(lines), StandardCharsets.UTF_8);
+        return input;
+    }
+
+    @Test
+    public void findsRowsAndFields() throws IOException {
+        final Path output = dir.resolve("devices.idx");
+        final long entries = LookupIndexBuilder.build(csv(
+                "device,site,owner",
+                "d-1,berlin,alice",
+                "d-2,paris,",
+                "",
+                "d-3,z\u00fcrich,b\u00f8b \ud83d\ude42"), output, ',');
+
+        final LookupIndex index = LookupIndex.open(output);
+
+        assertEquals(3, entries);
+        assertEquals(3, index.size());
+        assertEquals(Arrays.asList("site", "owner"), index.fields());
+
+        final long d1 = index.find("d-1");
+        assertEquals("berlin", index.value(d1, 0));
+        assertEquals("alice", index.value(d1, 1));
+
+        final long d2 = index.find(new StringBuilder("d-2"));
+        assertEquals("paris", index.value(d2, 0));
+        assertNull(index.value(d2, 1));
+
+        final long d3 = index.find("d-3");
+        assertEquals("z\u00fcrich", index.value(d3, 0));
+        assertEquals("b\u00f8b \ud83d\ude42", index.value(d3, 1));
+
+        assertEquals(LookupIndex.NOT_FOUND, index.find("d-4"));
+        assertEquals(LookupIndex.NOT_FOUND, index.find(""));
+        assertFalse(Files.exists(dir.resolve("devices.idx.tmp")));
+    }
+
+    @Test
+    public void lastDuplicateWins() throws IOException {
+        final Path output = dir.resolve("dup.idx");
+        assertEquals(2, LookupIndexBuilder.build(csv("k;v", "a;1", "b;2", "a;3"), output, ';'));
+
+        final LookupIndex index = LookupIndex.open(output);
+        assertEquals("3", index.value(index.find("a"), 0));
+        assertEquals("2", index.value(index.find("b"), 0));
+    }
+
+    //tiny segments so slots, keys and values straddle segment boundaries
+    @Test
+    public void manyRowsAcrossSegments() throws IOException {
+        final StringBuilder lines = new StringBuilder("id,site,owner\n");
+        for (int i = 0; i < 5000; i++) {
+            lines.append("device-").append(i).append(",site-").append(i % 97).append(",owner-").append(i).append('\n');
+        }
+        final Path input = dir.resolve("many.csv");
+        Files.write(input, lines.toString().getBytes(StandardCharsets.UTF_8));
+        final Path output = dir.resolve("many.idx");
+
+        LookupIndexBuilder.build(input, output, ',', 7);
+        for (int segmentBits : new int[]{7, MappedFile.DEFAULT_SEGMENT_BITS}) {
+            final LookupIndex index = LookupIndex.open(output, segmentBits);
+            assertEquals(5000, index.size());
+            for (int i = 0; i < 5000; i++) {
+                final long entry = index.find("device-" + i);
+                assertEquals("site-" + (i % 97), index.value(entry, 0));
+                assertEquals("owner-" + i, index.value(entry, 1));
+            }
+            assertEquals(LookupIndex.NOT_FOUND, index.find("device-5000"));
+        }
+    }
+
+    @Test
+    public void rejectsBadInput() throws IOException {
+        final Path output = dir.resolve("bad.idx");
+        assertThrows(IOException.class, () -> LookupIndexBuilder.build(csv("key"), output, ','));
+        assertThrows(IOException.class, () -> LookupIndexBuilder.build(csv("key,a", "x,1,2"), output, ','));
+        //blank lines count towards the reported line number
+        final String tooLong = new String(new char[Short.MAX_VALUE + 1]).replace('\0', 'v');
+        final IOException longValue = assertThrows(IOException.class,
+                () -> LookupIndexBuilder.build(csv("key,a", "", "x,1", "", "y," + tooLong), output, ','));
+        assertTrue(longValue.getMessage().contains("line 5"), longValue.getMessage());
+
+        final Path notAnIndex = dir.resolve("not.idx");
+        Files.write(notAnIndex, new byte[64]);
+        assertThrows(IOException.class, () -> LookupIndex.open(notAnIndex));
+    }
+}
@@ -0,0 +1,120 @@
+package io.confluent.kafka.connect.lookup;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RouteIndexTest {
+
+    @TempDir
+    Path dir;
+
+    private Path csv(String... lines) throws IOException {
+        final Path input = dir.resolve("input.csv");
+        Files.write(input, Arrays.asList(lines), StandardCharsets.UTF_8);
+        return input;
+    }
+
+    @Test
+    public void routesKeysToSharedTopics() throws IOException {
+        final Path output = dir.resolve("customers.routes");
+        final long entries = RouteIndexBuilder.build(csv(
+                "customer_id,topic",
+                "c-1,tenant-a",
+                "c-2,tenant-b",
+                "",
+                "c-3,tenant-a",
+                "k\u00f6ln,tenant-\u00fc"), output, ',');
+
+        final RouteIndex index = RouteIndex.open(output);
+
+        assertEquals(4, entries);
+        assertEquals(4, index.size());
+        assertEquals(3, index.topics());
+        assertEquals("tenant-a", index.route("c-1"));
+        assertEquals("tenant-b", index.route(new StringBuilder("c-2")));
+        assertSame(index.route("c-1"), index.route("c-3"));
+        assertEquals("tenant-\u00fc", index.route("k\u00f6ln"));
+        assertNull(index.route("c-4"));
+        assertNull(index.route(""));
+        assertFalse(Files.exists(dir.resolve("customers.routes.tmp")));
+    }
+
+    @Test
+    public void numericKeysMatchTheirDecimalText() throws IOException {
+        final long[] keys = {0, 7, 10, 99, 100, -1, -42, 1234567890123L, Long.MAX_VALUE, Long.MIN_VALUE};
+        final StringBuilder lines = new StringBuilder("id,topic\n");
+        for (long key : keys) {
+            lines.append(key).append(",topic").append(key).append('\n');
+        }
+        final Path input = dir.resolve("numbers.csv");
+        Files.write(input, lines.toString().getBytes(StandardCharsets.UTF_8));
+        final Path output = dir.resolve("numbers.routes");
+        RouteIndexBuilder.build(input, output, ',');
+
+        final RouteIndex index = RouteIndex.open(output);
+        for (long key : keys) {
+            assertEquals("topic" + key, index.route(key), String.valueOf(key));
+        }
+        assertNull(index.route(1));
+        assertNull(index.route(-7));
+        assertNull(index.route(1000));
+    }
+
+    @Test
+    public void lastDuplicateWins() throws IOException {
+        final Path output = dir.resolve("dup.routes");
+        assertEquals(2, RouteIndexBuilder.build(csv("k;t", "a;one", "b;two", "a;three"), output, ';'));
+
+        final RouteIndex index = RouteIndex.open(output);
+        assertEquals("three", index.route("a"));
+        assertEquals("two", index.route("b"));
+    }
+
+    //tiny segments so slots and keys straddle segment boundaries
+    @Test
+    public void manyRowsAcrossSegments() throws IOException {
+        final StringBuilder lines = new StringBuilder("customer,topic\n");
+        for (int i = 0; i < 5000; i++) {
+            lines.append(i).append(",tenant-").append(i % 97).append('\n');
+        }
+        final Path input = dir.resolve("many.csv");
+        Files.write(input, lines.toString().getBytes(StandardCharsets.UTF_8));
+        final Path output = dir.resolve("many.routes");
+
+        RouteIndexBuilder.build(input, output, ',', 7);
+        for (int segmentBits : new int[]{7, MappedFile.DEFAULT_SEGMENT_BITS}) {
+            final RouteIndex index = RouteIndex.open(output, segmentBits);
+            assertEquals(5000, index.size());
+            assertEquals(97, index.topics());
+            for (int i = 0; i < 5000; i++) {
+                assertEquals("tenant-" + (i % 97), index.route(i));
+                assertEquals("tenant-" + (i % 97), index.route(String.valueOf(i)));
+            }
+            assertNull(index.route(5000));
+        }
+    }
+
+    @Test
+    public void rejectsBadInput() throws IOException {
+        final Path output = dir.resolve("bad.routes");
+        assertThrows(IOException.class, () -> RouteIndexBuilder.build(csv("key,topic,extra"), output, ','));
+        assertThrows(IOException.class, () -> RouteIndexBuilder.build(csv("key,topic", "a,b,c"), output, ','));
+        assertThrows(IOException.class, () -> RouteIndexBuilder.build(csv("key,topic", "a,"), output, ','));
+        //blank lines count towards the reported line number
+        final IOException missingTopic = assertThrows(IOException.class,
+                () -> RouteIndexBuilder.build(csv("key,topic", "", "a,b", "", "c,"), output, ','));
+        assertTrue(missingTopic.getMessage().contains("line 5"), missingTopic.getMessage());
+
+        final Path lookupIndex = dir.resolve("lookup.idx");
+        LookupIndexBuilder.build(csv("key,site", "a,b"), lookupIndex, ',');
+        assertThrows(IOException.class, () -> RouteIndex.open(lookupIndex));
+    }
+}
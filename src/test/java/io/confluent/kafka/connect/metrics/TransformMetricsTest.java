@@ -0,0 +1,236 @@
+package io.confluent.kafka.connect.metrics;
+
+import io.confluent.kafka.connect.predicates.FieldIsIP;
+import io.confluent.kafka.connect.transforms.InsertUuid;
+import io.confluent.kafka.connect.transforms.RegexRouter;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.metrics.KafkaMetric;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransformMetricsTest {
+
+    //the metric whose tags include the given ones; the per-instance id tag is not known to the test
+    private static KafkaMetric metric(String group, String name, Map<String, String> tags) {
+        KafkaMetric found = null;
+        for (Map.Entry<MetricName, KafkaMetric> entry : TransformMetrics.registry().metrics().entrySet()) {
+            final MetricName metricName = entry.getKey();
+            if (metricName.name().equals(name) && metricName.group().equals(group)
+                    && metricName.tags().entrySet().containsAll(tags.entrySet())) {
+                assertNull(found, "several metrics " + name + " " + tags);
+                found = entry.getValue();
+            }
+        }
+        return found;
+    }
+
+    private static double value(String group, String name, Map<String, String> tags) {
+        final KafkaMetric metric = metric(group, name, tags);
+        assertNotNull(metric, "missing metric " + name + " " + tags);
+        return (double) metric.metricValue();
+    }
+
+    private static Map<String, String> tags(String className, String instance) {
+        final Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("class", className);
+        tags.put("instance", instance);
+        return tags;
+    }
+
+    @Test
+    public void routerCountsRoutedAndPassedThrough() throws Exception {
+        final RegexRouter<SourceRecord> router = new RegexRouter<>();
+        final Map<String, Object> props = new HashMap<>();
+        props.put("field.name", "level");
+        props.put("regex", "ERROR");
+        props.put("topic.name", "errors");
+        props.put("metrics.enabled", "true");
+        props.put("metrics.name", "route-test");
+        props.put("metrics.latency.sample.interval", "1");
+        router.configure(props);
+
+        router.apply(new SourceRecord(null, null, "logs", 0, null, Collections.singletonMap("level", "ERROR")));
+        router.apply(new SourceRecord(null, null, "logs", 0, null, Collections.singletonMap("level", "INFO")));
+        router.apply(new SourceRecord(null, null, "logs", 0, null, Collections.singletonMap("level", "ERROR")));
+
+        final Map<String, String> tags = tags("RegexRouter", "route-test");
+        assertEquals(3.0, value(TransformMetrics.TRANSFORM_GROUP, "records-in-total", tags));
+        assertEquals(3.0, value(TransformMetrics.TRANSFORM_GROUP, "records-out-total", tags));
+        assertEquals(1.0, value(TransformMetrics.TRANSFORM_GROUP, "passed-through-total", tags));
+
+        final Map<String, String> topicTags = new LinkedHashMap<>(tags);
+        topicTags.put("topic", "errors");
+        assertEquals(2.0, value(TransformMetrics.TRANSFORM_GROUP, "routed-total", topicTags));
+
+        assertFalse(Double.isNaN(value(TransformMetrics.TRANSFORM_GROUP, "apply-latency-max", tags)));
+
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final Set<ObjectName> names = server.queryNames(
+                new ObjectName("kafka.connect.custom:type=transform-metrics,class=RegexRouter,instance=route-test,*"), null);
+        //the routed metrics are a second bean with a topic tag
+        names.removeIf(objectName -> objectName.getKeyProperty("topic") != null);
+        assertEquals(1, names.size());
+        final ObjectName name = names.iterator().next();
+        assertNotNull(name.getKeyProperty("id"));
+        assertEquals(3.0, server.getAttribute(name, "records-in-total"));
+
+        router.close();
+        assertNull(metric(TransformMetrics.TRANSFORM_GROUP, "records-in-total", tags));
+        assertFalse(server.isRegistered(name));
+    }
+
+    @Test
+    public void predicateCountsTrueAndFalse() {
+        final FieldIsIP<SourceRecord> predicate = new FieldIsIP<>();
+        final Map<String, Object> props = new HashMap<>();
+        props.put("field", "host");
+        props.put("metrics.enabled", "true");
+        props.put("metrics.name", "ip-test");
+        predicate.configure(props);
+
+        predicate.test(new SourceRecord(null, null, "logs", 0, null, Collections.singletonMap("host", "10.0.0.1"), null, null));
+        predicate.test(new SourceRecord(null, null, "logs", 0, null, Collections.singletonMap("host", "localhost"), null, null));
+        predicate.test(new SourceRecord(null, null, "logs", 0, null, Collections.singletonMap("host", "example.com"), null, null));
+
+        final Map<String, String> tags = tags("FieldIsIP", "ip-test");
+        assertEquals(1.0, value(TransformMetrics.PREDICATE_GROUP, "predicate-true-total", tags));
+        assertEquals(2.0, value(TransformMetrics.PREDICATE_GROUP, "predicate-false-total", tags));
+
+        predicate.close();
+    }
+
+    @Test
+    public void schemaCacheHitRatio() {
+        final InsertUuid<SourceRecord> xform = new InsertUuid.Value<>();
+        final Map<String, Object> props = new HashMap<>();
+        props.put("metrics.enabled", "true");
+        props.put("metrics.name", "uuid-test");
+        xform.configure(props);
+
+        final Schema schema = SchemaBuilder.struct().field("magic", Schema.OPTIONAL_INT64_SCHEMA).build();
+        for (int i = 0; i < 4; i++) {
+            xform.apply(new SourceRecord(null, null, "test", 0, schema, new Struct(schema).put("magic", 42L)));
+        }
+
+        final Map<String, String> tags = tags("InsertUuid$Value", "uuid-test");
+        assertEquals(3.0, value(TransformMetrics.TRANSFORM_GROUP, "schema-cache-hit-total", tags));
+        assertEquals(1.0, value(TransformMetrics.TRANSFORM_GROUP, "schema-cache-miss-total", tags));
+        assertEquals(0.75, value(TransformMetrics.TRANSFORM_GROUP, "schema-cache-hit-ratio", tags));
+
+        //a reporter still holding the ratio after close() reads NaN rather than failing on the removed totals
+        final KafkaMetric ratio = metric(TransformMetrics.TRANSFORM_GROUP, "schema-cache-hit-ratio", tags);
+        xform.close();
+        assertNull(metric(TransformMetrics.TRANSFORM_GROUP, "schema-cache-hit-ratio", tags));
+        assertTrue(Double.isNaN((double) ratio.metricValue()));
+    }
+
+    @Test
+    public void tasksSharingAMetricsNameGetTheirOwnMetrics() {
+        final Map<String, Object> props = new HashMap<>();
+        props.put("metrics.enabled", "true");
+        props.put("metrics.name", "uuid-tasks");
+        final InsertUuid<SourceRecord> first = new InsertUuid.Value<>();
+        final InsertUuid<SourceRecord> second = new InsertUuid.Value<>();
+        first.configure(props);
+        second.configure(props);
+
+        final Schema schema = SchemaBuilder.struct().field("magic", Schema.OPTIONAL_INT64_SCHEMA).build();
+        first.apply(new SourceRecord(null, null, "test", 0, schema, new Struct(schema).put("magic", 1L)));
+        second.apply(new SourceRecord(null, null, "test", 0, schema, new Struct(schema).put("magic", 1L)));
+        second.apply(new SourceRecord(null, null, "test", 0, schema, new Struct(schema).put("magic", 2L)));
+
+        final Map<String, String> tags = tags("InsertUuid$Value", "uuid-tasks");
+        double total = 0;
+        int instances = 0;
+        for (Map.Entry<MetricName, KafkaMetric> entry : TransformMetrics.registry().metrics().entrySet()) {
+            if (entry.getKey().name().equals("records-in-total") && entry.getKey().tags().entrySet().containsAll(tags.entrySet())) {
+                total += (double) entry.getValue().metricValue();
+                instances++;
+            }
+        }
+        assertEquals(2, instances);
+        assertEquals(3.0, total);
+
+        //closing one task leaves the metrics of the other in place
+        first.close();
+        assertEquals(2.0, value(TransformMetrics.TRANSFORM_GROUP, "records-in-total", tags));
+        assertEquals(0.5, value(TransformMetrics.TRANSFORM_GROUP, "schema-cache-hit-ratio", tags));
+        second.close();
+        assertNull(metric(TransformMetrics.TRANSFORM_GROUP, "records-in-total", tags));
+    }
+
+    @Test
+    public void concurrentFirstCallsCreateSensorsOnce() throws Exception {
+        final FieldIsIP<SourceRecord> predicate = new FieldIsIP<>();
+        final Map<String, Object> props = new HashMap<>();
+        props.put("field", "host");
+        props.put("metrics.enabled", "true");
+        props.put("metrics.name", "ip-concurrent");
+        predicate.configure(props);
+
+        final int threads = 8;
+        final int perThread = 1000;
+        final ExecutorService pool = Executors.newFixedThreadPool(threads);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final String host = t % 2 == 0 ? "10.0.0.1" : "localhost";
+            results.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    predicate.test(new SourceRecord(null, null, "logs", 0, null, Collections.singletonMap("host", host), null, null));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get();
+        }
+        pool.shutdown();
+
+        final Map<String, String> tags = tags("FieldIsIP", "ip-concurrent");
+        assertEquals(threads / 2 * perThread, value(TransformMetrics.PREDICATE_GROUP, "predicate-true-total", tags));
+        assertEquals(threads / 2 * perThread, value(TransformMetrics.PREDICATE_GROUP, "predicate-false-total", tags));
+        predicate.close();
+    }
+
+    @Test
+    public void disabledByDefault() {
+        final RegexRouter<SourceRecord> router = new RegexRouter<>();
+        final Map<String, Object> props = new HashMap<>();
+        props.put("field.name", "level");
+        props.put("regex", "ERROR");
+        props.put("topic.name", "errors");
+        router.configure(props);
+
+        final int before = TransformMetrics.registry().metrics().size();
+        router.apply(new SourceRecord(null, null, "logs", 0, null, Collections.singletonMap("level", "ERROR")));
+        assertEquals(before, TransformMetrics.registry().metrics().size());
+
+        assertFalse(TransformMetrics.DISABLED.enabled());
+        assertEquals(0L, TransformMetrics.DISABLED.recordIn());
+
+        router.close();
+    }
+}
@@ -0,0 +1,147 @@
+package io.confluent.kafka.connect.predicates;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompactValueSetTest {
+
+    @TempDir
+    Path dir;
+
+    private CompactValueSet load(List<String> lines) throws IOException {
+        final Path file = dir.resolve("values.txt");
+        Files.write(file, lines, StandardCharsets.UTF_8);
+        return CompactValueSet.load(file);
+    }
+
+    @Test
+    public void numericFile() throws Exception {
+        final CompactValueSet set = load(Arrays.asList("# account ids", "0", " 42 ", "", "-7",
+                String.valueOf(Long.MAX_VALUE), String.valueOf(Long.MIN_VALUE), "42"));
+        assertTrue(set instanceof CompactValueSet.Longs);
+        assertEquals(5, set.size());
+
+        assertTrue(set.contains(0));
+        assertTrue(set.contains(42L));
+        assertTrue(set.contains((short) -7));
+        assertTrue(set.contains("42"));
+        assertTrue(set.contains(String.valueOf(Long.MIN_VALUE)));
+        assertTrue(set.contains(Long.MAX_VALUE));
+        assertFalse(set.contains(43));
+        assertFalse(set.contains("42a"));
+        assertFalse(set.contains("9223372036854775808"));
+        assertFalse(set.contains(42.0));
+    }
+
+    @Test
+    public void manyNumbers() throws Exception {
+        final List<String> lines = new ArrayList<>();
+        for (long i = 0; i < 100_000; i++) {
+            lines.add(String.valueOf(i * 7919));
+        }
+        final CompactValueSet set = load(lines);
+        assertEquals(100_000, set.size());
+        for (long i = 0; i < 100_000; i++) {
+            assertTrue(set.contains(i * 7919));
+            assertFalse(set.contains(i * 7919 + 1));
+        }
+    }
+
+    @Test
+    public void stringFile() throws Exception {
+        final String nonAscii = "caf\u00e9.example";
+        final String astral = "host-\ud83d\ude80";
+        final CompactValueSet set = load(Arrays.asList("web-1.example.com", "db-1", nonAscii, astral, "12", "db-1"));
+        assertTrue(set instanceof CompactValueSet.Strings);
+        assertEquals(5, set.size());
+
+        assertTrue(set.contains("web-1.example.com"));
+        assertTrue(set.contains(new StringBuilder("db-1")));
+        assertTrue(set.contains(nonAscii));
+        assertTrue(set.contains(astral));
+        assertTrue(set.contains(12));
+        assertFalse(set.contains("db-"));
+        assertFalse(set.contains("db-12"));
+        assertFalse(set.contains("caf\u00e8.example"));
+        assertFalse(set.contains(null));
+    }
+
+    @Test
+    public void stringsAreSearchedInUtf8Order() throws Exception {
+        //UTF-16 order puts the astral value before U+E000 and U+FFFF, UTF-8 order after them
+        final List<String> values = Arrays.asList("b", "ab", "a", "\uffff", "\ud83d\ude80", "\ue000", "\u00e9", "ab");
+        final CompactValueSet.Strings set = (CompactValueSet.Strings) load(values);
+        assertEquals(7, set.size());
+        assertEquals(1 + 2 + 1 + 3 + 4 + 3 + 2, set.dataBytes());
+        for (String value : values) {
+            assertTrue(set.contains(value), value);
+        }
+        assertFalse(set.contains("aa"));
+        assertFalse(set.contains("abc"));
+        assertFalse(set.contains("\ud83d"));
+        assertFalse(set.contains("\uffff\uffff"));
+        assertFalse(set.contains(""));
+    }
+
+    @Test
+    public void manyStrings() throws Exception {
+        final List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            lines.add("host-" + i + ".example.com");
+        }
+        final CompactValueSet.Strings set = (CompactValueSet.Strings) load(lines);
+        assertEquals(50_000, set.size());
+        for (int i = 0; i < 50_000; i++) {
+            assertTrue(set.contains("host-" + i + ".example.com"));
+        }
+        assertFalse(set.contains("host-50000.example.com"));
+    }
+
+    @Test
+    public void fileChangedBetweenPassesIsRejected() throws Exception {
+        //more values than the first pass sized the table for used to loop forever looking for a free slot
+        assertChangedBetweenPasses(Arrays.asList("1", "2"), Arrays.asList("1", "2", "3"));
+        assertChangedBetweenPasses(Arrays.asList("a", "b"), Arrays.asList("a", "b", "c"));
+        assertChangedBetweenPasses(Arrays.asList("a", "b"), Arrays.asList("a", "bbbb"));
+        assertChangedBetweenPasses(Arrays.asList("1", "2"), Arrays.asList("1", "b"));
+        assertChangedBetweenPasses(Arrays.asList("1", "2"), Collections.singletonList("1"));
+    }
+
+    private void assertChangedBetweenPasses(List<String> sized, List<String> filled) throws IOException {
+        final Path file = dir.resolve("changing.txt");
+        Files.write(file, sized, StandardCharsets.UTF_8);
+        final IOException e = assertThrows(IOException.class, () -> CompactValueSet.load(file, () -> {
+            try {
+                Files.write(file, filled, StandardCharsets.UTF_8);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }));
+        assertTrue(e.getMessage().contains("changed while it was read"), e.getMessage());
+    }
+
+    @Test
+    public void longScanner() {
+        assertTrue(CompactValueSet.isLong("-9223372036854775808"));
+        assertTrue(CompactValueSet.isLong("9223372036854775807"));
+        assertFalse(CompactValueSet.isLong("9223372036854775808"));
+        assertFalse(CompactValueSet.isLong("-9223372036854775809"));
+        assertFalse(CompactValueSet.isLong("-"));
+        assertFalse(CompactValueSet.isLong(""));
+        assertFalse(CompactValueSet.isLong("1e3"));
+        assertEquals(-9223372036854775808L, CompactValueSet.parseLong("-9223372036854775808"));
+        assertEquals(123L, CompactValueSet.parseLong("123"));
+    }
+}
@@ -0,0 +1,65 @@
+package io.confluent.kafka.connect.predicates;
+
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.apache.kafka.connect.transforms.Filter;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpressionTest {
+
+    private static SourceRecord record(String level, String src) {
+        final Map<String, Object> value = new HashMap<>();
+        value.put("level", level);
+        value.put("src", src);
+        return new SourceRecord(null, null, "logs", 0, null, value);
+    }
+
+    @Test
+    public void namedSetsFromConfig() {
+        final Map<String, Object> props = new HashMap<>();
+        props.put("expression", "level == \"ERROR\" && isIp(src) && !cidr(src, internal)");
+        props.put("set.internal", "10.0.0.0/8, 192.168.0.0/16");
+        final Expression<SourceRecord> predicate = new Expression<>();
+        predicate.configure(props);
+
+        assertTrue(predicate.test(record("ERROR", "8.8.4.4")));
+        assertFalse(predicate.test(record("ERROR", "192.168.7.1")));
+        assertFalse(predicate.test(record("WARN", "8.8.4.4")));
+        predicate.close();
+    }
+
+    @Test
+    public void invalidExpression() {
+        final Expression<SourceRecord> predicate = new Expression<>();
+        final ConfigException e = assertThrows(ConfigException.class,
+                () -> predicate.configure(Collections.singletonMap("expression", "level ==")));
+        assertTrue(e.getMessage().contains("position 8"), e.getMessage());
+
+        assertThrows(ConfigException.class,
+                () -> predicate.configure(Collections.singletonMap("expression", "src in internal")));
+    }
+
+    @Test
+    public void gatesFilter() {
+        final Expression<SourceRecord> predicate = new Expression<>();
+        predicate.configure(Collections.singletonMap("expression", "level in ['DEBUG', 'TRACE']"));
+        final Filter<SourceRecord> filter = new Filter<>();
+        filter.configure(Collections.emptyMap());
+
+        int kept = 0;
+        for (String level : new String[]{"DEBUG", "INFO", "TRACE", "ERROR"}) {
+            final SourceRecord record = record(level, null);
+            //what the worker does for a transformation with a predicate
+            if ((predicate.test(record) ? filter.apply(record) : record) != null) {
+                kept++;
+            }
+        }
+        assertEquals(2, kept);
+    }
+}
@@ -0,0 +1,111 @@
+package io.confluent.kafka.connect.predicates;
+
+import io.confluent.kafka.connect.AllocationMeter;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.confluent.kafka.connect.AllocationMeter.assertWithinBudget;
+import static io.confluent.kafka.connect.AllocationMeter.budget;
+
+/**
+ * The predicates built on {@link FieldHash} hash and compare field values in place, so testing a record should not
+ * allocate.
+ */
+@Tag(AllocationMeter.TAG)
+public class FieldHashAllocationTest {
+
+    private static final int RECORDS = 1024;
+
+    @Test
+    public void sampleByFieldSchemaless() {
+        final Map<String, Object> configs = new HashMap<>();
+        configs.put("field", "user");
+        configs.put("ratio", "0.01");
+        final SampleByField<SourceRecord> predicate = new SampleByField<>();
+        predicate.configure(configs);
+
+        final SourceRecord[] records = new SourceRecord[RECORDS];
+        for (int i = 0; i < RECORDS; i++) {
+            records[i] = new SourceRecord(null, null, "topic", 0, null, Collections.singletonMap("user", "user-" + i));
+        }
+
+        assertWithinBudget("SampleByField schemaless", budget(0), i -> predicate.test(records[i % RECORDS]));
+        predicate.close();
+    }
+
+    @Test
+    public void recordSeenBeforeWithSchema() {
+        final Map<String, Object> configs = new HashMap<>();
+        configs.put("fields", "host,seq");
+        configs.put("expected.records", "100000");
+        final RecordSeenBefore<SourceRecord> predicate = new RecordSeenBefore<>();
+        predicate.configure(configs);
+
+        final Schema schema = SchemaBuilder.struct()
+                .field("host", Schema.STRING_SCHEMA)
+                .field("seq", Schema.INT64_SCHEMA)
+                .build();
+        final SourceRecord[] records = new SourceRecord[RECORDS];
+        for (int i = 0; i < RECORDS; i++) {
+            records[i] = new SourceRecord(null, null, "topic", 0, schema,
+                    new Struct(schema).put("host", "host-" + (i % 16)).put("seq", (long) i));
+        }
+
+        assertWithinBudget("RecordSeenBefore with schema", budget(0), i -> predicate.test(records[i % RECORDS]));
+        predicate.close();
+    }
+
+    @Test
+    public void rateExceededSchemaless() {
+        final Map<String, Object> configs = new HashMap<>();
+        configs.put("field", "device");
+        configs.put("rate", "100");
+        final RateExceeded<SourceRecord> predicate = new RateExceeded<>();
+        predicate.configure(configs);
+
+        final SourceRecord[] records = new SourceRecord[RECORDS];
+        for (int i = 0; i < RECORDS; i++) {
+            records[i] = new SourceRecord(null, null, "topic", 0, null, Collections.singletonMap("device", (long) i));
+        }
+
+        assertWithinBudget("RateExceeded schemaless", budget(0), i -> predicate.test(records[i % RECORDS]));
+        predicate.close();
+    }
+
+    @Test
+    public void fieldInSetStrings(@TempDir Path dir) throws Exception {
+        final List<String> hosts = new ArrayList<>();
+        for (int i = 0; i < RECORDS; i += 2) {
+            hosts.add("host-" + i + ".example.com");
+        }
+        final Path file = Files.write(dir.resolve("hosts.txt"), hosts, StandardCharsets.UTF_8);
+        final Map<String, Object> configs = new HashMap<>();
+        configs.put("field", "host");
+        configs.put("file", file.toString());
+        configs.put("reload.interval.ms", "0");
+        final FieldInSet<SourceRecord> predicate = new FieldInSet<>();
+        predicate.configure(configs);
+
+        final SourceRecord[] records = new SourceRecord[RECORDS];
+        for (int i = 0; i < RECORDS; i++) {
+            records[i] = new SourceRecord(null, null, "topic", 0, null, Collections.singletonMap("host", "host-" + i + ".example.com"));
+        }
+
+        assertWithinBudget("FieldInSet strings", budget(0), i -> predicate.test(records[i % RECORDS]));
+        predicate.close();
+    }
+}
@@ -0,0 +1,108 @@
+package io.confluent.kafka.connect.predicates;
+
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FieldInSetTest {
+
+    @TempDir
+    Path dir;
+
+    private final FieldInSet<SourceRecord> predicate = new FieldInSet<>();
+
+    @AfterEach
+    public void tearDown() {
+        predicate.close();
+    }
+
+    private Path values(String... lines) throws IOException {
+        final Path temp = dir.resolve("values.tmp");
+        Files.write(temp, Arrays.asList(lines), StandardCharsets.UTF_8);
+        return Files.move(temp, dir.resolve("values.txt"), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Map<String, Object> props(String field, Path file) {
+        final Map<String, Object> props = new HashMap<>();
+        props.put("field", field);
+        props.put("file", file.toString());
+        props.put("reload.interval.ms", "0");
+        return props;
+    }
+
+    private static SourceRecord record(String field, Object value) {
+        return new SourceRecord(null, null, "accounts", 0, null, Collections.singletonMap(field, value));
+    }
+
+    @Test
+    public void numericIds() throws Exception {
+        predicate.configure(props("account", values("1001", "1002")));
+
+        assertTrue(predicate.test(record("account", 1001L)));
+        assertTrue(predicate.test(record("account", "1002")));
+        assertFalse(predicate.test(record("account", 1003)));
+        assertFalse(predicate.test(record("other", 1001L)));
+    }
+
+    @Test
+    public void structHostnames() throws Exception {
+        final Map<String, Object> props = props("host", values("web-1", "web-2"));
+        props.put("useValue", "false");
+        predicate.configure(props);
+
+        final Schema schema = SchemaBuilder.struct().field("host", Schema.OPTIONAL_STRING_SCHEMA).build();
+        assertTrue(predicate.test(new SourceRecord(null, null, "hosts", 0, schema, new Struct(schema).put("host", "web-2"), null, null)));
+        assertFalse(predicate.test(new SourceRecord(null, null, "hosts", 0, schema, new Struct(schema).put("host", "web-3"), null, null)));
+        assertFalse(predicate.test(new SourceRecord(null, null, "hosts", 0, schema, new Struct(schema), null, null)));
+    }
+
+    @Test
+    public void sharedAndReloaded() throws Exception {
+        final Path file = values("a", "b");
+        predicate.configure(props("host", file));
+        final FieldInSet<SourceRecord> other = new FieldInSet<>();
+        other.configure(props("name", dir.resolve("..").resolve(dir.getFileName()).resolve("values.txt")));
+        assertEquals(2, FieldInSet.sharedReferences(file));
+
+        values("b", "c");
+        predicate.reloadIfReplaced();
+        assertFalse(predicate.test(record("host", "a")));
+        assertTrue(predicate.test(record("host", "c")));
+        //the other instance sees the same reload
+        assertTrue(other.test(record("name", "c")));
+
+        //a file that cannot be read keeps the last good set
+        Files.delete(file);
+        predicate.reloadIfReplaced();
+        assertTrue(predicate.test(record("host", "c")));
+
+        other.close();
+        assertEquals(1, FieldInSet.sharedReferences(file));
+        predicate.close();
+        assertEquals(0, FieldInSet.sharedReferences(file));
+    }
+
+    @Test
+    public void missingFile() {
+        assertThrows(ConfigException.class, () -> predicate.configure(props("host", dir.resolve("missing.txt"))));
+        assertEquals(0, FieldInSet.sharedReferences(dir.resolve("missing.txt")));
+    }
+}
@@ -0,0 +1,76 @@
+package io.confluent.kafka.connect.predicates;
+
+import io.confluent.kafka.connect.AllocationMeter;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.confluent.kafka.connect.AllocationMeter.assertWithinBudget;
+import static io.confluent.kafka.connect.AllocationMeter.budget;
+
+/**
+ * The IP check scans the field value in place, so testing a record should not allocate at all. In raw JSON the
+ * scanner's cursor and the view of the field are the only allocations, never a copy of the payload.
+ */
+@Tag(AllocationMeter.TAG)
+public class FieldIsIPAllocationTest {
+
+    private static final String[] HOSTS = {"192.168.1.1", "\"10.0.0.1\"", "localhost", "256.1.1.1"};
+
+    private static FieldIsIP<SourceRecord> predicate(boolean useValue) {
+        return predicate(useValue, false);
+    }
+
+    private static FieldIsIP<SourceRecord> predicate(boolean useValue, boolean rawJson) {
+        final Map<String, String> configs = new HashMap<>();
+        configs.put("field", "host");
+        configs.put("useValue", String.valueOf(useValue));
+        configs.put("rawJson", String.valueOf(rawJson));
+        final FieldIsIP<SourceRecord> predicate = new FieldIsIP<>();
+        predicate.configure(configs);
+        return predicate;
+    }
+
+    @Test
+    public void schemalessKey() {
+        final FieldIsIP<SourceRecord> predicate = predicate(false);
+        final SourceRecord[] records = new SourceRecord[HOSTS.length];
+        for (int i = 0; i < HOSTS.length; i++) {
+            records[i] = new SourceRecord(null, null, "topic", 0, null, Collections.singletonMap("host", HOSTS[i]), null, null);
+        }
+
+        assertWithinBudget("FieldIsIP schemaless key", budget(0), i -> predicate.test(records[i % records.length]));
+    }
+
+    @Test
+    public void withSchemaValue() {
+        final FieldIsIP<SourceRecord> predicate = predicate(true);
+        final Schema schema = SchemaBuilder.struct().field("host", Schema.STRING_SCHEMA).build();
+        final SourceRecord[] records = new SourceRecord[HOSTS.length];
+        for (int i = 0; i < HOSTS.length; i++) {
+            records[i] = new SourceRecord(null, null, "topic", 0, null, null, schema, new Struct(schema).put("host", HOSTS[i]));
+        }
+
+        assertWithinBudget("FieldIsIP with schema value", budget(0), i -> predicate.test(records[i % records.length]));
+    }
+
+    @Test
+    public void rawJsonValue() {
+        final FieldIsIP<SourceRecord> predicate = predicate(true, true);
+        final SourceRecord[] records = new SourceRecord[HOSTS.length];
+        for (int i = 0; i < HOSTS.length; i++) {
+            final String json = "{\"level\": \"INFO\", \"tags\": [\"a\", {\"b\": 1}], \"host\": \"" + HOSTS[i].replace("\"", "") + "\"}";
+            records[i] = new SourceRecord(null, null, "topic", 0, null, null, null, json.getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertWithinBudget("FieldIsIP raw JSON value", budget(64), i -> predicate.test(records[i % records.length]));
+    }
+}
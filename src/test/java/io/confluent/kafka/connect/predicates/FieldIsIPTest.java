@@ -196,4 +196,44 @@ public class FieldIsIPTest {
 
         assertTrue(predicate.test(record));
     }
+
+    @Test
+    public void ipAddressFormat() {
+        assertTrue(FieldIsIP.isIPAddress("0.0.0.0"));
+        assertTrue(FieldIsIP.isIPAddress("255.255.255.255"));
+        assertTrue(FieldIsIP.isIPAddress("010.001.09.1"));
+        assertTrue(FieldIsIP.isIPAddress("\"10.0.0.1\""));
+        assertTrue(FieldIsIP.isIPAddress("1\"0.0.0.1"));
+
+        assertFalse(FieldIsIP.isIPAddress(""));
+        assertFalse(FieldIsIP.isIPAddress("null"));
+        assertFalse(FieldIsIP.isIPAddress("256.0.0.1"));
+        assertFalse(FieldIsIP.isIPAddress("10.0.0.300"));
+        assertFalse(FieldIsIP.isIPAddress("0010.0.0.1"));
+        assertFalse(FieldIsIP.isIPAddress("10.0.0"));
+        assertFalse(FieldIsIP.isIPAddress("10.0.0.1.2"));
+        assertFalse(FieldIsIP.isIPAddress("10..0.1"));
+        assertFalse(FieldIsIP.isIPAddress(".10.0.1"));
+        assertFalse(FieldIsIP.isIPAddress("10.0.0.1."));
+        assertFalse(FieldIsIP.isIPAddress("10.0.0.1 "));
+        assertFalse(FieldIsIP.isIPAddress("10.0.0.\u0661"));
+    }
+
+    @Test
+    public void rawJsonValue() {
+        Map<String, String> configs = new HashMap<>();
+        configs.put("field", "client.host");
+        configs.put("useValue", "true");
+        configs.put("rawJson", "true");
+        FieldIsIP<SourceRecord> predicate = new FieldIsIP<>();
+        predicate.configure(configs);
+
+        assertTrue(predicate.test(new SourceRecord(null, null, "topic", 0, null, null, null,
+                "{\"client\": {\"host\": \"192.168.1.1\"}}".getBytes(java.nio.charset.StandardCharsets.UTF_8))));
+        assertFalse(predicate.test(new SourceRecord(null, null, "topic", 0, null, null, null,
+                "{\"client\": {\"host\": \"localhost\"}}")));
+        assertFalse(predicate.test(new SourceRecord(null, null, "topic", 0, null, null, null, "{\"client\": {}}")));
+        //malformed JSON is logged and treated as no IP
+        assertFalse(predicate.test(new SourceRecord(null, null, "topic", 0, null, null, null, "{\"client\" {")));
+    }
 }
@@ -0,0 +1,59 @@
+package io.confluent.kafka.connect.predicates;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapBloomFilterTest {
+
+    @Test
+    public void sizing() {
+        final long bits = OffHeapBloomFilter.optimalBits(1_000_000, 0.01);
+        assertEquals(9_585_059, bits, 10);
+        assertEquals(7, OffHeapBloomFilter.optimalHashes(1_000_000, bits));
+        assertEquals(0.01, OffHeapBloomFilter.falsePositiveRate(1_000_000, bits, 7), 0.001);
+    }
+
+    @Test
+    public void addAndClear() {
+        final OffHeapBloomFilter filter = new OffHeapBloomFilter(1000, 3);
+        assertEquals(1024, filter.bits());
+
+        assertFalse(filter.mightContain(42, 17));
+        assertFalse(filter.add(42, 17));
+        assertTrue(filter.mightContain(42, 17));
+        assertTrue(filter.add(42, 17));
+
+        filter.clear();
+        assertFalse(filter.mightContain(42, 17));
+    }
+
+    @Test
+    public void concurrentAdds() throws Exception {
+        final OffHeapBloomFilter filter = new OffHeapBloomFilter(1 << 16, 4);
+        final AtomicInteger firsts = new AtomicInteger();
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                for (long i = 0; i < 2000; i++) {
+                    if (!filter.add(i * 0x9e3779b97f4a7c15L, i * 31 + 1)) {
+                        firsts.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        //every entry was new to at least one thread, unless it collided with an earlier one
+        assertTrue(firsts.get() > 1900, "first sightings: " + firsts.get());
+        for (long i = 0; i < 2000; i++) {
+            assertTrue(filter.mightContain(i * 0x9e3779b97f4a7c15L, i * 31 + 1));
+        }
+    }
+}
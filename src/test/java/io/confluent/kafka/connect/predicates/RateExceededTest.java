@@ -0,0 +1,165 @@
+package io.confluent.kafka.connect.predicates;
+
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateExceededTest {
+
+    private final AtomicLong nanos = new AtomicLong(TimeUnit.SECONDS.toNanos(1000));
+    private final RateExceeded<SourceRecord> predicate = new RateExceeded<>(nanos::get);
+
+    @AfterEach
+    public void tearDown() {
+        predicate.close();
+    }
+
+    private static Map<String, Object> props(String rate, String burst) {
+        final Map<String, Object> props = new HashMap<>();
+        props.put("field", "device");
+        props.put("rate", rate);
+        props.put("burst", burst);
+        return props;
+    }
+
+    private static SourceRecord record(Object device) {
+        return new SourceRecord(null, null, "telemetry", 0, null, Collections.singletonMap("device", device));
+    }
+
+    private int allowed(RateExceeded<SourceRecord> predicate, Object device, int records) {
+        int allowed = 0;
+        for (int i = 0; i < records; i++) {
+            if (!predicate.test(record(device))) {
+                allowed++;
+            }
+        }
+        return allowed;
+    }
+
+    private void advanceMillis(long millis) {
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    @Test
+    public void burstThenRate() {
+        predicate.configure(props("10", "5"));
+
+        assertEquals(5, allowed(predicate, "noisy", 100));
+        advanceMillis(500);
+        assertEquals(5, allowed(predicate, "noisy", 100));
+        advanceMillis(100);
+        assertEquals(1, allowed(predicate, "noisy", 100));
+
+        //a long pause only refills up to the burst
+        advanceMillis(60_000);
+        assertEquals(5, allowed(predicate, "noisy", 100));
+    }
+
+    @Test
+    public void keysAreIndependent() {
+        predicate.configure(props("1", "3"));
+
+        assertEquals(3, allowed(predicate, "noisy", 100));
+        assertEquals(3, allowed(predicate, "quiet", 3));
+        assertEquals(3, allowed(predicate, 42L, 10));
+        assertEquals(0, allowed(predicate, "noisy", 10));
+    }
+
+    @Test
+    public void defaultBurstIsOneSecond() {
+        final Map<String, Object> props = props("20", "0");
+        predicate.configure(props);
+        assertEquals(20, allowed(predicate, "d", 100));
+    }
+
+    @Test
+    public void structKeyAndMissingField() {
+        final Map<String, Object> props = props("1", "1");
+        props.put("useValue", "false");
+        predicate.configure(props);
+
+        final Schema schema = SchemaBuilder.struct().field("device", Schema.OPTIONAL_STRING_SCHEMA).build();
+        final SourceRecord keyed = new SourceRecord(null, null, "telemetry", 0, schema, new Struct(schema).put("device", "d-1"), null, null);
+        assertFalse(predicate.test(keyed));
+        assertTrue(predicate.test(keyed));
+
+        final SourceRecord unkeyed = new SourceRecord(null, null, "telemetry", 0, schema, new Struct(schema), null, null);
+        assertFalse(predicate.test(unkeyed));
+        assertFalse(predicate.test(unkeyed));
+    }
+
+    @Test
+    public void idleKeysAreEvicted() {
+        final Map<String, Object> props = props("1", "1");
+        props.put("max.keys", "8");
+        props.put("idle.timeout.ms", "1000");
+        predicate.configure(props);
+
+        //far more keys than slots: slots are reused and memory stays fixed
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(predicate.test(record("device-" + i)));
+        }
+
+        //a full table still finds a bucket for a new key
+        assertEquals(1, allowed(predicate, "noisy", 5));
+        assertEquals(0, allowed(predicate, "noisy", 5));
+    }
+
+    @Test
+    public void tableSlots() {
+        assertEquals(8, new TokenBucketTable(1, 1, 1, 1).slots());
+        assertEquals(1024, new TokenBucketTable(1000, 1, 1, 1).slots());
+        assertEquals(1024, new TokenBucketTable(1024, 1, 1, 1).slots());
+    }
+
+    @Test
+    public void sharedByName() {
+        final Map<String, Object> props = props("1", "4");
+        props.put("limiter.name", "rate-test");
+        predicate.configure(props);
+        final RateExceeded<SourceRecord> other = new RateExceeded<>(nanos::get);
+        other.configure(props);
+        assertEquals(2, RateExceeded.sharedReferences("rate-test"));
+
+        assertEquals(2, allowed(predicate, "d", 2));
+        assertEquals(2, allowed(other, "d", 10));
+        assertEquals(0, allowed(predicate, "d", 10));
+
+        other.close();
+        predicate.close();
+        assertEquals(0, RateExceeded.sharedReferences("rate-test"));
+    }
+
+    @Test
+    public void concurrentTasksShareTheRate() throws Exception {
+        final TokenBucketTable table = new TokenBucketTable(1024, 0, 1000, Long.MAX_VALUE);
+        final AtomicLong allowed = new AtomicLong();
+        final Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    if (!table.exceeded(i % 4 + 1, 0)) {
+                        allowed.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        //four keys with a burst of 1000 and no refill
+        assertEquals(4000, allowed.get());
+    }
+}
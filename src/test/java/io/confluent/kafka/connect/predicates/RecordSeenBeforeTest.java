@@ -0,0 +1,203 @@
+package io.confluent.kafka.connect.predicates;
+
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.apache.kafka.connect.transforms.Filter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecordSeenBeforeTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private final RecordSeenBefore<SourceRecord> predicate = new RecordSeenBefore<>(now::get);
+
+    @AfterEach
+    public void teardown() {
+        predicate.close();
+    }
+
+    private static Map<String, Object> props() {
+        final Map<String, Object> props = new HashMap<>();
+        props.put("window.ms", "4000");
+        props.put("window.segments", "4");
+        props.put("expected.records", "10000");
+        return props;
+    }
+
+    private static SourceRecord record(Map<String, Object> value) {
+        return new SourceRecord(null, null, "events", 0, null, value);
+    }
+
+    private static SourceRecord uuid(String id) {
+        return record(Collections.singletonMap("uuid", id));
+    }
+
+    @Test
+    public void duplicateUuid() {
+        predicate.configure(props());
+
+        assertFalse(predicate.test(uuid("a")));
+        assertFalse(predicate.test(uuid("b")));
+        assertTrue(predicate.test(uuid("a")));
+        assertTrue(predicate.test(uuid("b")));
+    }
+
+    @Test
+    public void compositeFields() {
+        final Map<String, Object> props = props();
+        props.put("fields", "host,seq");
+        predicate.configure(props);
+
+        final Map<String, Object> value = new HashMap<>();
+        value.put("host", "ab");
+        value.put("seq", 1L);
+        assertFalse(predicate.test(record(value)));
+        assertTrue(predicate.test(record(new HashMap<>(value))));
+
+        value.put("host", "a");
+        assertFalse(predicate.test(record(value)));
+        value.put("seq", 2L);
+        assertFalse(predicate.test(record(value)));
+    }
+
+    @Test
+    public void structKey() {
+        final Map<String, Object> props = props();
+        props.put("fields", "id");
+        props.put("useValue", "false");
+        predicate.configure(props);
+
+        final Schema schema = SchemaBuilder.struct().field("id", Schema.INT64_SCHEMA).build();
+        final SourceRecord record = new SourceRecord(null, null, "events", 0, schema, new Struct(schema).put("id", 7L), null, null);
+        assertFalse(predicate.test(record));
+        assertTrue(predicate.test(record));
+    }
+
+    @Test
+    public void missingFieldsAreNeverDuplicates() {
+        predicate.configure(props());
+
+        final SourceRecord record = record(Collections.singletonMap("other", "x"));
+        assertFalse(predicate.test(record));
+        assertFalse(predicate.test(record));
+    }
+
+    @Test
+    public void forgetsAfterWindow() {
+        predicate.configure(props());
+
+        assertFalse(predicate.test(uuid("a")));
+        now.addAndGet(3000);
+        assertTrue(predicate.test(uuid("a")));
+
+        //the second sighting keeps it for another window
+        now.addAndGet(3999);
+        assertTrue(predicate.test(uuid("a")));
+
+        now.addAndGet(5000);
+        assertFalse(predicate.test(uuid("a")));
+
+        //a jump of many windows clears everything
+        now.addAndGet(1_000_000);
+        assertFalse(predicate.test(uuid("b")));
+        assertTrue(predicate.test(uuid("b")));
+    }
+
+    @Test
+    public void remembersForAFullWindowFromMidSlice() {
+        predicate.configure(props());
+
+        now.set(1_000_999);
+        assertFalse(predicate.test(uuid("a")));
+        now.set(1_000_999 + 3999);
+        assertTrue(predicate.test(uuid("a")));
+        //forgotten within window.ms * (1 + 1 / window.segments) of the last sighting
+        now.addAndGet(5000);
+        assertFalse(predicate.test(uuid("a")));
+    }
+
+    @Test
+    public void remembersAcrossASliceBoundaryWithOneSegment() {
+        final Map<String, Object> props = props();
+        props.put("window.segments", "1");
+        predicate.configure(props);
+
+        now.set(1_003_999);
+        assertFalse(predicate.test(uuid("a")));
+        now.set(1_004_000);
+        assertTrue(predicate.test(uuid("a")));
+    }
+
+    @Test
+    public void sharedByName() {
+        final Map<String, Object> props = props();
+        props.put("filter.name", "dedup-test");
+        predicate.configure(props);
+        final RecordSeenBefore<SourceRecord> other = new RecordSeenBefore<>(now::get);
+        other.configure(props);
+        assertEquals(2, RecordSeenBefore.sharedReferences("dedup-test"));
+
+        assertFalse(predicate.test(uuid("a")));
+        assertTrue(other.test(uuid("a")));
+
+        other.close();
+        assertEquals(1, RecordSeenBefore.sharedReferences("dedup-test"));
+        predicate.close();
+        assertEquals(0, RecordSeenBefore.sharedReferences("dedup-test"));
+    }
+
+    @Test
+    public void falsePositiveRate() {
+        final Map<String, Object> props = props();
+        props.put("false.positive.rate", "0.01");
+        //all records land in one of the four segments
+        props.put("expected.records", "40000");
+        predicate.configure(props);
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (predicate.test(uuid("id-" + i))) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    @Test
+    public void memoryCap() {
+        final Map<String, Object> props = props();
+        props.put("expected.records", "100000000");
+        props.put("max.memory.bytes", "65536");
+        predicate.configure(props);
+
+        assertFalse(predicate.test(uuid("a")));
+        assertTrue(predicate.test(uuid("a")));
+    }
+
+    @Test
+    public void dropsDuplicatesWithFilter() {
+        predicate.configure(props());
+        final Filter<SourceRecord> filter = new Filter<>();
+        filter.configure(Collections.emptyMap());
+
+        int kept = 0;
+        for (String id : new String[]{"a", "b", "a", "c", "b", "a"}) {
+            final SourceRecord record = uuid(id);
+            //what the worker does for a transformation with a predicate
+            final SourceRecord out = predicate.test(record) ? filter.apply(record) : record;
+            if (out != null) {
+                kept++;
+            }
+        }
+        assertEquals(3, kept);
+    }
+}
@@ -0,0 +1,167 @@
+package io.confluent.kafka.connect.predicates;
+
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SampleByFieldTest {
+
+    @TempDir
+    Path dir;
+
+    private final SampleByField<SourceRecord> predicate = new SampleByField<>();
+
+    @AfterEach
+    public void tearDown() {
+        predicate.close();
+    }
+
+    private static Map<String, Object> props(String ratio) {
+        final Map<String, Object> props = new HashMap<>();
+        props.put("field", "user");
+        props.put("ratio", ratio);
+        props.put("reload.interval.ms", "0");
+        return props;
+    }
+
+    private static SourceRecord record(String topic, Object user) {
+        return new SourceRecord(null, null, topic, 0, null, Collections.singletonMap("user", user));
+    }
+
+    private int sampled(String topic, int users) {
+        int sampled = 0;
+        for (int i = 0; i < users; i++) {
+            if (predicate.test(record(topic, "user-" + i))) {
+                sampled++;
+            }
+        }
+        return sampled;
+    }
+
+    private Path ratios(String... lines) throws IOException {
+        final Path temp = dir.resolve("ratios.tmp");
+        Files.write(temp, Arrays.asList(lines), StandardCharsets.UTF_8);
+        return Files.move(temp, dir.resolve("ratios.properties"), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Test
+    public void sampleMatchesRatio() {
+        predicate.configure(props("0.1"));
+        final int sampled = sampled("events", 100_000);
+        assertTrue(sampled > 9_500 && sampled < 10_500, "sampled: " + sampled);
+    }
+
+    @Test
+    public void consistentPerEntity() {
+        predicate.configure(props("0.5"));
+        for (int i = 0; i < 100; i++) {
+            final boolean first = predicate.test(record("events", "user-" + i));
+            assertEquals(first, predicate.test(record("events", "user-" + i)));
+            assertEquals(first, predicate.test(record("other", "user-" + i)));
+        }
+
+        //another instance with the same seed picks the same users
+        final SampleByField<SourceRecord> other = new SampleByField<>();
+        other.configure(props("0.5"));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(predicate.test(record("events", "user-" + i)), other.test(record("events", "user-" + i)));
+        }
+        other.close();
+    }
+
+    @Test
+    public void samplesNest() {
+        //everyone in the 1% sample is also in the 10% sample
+        final SampleByField<SourceRecord> wide = new SampleByField<>();
+        wide.configure(props("0.1"));
+        predicate.configure(props("0.01"));
+        for (int i = 0; i < 10_000; i++) {
+            final SourceRecord record = record("events", i);
+            if (predicate.test(record)) {
+                assertTrue(wide.test(record));
+            }
+        }
+        wide.close();
+    }
+
+    @Test
+    public void seedChangesSample() {
+        predicate.configure(props("0.5"));
+        final SampleByField<SourceRecord> seeded = new SampleByField<>();
+        final Map<String, Object> props = props("0.5");
+        props.put("seed", "42");
+        seeded.configure(props);
+
+        int differences = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (predicate.test(record("events", i)) != seeded.test(record("events", i))) {
+                differences++;
+            }
+        }
+        assertTrue(differences > 400, "differences: " + differences);
+        seeded.close();
+    }
+
+    @Test
+    public void structAndMissingField() {
+        final Map<String, Object> props = props("1");
+        props.put("useValue", "false");
+        predicate.configure(props);
+
+        final Schema schema = SchemaBuilder.struct().field("user", Schema.OPTIONAL_INT64_SCHEMA).build();
+        assertTrue(predicate.test(new SourceRecord(null, null, "events", 0, schema, new Struct(schema).put("user", 7L), null, null)));
+        assertFalse(predicate.test(new SourceRecord(null, null, "events", 0, schema, new Struct(schema), null, null)));
+        assertFalse(predicate.test(new SourceRecord(null, null, "events", 0, null, Collections.singletonMap("other", 1), null, null)));
+    }
+
+    @Test
+    public void ratiosPerTopicReload() throws Exception {
+        final Path file = ratios("audit=1", "debug=0");
+        final Map<String, Object> props = props("0.5");
+        props.put("ratios.file", file.toString());
+        predicate.configure(props);
+
+        assertEquals(1000, sampled("audit", 1000));
+        assertEquals(0, sampled("debug", 1000));
+        final int other = sampled("events", 1000);
+        assertTrue(other > 400 && other < 600, "sampled: " + other);
+
+        ratios("audit=0", "*=1");
+        predicate.reloadIfChanged();
+        assertEquals(0, sampled("audit", 1000));
+        assertEquals(1000, sampled("events", 1000));
+
+        //a broken file keeps the last good ratios
+        ratios("audit=2");
+        predicate.reloadIfChanged();
+        assertEquals(0, sampled("audit", 1000));
+    }
+
+    @Test
+    public void invalidRatiosFile() throws Exception {
+        final Map<String, Object> props = props("0.5");
+        props.put("ratios.file", ratios("audit=lots").toString());
+        assertThrows(ConfigException.class, () -> predicate.configure(props));
+
+        props.put("ratios.file", dir.resolve("missing").toString());
+        assertThrows(ConfigException.class, () -> predicate.configure(props));
+    }
+}
@@ -0,0 +1,150 @@
+package io.confluent.kafka.connect.transforms;
+
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExtractIpsTest {
+
+    private final ExtractIps<SourceRecord> xform = new ExtractIps<>();
+
+    private static final Schema SCHEMA = SchemaBuilder.struct()
+            .field("message", Schema.STRING_SCHEMA)
+            .field("host", Schema.OPTIONAL_STRING_SCHEMA)
+            .build();
+
+    @AfterEach
+    public void tearDown() {
+        xform.close();
+    }
+
+    private static List<String> found(String text) {
+        return found(text, text.length());
+    }
+
+    private static List<String> found(String text, int maxScanChars) {
+        final List<String> found = new ArrayList<>();
+        ExtractIps.scan(text, Math.min(text.length(), maxScanChars), (start, end) -> found.add(text.substring(start, end)));
+        return found;
+    }
+
+    private Map<String, String> props(String mode) {
+        final Map<String, String> props = new HashMap<>();
+        props.put("field.name", "message");
+        props.put("mode", mode);
+        return props;
+    }
+
+    @Test
+    public void findsAddressesInFreeText() {
+        assertEquals(Arrays.asList("10.0.0.1", "2001:db8::1"),
+                found("Accepted password for root from 10.0.0.1 port 22 via 2001:db8::1"));
+        assertEquals(Arrays.asList("192.168.1.1", "fe80::1", "::1"),
+                found("src=192.168.1.1, gw=[fe80::1]:443 lo \"::1\"."));
+        assertEquals(Collections.singletonList("10.1.2.3"), found("connection from 10.1.2.3."));
+        assertEquals(Collections.singletonList("10.1.2.3"), found("upstream 10.1.2.3:8080 timed out"));
+        assertEquals(Collections.singletonList("10.1.2.3"), found("client:10.1.2.3: reset"));
+        assertEquals(Collections.singletonList("::ffff:10.1.2.3"), found("mapped ::ffff:10.1.2.3 seen"));
+        assertEquals(Collections.singletonList("fe80::1"), found("link fe80::1%eth0 up"));
+    }
+
+    @Test
+    public void ignoresLookalikes() {
+        assertEquals(Collections.emptyList(), found("at 12:30:45 on 2024.01.15, mac 00:1a:2b:3c:4d:5e"));
+        assertEquals(Collections.emptyList(), found("std::vector and Foo::bar are not addresses, nor is a :: b"));
+        assertEquals(Collections.emptyList(), found("build deadbeefcafe 999.1.1.1 1.2.3 v10.0.0.1 10.0.0.1a"));
+        assertEquals(Collections.emptyList(), found("2024-01-01T10:00:00.123Z"));
+        assertEquals(Collections.emptyList(), found(""));
+    }
+
+    @Test
+    public void scanLengthIsBounded() {
+        final String text = "a 10.0.0.1 b 10.0.0.2";
+        assertEquals(Arrays.asList("10.0.0.1", "10.0.0.2"), found(text, 100));
+        assertEquals(Collections.singletonList("10.0.0.1"), found(text, 15));
+        //an address cut by the limit is not reported as a shorter one
+        assertEquals(Collections.singletonList("10.0.0.1"), found(text, 20));
+    }
+
+    @Test
+    public void withSchemaAllMatches() {
+        xform.configure(props("all"));
+
+        final Struct value = new Struct(SCHEMA).put("message", "from 10.0.0.1 to 10.0.0.2").put("host", "h1");
+        final SourceRecord transformed = xform.apply(new SourceRecord(null, null, "logs", 0, null, null, SCHEMA, value));
+
+        assertEquals(Schema.Type.ARRAY, transformed.valueSchema().field("ips").schema().type());
+        final Struct updated = (Struct) transformed.value();
+        assertEquals(Arrays.asList("10.0.0.1", "10.0.0.2"), updated.getArray("ips"));
+        assertEquals("h1", updated.getString("host"));
+
+        final Struct none = new Struct(SCHEMA).put("message", "nothing here");
+        assertEquals(Collections.emptyList(),
+                ((Struct) xform.apply(new SourceRecord(null, null, "logs", 0, null, null, SCHEMA, none)).value()).getArray("ips"));
+    }
+
+    @Test
+    public void withSchemaFirstAndLast() {
+        final Struct value = new Struct(SCHEMA).put("message", "from 10.0.0.1 to 10.0.0.2 via ::1");
+        final SourceRecord record = new SourceRecord(null, null, "logs", 0, null, null, SCHEMA, value);
+
+        final Map<String, String> props = props("first");
+        props.put("target.field", "client_ip");
+        xform.configure(props);
+        final SourceRecord first = xform.apply(record);
+        assertEquals(Schema.OPTIONAL_STRING_SCHEMA, first.valueSchema().field("client_ip").schema());
+        assertEquals("10.0.0.1", ((Struct) first.value()).getString("client_ip"));
+
+        props.put("mode", "last");
+        xform.configure(props);
+        assertEquals("::1", ((Struct) xform.apply(record).value()).getString("client_ip"));
+
+        final Struct none = new Struct(SCHEMA).put("message", "no address");
+        assertNull(((Struct) xform.apply(new SourceRecord(null, null, "logs", 0, null, null, SCHEMA, none)).value()).get("client_ip"));
+    }
+
+    @Test
+    public void withSchemaRejectsBadFields() {
+        xform.configure(props("all"));
+
+        final Schema clash = SchemaBuilder.struct().field("message", Schema.STRING_SCHEMA).field("ips", Schema.STRING_SCHEMA).build();
+        assertThrows(DataException.class, () -> xform.apply(new SourceRecord(null, null, "logs", 0, null, null, clash,
+                new Struct(clash).put("message", "x").put("ips", "y"))));
+
+        final Schema noText = SchemaBuilder.struct().field("other", Schema.STRING_SCHEMA).build();
+        assertThrows(DataException.class, () -> xform.apply(new SourceRecord(null, null, "logs", 0, null, null, noText,
+                new Struct(noText).put("other", "x"))));
+    }
+
+    @Test
+    public void schemalessValue() {
+        final Map<String, String> props = props("first");
+        props.put("max.scan.chars", "20");
+        xform.configure(props);
+
+        final Map<String, Object> value = new HashMap<>();
+        value.put("message", "denied 172.16.0.9 after 3 attempts");
+        final SourceRecord transformed = xform.apply(new SourceRecord(null, null, "logs", 0, null, value));
+        assertEquals("172.16.0.9", ((Map<?, ?>) transformed.value()).get("ips"));
+        assertFalse(value.containsKey("ips"));
+
+        final Map<String, Object> late = Collections.singletonMap("message", "a long line before the address 10.0.0.1");
+        assertNull(((Map<?, ?>) xform.apply(new SourceRecord(null, null, "logs", 0, null, late)).value()).get("ips"));
+
+        final SourceRecord missing = new SourceRecord(null, null, "logs", 0, null, Collections.singletonMap("other", "x"));
+        assertSame(missing, xform.apply(missing));
+    }
+}
@@ -0,0 +1,311 @@
+package io.confluent.kafka.connect.transforms;
+
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.apache.kafka.connect.transforms.Transformation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FusedChainTest {
+
+    private final FusedChain<SourceRecord> xform = new FusedChain<>();
+    private final List<Transformation<SourceRecord>> unfused = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() {
+        xform.close();
+        for (Transformation<SourceRecord> transform : unfused) {
+            transform.close();
+        }
+    }
+
+    private static final Schema KEY_SCHEMA = SchemaBuilder.struct()
+            .field("host", Schema.STRING_SCHEMA)
+            .build();
+
+    private static final Schema VALUE_SCHEMA = SchemaBuilder.struct().name("event").version(2).doc("doc")
+            .field("level", Schema.STRING_SCHEMA)
+            .field("message", Schema.OPTIONAL_STRING_SCHEMA)
+            .build();
+
+    //KeyToValue -> InsertUuid.Value -> InsertTimestamp.Value -> RegexRouter
+    private void configureTypicalChain(String routeField, String regex) {
+        final Map<String, Object> props = new HashMap<>();
+        props.put("stages", "k2v,uuid,ts,route");
+        props.put("stages.k2v.type", KeyToValue.class.getName());
+        props.put("stages.k2v.keyField", "host");
+        props.put("stages.k2v.msgField", "ip");
+        props.put("stages.uuid.type", InsertUuid.Value.class.getName());
+        props.put("stages.uuid.uuid.field.name", "id");
+        props.put("stages.ts.type", InsertTimestamp.Value.class.getName());
+        props.put("stages.ts.ts.field.name", "ingested");
+        props.put("stages.route.type", RegexRouter.class.getName());
+        props.put("stages.route.field.name", routeField);
+        props.put("stages.route.regex", regex);
+        props.put("stages.route.topic.name", "routed");
+        xform.configure(props);
+
+        final Map<String, Object> k2v = new HashMap<>();
+        k2v.put("keyField", "host");
+        k2v.put("msgField", "ip");
+        addUnfused(new KeyToValue<>(), k2v);
+        final Map<String, Object> uuid = new HashMap<>();
+        uuid.put("uuid.field.name", "id");
+        addUnfused(new InsertUuid.Value<>(), uuid);
+        final Map<String, Object> ts = new HashMap<>();
+        ts.put("ts.field.name", "ingested");
+        addUnfused(new InsertTimestamp.Value<>(), ts);
+        final Map<String, Object> route = new HashMap<>();
+        route.put("field.name", routeField);
+        route.put("regex", regex);
+        route.put("topic.name", "routed");
+        addUnfused(new RegexRouter<>(), route);
+    }
+
+    private void addUnfused(Transformation<SourceRecord> transform, Map<String, Object> props) {
+        transform.configure(props);
+        unfused.add(transform);
+    }
+
+    private SourceRecord applyUnfused(SourceRecord record) {
+        SourceRecord current = record;
+        for (Transformation<SourceRecord> transform : unfused) {
+            current = transform.apply(current);
+        }
+        return current;
+    }
+
+    private static SourceRecord structRecord(String level) {
+        final Struct key = new Struct(KEY_SCHEMA).put("host", "10.0.0.1");
+        final Struct value = new Struct(VALUE_SCHEMA).put("level", level).put("message", "disk full");
+        return new SourceRecord(null, null, "logs", 0, KEY_SCHEMA, key, VALUE_SCHEMA, value, 1234L);
+    }
+
+    private static SourceRecord mapRecord(String level) {
+        final Map<String, Object> key = new HashMap<>();
+        key.put("host", "10.0.0.1");
+        final Map<String, Object> value = new HashMap<>();
+        value.put("level", level);
+        value.put("message", "disk full");
+        return new SourceRecord(null, null, "logs", 0, null, key, null, value, 1234L);
+    }
+
+    //uuid and timestamp are generated per call, everything else must be identical
+    private static void assertSameOutput(SourceRecord expected, SourceRecord actual) {
+        assertEquals(expected.topic(), actual.topic());
+        assertEquals(expected.kafkaPartition(), actual.kafkaPartition());
+        assertEquals(expected.timestamp(), actual.timestamp());
+        assertEquals(expected.keySchema(), actual.keySchema());
+        assertEquals(expected.key(), actual.key());
+        assertEquals(expected.valueSchema(), actual.valueSchema());
+
+        if (expected.value() instanceof Struct) {
+            final Struct expectedValue = (Struct) expected.value();
+            final Struct actualValue = (Struct) actual.value();
+            expectedValue.put("id", actualValue.get("id")).put("ingested", actualValue.get("ingested"));
+            assertEquals(expectedValue, actualValue);
+        } else {
+            @SuppressWarnings("unchecked")
+            final Map<String, Object> expectedValue = new HashMap<>((Map<String, Object>) expected.value());
+            final Map<?, ?> actualValue = (Map<?, ?>) actual.value();
+            assertNotNull(actualValue.get("id"));
+            assertNotNull(actualValue.get("ingested"));
+            expectedValue.put("id", actualValue.get("id"));
+            expectedValue.put("ingested", actualValue.get("ingested"));
+            assertEquals(expectedValue, actualValue);
+        }
+    }
+
+    @Test
+    public void withSchemaMatchesUnfusedChain() {
+        configureTypicalChain("level", "ERROR");
+
+        final SourceRecord routed = xform.apply(structRecord("ERROR"));
+        assertSameOutput(applyUnfused(structRecord("ERROR")), routed);
+        assertEquals("routed", routed.topic());
+        assertEquals("10.0.0.1", ((Struct) routed.value()).getString("ip"));
+        assertEquals("event", routed.valueSchema().name());
+
+        final SourceRecord passed = xform.apply(structRecord("INFO"));
+        assertSameOutput(applyUnfused(structRecord("INFO")), passed);
+        assertEquals("logs", passed.topic());
+
+        //one cached target schema per source shape
+        assertSame(routed.valueSchema(), passed.valueSchema());
+    }
+
+    @Test
+    public void schemalessMatchesUnfusedChain() {
+        configureTypicalChain("level", "ERROR");
+
+        final SourceRecord input = mapRecord("ERROR");
+        final Map<?, ?> inputValue = new HashMap<>((Map<?, ?>) input.value());
+
+        final SourceRecord routed = xform.apply(input);
+        assertSameOutput(applyUnfused(mapRecord("ERROR")), routed);
+        assertEquals("routed", routed.topic());
+        assertEquals(inputValue, input.value());
+
+        assertSameOutput(applyUnfused(mapRecord("INFO")), xform.apply(mapRecord("INFO")));
+    }
+
+    @Test
+    public void routesOnFieldAddedEarlierInChain() {
+        configureTypicalChain("ip", "^10\\.");
+
+        final SourceRecord routed = xform.apply(structRecord("INFO"));
+        assertSameOutput(applyUnfused(structRecord("INFO")), routed);
+        assertEquals("routed", routed.topic());
+
+        assertSameOutput(applyUnfused(mapRecord("INFO")), xform.apply(mapRecord("INFO")));
+    }
+
+    @Test
+    public void dropKeyAndInsertIntoKey() {
+        final Map<String, Object> props = new HashMap<>();
+        props.put("stages", "uuid,k2v");
+        props.put("stages.uuid.type", InsertUuid.Key.class.getName());
+        props.put("stages.uuid.uuid.field.name", "id");
+        props.put("stages.k2v.type", KeyToValue.class.getName());
+        props.put("stages.k2v.keyField", "id");
+        props.put("stages.k2v.msgField", "id");
+        props.put("stages.k2v.dropKey", "true");
+        xform.configure(props);
+
+        final SourceRecord transformed = xform.apply(structRecord("INFO"));
+
+        assertNull(transformed.key());
+        assertNull(transformed.keySchema());
+        assertEquals(Schema.STRING_SCHEMA, transformed.valueSchema().field("id").schema());
+        assertNotNull(((Struct) transformed.value()).getString("id"));
+
+        final Map<?, ?> schemalessValue = (Map<?, ?>) xform.apply(mapRecord("INFO")).value();
+        assertNotNull(schemalessValue.get("id"));
+    }
+
+    @Test
+    public void routerOnlyChainKeepsRecord() {
+        final Map<String, Object> props = new HashMap<>();
+        props.put("stages", "route");
+        props.put("stages.route.type", RegexRouter.class.getName());
+        props.put("stages.route.field.name", "level");
+        props.put("stages.route.regex", "ERROR");
+        props.put("stages.route.topic.name", "routed");
+        xform.configure(props);
+
+        final SourceRecord record = structRecord("INFO");
+        assertSame(record, xform.apply(record));
+
+        final SourceRecord routed = xform.apply(structRecord("ERROR"));
+        assertEquals("routed", routed.topic());
+    }
+
+    @Test
+    public void routerWithRulesFileFollowsChanges(@TempDir Path dir) throws IOException, InterruptedException {
+        final Path rules = dir.resolve("routes.txt");
+        Files.write(rules, Collections.singletonList("ERROR=errors"), StandardCharsets.UTF_8);
+        final Map<String, Object> props = new HashMap<>();
+        props.put("stages", "route");
+        props.put("stages.route.type", RegexRouter.class.getName());
+        props.put("stages.route.field.name", "level");
+        props.put("stages.route.rules.file", rules.toString());
+        xform.configure(props);
+        assertEquals("errors", xform.apply(structRecord("ERROR")).topic());
+
+        final Path temp = dir.resolve("routes.tmp");
+        Files.write(temp, Collections.singletonList("ERROR=errors-v2"), StandardCharsets.UTF_8);
+        Files.move(temp, rules, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        final long deadline = System.nanoTime() + 30_000_000_000L;
+        while (!"errors-v2".equals(xform.apply(structRecord("ERROR")).topic()) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("errors-v2", xform.apply(structRecord("ERROR")).topic());
+    }
+
+    @Test
+    public void failingStageReportsSameError() {
+        configureTypicalChain("level", "ERROR");
+
+        final Schema keySchema = SchemaBuilder.struct().field("other", Schema.STRING_SCHEMA).build();
+        final SourceRecord record = new SourceRecord(null, null, "logs", 0, keySchema, new Struct(keySchema).put("other", "x"),
+                VALUE_SCHEMA, new Struct(VALUE_SCHEMA).put("level", "INFO"));
+
+        final DataException expected = assertThrows(DataException.class, () -> applyUnfused(record));
+        final DataException actual = assertThrows(DataException.class, () -> xform.apply(record));
+        assertEquals(expected.getMessage(), actual.getMessage());
+    }
+
+    @Test
+    public void nullRequiredFieldRejectedLikeKeyToValue() {
+        configureTypicalChain("level", "ERROR");
+
+        final SourceRecord record = new SourceRecord(null, null, "logs", 0, KEY_SCHEMA, new Struct(KEY_SCHEMA).put("host", "h"),
+                VALUE_SCHEMA, new Struct(VALUE_SCHEMA));
+
+        final DataException expected = assertThrows(DataException.class, () -> applyUnfused(record));
+        final DataException actual = assertThrows(DataException.class, () -> xform.apply(record));
+        assertEquals(expected.getMessage(), actual.getMessage());
+    }
+
+    @Test
+    public void unsupportedStageRejected() {
+        final Map<String, Object> props = new HashMap<>();
+        props.put("stages", "other");
+        props.put("stages.other.type", "org.apache.kafka.connect.transforms.TimestampRouter");
+
+        assertThrows(ConfigException.class, () -> xform.configure(props));
+    }
+
+    @Test
+    public void missingStageTypeRejected() {
+        final Map<String, Object> props = new HashMap<>();
+        props.put("stages", "uuid");
+
+        assertThrows(ConfigException.class, () -> xform.configure(props));
+    }
+
+    @Test
+    public void headerStagesLeaveValueUntouched() {
+        final Map<String, Object> props = new HashMap<>();
+        props.put("stages", "k2v,uuid,ts");
+        props.put("stages.k2v.type", KeyToValue.class.getName());
+        props.put("stages.k2v.keyField", "host");
+        props.put("stages.k2v.msgField", "ip");
+        props.put("stages.k2v.target", "header");
+        props.put("stages.uuid.type", InsertUuid.Value.class.getName());
+        props.put("stages.uuid.uuid.field.name", "id");
+        props.put("stages.uuid.target", "header");
+        props.put("stages.ts.type", InsertTimestamp.Value.class.getName());
+        props.put("stages.ts.ts.field.name", "ingested");
+        xform.configure(props);
+
+        final SourceRecord record = structRecord("INFO");
+        final SourceRecord transformed = xform.apply(record);
+
+        assertSame(record.key(), transformed.key());
+        assertEquals("10.0.0.1", transformed.headers().lastWithName("ip").value());
+        assertEquals(Schema.STRING_SCHEMA, transformed.headers().lastWithName("id").schema());
+        assertNotNull(transformed.headers().lastWithName("id").value());
+        assertNotNull(((Struct) transformed.value()).getInt64("ingested"));
+        assertEquals(2, transformed.headers().size());
+        assertTrue(record.headers().isEmpty());
+    }
+}
@@ -0,0 +1,171 @@
+package io.confluent.kafka.connect.transforms;
+
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GeoIpEnrichTest {
+
+    @TempDir
+    Path dir;
+
+    private final GeoIpEnrich<SourceRecord> xform = new GeoIpEnrich<>();
+    private Path cityDb;
+    private Path asnDb;
+
+    private static Map<String, Object> names(String english) {
+        return Collections.singletonMap("en", english);
+    }
+
+    @BeforeEach
+    public void writeDatabases() throws IOException {
+        final Map<String, Object> berlin = new LinkedHashMap<>();
+        berlin.put("city", Collections.singletonMap("names", names("Berlin")));
+        berlin.put("country", map("iso_code", "DE", "names", names("Germany")));
+        berlin.put("location", map("latitude", 52.52, "longitude", 13.40, "time_zone", "Europe/Berlin"));
+        final Map<String, Object> paris = new LinkedHashMap<>();
+        paris.put("country", map("iso_code", "FR", "names", names("France")));
+        cityDb = dir.resolve("city.mmdb");
+        new MmdbTestWriter("GeoLite2-City")
+                .insert("81.2.69.0", 24, berlin)
+                .insert("90.0.0.0", 8, paris)
+                .write(cityDb);
+
+        asnDb = dir.resolve("asn.mmdb");
+        new MmdbTestWriter("GeoLite2-ASN")
+                .insert("81.2.0.0", 16, map("autonomous_system_number", 3320L, "autonomous_system_organization", "Example Telekom"))
+                .write(asnDb);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        xform.close();
+    }
+
+    private static Map<String, Object> map(Object... keyValues) {
+        final Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            map.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return map;
+    }
+
+    private void configure(String... extra) {
+        final Map<String, Object> props = new HashMap<>();
+        props.put("ip.field", "ip");
+        props.put("databases", cityDb + "," + asnDb);
+        for (int i = 0; i < extra.length; i += 2) {
+            props.put(extra[i], extra[i + 1]);
+        }
+        xform.configure(props);
+    }
+
+    private Map<?, ?> schemaless(String ip) {
+        final Map<String, Object> value = new HashMap<>();
+        value.put("ip", ip);
+        return (Map<?, ?>) xform.apply(new SourceRecord(null, null, "test", 0, null, value)).value();
+    }
+
+    @Test
+    public void schemalessMergesDatabases() {
+        configure();
+
+        final Map<?, ?> value = schemaless("81.2.69.160");
+        assertEquals("DE", value.get("geo_country_code"));
+        assertEquals("Germany", value.get("geo_country_name"));
+        assertEquals("Berlin", value.get("geo_city"));
+        assertEquals(52.52, value.get("geo_latitude"));
+        assertEquals(13.40, value.get("geo_longitude"));
+        assertEquals(3320L, value.get("geo_asn"));
+        assertEquals("Example Telekom", value.get("geo_as_org"));
+        assertEquals("81.2.69.160", value.get("ip"));
+
+        final Map<?, ?> france = schemaless("\"90.1.2.3\"");
+        assertEquals("FR", france.get("geo_country_code"));
+        assertNull(france.get("geo_city"));
+        assertNull(france.get("geo_asn"));
+        assertTrue(france.containsKey("geo_asn"));
+    }
+
+    @Test
+    public void withSchemaAddsTypedFields() {
+        configure("fields", "country_code,asn,time_zone", "field.prefix", "");
+
+        final Schema schema = SchemaBuilder.struct().name("event").field("ip", Schema.OPTIONAL_STRING_SCHEMA).build();
+        final SourceRecord transformed = xform.apply(new SourceRecord(null, null, "test", 0, schema, new Struct(schema).put("ip", "81.2.69.1")));
+
+        final Struct value = (Struct) transformed.value();
+        assertEquals("DE", value.getString("country_code"));
+        assertEquals(3320L, value.getInt64("asn"));
+        assertEquals("Europe/Berlin", value.getString("time_zone"));
+        assertEquals(Schema.OPTIONAL_INT64_SCHEMA, transformed.valueSchema().field("asn").schema());
+        assertNull(transformed.valueSchema().field("city"));
+        assertEquals("event", transformed.valueSchema().name());
+
+        final Struct missing = (Struct) xform.apply(new SourceRecord(null, null, "test", 0, schema, new Struct(schema))).value();
+        assertNull(missing.getString("country_code"));
+    }
+
+    @Test
+    public void notFoundAndInvalidAddresses() {
+        configure("cache.size", "0");
+
+        for (String ip : new String[]{"10.0.0.1", "example.com", "256.1.1.1", "1.2.3", "::1", "g::1", ""}) {
+            final Map<?, ?> value = schemaless(ip);
+            assertNull(value.get("geo_country_code"), ip);
+            assertTrue(value.containsKey("geo_country_code"), ip);
+        }
+    }
+
+    @Test
+    public void cachedResultsMatch() {
+        configure("cache.size", "2");
+        for (int i = 0; i < 3; i++) {
+            assertEquals("Berlin", schemaless("81.2.69.160").get("geo_city"));
+            assertEquals("FR", schemaless("90.0.0.1").get("geo_country_code"));
+            assertNull(schemaless("10.0.0.1").get("geo_country_code"));
+        }
+    }
+
+    @Test
+    public void neverResolvesHostNames() {
+        assertNull(GeoIpEnrich.parseAddress("localhost"));
+        assertNull(GeoIpEnrich.parseAddress("1.2.3.4.example.com"));
+        assertNull(GeoIpEnrich.parseAddress("01.2.3.4567"));
+        assertNotNull(GeoIpEnrich.parseAddress("1.2.3.4"));
+        assertNotNull(GeoIpEnrich.parseAddress("2001:db8::1"));
+    }
+
+    @Test
+    public void configErrors() {
+        assertThrows(ConfigException.class, () -> configure("fields", "planet"));
+
+        final Map<String, Object> props = new HashMap<>();
+        props.put("ip.field", "ip");
+        props.put("databases", dir.resolve("missing.mmdb").toString());
+        assertThrows(ConfigException.class, () -> xform.configure(props));
+    }
+
+    @Test
+    public void missingIpFieldWithSchema() {
+        configure();
+        final Schema schema = SchemaBuilder.struct().field("other", Schema.STRING_SCHEMA).build();
+        assertThrows(DataException.class, () -> xform.apply(new SourceRecord(null, null, "test", 0, schema, new Struct(schema).put("other", "x"))));
+    }
+}
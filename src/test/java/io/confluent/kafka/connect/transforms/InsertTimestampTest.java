@@ -108,4 +108,26 @@ public class InsertTimestampTest {
         new SourceRecord(null, null, "test", 1, simpleStructSchema, new Struct(simpleStructSchema)));
       assertSame(transformedRecord.valueSchema(), transformedRecord2.valueSchema());
   }
+
+    @Test
+    public void headerTargetLeavesValueUntouched() {
+        final Map<String, Object> props = new HashMap<>();
+
+        props.put("ts.field.name", "il5-timestamp");
+        props.put("target", "header");
+
+        xform.configure(props);
+
+        final Schema simpleStructSchema = SchemaBuilder.struct().name("name").version(1).doc("doc").field("magic", Schema.OPTIONAL_INT64_SCHEMA).build();
+        final Struct simpleStruct = new Struct(simpleStructSchema).put("magic", 42L);
+
+        final SourceRecord record = new SourceRecord(null, null, "test", 0, simpleStructSchema, simpleStruct);
+        final SourceRecord transformedRecord = xform.apply(record);
+
+        assertSame(simpleStructSchema, transformedRecord.valueSchema());
+        assertSame(simpleStruct, transformedRecord.value());
+        assertEquals(Schema.INT64_SCHEMA, transformedRecord.headers().lastWithName("il5-timestamp").schema());
+        assertNotNull(transformedRecord.headers().lastWithName("il5-timestamp").value());
+        assertTrue(record.headers().isEmpty());
+    }
 }
@@ -1,6 +1,7 @@
 package io.confluent.kafka.connect.transforms;
 
 import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.common.config.ConfigException;
 import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.data.ConnectSchema;
 import org.apache.kafka.connect.data.SchemaBuilder;
@@ -110,4 +111,36 @@ public class InsertUuidTest {
         assertSame(transformedRecord.valueSchema(), transformedRecord2.valueSchema());
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void headerTargetLeavesValueUntouched() {
+        final Map<String, Object> props = new HashMap<>();
+
+        props.put("uuid.field.name", "myUuid");
+        props.put("target", "header");
+
+        xform.configure(props);
+
+        final Map<String, Object> value = Collections.singletonMap("magic", 42L);
+        final SourceRecord record = new SourceRecord(null, null, "test", 0, null, value);
+        record.headers().addString("existing", "x");
+
+        final SourceRecord transformedRecord = xform.apply(record);
+
+        assertSame(value, transformedRecord.value());
+        assertNull(transformedRecord.valueSchema());
+        assertEquals(2, transformedRecord.headers().size());
+        assertEquals("x", transformedRecord.headers().lastWithName("existing").value());
+        assertNotNull(transformedRecord.headers().lastWithName("myUuid").value());
+        assertEquals(1, record.headers().size());
+    }
+
+    @Test
+    public void invalidTargetRejected() {
+        final Map<String, Object> props = new HashMap<>();
+
+        props.put("target", "topic");
+
+        assertThrows(ConfigException.class, () -> xform.configure(props));
+    }
+}
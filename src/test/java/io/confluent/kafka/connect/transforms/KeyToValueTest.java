@@ -14,8 +14,11 @@ import java.util.HashMap;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class KeyToValueTest {
     private final KeyToValue<SourceRecord> transform = new KeyToValue<>();
@@ -250,4 +253,132 @@ public class KeyToValueTest {
         assertNull(transformedRecord.key());
     }
 
+    @Test
+    public void schemalessDoesNotMutateInput() {
+        Map<String, String> configs = new HashMap<>();
+        configs.put("keyField", "k");
+        configs.put("msgField", "v");
+
+        transform.configure(configs);
+
+        final HashMap<String, Object> key = new HashMap<>();
+        key.put("k", 2);
+
+        final HashMap<String, Object> value = new HashMap<>();
+        value.put("a", 1);
+
+        final HashMap<String, Object> originalValue = new HashMap<>(value);
+
+        final SourceRecord record = new SourceRecord(null, null, "topic", 0, null, key, null, value);
+
+        final HashMap<String, Object> expectedValue = new HashMap<>();
+        expectedValue.put("a", 1);
+        expectedValue.put("v", 2);
+
+        //the same record is applied again on a retry, every attempt must see the untouched input
+        for (int attempt = 0; attempt < 3; attempt++) {
+            final SourceRecord transformedRecord = transform.apply(record);
+            assertEquals(expectedValue, transformedRecord.value());
+            assertEquals(originalValue, record.value());
+            assertSame(value, record.value());
+        }
+    }
+
+    @Test
+    public void schemalessOutputWritesDoNotReachInput() {
+        Map<String, String> configs = new HashMap<>();
+        configs.put("keyField", "k");
+        configs.put("msgField", "a");
+
+        transform.configure(configs);
+
+        final HashMap<String, Object> key = new HashMap<>();
+        key.put("k", 2);
+
+        final HashMap<String, Object> value = new HashMap<>();
+        value.put("a", 1);
+        value.put("b", 3);
+
+        final SourceRecord record = new SourceRecord(null, null, "topic", 0, null, key, null, value);
+        final SourceRecord transformedRecord = transform.apply(record);
+
+        @SuppressWarnings("unchecked")
+        final Map<String, Object> transformedValue = (Map<String, Object>) transformedRecord.value();
+        assertEquals(2, transformedValue.size());
+        assertEquals(2, transformedValue.get("a"));
+
+        for (Map.Entry<String, Object> entry : transformedValue.entrySet()) {
+            entry.setValue(0);
+        }
+        assertEquals(0, transformedValue.get("a"));
+        assertEquals(0, transformedValue.get("b"));
+
+        transformedValue.put("b", 4);
+        transformedValue.remove("a");
+
+        assertEquals(1, value.get("a"));
+        assertEquals(3, value.get("b"));
+        assertEquals(4, transformedValue.get("b"));
+        assertFalse(transformedValue.containsKey("a"));
+    }
+
+    @Test
+    public void headerTargetWithSchema() {
+        Map<String, String> configs = new HashMap<>();
+        configs.put("keyField", "k");
+        configs.put("msgField", "v");
+        configs.put("target", "header");
+
+        transform.configure(configs);
+
+        final Schema valueSchema = SchemaBuilder.struct()
+                .field("a", Schema.INT32_SCHEMA)
+                .build();
+
+        final Struct value = new Struct(valueSchema);
+        value.put("a", 1);
+
+        final Schema keySchema = SchemaBuilder.struct()
+                .field("k", Schema.INT32_SCHEMA)
+                .build();
+
+        final Struct key = new Struct(keySchema);
+        key.put("k", 2);
+
+        final SourceRecord record = new SourceRecord(null, null, "topic", 0, keySchema, key, valueSchema, value);
+        final SourceRecord transformedRecord = transform.apply(record);
+
+        assertSame(valueSchema, transformedRecord.valueSchema());
+        assertSame(value, transformedRecord.value());
+        assertSame(key, transformedRecord.key());
+        assertEquals(Schema.INT32_SCHEMA, transformedRecord.headers().lastWithName("v").schema());
+        assertEquals(2, transformedRecord.headers().lastWithName("v").value());
+        assertTrue(record.headers().isEmpty());
+    }
+
+    @Test
+    public void headerTargetSchemalessDropKey() {
+        Map<String, String> configs = new HashMap<>();
+        configs.put("keyField", "k");
+        configs.put("msgField", "v");
+        configs.put("target", "header");
+        configs.put("dropKey", "true");
+
+        transform.configure(configs);
+
+        final HashMap<String, Object> key = new HashMap<>();
+        key.put("k", 2);
+
+        final HashMap<String, Object> value = new HashMap<>();
+        value.put("a", 1);
+
+        final SourceRecord record = new SourceRecord(null, null, "topic", 0, null, key, null, value);
+        final SourceRecord transformedRecord = transform.apply(record);
+
+        assertNull(transformedRecord.key());
+        assertSame(value, transformedRecord.value());
+        assertEquals(2, transformedRecord.headers().lastWithName("v").value());
+        assertEquals(1, value.size());
+    }
+
 }
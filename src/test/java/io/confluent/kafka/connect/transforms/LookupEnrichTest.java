@@ -0,0 +1,161 @@
+package io.confluent.kafka.connect.transforms;
+
+import io.confluent.kafka.connect.lookup.LookupIndexBuilder;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LookupEnrichTest {
+
+    @TempDir
+    Path dir;
+
+    private final LookupEnrich<SourceRecord> xform = new LookupEnrich<>();
+
+    @AfterEach
+    public void tearDown() {
+        xform.close();
+    }
+
+    private Path index(String... lines) throws IOException {
+        final Path input = dir.resolve("devices.csv");
+        Files.write(input, Arrays.asList(lines), StandardCharsets.UTF_8);
+        final Path output = dir.resolve("devices.idx");
+        LookupIndexBuilder.build(input, output, ',');
+        return output;
+    }
+
+    private Map<String, Object> props(Path file) {
+        final Map<String, Object> props = new HashMap<>();
+        props.put("lookup.file", file.toString());
+        props.put("key.field", "device");
+        props.put("reload.interval.ms", "0");
+        return props;
+    }
+
+    @Test
+    public void schemalessAppendsFields() throws IOException {
+        xform.configure(props(index("device,site,owner", "d-1,berlin,alice")));
+
+        final Map<String, Object> value = new HashMap<>();
+        value.put("device", "d-1");
+        value.put("reading", 42);
+        final SourceRecord transformed = xform.apply(new SourceRecord(null, null, "test", 0, null, value));
+
+        final Map<?, ?> updated = (Map<?, ?>) transformed.value();
+        assertEquals("berlin", updated.get("site"));
+        assertEquals("alice", updated.get("owner"));
+        assertEquals(42, updated.get("reading"));
+        assertEquals(2, value.size());
+
+        final SourceRecord missing = xform.apply(new SourceRecord(null, null, "test", 0, null, Collections.singletonMap("device", "d-9")));
+        assertTrue(((Map<?, ?>) missing.value()).containsKey("site"));
+        assertNull(((Map<?, ?>) missing.value()).get("site"));
+    }
+
+    @Test
+    public void withSchemaAppendsSelectedPrefixedFields() throws IOException {
+        final Map<String, Object> props = props(index("device,site,owner", "42,berlin,alice"));
+        props.put("fields", "owner");
+        props.put("field.prefix", "device_");
+        xform.configure(props);
+
+        final Schema schema = SchemaBuilder.struct().name("reading").version(3)
+                .field("device", Schema.INT64_SCHEMA)
+                .field("reading", Schema.INT32_SCHEMA)
+                .build();
+        final SourceRecord transformed = xform.apply(new SourceRecord(null, null, "test", 0, schema,
+                new Struct(schema).put("device", 42L).put("reading", 7)));
+
+        final Struct updated = (Struct) transformed.value();
+        assertEquals("alice", updated.getString("device_owner"));
+        assertEquals(7, updated.getInt32("reading"));
+        assertNull(transformed.valueSchema().field("device_site"));
+        assertEquals(Schema.OPTIONAL_STRING_SCHEMA, transformed.valueSchema().field("device_owner").schema());
+        assertEquals("reading", transformed.valueSchema().name());
+
+        final SourceRecord again = xform.apply(new SourceRecord(null, null, "test", 0, schema,
+                new Struct(schema).put("device", 1L).put("reading", 8)));
+        assertSame(transformed.valueSchema(), again.valueSchema());
+        assertNull(((Struct) again.value()).getString("device_owner"));
+    }
+
+    @Test
+    public void missingKeyFieldWithSchema() throws IOException {
+        xform.configure(props(index("device,site", "d-1,berlin")));
+
+        final Schema schema = SchemaBuilder.struct().field("other", Schema.STRING_SCHEMA).build();
+        assertThrows(DataException.class, () -> xform.apply(new SourceRecord(null, null, "test", 0, schema,
+                new Struct(schema).put("other", "x"))));
+    }
+
+    @Test
+    public void unknownFieldOrFileRejected() throws IOException {
+        final Map<String, Object> props = props(index("device,site", "d-1,berlin"));
+        props.put("fields", "owner");
+        assertThrows(ConfigException.class, () -> xform.configure(props));
+
+        assertThrows(ConfigException.class, () -> xform.configure(props(dir.resolve("missing.idx"))));
+    }
+
+    @Test
+    public void reloadsReplacedFile() throws Exception {
+        final Path file = index("device,site", "d-1,berlin");
+        xform.configure(props(file));
+
+        final SourceRecord record = new SourceRecord(null, null, "test", 0, null, Collections.singletonMap("device", "d-1"));
+        assertEquals("berlin", ((Map<?, ?>) xform.apply(record).value()).get("site"));
+
+        index("device,site", "d-1,paris");
+        xform.reloadIfReplaced();
+        assertEquals("paris", ((Map<?, ?>) xform.apply(record).value()).get("site"));
+
+        //a broken replacement keeps the last good data
+        final Path broken = dir.resolve("broken");
+        Files.write(broken, new byte[8]);
+        Files.move(broken, file, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+        xform.reloadIfReplaced();
+        assertEquals("paris", ((Map<?, ?>) xform.apply(record).value()).get("site"));
+    }
+
+    @Test
+    public void reconfigureStopsThePreviousReloader() throws Exception {
+        final Path file = Files.move(index("device,site", "d-1,berlin"), dir.resolve("reconfigured.idx"));
+        final Map<String, Object> props = props(file);
+        props.put("reload.interval.ms", "60000");
+        xform.configure(props);
+        xform.configure(props);
+        awaitReloaderThreads("lookup-enrich-reload-reconfigured.idx", 1);
+
+        xform.close();
+        awaitReloaderThreads("lookup-enrich-reload-reconfigured.idx", 0);
+    }
+
+    //a shut down executor's thread ends shortly after
+    private static void awaitReloaderThreads(String name, long expected) throws InterruptedException {
+        final long deadline = System.nanoTime() + java.util.concurrent.TimeUnit.SECONDS.toNanos(5);
+        long threads;
+        while ((threads = Thread.getAllStackTraces().keySet().stream().filter(t -> t.getName().equals(name)).count()) != expected
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, threads);
+    }
+}
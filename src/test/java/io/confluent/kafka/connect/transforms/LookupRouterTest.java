@@ -0,0 +1,136 @@
+package io.confluent.kafka.connect.transforms;
+
+import io.confluent.kafka.connect.lookup.RouteIndexBuilder;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LookupRouterTest {
+
+    @TempDir
+    Path dir;
+
+    private final LookupRouter<SourceRecord> xform = new LookupRouter<>();
+
+    @AfterEach
+    public void tearDown() {
+        xform.close();
+    }
+
+    private Path routes(String... lines) throws IOException {
+        final Path input = dir.resolve("customers.csv");
+        Files.write(input, Arrays.asList(lines), StandardCharsets.UTF_8);
+        final Path output = dir.resolve("customers.routes");
+        RouteIndexBuilder.build(input, output, ',');
+        return output;
+    }
+
+    private Map<String, Object> props(Path file) {
+        final Map<String, Object> props = new HashMap<>();
+        props.put("lookup.file", file.toString());
+        props.put("field.name", "customer_id");
+        props.put("reload.interval.ms", "0");
+        return props;
+    }
+
+    private static SourceRecord record(Object customerId) {
+        return new SourceRecord(null, null, "orders", 0, null, Collections.singletonMap("customer_id", customerId));
+    }
+
+    @Test
+    public void schemalessRoutesMappedKeys() throws IOException {
+        xform.configure(props(routes("customer_id,topic", "c-1,orders-acme", "42,orders-globex")));
+
+        final SourceRecord routed = xform.apply(record("c-1"));
+        assertEquals("orders-acme", routed.topic());
+        assertEquals(Collections.singletonMap("customer_id", "c-1"), routed.value());
+        assertEquals("orders-globex", xform.apply(record(42L)).topic());
+        assertEquals("orders-globex", xform.apply(record(42)).topic());
+
+        final SourceRecord unmapped = record("c-2");
+        assertSame(unmapped, xform.apply(unmapped));
+        final SourceRecord missing = new SourceRecord(null, null, "orders", 0, null, Collections.singletonMap("other", "c-1"));
+        assertSame(missing, xform.apply(missing));
+    }
+
+    @Test
+    public void withSchemaRoutesMappedKeys() throws IOException {
+        xform.configure(props(routes("customer_id,topic", "1001,orders-acme")));
+
+        final Schema schema = SchemaBuilder.struct()
+                .field("customer_id", Schema.INT64_SCHEMA)
+                .field("amount", Schema.FLOAT64_SCHEMA)
+                .build();
+        final Struct value = new Struct(schema).put("customer_id", 1001L).put("amount", 9.5);
+        final SourceRecord routed = xform.apply(new SourceRecord(null, null, "orders", 0, null, null, schema, value));
+
+        assertEquals("orders-acme", routed.topic());
+        assertSame(value, routed.value());
+    }
+
+    @Test
+    public void withSchemaMissingFieldThrows() throws IOException {
+        xform.configure(props(routes("customer_id,topic", "c-1,orders-acme")));
+
+        final Schema schema = SchemaBuilder.struct().field("other", Schema.STRING_SCHEMA).build();
+        assertThrows(DataException.class, () -> xform.apply(new SourceRecord(null, null, "orders", 0, null, null, schema,
+                new Struct(schema).put("other", "x"))));
+    }
+
+    @Test
+    public void rawJsonRoutesWithoutParsing() throws IOException {
+        final Map<String, Object> props = props(routes("customer_id,topic", "c-1,orders-acme"));
+        props.put("field.name", "customer.id");
+        props.put("raw.json", "true");
+        xform.configure(props);
+
+        final byte[] bytes = "{\"customer\": {\"id\": \"c-1\"}, \"amount\": 3}".getBytes(StandardCharsets.UTF_8);
+        final SourceRecord routed = xform.apply(new SourceRecord(null, null, "orders", 0, null, null, null, bytes));
+        assertEquals("orders-acme", routed.topic());
+        assertSame(bytes, routed.value());
+    }
+
+    @Test
+    public void missingOrInvalidFileRejected() throws IOException {
+        assertThrows(ConfigException.class, () -> xform.configure(props(dir.resolve("missing.routes"))));
+
+        final Path notAnIndex = dir.resolve("not.routes");
+        Files.write(notAnIndex, new byte[64]);
+        assertThrows(ConfigException.class, () -> xform.configure(props(notAnIndex)));
+    }
+
+    @Test
+    public void reloadsReplacedFile() throws Exception {
+        final Path file = routes("customer_id,topic", "c-1,orders-acme");
+        xform.configure(props(file));
+        assertEquals("orders-acme", xform.apply(record("c-1")).topic());
+
+        routes("customer_id,topic", "c-1,orders-initech");
+        xform.reloadIfReplaced();
+        assertEquals("orders-initech", xform.apply(record("c-1")).topic());
+
+        //a broken replacement keeps the last good routes
+        final Path broken = dir.resolve("broken");
+        Files.write(broken, new byte[8]);
+        Files.move(broken, file, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+        xform.reloadIfReplaced();
+        assertEquals("orders-initech", xform.apply(record("c-1")).topic());
+    }
+}
@@ -0,0 +1,161 @@
+package io.confluent.kafka.connect.transforms;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes small IPv4 MaxMind DB files for tests: a 24-bit record search tree, a data section of maps, strings,
+ * doubles and unsigned ints, and the metadata section, following the MaxMind DB format specification.
+ */
+final class MmdbTestWriter {
+
+    private final List<int[]> nodes = new ArrayList<>();
+    private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+    private final String databaseType;
+
+    private static final int EMPTY = -1;
+
+    MmdbTestWriter(String databaseType) {
+        this.databaseType = databaseType;
+        nodes.add(new int[]{EMPTY, EMPTY});
+    }
+
+    /**
+     * Maps every address in {@code network/prefixLength} to the record.
+     */
+    MmdbTestWriter insert(String network, int prefixLength, Map<String, Object> record) throws IOException {
+        final String[] parts = network.split("\\.");
+        long address = 0;
+        for (String part : parts) {
+            address = address << 8 | Integer.parseInt(part);
+        }
+        final int dataOffset = data.size();
+        encode(record, data);
+
+        int node = 0;
+        for (int bit = 0; bit < prefixLength; bit++) {
+            final int side = (int) (address >>> (31 - bit) & 1);
+            if (bit == prefixLength - 1) {
+                nodes.get(node)[side] = -2 - dataOffset;
+            } else {
+                if (nodes.get(node)[side] == EMPTY) {
+                    nodes.add(new int[]{EMPTY, EMPTY});
+                    nodes.get(node)[side] = nodes.size() - 1;
+                }
+                node = nodes.get(node)[side];
+            }
+        }
+        return this;
+    }
+
+    void write(Path path) throws IOException {
+        final int nodeCount = nodes.size();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int[] node : nodes) {
+            for (int record : node) {
+                final int value;
+                if (record == EMPTY) {
+                    value = nodeCount;
+                } else if (record < EMPTY) {
+                    value = nodeCount + 16 + (-2 - record);
+                } else {
+                    value = record;
+                }
+                out.write(value >>> 16);
+                out.write(value >>> 8);
+                out.write(value);
+            }
+        }
+        out.write(new byte[16]);
+        data.writeTo(out);
+
+        out.write(new byte[]{(byte) 0xAB, (byte) 0xCD, (byte) 0xEF});
+        out.write("MaxMind.com".getBytes(StandardCharsets.UTF_8));
+        final Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("node_count", new Unsigned(nodeCount, 6));
+        metadata.put("record_size", new Unsigned(24, 5));
+        metadata.put("ip_version", new Unsigned(4, 5));
+        metadata.put("database_type", databaseType);
+        metadata.put("languages", new ArrayList<>(java.util.Collections.singletonList("en")));
+        metadata.put("binary_format_major_version", new Unsigned(2, 5));
+        metadata.put("binary_format_minor_version", new Unsigned(0, 5));
+        metadata.put("build_epoch", new Unsigned(1_600_000_000L, 9));
+        metadata.put("description", java.util.Collections.singletonMap("en", "test database"));
+        encode(metadata, out);
+
+        Files.write(path, out.toByteArray());
+    }
+
+    //unsigned int of MMDB type 5 (uint16), 6 (uint32) or 9 (uint64)
+    static final class Unsigned {
+        final long value;
+        final int type;
+
+        Unsigned(long value, int type) {
+            this.value = value;
+            this.type = type;
+        }
+    }
+
+    private static void encode(Object value, ByteArrayOutputStream out) throws IOException {
+        if (value instanceof String) {
+            final byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+            control(out, 2, bytes.length);
+            out.write(bytes);
+        } else if (value instanceof Double) {
+            control(out, 3, 8);
+            out.write(ByteBuffer.allocate(8).putDouble((Double) value).array());
+        } else if (value instanceof Integer || value instanceof Long) {
+            encode(new Unsigned(((Number) value).longValue(), 6), out);
+        } else if (value instanceof Unsigned) {
+            final Unsigned unsigned = (Unsigned) value;
+            int length = 0;
+            for (long v = unsigned.value; v != 0; v >>>= 8) {
+                length++;
+            }
+            control(out, unsigned.type, length);
+            for (int i = length - 1; i >= 0; i--) {
+                out.write((int) (unsigned.value >>> (8 * i)));
+            }
+        } else if (value instanceof Map) {
+            final Map<?, ?> map = (Map<?, ?>) value;
+            control(out, 7, map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                encode(entry.getKey().toString(), out);
+                encode(entry.getValue(), out);
+            }
+        } else if (value instanceof List) {
+            final List<?> list = (List<?>) value;
+            control(out, 11, list.size());
+            for (Object element : list) {
+                encode(element, out);
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported type " + value);
+        }
+    }
+
+    private static void control(ByteArrayOutputStream out, int type, int size) {
+        if (size >= 29 + 256) {
+            throw new IllegalArgumentException("Sizes over 284 are not needed by the tests");
+        }
+        final int sizeBits = Math.min(size, 29);
+        if (type <= 7) {
+            out.write(type << 5 | sizeBits);
+        } else {
+            out.write(sizeBits);
+            out.write(type - 7);
+        }
+        if (size >= 29) {
+            out.write(size - 29);
+        }
+    }
+}
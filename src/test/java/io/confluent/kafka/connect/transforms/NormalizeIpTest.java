@@ -0,0 +1,162 @@
+package io.confluent.kafka.connect.transforms;
+
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NormalizeIpTest {
+
+    private final NormalizeIp<SourceRecord> xformValue = new NormalizeIp.Value<>();
+    private final NormalizeIp<SourceRecord> xformKey = new NormalizeIp.Key<>();
+
+    private static final Schema SCHEMA = SchemaBuilder.struct().name("event")
+            .field("ip", Schema.STRING_SCHEMA)
+            .field("message", Schema.OPTIONAL_STRING_SCHEMA)
+            .build();
+
+    @AfterEach
+    public void tearDown() {
+        xformValue.close();
+        xformKey.close();
+    }
+
+    private static Map<String, String> props(String format) {
+        final Map<String, String> props = new HashMap<>();
+        props.put("field.name", "ip");
+        props.put("format", format);
+        return props;
+    }
+
+    private SourceRecord structRecord(String ip) {
+        return new SourceRecord(null, null, "test", 0, null, null, SCHEMA, new Struct(SCHEMA).put("ip", ip).put("message", "hello"));
+    }
+
+    @Test
+    public void withSchemaInt64() {
+        xformValue.configure(props("int64"));
+
+        final SourceRecord transformed = xformValue.apply(structRecord("\"192.168.1.1\""));
+        final Schema ipSchema = transformed.valueSchema().field("ip").schema();
+        assertEquals(Schema.Type.INT64, ipSchema.type());
+        assertEquals(NormalizeIp.IPV4_SCHEMA_NAME, ipSchema.name());
+        assertFalse(ipSchema.isOptional());
+        assertEquals("event", transformed.valueSchema().name());
+
+        final Struct value = (Struct) transformed.value();
+        assertEquals(0xc0a80101L, value.getInt64("ip"));
+        assertEquals("hello", value.getString("message"));
+        assertEquals(3232235777L, ((Struct) xformValue.apply(structRecord("::ffff:192.168.1.1")).value()).getInt64("ip"));
+
+        assertThrows(DataException.class, () -> xformValue.apply(structRecord("2001:db8::1")));
+    }
+
+    @Test
+    public void withSchemaBytes() {
+        xformValue.configure(props("bytes"));
+
+        final SourceRecord transformed = xformValue.apply(structRecord("2001:db8::1"));
+        final Schema ipSchema = transformed.valueSchema().field("ip").schema();
+        assertEquals(Schema.Type.BYTES, ipSchema.type());
+        assertEquals(NormalizeIp.IP_SCHEMA_NAME, ipSchema.name());
+
+        final byte[] expected = new byte[16];
+        expected[0] = 0x20;
+        expected[1] = 0x01;
+        expected[2] = 0x0d;
+        expected[3] = (byte) 0xb8;
+        expected[15] = 1;
+        assertArrayEquals(expected, ((Struct) transformed.value()).getBytes("ip"));
+
+        final byte[] mapped = ((Struct) xformValue.apply(structRecord("10.0.0.1")).value()).getBytes("ip");
+        assertArrayEquals(new byte[]{0, 0, 0, 0, 0, 0, 0, 0, 0, 0, -1, -1, 10, 0, 0, 1}, mapped);
+    }
+
+    @Test
+    public void withSchemaText() {
+        xformValue.configure(props("text"));
+
+        final SourceRecord transformed = xformValue.apply(structRecord("2001:0DB8:0:0:0:0:0:0001"));
+        assertEquals(Schema.Type.STRING, transformed.valueSchema().field("ip").schema().type());
+        assertEquals("2001:db8::1", ((Struct) transformed.value()).getString("ip"));
+        assertEquals("10.0.0.1", ((Struct) xformValue.apply(structRecord("\"010.000.000.001\"")).value()).getString("ip"));
+    }
+
+    @Test
+    public void updatedSchemaIsCachedPerSourceSchema() {
+        xformValue.configure(props("bytes"));
+
+        final Schema first = xformValue.apply(structRecord("10.0.0.1")).valueSchema();
+        assertSame(first, xformValue.apply(structRecord("10.0.0.2")).valueSchema());
+    }
+
+    @Test
+    public void invalidValueFailsOrBecomesNull() {
+        xformValue.configure(props("bytes"));
+        assertThrows(DataException.class, () -> xformValue.apply(structRecord("not an ip")));
+
+        final Map<String, String> props = props("bytes");
+        props.put("on.invalid", "null");
+        xformValue.configure(props);
+        final SourceRecord transformed = xformValue.apply(structRecord("not an ip"));
+        assertTrue(transformed.valueSchema().field("ip").schema().isOptional());
+        assertNull(((Struct) transformed.value()).get("ip"));
+    }
+
+    @Test
+    public void withSchemaRejectsMissingOrNonStringField() {
+        xformValue.configure(props("int64"));
+
+        final Schema noIp = SchemaBuilder.struct().field("message", Schema.STRING_SCHEMA).build();
+        assertThrows(DataException.class, () -> xformValue.apply(new SourceRecord(null, null, "test", 0, null, null,
+                noIp, new Struct(noIp).put("message", "x"))));
+
+        final Schema intIp = SchemaBuilder.struct().field("ip", Schema.INT32_SCHEMA).build();
+        assertThrows(DataException.class, () -> xformValue.apply(new SourceRecord(null, null, "test", 0, null, null,
+                intIp, new Struct(intIp).put("ip", 1))));
+    }
+
+    @Test
+    public void schemalessValue() {
+        xformValue.configure(props("int64"));
+
+        final Map<String, Object> value = new HashMap<>();
+        value.put("ip", "10.0.0.1");
+        value.put("message", "hello");
+        final SourceRecord transformed = xformValue.apply(new SourceRecord(null, null, "test", 0, null, value));
+
+        final Map<?, ?> updated = (Map<?, ?>) transformed.value();
+        assertEquals(0x0a000001L, updated.get("ip"));
+        assertEquals("hello", updated.get("message"));
+        assertEquals("10.0.0.1", value.get("ip"));
+
+        final SourceRecord missing = new SourceRecord(null, null, "test", 0, null, Collections.singletonMap("message", "x"));
+        assertSame(missing, xformValue.apply(missing));
+    }
+
+    @Test
+    public void schemalessKey() {
+        xformKey.configure(props("text"));
+
+        final SourceRecord record = new SourceRecord(null, null, "test", 0, null, Collections.singletonMap("ip", "FE80::0001"), null, null);
+        final SourceRecord transformed = xformKey.apply(record);
+
+        assertEquals("fe80::1", ((Map<?, ?>) transformed.key()).get("ip"));
+        assertNull(transformed.value());
+    }
+
+    @Test
+    public void invalidFormatRejected() {
+        assertThrows(ConfigException.class, () -> xformValue.configure(props("hex")));
+    }
+}
@@ -0,0 +1,189 @@
+package io.confluent.kafka.connect.transforms;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OverlayMapTest {
+
+    @Test
+    public void addsNewEntry() {
+        final Map<String, Object> base = new HashMap<>();
+        base.put("a", 1);
+
+        final Map<String, Object> overlay = new OverlayMap<>(base, "b", 2);
+
+        final Map<String, Object> expected = new HashMap<>();
+        expected.put("a", 1);
+        expected.put("b", 2);
+
+        assertEquals(2, overlay.size());
+        assertEquals(expected, overlay);
+        assertEquals(overlay, expected);
+        assertEquals(expected.hashCode(), overlay.hashCode());
+        assertEquals(1, base.size());
+    }
+
+    @Test
+    public void shadowsExistingEntry() {
+        final Map<String, Object> base = new HashMap<>();
+        base.put("a", 1);
+        base.put("b", 1);
+
+        final Map<String, Object> overlay = new OverlayMap<>(base, "b", 2);
+
+        assertEquals(2, overlay.size());
+        assertEquals(2, overlay.get("b"));
+        assertEquals(2, overlay.entrySet().size());
+        assertEquals(1, base.get("b"));
+    }
+
+    @Test
+    public void overlayNullValue() {
+        final Map<String, Object> base = new HashMap<>();
+        base.put("a", 1);
+
+        final Map<String, Object> overlay = new OverlayMap<>(base, "a", null);
+
+        assertTrue(overlay.containsKey("a"));
+        assertNull(overlay.get("a"));
+        assertEquals(1, overlay.size());
+    }
+
+    @Test
+    public void copyOnWrite() {
+        final Map<String, Object> base = new HashMap<>();
+        base.put("a", 1);
+
+        final Map<String, Object> overlay = new OverlayMap<>(base, "b", 2);
+        overlay.put("c", 3);
+        overlay.remove("a");
+
+        assertEquals(2, overlay.size());
+        assertEquals(2, overlay.get("b"));
+        assertEquals(3, overlay.get("c"));
+        assertFalse(overlay.containsKey("a"));
+
+        assertEquals(1, base.size());
+        assertEquals(1, base.get("a"));
+    }
+
+    @Test
+    public void iteratorRemoveCopiesBase() {
+        final Map<String, Object> base = new HashMap<>();
+        base.put("a", 1);
+        base.put("c", 3);
+
+        final Map<String, Object> overlay = new OverlayMap<>(base, "b", 2);
+
+        final Iterator<Map.Entry<String, Object>> iterator = overlay.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getKey().equals("a")) {
+                iterator.remove();
+                assertThrows(IllegalStateException.class, iterator::remove);
+            }
+        }
+
+        assertEquals(2, overlay.size());
+        assertFalse(overlay.containsKey("a"));
+        assertEquals(2, base.size());
+        assertEquals(1, base.get("a"));
+    }
+
+    @Test
+    public void entrySetValueCopiesBase() {
+        final Map<String, Object> base = new HashMap<>();
+        base.put("a", 1);
+        base.put("b", 1);
+        base.put("c", 3);
+
+        final Map<String, Object> overlay = new OverlayMap<>(base, "b", 2);
+        for (Map.Entry<String, Object> entry : overlay.entrySet()) {
+            entry.setValue((Integer) entry.getValue() * 10);
+            assertEquals(overlay.get(entry.getKey()), entry.getValue());
+        }
+
+        final Map<String, Object> expected = new HashMap<>();
+        expected.put("a", 10);
+        expected.put("b", 20);
+        expected.put("c", 30);
+        assertEquals(expected, overlay);
+
+        assertEquals(1, base.get("a"));
+        assertEquals(1, base.get("b"));
+        assertEquals(3, base.get("c"));
+    }
+
+    @Test
+    public void followsLaterChangesToBase() {
+        final Map<String, Object> base = new HashMap<>();
+        base.put("a", 1);
+
+        final Map<String, Object> overlay = new OverlayMap<>(base, "b", 2);
+        assertEquals(2, overlay.size());
+
+        base.put("b", 1);
+        assertEquals(2, overlay.size());
+        assertEquals(2, overlay.get("b"));
+        assertEquals(2, overlay.entrySet().stream().count());
+
+        base.remove("b");
+        base.put("c", 3);
+        final Map<String, Object> expected = new HashMap<>();
+        expected.put("a", 1);
+        expected.put("b", 2);
+        expected.put("c", 3);
+        assertEquals(expected, overlay);
+    }
+
+    @Test
+    public void collectedEntriesAreIndependent() {
+        final Map<String, Object> base = new HashMap<>();
+        base.put("a", 1);
+        base.put("c", 3);
+
+        final Map<String, Object> overlay = new OverlayMap<>(base, "b", 2);
+        final List<Map.Entry<String, Object>> entries = new ArrayList<>(overlay.entrySet());
+        entries.sort(Map.Entry.comparingByKey());
+
+        assertEquals(Arrays.asList("a", "b", "c"), entries.stream().map(Map.Entry::getKey).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(1, 2, 3), entries.stream().map(Map.Entry::getValue).collect(Collectors.toList()));
+        assertEquals(Arrays.asList("a", "b", "c"), overlay.entrySet().stream().map(Map.Entry::getKey).sorted().collect(Collectors.toList()));
+
+        entries.get(0).setValue(10);
+        assertEquals(10, overlay.get("a"));
+        assertEquals(1, base.get("a"));
+    }
+
+    @Test
+    public void entriesKeptAcrossNextStayValid() {
+        final Map<String, Integer> base = new HashMap<>();
+        base.put("a", 1);
+        base.put("c", 3);
+
+        final Map<String, Integer> overlay = new OverlayMap<>(base, "b", 5);
+        final List<Map.Entry<String, Integer>> kept = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : overlay.entrySet()) {
+            kept.add(entry);
+        }
+        kept.sort(Map.Entry.comparingByKey());
+
+        assertEquals(Arrays.asList("a", "b", "c"), kept.stream().map(Map.Entry::getKey).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(1, 5, 3), kept.stream().map(Map.Entry::getValue).collect(Collectors.toList()));
+        assertEquals("b", Collections.max(overlay.entrySet(), Map.Entry.comparingByValue()).getKey());
+
+        kept.get(0).setValue(10);
+        assertEquals(10, kept.get(0).getValue());
+        assertEquals(3, kept.get(2).getValue());
+        assertEquals(1, base.get("a"));
+    }
+}
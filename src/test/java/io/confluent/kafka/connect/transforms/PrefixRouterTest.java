@@ -0,0 +1,159 @@
+package io.confluent.kafka.connect.transforms;
+
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrefixRouterTest {
+
+    private final PrefixRouter<SourceRecord> xform = new PrefixRouter<>();
+
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    public void tearDown() {
+        xform.close();
+    }
+
+    private static Map<String, String> props(String rules) {
+        final Map<String, String> props = new HashMap<>();
+        props.put("field.name", "host");
+        props.put("rules", rules);
+        return props;
+    }
+
+    private static SourceRecord record(Object host) {
+        return new SourceRecord(null, null, "logs", 0, null, Collections.singletonMap("host", host));
+    }
+
+    //written next to the target and moved over it, the way a deployment replaces the file
+    private Path rulesFile(String... lines) throws IOException {
+        final Path file = dir.resolve("rules.txt");
+        final Path temp = Files.createTempFile(dir, "rules", ".tmp");
+        Files.write(temp, Arrays.asList(lines), StandardCharsets.UTF_8);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        return file;
+    }
+
+    @Test
+    public void schemalessRoutesByLongestPrefix() {
+        xform.configure(props("web-*=web,web-eu-=web-eu,db=databases"));
+
+        assertEquals("web-eu", xform.apply(record("web-eu-01")).topic());
+        assertEquals("web", xform.apply(record("web-us-01")).topic());
+        assertEquals("databases", xform.apply(record("db7")).topic());
+
+        final SourceRecord unmatched = record("cache-1");
+        assertSame(unmatched, xform.apply(unmatched));
+    }
+
+    @Test
+    public void schemalessMissingFieldKeepsOriginalTopic() {
+        xform.configure(props("=everything"));
+
+        final SourceRecord record = new SourceRecord(null, null, "logs", 0, null, Collections.singletonMap("other", "x"));
+        assertSame(record, xform.apply(record));
+        assertEquals("everything", xform.apply(record("x")).topic());
+    }
+
+    @Test
+    public void withSchemaRoutes() {
+        xform.configure(props("5=server-errors,4=client-errors"));
+
+        final Schema schema = SchemaBuilder.struct()
+                .field("host", Schema.INT32_SCHEMA)
+                .field("message", Schema.STRING_SCHEMA)
+                .build();
+        final Struct value = new Struct(schema).put("host", 503).put("message", "unavailable");
+        final SourceRecord routed = xform.apply(new SourceRecord(null, null, "logs", 0, null, null, schema, value));
+
+        assertEquals("server-errors", routed.topic());
+        assertSame(value, routed.value());
+    }
+
+    @Test
+    public void withSchemaMissingFieldThrows() {
+        xform.configure(props("a=b"));
+
+        final Schema schema = SchemaBuilder.struct().field("message", Schema.STRING_SCHEMA).build();
+        final SourceRecord record = new SourceRecord(null, null, "logs", 0, null, null, schema, new Struct(schema).put("message", "x"));
+
+        final DataException exception = assertThrows(DataException.class, () -> xform.apply(record));
+        assertTrue(exception.getMessage().contains("Field does not exist in the value: host"));
+    }
+
+    @Test
+    public void rawJsonRoutesWithoutParsing() {
+        final Map<String, String> props = props("eu-=europe");
+        props.put("field.name", "source.host");
+        props.put("raw.json", "true");
+        xform.configure(props);
+
+        final byte[] bytes = "{\"source\": {\"host\": \"eu-web-1\"}}".getBytes(StandardCharsets.UTF_8);
+        final SourceRecord routed = xform.apply(new SourceRecord(null, null, "logs", 0, null, null, null, bytes));
+        assertEquals("europe", routed.topic());
+        assertSame(bytes, routed.value());
+
+        final SourceRecord missing = new SourceRecord(null, null, "logs", 0, null, null, null, "{\"other\": 1}");
+        assertSame(missing, xform.apply(missing));
+    }
+
+    @Test
+    public void fileRulesOverrideConfiguredRules() throws IOException {
+        final Map<String, String> props = props("web=configured,db=configured");
+        props.put("rules.file", rulesFile("# comment", "", "web = from-file", "cache*=caches").toString());
+        xform.configure(props);
+
+        assertEquals("from-file", xform.apply(record("web1")).topic());
+        assertEquals("configured", xform.apply(record("db1")).topic());
+        assertEquals("caches", xform.apply(record("cache1")).topic());
+    }
+
+    @Test
+    public void reloadsReplacedFile() throws IOException {
+        final Map<String, String> props = props("");
+        props.put("rules.file", rulesFile("web=old").toString());
+        xform.configure(props);
+        assertEquals("old", xform.apply(record("web1")).topic());
+
+        rulesFile("web=new", "web1=newer");
+        xform.reloadIfReplaced();
+        assertEquals("newer", xform.apply(record("web1")).topic());
+        assertEquals("new", xform.apply(record("web2")).topic());
+
+        //a broken replacement keeps the last good rules
+        rulesFile("web has no topic");
+        xform.reloadIfReplaced();
+        assertEquals("newer", xform.apply(record("web1")).topic());
+    }
+
+    @Test
+    public void invalidConfigurationRejected() {
+        assertThrows(ConfigException.class, () -> xform.configure(props("")));
+        assertThrows(ConfigException.class, () -> xform.configure(props("web")));
+        assertThrows(ConfigException.class, () -> xform.configure(props("web=")));
+
+        final Map<String, String> missingFile = props("");
+        missingFile.put("rules.file", dir.resolve("missing.txt").toString());
+        assertThrows(ConfigException.class, () -> xform.configure(missingFile));
+    }
+}
@@ -0,0 +1,92 @@
+package io.confluent.kafka.connect.transforms;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrefixTrieTest {
+
+    private static PrefixTrie<String> trie(String... rules) {
+        final Map<String, String> map = new HashMap<>();
+        for (int i = 0; i < rules.length; i += 2) {
+            map.put(rules[i], rules[i + 1]);
+        }
+        return PrefixTrie.compile(map);
+    }
+
+    @Test
+    public void longestPrefixWins() {
+        final PrefixTrie<String> trie = trie("web", "web", "web-eu", "eu", "web-eu-west", "eu-west", "db", "db");
+
+        assertEquals("eu-west", trie.longestPrefix("web-eu-west-1"));
+        assertEquals("eu", trie.longestPrefix("web-eu-north"));
+        assertEquals("eu", trie.longestPrefix("web-eu"));
+        assertEquals("web", trie.longestPrefix("web-us"));
+        assertEquals("db", trie.longestPrefix("db01"));
+        assertNull(trie.longestPrefix("we"));
+        assertNull(trie.longestPrefix("cache"));
+        assertNull(trie.longestPrefix(""));
+        assertEquals(4, trie.size());
+    }
+
+    @Test
+    public void emptyPrefixMatchesEverything() {
+        final PrefixTrie<String> trie = trie("", "default", "a", "a");
+
+        assertEquals("default", trie.longestPrefix(""));
+        assertEquals("default", trie.longestPrefix("b"));
+        assertEquals("a", trie.longestPrefix("ab"));
+    }
+
+    @Test
+    public void emptyTrieMatchesNothing() {
+        assertNull(trie().longestPrefix("anything"));
+        assertEquals(0, trie().size());
+    }
+
+    @Test
+    public void sharedPrefixesAreCompressed() {
+        final PrefixTrie<String> trie = trie("host-0001", "a", "host-0002", "b", "host-1", "c");
+
+        //root, "host-", "000", "1" below "000", "2" below "000" and "1"
+        assertEquals(6, trie.nodes());
+        assertEquals("a", trie.longestPrefix("host-0001.example"));
+        assertEquals("b", trie.longestPrefix("host-0002"));
+        assertEquals("c", trie.longestPrefix("host-1"));
+        assertNull(trie.longestPrefix("host-0003"));
+        assertNull(trie.longestPrefix("host-"));
+    }
+
+    @Test
+    public void matchesLinearScanOnRandomRules() {
+        final Random random = new Random(42);
+        final Map<String, String> rules = new HashMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            final String prefix = randomKey(random, 1 + random.nextInt(8));
+            rules.put(prefix, "topic-" + prefix);
+        }
+        final PrefixTrie<String> trie = PrefixTrie.compile(rules);
+        assertEquals(rules.size(), trie.size());
+
+        for (int i = 0; i < 20_000; i++) {
+            final String key = randomKey(random, random.nextInt(12));
+            String expected = null;
+            for (int length = key.length(); length >= 0 && expected == null; length--) {
+                expected = rules.get(key.substring(0, length));
+            }
+            assertEquals(expected, trie.longestPrefix(key), key);
+        }
+    }
+
+    private static String randomKey(Random random, int length) {
+        final StringBuilder key = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            key.append("abcdef\u00e9\u4e2d".charAt(random.nextInt(8)));
+        }
+        return key.toString();
+    }
+}
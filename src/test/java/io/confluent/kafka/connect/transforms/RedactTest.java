@@ -0,0 +1,207 @@
+package io.confluent.kafka.connect.transforms;
+
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RedactTest {
+
+    private static final Schema SCHEMA = SchemaBuilder.struct()
+            .field("message", Schema.OPTIONAL_STRING_SCHEMA)
+            .field("note", Schema.OPTIONAL_STRING_SCHEMA)
+            .field("count", Schema.INT32_SCHEMA)
+            .build();
+
+    private final Redact<SourceRecord> xform = new Redact<>();
+
+    @AfterEach
+    public void tearDown() {
+        xform.close();
+    }
+
+    private Map<String, String> props(String fields) {
+        final Map<String, String> props = new HashMap<>();
+        props.put("fields", fields);
+        return props;
+    }
+
+    private String redact(String text) {
+        final String redacted = xform.redact(text);
+        return redacted == null ? text : redacted;
+    }
+
+    @Test
+    public void masksBuiltInPatterns() {
+        xform.configure(props("message"));
+
+        assertEquals("mail [EMAIL], or [EMAIL].", redact("mail jane.doe+tag@example.co.uk, or j_d@mail-server.io."));
+        assertEquals("paid with [CARD] and [CARD]!", redact("paid with 4111 1111 1111 1111 and 5500-0000-0000-0004!"));
+        assertEquals("card=[CARD]", redact("card=4012888888881881"));
+        assertEquals("from [IP] port 22 via [IP] and [[IP]]:443",
+                redact("from 10.0.0.1 port 22 via 2001:db8::1 and [fe80::1]:443"));
+        assertEquals("loopback [IP].", redact("loopback ::1."));
+        assertEquals("user [EMAIL] from [IP] paid [CARD]",
+                redact("user a@b.com from 192.168.1.20 paid 378282246310005"));
+    }
+
+    @Test
+    public void validatorsRejectLookalikes() {
+        xform.configure(props("message"));
+
+        assertNull(xform.redact("order 4111 1111 1111 1112 shipped"));
+        assertNull(xform.redact("at 12:30:45 on 2024.01.15, mac 00:1a:2b:3c:4d:5e"));
+        assertNull(xform.redact("std::vector and Foo::bar, a :: b, 999.1.1.1, 1.2.3, v10.0.0.1"));
+        assertNull(xform.redact("phone 555-0100, id 123456789012, no mail @ here, user@localhost"));
+        assertNull(xform.redact(""));
+    }
+
+    @Test
+    public void luhn() {
+        assertTrue(Redact.isLuhnValid("4111111111111111", 0, 16, null));
+        assertTrue(Redact.isLuhnValid("x 4111-1111-1111-1111", 2, 21, null));
+        assertFalse(Redact.isLuhnValid("4111111111111112", 0, 16, null));
+    }
+
+    @Test
+    public void customPatternsAndReplacement() {
+        final Map<String, String> props = props("message");
+        props.put("patterns", "ssn,email");
+        props.put("patterns.ssn.regex", "\\b(\\d{3})-(\\d{2})-(\\d{4})\\b");
+        xform.configure(props);
+        assertEquals("ssn [SSN] mail [EMAIL] ip 10.0.0.1", redact("ssn 123-45-6789 mail a@b.io ip 10.0.0.1"));
+
+        props.put("replacement", "***");
+        xform.configure(props);
+        assertEquals("ssn *** mail ***", redact("ssn 123-45-6789 mail a@b.io"));
+    }
+
+    @Test
+    public void earlierPatternWinsAtSamePosition() {
+        final Map<String, String> props = props("message");
+        props.put("patterns", "digits,card");
+        props.put("patterns.digits.regex", "\\d{16}");
+        xform.configure(props);
+        assertEquals("[DIGITS]", redact("4111111111111111"));
+    }
+
+    @Test
+    public void laterPatternMatchesSpanRejectedByValidator() {
+        final Map<String, String> props = props("message");
+        props.put("patterns", "card,account,digit");
+        props.put("patterns.account.regex", "(?<!\\d)\\d{16}(?!\\d)");
+        props.put("patterns.digit.regex", "(?<=4)1");
+        xform.configure(props);
+        //fails Luhn, so the account pattern masks it from the same position
+        assertEquals("acct [ACCOUNT] card [CARD]", redact("acct 4111111111111112 card 4111111111111111"));
+        //nothing else matches at the rejected position; one char on, the lookbehinds still see the text before it
+        assertEquals("ref 4[DIGIT]11 1111 1111 1112", redact("ref 4111 1111 1111 1112"));
+    }
+
+    @Test
+    public void longTextIsMaskedInOnePass() {
+        xform.configure(props("message"));
+        final StringBuilder text = new StringBuilder();
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            text.append("line ").append(i).append(" user").append(i).append("@example.com from 10.0.").append(i % 256).append(".1\n");
+            expected.append("line ").append(i).append(" [EMAIL] from [IP]\n");
+        }
+        assertEquals(expected.toString(), redact(text.toString()));
+        //the reused builder starts over for the next text
+        assertEquals("[IP]", redact("10.0.0.1"));
+    }
+
+    @Test
+    public void redactsStructFields() {
+        xform.configure(props("message,note"));
+        final Struct value = new Struct(SCHEMA).put("message", "login from 10.0.0.1").put("note", "ok").put("count", 3);
+        final SourceRecord transformed = xform.apply(new SourceRecord(null, null, "logs", 0, SCHEMA, value));
+
+        final Struct updated = (Struct) transformed.value();
+        assertSame(SCHEMA, transformed.valueSchema());
+        assertEquals("login from [IP]", updated.get("message"));
+        assertEquals("ok", updated.get("note"));
+        assertEquals(3, updated.get("count"));
+        assertEquals("login from 10.0.0.1", value.get("message"));
+    }
+
+    @Test
+    public void unchangedRecordIsReturnedAsIs() {
+        xform.configure(props("message,note"));
+        final SourceRecord record = new SourceRecord(null, null, "logs", 0, SCHEMA,
+                new Struct(SCHEMA).put("message", "nothing to hide").put("count", 1));
+        assertSame(record, xform.apply(record));
+
+        final SourceRecord tombstone = new SourceRecord(null, null, "logs", 0, SCHEMA, null);
+        assertSame(tombstone, xform.apply(tombstone));
+    }
+
+    @Test
+    public void redactsSchemaless() {
+        xform.configure(props("message,note,count"));
+        final Map<String, Object> value = new HashMap<>();
+        value.put("message", "mail a@b.io");
+        value.put("note", "card 4111111111111111");
+        value.put("count", 3);
+        final SourceRecord transformed = xform.apply(new SourceRecord(null, null, "logs", 0, null, value));
+
+        final Map<?, ?> updated = (Map<?, ?>) transformed.value();
+        assertEquals("mail [EMAIL]", updated.get("message"));
+        assertEquals("card [CARD]", updated.get("note"));
+        assertEquals(3, updated.get("count"));
+        assertEquals("mail a@b.io", value.get("message"));
+
+        //the output is writable, entries included, without writing to the input
+        @SuppressWarnings("unchecked")
+        final Map<String, Object> writable = (Map<String, Object>) updated;
+        for (Map.Entry<String, Object> entry : writable.entrySet()) {
+            entry.setValue(String.valueOf(entry.getValue()).toUpperCase());
+        }
+        assertEquals("MAIL [EMAIL]", writable.get("message"));
+        assertEquals("3", writable.get("count"));
+        assertEquals(3, value.get("count"));
+        assertEquals("card 4111111111111111", value.get("note"));
+
+        final SourceRecord clean = new SourceRecord(null, null, "logs", 0, null, Collections.singletonMap("message", "hello"));
+        assertSame(clean, xform.apply(clean));
+    }
+
+    @Test
+    public void invalidFieldsFail() {
+        xform.configure(props("count"));
+        assertThrows(DataException.class, () -> xform.apply(new SourceRecord(null, null, "logs", 0, SCHEMA,
+                new Struct(SCHEMA).put("count", 1))));
+
+        xform.configure(props("missing"));
+        assertThrows(DataException.class, () -> xform.apply(new SourceRecord(null, null, "logs", 0, SCHEMA,
+                new Struct(SCHEMA).put("count", 1))));
+    }
+
+    @Test
+    public void invalidConfigsFail() {
+        final Map<String, String> unknown = props("message");
+        unknown.put("patterns", "email,phone");
+        assertThrows(ConfigException.class, () -> xform.configure(unknown));
+
+        final Map<String, String> badRegex = props("message");
+        badRegex.put("patterns", "bad");
+        badRegex.put("patterns.bad.regex", "([a-z");
+        assertThrows(ConfigException.class, () -> xform.configure(badRegex));
+
+        final Map<String, String> noPatterns = props("message");
+        noPatterns.put("patterns", "");
+        assertThrows(ConfigException.class, () -> xform.configure(noPatterns));
+        assertThrows(ConfigException.class, () -> xform.configure(props("")));
+    }
+}
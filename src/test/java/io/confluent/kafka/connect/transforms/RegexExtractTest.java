@@ -0,0 +1,213 @@
+package io.confluent.kafka.connect.transforms;
+
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RegexExtractTest {
+
+    private static final String ACCESS_LOG = "(?<method>[A-Z]+) (?<path>\\S+) (?<status>\\d{3}) (?<bytes>\\d+)(?: (?<cached>true|false))?";
+
+    private static final Schema SCHEMA = SchemaBuilder.struct()
+            .field("line", Schema.STRING_SCHEMA)
+            .field("host", Schema.OPTIONAL_STRING_SCHEMA)
+            .build();
+
+    private final RegexExtract<SourceRecord> xform = new RegexExtract<>();
+
+    @AfterEach
+    public void tearDown() {
+        xform.close();
+    }
+
+    private Map<String, String> props(String onNoMatch) {
+        final Map<String, String> props = new HashMap<>();
+        props.put("field.name", "line");
+        props.put("regex", ACCESS_LOG);
+        props.put("types", "status:int32, bytes:int64, cached:boolean");
+        props.put("on.no.match", onNoMatch);
+        return props;
+    }
+
+    private static SourceRecord structRecord(String line) {
+        return new SourceRecord(null, null, "logs", 0, SCHEMA, new Struct(SCHEMA).put("line", line).put("host", "web1"));
+    }
+
+    private static SourceRecord mapRecord(String line) {
+        final Map<String, Object> value = new HashMap<>();
+        value.put("line", line);
+        value.put("host", "web1");
+        return new SourceRecord(null, null, "logs", 0, null, value);
+    }
+
+    @Test
+    public void groupNamesFollowGroupNumbers() {
+        assertEquals(Arrays.asList("method", "path", "status", "bytes", "cached"), RegexExtract.groupNames(ACCESS_LOG));
+        assertEquals(Arrays.asList(null, "b"), RegexExtract.groupNames("(a)(?<b>x)(?=y)(?<=z)(?<!w)(?i:q)"));
+        assertEquals(Collections.singletonList("c"), RegexExtract.groupNames("\\(?<a>[(?<b>)]\\Q(?<x>)\\E(?<c>.)"));
+    }
+
+    @Test
+    public void extractsTypedFieldsWithSchema() {
+        xform.configure(props("pass"));
+        final SourceRecord transformed = xform.apply(structRecord("GET /index.html 200 5120 true"));
+
+        final Struct value = (Struct) transformed.value();
+        assertEquals("GET", value.get("method"));
+        assertEquals("/index.html", value.get("path"));
+        assertEquals(200, value.get("status"));
+        assertEquals(5120L, value.get("bytes"));
+        assertEquals(true, value.get("cached"));
+        assertEquals("web1", value.get("host"));
+        assertEquals(Schema.OPTIONAL_INT32_SCHEMA, transformed.valueSchema().field("status").schema());
+        assertEquals(Schema.OPTIONAL_INT64_SCHEMA, transformed.valueSchema().field("bytes").schema());
+        assertEquals(Schema.OPTIONAL_BOOLEAN_SCHEMA, transformed.valueSchema().field("cached").schema());
+        assertEquals(Schema.OPTIONAL_STRING_SCHEMA, transformed.valueSchema().field("method").schema());
+    }
+
+    @Test
+    public void outputSchemaIsCached() {
+        xform.configure(props("pass"));
+        final SourceRecord first = xform.apply(structRecord("GET / 200 1"));
+        final SourceRecord second = xform.apply(structRecord("POST /login 302 0 false"));
+
+        assertSame(first.valueSchema(), second.valueSchema());
+        assertNull(((Struct) first.value()).get("cached"));
+        assertEquals(false, ((Struct) second.value()).get("cached"));
+    }
+
+    @Test
+    public void extractsSchemaless() {
+        final Map<String, String> props = props("pass");
+        props.put("field.prefix", "http_");
+        xform.configure(props);
+        final SourceRecord transformed = xform.apply(mapRecord("line: PUT /a 201 17"));
+
+        assertNull(transformed.valueSchema());
+        final Map<?, ?> value = (Map<?, ?>) transformed.value();
+        assertEquals("PUT", value.get("http_method"));
+        assertEquals(201, value.get("http_status"));
+        assertEquals(17L, value.get("http_bytes"));
+        assertTrue(value.containsKey("http_cached"));
+        assertNull(value.get("http_cached"));
+        assertEquals("line: PUT /a 201 17", value.get("line"));
+    }
+
+    @Test
+    public void noMatchPassesThrough() {
+        xform.configure(props("pass"));
+        final SourceRecord record = structRecord("not an access log");
+        assertSame(record, xform.apply(record));
+
+        final SourceRecord mapRecord = mapRecord("nope");
+        assertSame(mapRecord, xform.apply(mapRecord));
+    }
+
+    @Test
+    public void noMatchAddsNullFields() {
+        xform.configure(props("null"));
+        final SourceRecord transformed = xform.apply(structRecord("not an access log"));
+        final SourceRecord matched = xform.apply(structRecord("GET / 200 1"));
+
+        assertSame(matched.valueSchema(), transformed.valueSchema());
+        final Struct value = (Struct) transformed.value();
+        assertNull(value.get("method"));
+        assertNull(value.get("status"));
+        assertEquals("not an access log", value.get("line"));
+
+        final Map<?, ?> mapValue = (Map<?, ?>) xform.apply(mapRecord("nope")).value();
+        assertTrue(mapValue.containsKey("method"));
+        assertNull(mapValue.get("method"));
+    }
+
+    @Test
+    public void noMatchRoutes() {
+        final Map<String, String> props = props("route");
+        props.put("no.match.topic", "unparsed");
+        xform.configure(props);
+
+        final SourceRecord record = structRecord("not an access log");
+        final SourceRecord routed = xform.apply(record);
+        assertEquals("unparsed", routed.topic());
+        assertSame(record.value(), routed.value());
+        assertSame(record.valueSchema(), routed.valueSchema());
+
+        assertEquals("logs", xform.apply(structRecord("GET / 200 1")).topic());
+        assertEquals("unparsed", xform.apply(mapRecord("nope")).topic());
+    }
+
+    @Test
+    public void nullTextIsNoMatch() {
+        final Schema optional = SchemaBuilder.struct().field("line", Schema.OPTIONAL_STRING_SCHEMA).build();
+        xform.configure(props("null"));
+        final SourceRecord transformed = xform.apply(new SourceRecord(null, null, "logs", 0, optional, new Struct(optional)));
+
+        assertNull(((Struct) transformed.value()).get("method"));
+    }
+
+    @Test
+    public void missingFieldPassesThroughSchemaless() {
+        xform.configure(props("null"));
+        final SourceRecord record = new SourceRecord(null, null, "logs", 0, null, Collections.singletonMap("host", "web1"));
+        assertSame(record, xform.apply(record));
+    }
+
+    @Test
+    public void invalidSchemasFail() {
+        xform.configure(props("pass"));
+        final Schema noField = SchemaBuilder.struct().field("host", Schema.STRING_SCHEMA).build();
+        assertThrows(DataException.class, () -> xform.apply(new SourceRecord(null, null, "logs", 0, noField, new Struct(noField).put("host", "a"))));
+
+        final Schema clash = SchemaBuilder.struct().field("line", Schema.STRING_SCHEMA).field("status", Schema.STRING_SCHEMA).build();
+        assertThrows(DataException.class, () -> xform.apply(new SourceRecord(null, null, "logs", 0, clash,
+                new Struct(clash).put("line", "GET / 200 1").put("status", "ok"))));
+
+        final Schema notText = SchemaBuilder.struct().field("line", Schema.INT32_SCHEMA).build();
+        assertThrows(DataException.class, () -> xform.apply(new SourceRecord(null, null, "logs", 0, notText, new Struct(notText).put("line", 1))));
+    }
+
+    @Test
+    public void unparsableNumberFails() {
+        final Map<String, String> props = props("pass");
+        props.put("regex", "(?<status>\\w+)");
+        props.put("types", "status:int32");
+        xform.configure(props);
+
+        final DataException e = assertThrows(DataException.class, () -> xform.apply(structRecord("OK")));
+        assertTrue(e.getMessage().contains("status"));
+    }
+
+    @Test
+    public void invalidConfigsFail() {
+        final Map<String, String> noGroups = props("pass");
+        noGroups.put("regex", "(\\d+)");
+        assertThrows(ConfigException.class, () -> xform.configure(noGroups));
+
+        final Map<String, String> badRegex = props("pass");
+        badRegex.put("regex", "(?<a>[");
+        assertThrows(ConfigException.class, () -> xform.configure(badRegex));
+
+        final Map<String, String> unknownGroup = props("pass");
+        unknownGroup.put("types", "size:int64");
+        assertThrows(ConfigException.class, () -> xform.configure(unknownGroup));
+
+        final Map<String, String> unknownType = props("pass");
+        unknownType.put("types", "status:short");
+        assertThrows(ConfigException.class, () -> xform.configure(unknownType));
+
+        assertThrows(ConfigException.class, () -> xform.configure(props("route")));
+        assertThrows(ConfigException.class, () -> xform.configure(props("drop")));
+    }
+}
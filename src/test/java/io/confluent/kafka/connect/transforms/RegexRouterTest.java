@@ -1,5 +1,7 @@
 package io.confluent.kafka.connect.transforms;
 
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.config.ConfigValue;
 import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.data.SchemaBuilder;
 import org.apache.kafka.connect.data.Struct;
@@ -7,7 +9,16 @@ import org.apache.kafka.connect.errors.DataException;
 import org.apache.kafka.connect.source.SourceRecord;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
-
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -17,6 +28,9 @@ public class RegexRouterTest {
 
     private RegexRouter<SourceRecord> xform = new RegexRouter<>();
 
+    @TempDir
+    Path dir;
+
     @AfterEach
     public void tearDown() throws Exception {
         xform.close();
@@ -318,5 +332,157 @@ public class RegexRouterTest {
 
         assertEquals("xml-messages", transformedRecord.topic());
     }
-}
 
+    @Test
+    public void rawJsonRoutesWithoutParsing() {
+        final Map<String, String> props = new HashMap<>();
+        props.put("field.name", "event.level");
+        props.put("regex", "ERROR|FATAL");
+        props.put("topic.name", "errors");
+        props.put("raw.json", "true");
+
+        xform.configure(props);
+
+        final byte[] bytes = "{\"event\": {\"level\": \"FATAL\", \"msg\": \"disk full\"}}".getBytes(StandardCharsets.UTF_8);
+        final SourceRecord routed = xform.apply(new SourceRecord(null, null, "logs", 0, null, null, null, bytes));
+        assertEquals("errors", routed.topic());
+        assertSame(bytes, routed.value());
+
+        final String text = "{\"event\": {\"level\": \"INFO\"}}";
+        final SourceRecord record = new SourceRecord(null, null, "logs", 0, null, null, Schema.STRING_SCHEMA, text);
+        assertSame(record, xform.apply(record));
+
+        final SourceRecord missing = new SourceRecord(null, null, "logs", 0, null, null, null, "{\"other\": 1}");
+        assertSame(missing, xform.apply(missing));
+    }
+
+    //written next to the target and moved over it, the way a deployment replaces the file
+    private Path rulesFile(String... lines) throws IOException {
+        final Path file = dir.resolve("routes.txt");
+        final Path temp = Files.createTempFile(dir, "routes", ".tmp");
+        Files.write(temp, Arrays.asList(lines), StandardCharsets.UTF_8);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return file;
+    }
+
+    private Map<String, String> rulesFileProps(Path file) {
+        final Map<String, String> props = new HashMap<>();
+        props.put("field.name", "level");
+        props.put("rules.file", file.toString());
+        return props;
+    }
+
+    private String routedTopic(String level) {
+        return xform.apply(new SourceRecord(null, null, "logs", 0, null, Collections.singletonMap("level", level))).topic();
+    }
+
+    @Test
+    public void rulesFileFirstMatchWins() throws IOException {
+        xform.configure(rulesFileProps(rulesFile("# alerts first", "FATAL|CRITICAL = alerts", "", "ERR=errors", "a=b=c=equals")));
+
+        assertEquals("alerts", routedTopic("CRITICAL"));
+        assertEquals("errors", routedTopic("ERROR"));
+        assertEquals("equals", routedTopic("x a=b=c"));
+        assertEquals("logs", routedTopic("INFO"));
+    }
+
+    @Test
+    public void rulesFileChangesAreWatched() throws Exception {
+        xform.configure(rulesFileProps(rulesFile("ERROR=errors")));
+        assertEquals("errors", routedTopic("ERROR"));
+
+        rulesFile("ERROR=errors-v2", "WARN=warnings");
+        final long deadline = System.nanoTime() + 30_000_000_000L;
+        while (!"errors-v2".equals(routedTopic("ERROR")) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("errors-v2", routedTopic("ERROR"));
+        assertEquals("warnings", routedTopic("WARN"));
+    }
+
+    @Test
+    public void brokenRulesFileKeepsPreviousRules() throws IOException {
+        xform.configure(rulesFileProps(rulesFile("ERROR=errors")));
+
+        rulesFile("ERROR=errors", "([unclosed=broken");
+        xform.reloadIfChanged();
+        assertEquals("errors", routedTopic("ERROR"));
+
+        rulesFile("no topic here");
+        xform.reloadIfChanged();
+        assertEquals("errors", routedTopic("ERROR"));
+
+        rulesFile("ERROR=fixed");
+        xform.reloadIfChanged();
+        assertEquals("fixed", routedTopic("ERROR"));
+    }
+
+    @Test
+    public void rulesConfigurationValidated() throws IOException {
+        final Map<String, String> noRules = new HashMap<>();
+        noRules.put("field.name", "level");
+        noRules.put("regex", "ERROR");
+        assertThrows(ConfigException.class, () -> xform.configure(noRules));
+
+        final Map<String, String> both = rulesFileProps(rulesFile("ERROR=errors"));
+        both.put("regex", "ERROR");
+        both.put("topic.name", "errors");
+        assertThrows(ConfigException.class, () -> xform.configure(both));
+
+        assertThrows(ConfigException.class, () -> xform.configure(rulesFileProps(dir.resolve("missing.txt"))));
+        assertThrows(ConfigException.class, () -> xform.configure(rulesFileProps(rulesFile("ERROR="))));
+    }
+
+    @Test
+    public void validateReportsMissingRule() {
+        final Map<String, String> props = new HashMap<>();
+        props.put("field.name", "level");
+        props.put("regex", "ERROR");
+        final Map<String, ConfigValue> values = validate(props);
+        assertTrue(values.get("regex").errorMessages().isEmpty());
+        assertFalse(values.get("topic.name").errorMessages().isEmpty());
+
+        props.put("topic.name", "errors");
+        assertTrue(validate(props).values().stream().allMatch(value -> value.errorMessages().isEmpty()));
+
+        props.remove("regex");
+        props.remove("topic.name");
+        props.put("rules.file", "routes.txt");
+        final Map<String, ConfigValue> fromFile = validate(props);
+        assertTrue(fromFile.values().stream().allMatch(value -> value.errorMessages().isEmpty()));
+        assertFalse(fromFile.get("regex").visible());
+
+        props.put("regex", "ERROR");
+        assertFalse(validate(props).get("regex").errorMessages().isEmpty());
+    }
+
+    private static Map<String, ConfigValue> validate(Map<String, String> props) {
+        final Map<String, ConfigValue> values = new HashMap<>();
+        for (ConfigValue value : RegexRouter.CONFIG_DEF.validate(props)) {
+            values.put(value.name(), value);
+        }
+        return values;
+    }
+
+    //a Kubernetes ConfigMap volume: routes.txt -> ..data/routes.txt, and ..data is a link swapped by a rename
+    @Test
+    public void rulesFileBehindSwappedSymlinkIsReloaded() throws Exception {
+        final Path first = Files.createDirectory(dir.resolve("..2024_01_01"));
+        Files.write(first.resolve("routes.txt"), Collections.singletonList("ERROR=errors"), StandardCharsets.UTF_8);
+        Files.createSymbolicLink(dir.resolve("..data"), first.getFileName());
+        final Path file = Files.createSymbolicLink(dir.resolve("routes.txt"), Paths.get("..data", "routes.txt"));
+        xform.configure(rulesFileProps(file));
+        assertEquals("errors", routedTopic("ERROR"));
+
+        final Path second = Files.createDirectory(dir.resolve("..2024_01_02"));
+        Files.write(second.resolve("routes.txt"), Collections.singletonList("ERROR=errors-v2"), StandardCharsets.UTF_8);
+        Files.createSymbolicLink(dir.resolve("..data_tmp"), second.getFileName());
+        Files.move(dir.resolve("..data_tmp"), dir.resolve("..data"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        final long deadline = System.nanoTime() + 30_000_000_000L;
+        while (!"errors-v2".equals(routedTopic("ERROR")) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("errors-v2", routedTopic("ERROR"));
+    }
+}
@@ -0,0 +1,132 @@
+package io.confluent.kafka.connect.transforms;
+
+import org.apache.kafka.connect.data.Decimal;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.data.Timestamp;
+import org.apache.kafka.connect.header.Header;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SizeRouterTest {
+
+    private static final Schema ADDRESS_SCHEMA = SchemaBuilder.struct()
+            .field("zip", Schema.INT32_SCHEMA)
+            .field("street", Schema.STRING_SCHEMA)
+            .build();
+
+    private static final Schema SCHEMA = SchemaBuilder.struct()
+            .field("id", Schema.INT64_SCHEMA)
+            .field("active", Schema.BOOLEAN_SCHEMA)
+            .field("score", Schema.OPTIONAL_FLOAT64_SCHEMA)
+            .field("name", Schema.STRING_SCHEMA)
+            .field("payload", Schema.OPTIONAL_BYTES_SCHEMA)
+            .field("tags", SchemaBuilder.array(Schema.STRING_SCHEMA).optional().build())
+            .field("counts", SchemaBuilder.map(Schema.INT32_SCHEMA, Schema.INT64_SCHEMA).optional().build())
+            .field("address", ADDRESS_SCHEMA)
+            .field("created", Timestamp.SCHEMA)
+            .field("price", Decimal.builder(2).optional().build())
+            .build();
+
+    private final SizeRouter<SourceRecord> xform = new SizeRouter<>();
+
+    @AfterEach
+    public void tearDown() {
+        xform.close();
+    }
+
+    private Map<String, String> props(long maxBytes) {
+        final Map<String, String> props = new HashMap<>();
+        props.put("max.bytes", String.valueOf(maxBytes));
+        props.put("overflow.topic", "oversized");
+        return props;
+    }
+
+    private static Struct value(String name, int payloadBytes) {
+        final Map<Integer, Long> counts = new HashMap<>();
+        counts.put(1, 10L);
+        counts.put(2, 20L);
+        return new Struct(SCHEMA)
+                .put("id", 42L)
+                .put("active", true)
+                .put("name", name)
+                .put("payload", new byte[payloadBytes])
+                .put("tags", Arrays.asList("a", "bc"))
+                .put("counts", counts)
+                .put("address", new Struct(ADDRESS_SCHEMA).put("zip", 12345).put("street", "Main St"))
+                .put("created", new Date(0))
+                .put("price", new BigDecimal("12.34"));
+    }
+
+    @Test
+    public void estimatesStructWithoutSerializing() {
+        xform.configure(props(1000));
+        //fixed: id 8 + active 1 + score 8 + created 8; name 4, payload 100, tags 3, counts 2 * 12, address 4 + 7, price 2
+        assertEquals(8 + 1 + 8 + 8 + 4 + 100 + 3 + 24 + 11 + 2, xform.estimate(SCHEMA, value("jane", 100)));
+        assertEquals(0, xform.estimate(SCHEMA, null));
+        assertEquals(10, xform.estimate(Schema.BYTES_SCHEMA, ByteBuffer.wrap(new byte[20], 5, 10)));
+    }
+
+    @Test
+    public void estimatesSchemaless() {
+        xform.configure(props(1000));
+        final Map<String, Object> value = new HashMap<>();
+        value.put("id", 42L);
+        value.put("name", "jane");
+        value.put("tags", Arrays.asList("a", 1));
+        value.put("raw", new byte[16]);
+        //keys 2 + 4 + 4 + 3, values 8 + 4 + 1 + 4 + 16
+        assertEquals(13 + 33, xform.estimate(null, value));
+        assertEquals(5, xform.estimate(null, "hello"));
+        assertEquals(2 + 8, xform.estimate(null, Collections.singletonMap("ts", new Date(0))));
+    }
+
+    @Test
+    public void routesOversizedRecords() {
+        xform.configure(props(1000));
+        final SourceRecord small = new SourceRecord(null, null, "events", 0, Schema.STRING_SCHEMA, "key", SCHEMA, value("jane", 100));
+        assertSame(small, xform.apply(small));
+
+        final SourceRecord large = new SourceRecord(null, null, "events", 0, Schema.STRING_SCHEMA, "key", SCHEMA, value("jane", 2000));
+        final SourceRecord routed = xform.apply(large);
+        assertEquals("oversized", routed.topic());
+        assertSame(large.value(), routed.value());
+        assertSame(large.key(), routed.key());
+    }
+
+    @Test
+    public void keyCountsTowardsTheLimit() {
+        xform.configure(props(10));
+        final SourceRecord record = new SourceRecord(null, null, "events", 0, null, "a long key here", null, "v");
+        assertEquals("oversized", xform.apply(record).topic());
+        final SourceRecord tombstone = new SourceRecord(null, null, "events", 0, null, "k", null, null);
+        assertSame(tombstone, xform.apply(tombstone));
+    }
+
+    @Test
+    public void writesSizeHeader() {
+        final Map<String, String> props = props(1000);
+        props.put("size.header", "estimated-size");
+        xform.configure(props);
+
+        final SourceRecord record = new SourceRecord(null, null, "events", 0, null, "key", null, "value");
+        final SourceRecord transformed = xform.apply(record);
+        final Header header = transformed.headers().lastWithName("estimated-size");
+        assertEquals(8L, header.value());
+        assertEquals(Schema.INT64_SCHEMA, header.schema());
+        assertEquals("events", transformed.topic());
+        assertTrue(record.headers().isEmpty());
+    }
+}
@@ -0,0 +1,139 @@
+package io.confluent.kafka.connect.transforms;
+
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.data.Timestamp;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimeBucketRouterTest {
+
+    private static final long JAN_15_2024_1030 = Instant.parse("2024-01-15T10:30:00Z").toEpochMilli();
+
+    private final TimeBucketRouter<SourceRecord> xform = new TimeBucketRouter<>();
+
+    @AfterEach
+    public void tearDown() {
+        xform.close();
+    }
+
+    private static SourceRecord record(Long timestamp) {
+        return new SourceRecord(null, null, "logs", 0, null, null, null, "value", timestamp);
+    }
+
+    @Test
+    public void routesByDailyBucketOfRecordTimestamp() {
+        xform.configure(Collections.emptyMap());
+        final SourceRecord transformed = xform.apply(record(JAN_15_2024_1030));
+
+        assertEquals("logs-20240115", transformed.topic());
+        assertEquals("value", transformed.value());
+        assertEquals("logs-20240115", xform.apply(record(Instant.parse("2024-01-15T23:59:59.999Z").toEpochMilli())).topic());
+        assertEquals("logs-20240116", xform.apply(record(Instant.parse("2024-01-16T00:00:00Z").toEpochMilli())).topic());
+        assertEquals("logs-19691231", xform.apply(record(-1L)).topic());
+    }
+
+    @Test
+    public void hourlyBucketsWithCustomFormat() {
+        final Map<String, String> props = new HashMap<>();
+        props.put("partition.duration.ms", "3600000");
+        props.put("timestamp.format", "yyyy.MM.dd.HH");
+        props.put("topic.format", "hourly.${topic}.${timestamp}");
+        xform.configure(props);
+
+        assertEquals("hourly.logs.2024.01.15.10", xform.apply(record(JAN_15_2024_1030)).topic());
+        assertEquals("hourly.logs.2024.01.15.11", xform.apply(record(JAN_15_2024_1030 + 1800000)).topic());
+    }
+
+    @Test
+    public void bucketsAlignToLocalTimeZone() {
+        final Map<String, String> props = new HashMap<>();
+        props.put("timezone", "America/New_York");
+        xform.configure(props);
+
+        //03:00 UTC is still the previous day in New York
+        assertEquals("logs-20240114", xform.topic("logs", Instant.parse("2024-01-15T03:00:00Z").toEpochMilli()));
+        assertEquals("logs-20240115", xform.topic("logs", Instant.parse("2024-01-15T05:00:00Z").toEpochMilli()));
+        //the 23 hour day when clocks move forward
+        assertEquals("logs-20240310", xform.topic("logs", Instant.parse("2024-03-11T03:59:59Z").toEpochMilli()));
+        assertEquals("logs-20240311", xform.topic("logs", Instant.parse("2024-03-11T04:00:00Z").toEpochMilli()));
+    }
+
+    @Test
+    public void sameBucketReusesTopicString() {
+        xform.configure(Collections.emptyMap());
+        final String first = xform.topic("logs", JAN_15_2024_1030);
+        final String next = xform.topic("logs", JAN_15_2024_1030 + 1000);
+        final String nextDay = xform.topic("logs", JAN_15_2024_1030 + 86400000L);
+        final String back = xform.topic("logs", JAN_15_2024_1030 + 2000);
+
+        assertSame(first, next);
+        assertEquals("logs-20240116", nextDay);
+        assertSame(first, back);
+        assertEquals("other-20240115", xform.topic("other", JAN_15_2024_1030));
+    }
+
+    @Test
+    public void routesByTimestampField() {
+        final Map<String, String> props = new HashMap<>();
+        props.put("timestamp.extractor", "RecordField");
+        props.put("timestamp.field", "event.time");
+        xform.configure(props);
+
+        final Schema eventSchema = SchemaBuilder.struct().field("time", Timestamp.SCHEMA).build();
+        final Schema schema = SchemaBuilder.struct().field("event", eventSchema).build();
+        final Struct value = new Struct(schema).put("event", new Struct(eventSchema).put("time", new Date(JAN_15_2024_1030)));
+        assertEquals("logs-20240115", xform.apply(new SourceRecord(null, null, "logs", 0, schema, value)).topic());
+
+        assertEquals("logs-20240201", xform.apply(schemaless(Instant.parse("2024-02-01T00:00:00Z").toEpochMilli())).topic());
+        assertEquals("logs-20240301", xform.apply(schemaless("2024-03-01T12:00:00+02:00")).topic());
+        assertEquals("logs-20240302", xform.apply(schemaless("2024-03-01T23:00:00-02:00")).topic());
+        assertEquals("logs-20240401", xform.apply(schemaless("2024-04-01T10:00:00")).topic());
+    }
+
+    private static SourceRecord schemaless(Object time) {
+        return new SourceRecord(null, null, "logs", 0, null, Collections.singletonMap("event", Collections.singletonMap("time", time)));
+    }
+
+    @Test
+    public void invalidTimestampsFail() {
+        xform.configure(Collections.emptyMap());
+        assertThrows(DataException.class, () -> xform.apply(record(null)));
+
+        final Map<String, String> props = new HashMap<>();
+        props.put("timestamp.extractor", "RecordField");
+        props.put("timestamp.field", "event.time");
+        xform.configure(props);
+        assertThrows(DataException.class, () -> xform.apply(schemaless("yesterday")));
+        assertThrows(DataException.class, () -> xform.apply(schemaless(null)));
+        assertThrows(DataException.class, () -> xform.apply(new SourceRecord(null, null, "logs", 0, null, "text")));
+        final Schema schema = SchemaBuilder.struct().field("other", Schema.INT64_SCHEMA).build();
+        assertThrows(DataException.class, () -> xform.apply(new SourceRecord(null, null, "logs", 0, schema, new Struct(schema).put("other", 1L))));
+    }
+
+    @Test
+    public void wallclockUsesCurrentTime() {
+        xform.configure(Collections.singletonMap("timestamp.extractor", "Wallclock"));
+        assertTrue(xform.apply(record(0L)).topic().startsWith("logs-20"));
+    }
+
+    @Test
+    public void invalidConfigsFail() {
+        assertThrows(ConfigException.class, () -> xform.configure(Collections.singletonMap("timezone", "Mars/Olympus")));
+        assertThrows(ConfigException.class, () -> xform.configure(Collections.singletonMap("timestamp.format", "yyyy{")));
+        assertThrows(ConfigException.class, () -> xform.configure(Collections.singletonMap("partition.duration.ms", "0")));
+        assertThrows(ConfigException.class, () -> xform.configure(Collections.singletonMap("timestamp.extractor", "Header")));
+    }
+}
@@ -0,0 +1,234 @@
+package io.confluent.kafka.connect.transforms;
+
+import io.confluent.kafka.connect.AllocationMeter;
+import io.confluent.kafka.connect.lookup.RouteIndexBuilder;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.apache.kafka.connect.transforms.Transformation;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.confluent.kafka.connect.AllocationMeter.assertWithinBudget;
+import static io.confluent.kafka.connect.AllocationMeter.budget;
+
+/**
+ * Bytes allocated per {@code apply()} for every transform and mode. Each budget is the measured allocation of the path
+ * (output record, Struct, generated values) with the margin of {@link AllocationMeter#budget}, so a new per-record copy
+ * or String operation fails the build. Record the new measurement when a path gets leaner.
+ */
+@Tag(AllocationMeter.TAG)
+public class TransformAllocationTest {
+
+    private static final int FIELDS = 8;
+
+    private static final Schema KEY_SCHEMA = SchemaBuilder.struct()
+            .field("host", Schema.STRING_SCHEMA)
+            .build();
+
+    private static final Schema VALUE_SCHEMA;
+
+    static {
+        final SchemaBuilder builder = SchemaBuilder.struct().field("level", Schema.STRING_SCHEMA);
+        for (int f = 0; f < FIELDS; f++) {
+            builder.field("f" + f, Schema.OPTIONAL_STRING_SCHEMA);
+        }
+        VALUE_SCHEMA = builder.build();
+    }
+
+    private static final SourceRecord[] STRUCT_RECORDS = new SourceRecord[16];
+    private static final SourceRecord[] MAP_RECORDS = new SourceRecord[16];
+
+    static {
+        for (int i = 0; i < STRUCT_RECORDS.length; i++) {
+            final String level = i % 2 == 0 ? "ERROR" : "INFO";
+            final Struct value = new Struct(VALUE_SCHEMA).put("level", level);
+            final Map<String, Object> mapValue = new HashMap<>();
+            mapValue.put("level", level);
+            for (int f = 0; f < FIELDS; f++) {
+                value.put("f" + f, "value" + f);
+                mapValue.put("f" + f, "value" + f);
+            }
+            final Map<String, Object> mapKey = new HashMap<>();
+            mapKey.put("host", "10.0.0." + i);
+
+            STRUCT_RECORDS[i] = new SourceRecord(null, null, "logs", 0, KEY_SCHEMA, new Struct(KEY_SCHEMA).put("host", "10.0.0." + i),
+                    VALUE_SCHEMA, value, 0L);
+            MAP_RECORDS[i] = new SourceRecord(null, null, "logs", 0, null, mapKey, null, mapValue, 0L);
+        }
+    }
+
+    private static <T extends Transformation<SourceRecord>> T configured(T transform, String... props) {
+        final Map<String, Object> configs = new HashMap<>();
+        for (int i = 0; i < props.length; i += 2) {
+            configs.put(props[i], props[i + 1]);
+        }
+        transform.configure(configs);
+        return transform;
+    }
+
+    private static void assertApplyWithinBudget(String path, long budgetBytes, Transformation<SourceRecord> transform, SourceRecord[] records) {
+        try {
+            assertWithinBudget(path, budgetBytes, i -> transform.apply(records[i & (records.length - 1)]));
+        } finally {
+            transform.close();
+        }
+    }
+
+    @Test
+    public void keyToValue() {
+        assertApplyWithinBudget("KeyToValue schemaless", budget(112),
+                configured(new KeyToValue<>(), "keyField", "host", "msgField", "ip"), MAP_RECORDS);
+        assertApplyWithinBudget("KeyToValue with schema", budget(1840),
+                configured(new KeyToValue<>(), "keyField", "host", "msgField", "ip"), STRUCT_RECORDS);
+        //a converter reads every entry of the output; the view wraps each base entry in one small object
+        final KeyToValue<SourceRecord> keyToValue = configured(new KeyToValue<>(), "keyField", "host", "msgField", "ip");
+        try {
+            assertWithinBudget("KeyToValue schemaless iterated", budget(440), i -> {
+                int size = 0;
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) keyToValue.apply(MAP_RECORDS[i & (MAP_RECORDS.length - 1)]).value()).entrySet()) {
+                    size += entry.getValue() == null ? 0 : 1;
+                }
+                return size;
+            });
+        } finally {
+            keyToValue.close();
+        }
+        assertApplyWithinBudget("KeyToValue header", budget(176),
+                configured(new KeyToValue<>(), "keyField", "host", "msgField", "ip", "target", "header"), STRUCT_RECORDS);
+    }
+
+    @Test
+    public void insertUuid() {
+        assertApplyWithinBudget("InsertUuid.Value schemaless", budget(320),
+                configured(new InsertUuid.Value<>()), MAP_RECORDS);
+        assertApplyWithinBudget("InsertUuid.Value with schema", budget(656),
+                configured(new InsertUuid.Value<>()), STRUCT_RECORDS);
+        assertApplyWithinBudget("InsertUuid.Key schemaless", budget(320),
+                configured(new InsertUuid.Key<>()), MAP_RECORDS);
+        assertApplyWithinBudget("InsertUuid.Key with schema", budget(413),
+                configured(new InsertUuid.Key<>()), STRUCT_RECORDS);
+        assertApplyWithinBudget("InsertUuid header", budget(383),
+                configured(new InsertUuid.Value<>(), "target", "header"), STRUCT_RECORDS);
+    }
+
+    @Test
+    public void insertTimestamp() {
+        assertApplyWithinBudget("InsertTimestamp.Value schemaless", budget(136),
+                configured(new InsertTimestamp.Value<>(), "ts.field.name", "ts"), MAP_RECORDS);
+        assertApplyWithinBudget("InsertTimestamp.Value with schema", budget(448),
+                configured(new InsertTimestamp.Value<>(), "ts.field.name", "ts"), STRUCT_RECORDS);
+        assertApplyWithinBudget("InsertTimestamp.Key schemaless", budget(136),
+                configured(new InsertTimestamp.Key<>(), "ts.field.name", "ts"), MAP_RECORDS);
+        assertApplyWithinBudget("InsertTimestamp.Key with schema", budget(225),
+                configured(new InsertTimestamp.Key<>(), "ts.field.name", "ts"), STRUCT_RECORDS);
+        assertApplyWithinBudget("InsertTimestamp header", budget(200),
+                configured(new InsertTimestamp.Value<>(), "ts.field.name", "ts", "target", "header"), STRUCT_RECORDS);
+    }
+
+    @Test
+    public void normalizeIp() {
+        assertApplyWithinBudget("NormalizeIp.Key schemaless int64", budget(168),
+                configured(new NormalizeIp.Key<>(), "field.name", "host", "format", "int64"), MAP_RECORDS);
+        assertApplyWithinBudget("NormalizeIp.Key with schema bytes", budget(232),
+                configured(new NormalizeIp.Key<>(), "field.name", "host", "format", "bytes"), STRUCT_RECORDS);
+        assertApplyWithinBudget("NormalizeIp.Key with schema text", budget(395),
+                configured(new NormalizeIp.Key<>(), "field.name", "host", "format", "text"), STRUCT_RECORDS);
+    }
+
+    @Test
+    public void regexRouter() {
+        assertApplyWithinBudget("RegexRouter schemaless", budget(236),
+                configured(new RegexRouter<>(), "field.name", "level", "regex", "ERROR", "topic.name", "errors"), MAP_RECORDS);
+        assertApplyWithinBudget("RegexRouter with schema", budget(236),
+                configured(new RegexRouter<>(), "field.name", "level", "regex", "ERROR", "topic.name", "errors"), STRUCT_RECORDS);
+    }
+
+    @Test
+    public void regexExtract() {
+        assertApplyWithinBudget("RegexExtract schemaless", budget(848),
+                configured(new RegexExtract<>(), "field.name", "f1", "regex", "(?<name>[a-z]+)(?<index>\\d+)", "types", "index:int32"), MAP_RECORDS);
+        assertApplyWithinBudget("RegexExtract with schema", budget(472),
+                configured(new RegexExtract<>(), "field.name", "f1", "regex", "(?<name>[a-z]+)(?<index>\\d+)", "types", "index:int32"), STRUCT_RECORDS);
+    }
+
+    @Test
+    public void redact() {
+        //nothing to mask: the record is returned as it is
+        assertApplyWithinBudget("Redact schemaless no match", budget(0),
+                configured(new Redact<>(), "fields", "f1,f2"), MAP_RECORDS);
+        assertApplyWithinBudget("Redact with schema no match", budget(0),
+                configured(new Redact<>(), "fields", "f1,f2"), STRUCT_RECORDS);
+        assertApplyWithinBudget("Redact with schema", budget(232),
+                configured(new Redact<>(), "fields", "f1", "patterns", "value", "patterns.value.regex", "value"), STRUCT_RECORDS);
+    }
+
+    @Test
+    public void sizeRouter() {
+        //the entry iterators of the key and value maps
+        assertApplyWithinBudget("SizeRouter schemaless", budget(80),
+                configured(new SizeRouter<>(), "overflow.topic", "oversized"), MAP_RECORDS);
+        assertApplyWithinBudget("SizeRouter with schema", budget(0),
+                configured(new SizeRouter<>(), "overflow.topic", "oversized"), STRUCT_RECORDS);
+        assertApplyWithinBudget("SizeRouter overflow", budget(72),
+                configured(new SizeRouter<>(), "overflow.topic", "oversized", "max.bytes", "16"), STRUCT_RECORDS);
+    }
+
+    @Test
+    public void timeBucketRouter() {
+        //every record is in the same bucket, so the cached topic is reused
+        assertApplyWithinBudget("TimeBucketRouter schemaless", budget(72),
+                configured(new TimeBucketRouter<>()), MAP_RECORDS);
+        assertApplyWithinBudget("TimeBucketRouter with schema", budget(72),
+                configured(new TimeBucketRouter<>()), STRUCT_RECORDS);
+    }
+
+    @Test
+    public void prefixRouter() {
+        assertApplyWithinBudget("PrefixRouter schemaless", budget(36),
+                configured(new PrefixRouter<>(), "field.name", "level", "rules", "ERR=errors,WARN=warnings"), MAP_RECORDS);
+        assertApplyWithinBudget("PrefixRouter with schema", budget(36),
+                configured(new PrefixRouter<>(), "field.name", "level", "rules", "ERR=errors,WARN=warnings"), STRUCT_RECORDS);
+    }
+
+    @Test
+    public void lookupRouter(@TempDir Path dir) throws IOException {
+        final Path input = dir.resolve("levels.csv");
+        Files.write(input, Arrays.asList("level,topic", "ERROR,errors", "WARN,warnings"), StandardCharsets.UTF_8);
+        final String routes = dir.resolve("levels.routes").toString();
+        RouteIndexBuilder.build(input, dir.resolve("levels.routes"), ',');
+
+        assertApplyWithinBudget("LookupRouter schemaless", budget(36),
+                configured(new LookupRouter<>(), "field.name", "level", "lookup.file", routes), MAP_RECORDS);
+        assertApplyWithinBudget("LookupRouter with schema", budget(36),
+                configured(new LookupRouter<>(), "field.name", "level", "lookup.file", routes), STRUCT_RECORDS);
+    }
+
+    @Test
+    public void fusedChain() {
+        final String[] chain = {
+                "stages", "k2v,uuid,ts,route",
+                "stages.k2v.type", KeyToValue.class.getName(),
+                "stages.k2v.keyField", "host",
+                "stages.k2v.msgField", "ip",
+                "stages.uuid.type", InsertUuid.Value.class.getName(),
+                "stages.ts.type", InsertTimestamp.Value.class.getName(),
+                "stages.ts.ts.field.name", "ts",
+                "stages.route.type", RegexRouter.class.getName(),
+                "stages.route.field.name", "level",
+                "stages.route.regex", "ERROR",
+                "stages.route.topic.name", "errors"};
+        assertApplyWithinBudget("FusedChain schemaless", budget(1128), configured(new FusedChain<>(), chain), MAP_RECORDS);
+        assertApplyWithinBudget("FusedChain with schema", budget(1018), configured(new FusedChain<>(), chain), STRUCT_RECORDS);
+    }
+}